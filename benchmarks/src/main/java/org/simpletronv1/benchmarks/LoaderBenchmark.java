@@ -0,0 +1,61 @@
+package org.simpletronv1.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simpletronv1.logic.ProgramCache;
+import org.simpletronv1.logic.SimpletronLogic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede o carregamento dos programas de exemplo ({@link SimpletronLogic#carregarPrograma(String[])}),
+ * o mesmo carregamento atendido pelo {@link ProgramCache} (sempre um acerto) e a geração do dump exibido pela interface gráfica e pelo relatório
+ * ({@link SimpletronLogic#obterDumpComoString()}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoaderBenchmark {
+
+    @Param({"fatorial.txt", "produtorio.sml", "somar_loop.sml", "maior.sml"})
+    public String arquivo;
+
+    private final SimpletronLogic maquina = new SimpletronLogic();
+    private final ProgramCache cache = new ProgramCache(16);
+    private String[] linhas;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        linhas = Programas.linhas(arquivo);
+        Programas.carregar(maquina, linhas);
+        cache.carregar(maquina, linhas);
+    }
+
+    @Benchmark
+    public String carregarPrograma() {
+        return maquina.carregarPrograma(linhas);
+    }
+
+    @Benchmark
+    public String carregarDoCache() {
+        return cache.carregar(maquina, linhas);
+    }
+
+    @Benchmark
+    public String obterDump() {
+        return maquina.obterDumpComoString();
+    }
+}
@@ -0,0 +1,98 @@
+package org.simpletronv1.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simpletronv1.logic.ArrayInputChannel;
+import org.simpletronv1.logic.ArrayOutputChannel;
+import org.simpletronv1.logic.CompiledEngine;
+import org.simpletronv1.logic.SimpletronLogic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Programas sintéticos de laço longo, sem entrada e saída, que medem o custo do ciclo de busca,
+ * decodificação e execução. A vazão em instruções por segundo é dada pelo contador auxiliar
+ * "instrucoes" (ver {@link ProgramBenchmark.Contadores}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LoopBenchmark {
+
+    /** Conta de 9999 até zero: ~50 mil instruções. */
+    static final String[] CONTAGEM = {
+            "+2010", // 00: LOAD contador
+            "+3111", // 01: SUBTRACT um
+            "+2110", // 02: STORE contador
+            "+4205", // 03: BRANCHZERO fim
+            "+4000", // 04: BRANCH início
+            "+4300", // 05: HALT
+            "", "", "", "",
+            "+9999", // 10: contador
+            "+0001", // 11: um
+    };
+
+    /** Repete a contagem de 9999 até zero 50 vezes: ~2,5 milhões de instruções. */
+    static final String[] ANINHADO = {
+            "+2030", // 00: LOAD externo
+            "+4212", // 01: BRANCHZERO fim
+            "+3132", // 02: SUBTRACT um
+            "+2130", // 03: STORE externo
+            "+2033", // 04: LOAD inicial
+            "+2131", // 05: STORE interno
+            "+2031", // 06: LOAD interno
+            "+3132", // 07: SUBTRACT um
+            "+2131", // 08: STORE interno
+            "+4200", // 09: BRANCHZERO externo
+            "+4006", // 10: BRANCH interno
+            "",
+            "+4300", // 12: HALT
+            "", "", "", "", "", "", "", "", "", "", "", "", "", "", "", "", "",
+            "+0050", // 30: externo
+            "+0000", // 31: interno
+            "+0001", // 32: um
+            "+9999", // 33: inicial
+    };
+
+    @Param({"contagem", "aninhado"})
+    public String programa;
+
+    @Param({Programas.PASSO_A_PASSO, Programas.INTERPRETADOR, Programas.COMPILADO})
+    public String mecanismo;
+
+    private final SimpletronLogic maquina = new SimpletronLogic();
+    private final ArrayInputChannel entrada = new ArrayInputChannel();
+    private final ArrayOutputChannel saida = new ArrayOutputChannel();
+    private CompiledEngine compilado;
+    private int[] imagem;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Programas.carregar(maquina, programa.equals("contagem") ? CONTAGEM : ANINHADO);
+        imagem = maquina.getMemory().clone();
+        maquina.conectarCanais(entrada, saida);
+        if (mecanismo.equals(Programas.COMPILADO)) {
+            compilado = CompiledEngine.compilar(maquina);
+        }
+    }
+
+    @Benchmark
+    public int executarLaco(ProgramBenchmark.Contadores contadores) {
+        Programas.restaurar(maquina, imagem);
+        contadores.instrucoes += Programas.executar(mecanismo, maquina, compilado, entrada, saida, Long.MAX_VALUE);
+        return maquina.getAccumulator();
+    }
+}
@@ -0,0 +1,118 @@
+package org.simpletronv1.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simpletronv1.logic.ArrayInputChannel;
+import org.simpletronv1.logic.ArrayOutputChannel;
+import org.simpletronv1.logic.CompiledEngine;
+import org.simpletronv1.logic.SimpletronLogic;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Microbenchmarks por código de operação.
+ *
+ * Cada programa repete a mesma instrução nas posições 00 a 97, sobre o dado da posição 99, e
+ * volta ao início com um BRANCH na posição 98; os desvios condicionais usam a própria célula como
+ * destino ou não são tomados. Como cada operação executa exatamente {@link #PASSOS} instruções,
+ * o resultado é dado em instruções por segundo e, com "-prof gc", gc.alloc.rate.norm é a
+ * alocação por instrução.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OpcodeBenchmark {
+
+    static final int PASSOS = 100_000;
+
+    @Param({"READ", "WRITE", "LOAD", "STORE", "ADD", "SUBTRACT", "DIVIDE", "MULTIPLY",
+            "BRANCH", "BRANCHNEG", "BRANCHZERO"})
+    public String operacao;
+
+    @Param({Programas.PASSO_A_PASSO, Programas.INTERPRETADOR, Programas.COMPILADO})
+    public String mecanismo;
+
+    private final SimpletronLogic maquina = new SimpletronLogic();
+    private final ArrayOutputChannel saida = new ArrayOutputChannel();
+    private final ArrayInputChannel entrada = new ArrayInputChannel(zeros(PASSOS));
+    private CompiledEngine compilado;
+    private int[] imagem;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Programas.carregar(maquina, programa(operacao));
+        imagem = maquina.getMemory().clone();
+        maquina.conectarCanais(entrada, saida);
+        if (mecanismo.equals(Programas.COMPILADO)) {
+            compilado = CompiledEngine.compilar(maquina);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PASSOS)
+    public long executarOperacao() {
+        Programas.restaurar(maquina, imagem);
+        entrada.reiniciar();
+        saida.limpar();
+        return Programas.executar(mecanismo, maquina, compilado, entrada, saida, PASSOS);
+    }
+
+    /**
+     * Monta o programa que repete a operação. O acumulador começa em zero e permanece em zero:
+     * o dado da posição 99 vale 0 para ADD e SUBTRACT e 1 para as demais operações (DIVIDE).
+     */
+    static String[] programa(String operacao) {
+        String[] linhas = new String[100];
+        switch (operacao) {
+            case "BRANCH":
+                Arrays.fill(linhas, "+0000");
+                linhas[0] = "+4000";
+                break;
+            case "BRANCHZERO":
+                Arrays.fill(linhas, "+0000");
+                linhas[0] = "+4200"; // Acumulador zero: sempre tomado
+                break;
+            case "BRANCHNEG":
+                Arrays.fill(linhas, 0, 98, "+4199"); // Acumulador zero: nunca tomado
+                break;
+            default:
+                int codigo = switch (operacao) {
+                    case "READ" -> SimpletronLogic.READ;
+                    case "WRITE" -> SimpletronLogic.WRITE;
+                    case "LOAD" -> SimpletronLogic.LOAD;
+                    case "STORE" -> SimpletronLogic.STORE;
+                    case "ADD" -> SimpletronLogic.ADD;
+                    case "SUBTRACT" -> SimpletronLogic.SUBTRACT;
+                    case "DIVIDE" -> SimpletronLogic.DIVIDE;
+                    case "MULTIPLY" -> SimpletronLogic.MULTIPLY;
+                    default -> throw new IllegalArgumentException("Operação desconhecida: " + operacao);
+                };
+                Arrays.fill(linhas, 0, 98, String.format("+%04d", codigo * 100 + 99));
+                break;
+        }
+        if (linhas[98] == null) {
+            linhas[98] = "+4000";
+            linhas[99] = operacao.equals("ADD") || operacao.equals("SUBTRACT") ? "+0000" : "+0001";
+        }
+        return linhas;
+    }
+
+    private static int[] zeros(int quantidade) {
+        return new int[quantidade];
+    }
+}
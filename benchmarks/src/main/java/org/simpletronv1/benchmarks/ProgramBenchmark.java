@@ -0,0 +1,83 @@
+package org.simpletronv1.benchmarks;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.simpletronv1.logic.ArrayInputChannel;
+import org.simpletronv1.logic.ArrayOutputChannel;
+import org.simpletronv1.logic.CompiledEngine;
+import org.simpletronv1.logic.SimpletronLogic;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Executa os programas de exemplo do projeto, do início ao HALT, com cada mecanismo de execução.
+ *
+ * Cada operação restaura a imagem carregada e executa o programa inteiro. O contador auxiliar
+ * "instrucoes" informa a vazão em instruções por segundo; com "-prof gc", gc.alloc.rate.norm
+ * é a alocação por execução completa do programa.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProgramBenchmark {
+
+    @Param({"fatorial.txt", "produtorio.sml", "somar_loop.sml", "maior.sml"})
+    public String arquivo;
+
+    @Param({Programas.PASSO_A_PASSO, Programas.INTERPRETADOR, Programas.COMPILADO})
+    public String mecanismo;
+
+    private final SimpletronLogic maquina = new SimpletronLogic();
+    private final ArrayOutputChannel saida = new ArrayOutputChannel();
+    private ArrayInputChannel entrada;
+    private CompiledEngine compilado;
+    private int[] imagem;
+
+    /**
+     * Quantidade de instruções executadas, relatada pelo JMH como vazão.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Contadores {
+        public long instrucoes;
+
+        @Setup(Level.Iteration)
+        public void zerar() {
+            instrucoes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        Programas.carregar(maquina, Programas.linhas(arquivo));
+        imagem = maquina.getMemory().clone();
+        entrada = new ArrayInputChannel(Programas.entradas(arquivo));
+        maquina.conectarCanais(entrada, saida);
+        if (mecanismo.equals(Programas.COMPILADO)) {
+            compilado = CompiledEngine.compilar(maquina);
+        }
+    }
+
+    @Benchmark
+    public int executarPrograma(Contadores contadores) {
+        Programas.restaurar(maquina, imagem);
+        entrada.reiniciar();
+        saida.limpar();
+        contadores.instrucoes += Programas.executar(mecanismo, maquina, compilado, entrada, saida, Long.MAX_VALUE);
+        return maquina.getAccumulator();
+    }
+}
@@ -0,0 +1,114 @@
+package org.simpletronv1.benchmarks;
+
+import org.simpletronv1.logic.ArrayInputChannel;
+import org.simpletronv1.logic.ArrayOutputChannel;
+import org.simpletronv1.logic.CompiledEngine;
+import org.simpletronv1.logic.ExecutionResult;
+import org.simpletronv1.logic.HaltReason;
+import org.simpletronv1.logic.SimpletronLogic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Utilitários comuns aos benchmarks: leitura dos programas de exemplo empacotados no jar,
+ * entradas usadas por cada um e execução da máquina com cada um dos mecanismos.
+ */
+final class Programas {
+
+    /** Mecanismos de execução comparados pelos benchmarks. */
+    static final String PASSO_A_PASSO = "executarPasso";
+    static final String INTERPRETADOR = "run";
+    static final String COMPILADO = "compilado";
+
+    private Programas() {
+    }
+
+    /**
+     * @return as linhas de um dos programas de exemplo da raiz do projeto.
+     */
+    static String[] linhas(String arquivo) {
+        try (InputStream in = Programas.class.getResourceAsStream("/" + arquivo)) {
+            if (in == null) {
+                throw new IllegalArgumentException("Programa não encontrado no jar: " + arquivo);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toArray(String[]::new);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Entradas de cada programa de exemplo. Os programas que leem até encontrar zero recebem
+     * uma sequência longa de 1 e -1, que mantém somas e produtos dentro de [-9999, 9999].
+     */
+    static int[] entradas(String arquivo) {
+        if (arquivo.equals("fatorial.txt")) {
+            return new int[]{7};
+        }
+        int[] valores = new int[4001];
+        for (int i = 0; i < valores.length - 1; i++) {
+            valores[i] = i % 2 == 0 ? 1 : -1;
+        }
+        return valores; // O último valor é 0 e encerra o laço
+    }
+
+    /**
+     * Carrega um programa, falhando o benchmark se ele for inválido.
+     */
+    static void carregar(SimpletronLogic maquina, String[] linhas) {
+        String erro = maquina.carregarPrograma(linhas);
+        if (erro != null) {
+            throw new IllegalStateException(erro);
+        }
+    }
+
+    /**
+     * Devolve a máquina à imagem carregada, sem interpretar o texto do programa novamente.
+     */
+    static void restaurar(SimpletronLogic maquina, int[] imagem) {
+        maquina.reiniciar();
+        for (int i = 0; i < imagem.length; i++) {
+            if (imagem[i] != 0) {
+                maquina.setMemoryAt(i, imagem[i]);
+            }
+        }
+    }
+
+    /**
+     * Executa a máquina com o mecanismo indicado até HALT, erro ou o limite de passos.
+     *
+     * @return a quantidade de instruções executadas.
+     */
+    static long executar(String mecanismo, SimpletronLogic maquina, CompiledEngine compilado,
+                         ArrayInputChannel entrada, ArrayOutputChannel saida, long maxPassos) {
+        switch (mecanismo) {
+            case PASSO_A_PASSO:
+                // Como a interface gráfica fazia: uma chamada por instrução, com os canais conectados
+                long inicio = maquina.getPassosExecutados();
+                while (maquina.getPassosExecutados() - inicio < maxPassos) {
+                    int codigo = maquina.executarPasso();
+                    if (codigo == SimpletronLogic.HALT || codigo < 0) {
+                        break;
+                    }
+                }
+                return maquina.getPassosExecutados() - inicio;
+            case INTERPRETADOR:
+                return verificar(maquina.run(maxPassos, entrada, saida));
+            case COMPILADO:
+                return verificar(compilado.run(maxPassos, entrada, saida));
+            default:
+                throw new IllegalArgumentException("Mecanismo desconhecido: " + mecanismo);
+        }
+    }
+
+    private static long verificar(ExecutionResult resultado) {
+        // Os laços sintéticos não têm HALT e terminam pelo limite de passos
+        if (resultado.isErro() && resultado.motivo() != HaltReason.STEP_LIMIT) {
+            throw new IllegalStateException("Execução terminou com erro: " + resultado);
+        }
+        return resultado.passos();
+    }
+}
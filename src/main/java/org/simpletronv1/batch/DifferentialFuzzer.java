@@ -0,0 +1,667 @@
+package org.simpletronv1.batch;
+
+import org.simpletronv1.logic.ArrayInputChannel;
+import org.simpletronv1.logic.ArrayOutputChannel;
+import org.simpletronv1.logic.CompiledEngine;
+import org.simpletronv1.logic.ExecutionProfiler;
+import org.simpletronv1.logic.ExecutionResult;
+import org.simpletronv1.logic.HaltReason;
+import org.simpletronv1.logic.MachineBank;
+import org.simpletronv1.logic.MachineConfig;
+import org.simpletronv1.logic.ProgramParser;
+import org.simpletronv1.logic.SimpletronLogic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.simpletronv1.logic.SimpletronLogic.*;
+
+/**
+ * A classe DifferentialFuzzer confere, com programas aleatórios, se todas as formas de executar um
+ * programa SML chegam ao mesmo resultado. Cada caso gerado (uma imagem de memória, as entradas e um
+ * limite de passos) é executado em cada {@link Mecanismo} disponível, e o resultado de cada um é
+ * comparado com o de {@link Mecanismo#PASSO_A_PASSO}, a referência: o motivo do término, os passos, o
+ * endereço final, os registradores, a memória e as saídas.
+ *
+ * O gerador favorece os casos de borda: STOREs e READs sobre as células de código (programas que
+ * modificam o próprio código), divisões por zero, somas e produtos perto do estouro, códigos de
+ * operação inválidos, entradas fora do intervalo ou insuficientes e limites de passos pequenos, que
+ * interrompem as superinstruções e o código compilado no meio. Uma parte dos casos é um texto inválido,
+ * usado para conferir se {@link SimpletronLogic#carregarPrograma(String[])} e {@link ProgramParser}
+ * aceitam e rejeitam os mesmos programas.
+ *
+ * Uma divergência é reduzida antes de ser relatada: células, entradas e passos são removidos ou
+ * simplificados enquanto a divergência continuar, até restar um programa pequeno. O programa reduzido
+ * é gravado como "divergencia-N.sml", com as entradas em "divergencia-N.in", executáveis com
+ * {@link SimpletronBatch}.
+ *
+ * Os casos são gerados e executados em paralelo, uma thread por núcleo, cada uma com as suas próprias
+ * máquinas; ao final são impressas as execuções por segundo.
+ *
+ * Uso:
+ * <pre>
+ *   java org.simpletronv1.batch.DifferentialFuzzer [-d segundos] [-t threads] [-s semente] [-o diretorio] [-M palavras] [-W digitos]
+ * </pre>
+ * - -d segundos: duração (padrão: 10).
+ * - -t threads: quantidade de threads (padrão: uma por núcleo).
+ * - -s semente: semente do gerador, para repetir uma sessão (padrão: aleatória); a thread i usa semente + i.
+ *   Com mais de uma thread, a quantidade de casos de cada uma depende do tempo, mas cada caso é reprodutível.
+ * - -o diretorio: onde gravar os programas reduzidos (padrão: o diretório atual).
+ * - -M palavras / -W digitos: a configuração das máquinas ({@link MachineConfig}). Fora da configuração
+ *   clássica não há {@link MachineBank}, e {@link CompiledEngine} executa pelo interpretador.
+ *
+ * O código de saída do processo é 0 se nenhuma divergência foi encontrada, 1 se alguma foi e 2 em caso
+ * de argumentos inválidos.
+ */
+public class DifferentialFuzzer {
+
+    /** As formas de executar um programa. */
+    public enum Mecanismo {
+        /** executarPasso() com os canais conectados, uma instrução por chamada: a referência. */
+        PASSO_A_PASSO,
+        /** run(), com a decodificação antecipada e as superinstruções. */
+        INTERPRETADOR,
+        /** run() com um perfilador conectado, que leva cada instrução pelo caminho individual. */
+        PERFILADO,
+        /** run() chamado várias vezes com limites pequenos (1, 2, 3, 5, 8, 13), retomando a execução a cada chamada. */
+        FATIADO,
+        /** run() com o otimizador; os passos não são comparados, pois o otimizador os reduz. */
+        OTIMIZADO,
+        /** {@link CompiledEngine}. */
+        COMPILADO,
+        /** {@link MachineBank#executar}, somente na configuração clássica. */
+        BANCO
+    }
+
+    /**
+     * Um caso de teste.
+     *
+     * @param linhas    o texto do programa (uma palavra por linha).
+     * @param entradas  os valores consumidos pelas instruções READ.
+     * @param maxPassos o limite de passos.
+     */
+    public record Caso(String[] linhas, int[] entradas, long maxPassos) {
+    }
+
+    /**
+     * O resultado observável de uma execução.
+     */
+    public record Execucao(HaltReason motivo, long passos, int endereco, int acumulador, int contador,
+                           int registrador, int[] memoria, int[] saidas) {
+
+        /**
+         * Descreve a execução; a memória é mostrada sem as células zeradas do final.
+         */
+        @Override
+        public String toString() {
+            int tamanho = memoria.length;
+            while (tamanho > 0 && memoria[tamanho - 1] == 0) {
+                tamanho--;
+            }
+            return motivo + ", " + passos + " passos, endereço " + endereco + ", acumulador " + acumulador
+                    + ", contador " + contador + ", registrador " + registrador + ", saídas " + Arrays.toString(saidas)
+                    + ", memória " + Arrays.toString(Arrays.copyOf(memoria, tamanho));
+        }
+    }
+
+    /**
+     * Uma divergência já reduzida.
+     *
+     * @param caso      o caso reduzido.
+     * @param descricao os resultados divergentes.
+     * @param arquivo   onde o programa reduzido foi gravado, ou null se não foi possível gravar.
+     */
+    public record Divergencia(Caso caso, String descricao, Path arquivo) {
+    }
+
+    public static final int DURACAO_PADRAO = 10;
+    public static final int MAXIMO_DE_DIVERGENCIAS = 10;
+
+    private static final int[] CODIGOS_VALIDOS = {READ, WRITE, LOAD, STORE, ADD, SUBTRACT, DIVIDE, MULTIPLY,
+            BRANCH, BRANCHNEG, BRANCHZERO, HALT};
+    // Textos rejeitados pelo carregador, além das palavras fora do intervalo
+    private static final String[] TEXTOS_INVALIDOS = {"abc", "+12a4", "--5", "+", "1 2", "99999999999", "0x10"};
+    // Limites de cada chamada de FATIADO, em ciclo; fixos para que um caso sempre se repita igual
+    private static final int[] FATIAS = {1, 2, 3, 5, 8, 13};
+
+    private final MachineConfig configuracao;
+    private final Path diretorio;
+    private final EnumSet<Mecanismo> mecanismos;
+    private final LongAdder casos = new LongAdder();
+    private final LongAdder execucoes = new LongAdder();
+    private final LongAdder casosDeCarga = new LongAdder();
+    private final List<Divergencia> divergencias = new ArrayList<>();
+    private final AtomicInteger encontradas = new AtomicInteger();
+
+    /**
+     * @param diretorio onde gravar os programas reduzidos, ou null para não gravar.
+     */
+    public DifferentialFuzzer(MachineConfig configuracao, Path diretorio) {
+        this.configuracao = configuracao;
+        this.diretorio = diretorio;
+        this.mecanismos = EnumSet.allOf(Mecanismo.class);
+        if (!configuracao.isClassica()) {
+            mecanismos.remove(Mecanismo.BANCO);
+        }
+    }
+
+    /**
+     * @return os mecanismos comparados nesta configuração.
+     */
+    public EnumSet<Mecanismo> getMecanismos() {
+        return EnumSet.copyOf(mecanismos);
+    }
+
+    /**
+     * Gera e executa casos em várias threads até o prazo terminar.
+     *
+     * @param threads   quantidade de threads.
+     * @param semente   semente da thread 0; a thread i usa semente + i.
+     * @param duracaoNanos a duração, em nanossegundos.
+     * @return as divergências encontradas (no máximo {@link #MAXIMO_DE_DIVERGENCIAS}), já reduzidas.
+     */
+    public List<Divergencia> executar(int threads, long semente, long duracaoNanos) throws InterruptedException {
+        long prazo = System.nanoTime() + duracaoNanos;
+        List<Thread> trabalhadores = new ArrayList<>(threads);
+        for (int i = 0; i < threads; i++) {
+            long sementeDaThread = semente + i;
+            Thread trabalhador = new Thread(() -> new Trabalhador(sementeDaThread).executar(prazo),
+                    "simpletron-fuzzer-" + i);
+            trabalhador.start();
+            trabalhadores.add(trabalhador);
+        }
+        for (Thread trabalhador : trabalhadores) {
+            trabalhador.join();
+        }
+        synchronized (divergencias) {
+            return new ArrayList<>(divergencias);
+        }
+    }
+
+    public long getCasos() {
+        return casos.sum();
+    }
+
+    /**
+     * @return a quantidade de execuções, somando todos os mecanismos.
+     */
+    public long getExecucoes() {
+        return execucoes.sum();
+    }
+
+    /**
+     * @return a quantidade de casos de texto inválido, que só conferem o carregamento.
+     */
+    public long getCasosDeCarga() {
+        return casosDeCarga.sum();
+    }
+
+    /**
+     * Executa um caso em todos os mecanismos, nas máquinas de um trabalhador.
+     *
+     * @return a descrição da divergência, ou null se todos os mecanismos concordaram.
+     */
+    private String comparar(Trabalhador trabalhador, Caso caso) {
+        String erroDeCarga = trabalhador.referencia.carregarPrograma(caso.linhas());
+        trabalhador.rejeitado = erroDeCarga != null;
+        boolean aceito = trabalhador.interpretador.analisar(String.join("\n", caso.linhas()));
+        if ((erroDeCarga == null) != aceito) {
+            return "Carregamento: carregarPrograma() " + (erroDeCarga == null ? "aceitou" : "rejeitou")
+                    + " e ProgramParser " + (aceito ? "aceitou" : "rejeitou") + " o programa";
+        }
+        if (erroDeCarga != null) {
+            return null;
+        }
+        int[] imagem = trabalhador.referencia.getMemory().clone();
+        trabalhador.interpretador.carregar(trabalhador.auxiliar);
+        if (!Arrays.equals(imagem, trabalhador.auxiliar.getMemory())) {
+            return "Carregamento: memória de carregarPrograma() " + Arrays.toString(imagem)
+                    + " e de ProgramParser " + Arrays.toString(trabalhador.auxiliar.getMemory());
+        }
+
+        Execucao referencia = trabalhador.executar(Mecanismo.PASSO_A_PASSO, caso, imagem);
+        for (Mecanismo mecanismo : mecanismos) {
+            if (mecanismo == Mecanismo.PASSO_A_PASSO) {
+                continue;
+            }
+            Execucao execucao = trabalhador.executar(mecanismo, caso, imagem);
+            if (!equivalentes(mecanismo, referencia, execucao)) {
+                return Mecanismo.PASSO_A_PASSO + ": " + referencia + "\n" + mecanismo + ": " + execucao;
+            }
+        }
+        return null;
+    }
+
+    private static boolean equivalentes(Mecanismo mecanismo, Execucao referencia, Execucao execucao) {
+        if (mecanismo == Mecanismo.OTIMIZADO) {
+            // Com menos passos, o otimizado pode terminar onde a referência atingiu o limite, e vice-versa
+            if (referencia.motivo() == HaltReason.STEP_LIMIT || execucao.motivo() == HaltReason.STEP_LIMIT) {
+                return true;
+            }
+        } else if (referencia.passos() != execucao.passos()) {
+            return false;
+        }
+        return referencia.motivo() == execucao.motivo() && referencia.endereco() == execucao.endereco()
+                && referencia.acumulador() == execucao.acumulador() && referencia.contador() == execucao.contador()
+                && referencia.registrador() == execucao.registrador()
+                && Arrays.equals(referencia.memoria(), execucao.memoria())
+                && Arrays.equals(referencia.saidas(), execucao.saidas());
+    }
+
+    /**
+     * Reduz um caso divergente: remove células do fim, zera e simplifica células, remove entradas e
+     * diminui o limite de passos, mantendo cada mudança somente se a divergência continuar.
+     */
+    private Caso reduzir(Trabalhador trabalhador, Caso caso) {
+        boolean mudou = true;
+        while (mudou) {
+            mudou = false;
+            // Linhas do fim, metade de cada vez e depois uma a uma
+            for (int remover = caso.linhas().length / 2; remover >= 1; remover /= 2) {
+                while (caso.linhas().length > remover) {
+                    Caso menor = new Caso(Arrays.copyOf(caso.linhas(), caso.linhas().length - remover), caso.entradas(),
+                            caso.maxPassos());
+                    if (comparar(trabalhador, menor) == null) {
+                        break;
+                    }
+                    caso = menor;
+                    mudou = true;
+                }
+            }
+            // Cada linha: zero, ou a mesma instrução com operando 0
+            for (int i = 0; i < caso.linhas().length; i++) {
+                for (String simples : simplificacoes(caso.linhas()[i])) {
+                    String[] linhas = caso.linhas().clone();
+                    linhas[i] = simples;
+                    Caso menor = new Caso(linhas, caso.entradas(), caso.maxPassos());
+                    if (comparar(trabalhador, menor) != null) {
+                        caso = menor;
+                        mudou = true;
+                        break;
+                    }
+                }
+            }
+            // Entradas, de trás para frente
+            for (int i = caso.entradas().length - 1; i >= 0; i--) {
+                int[] entradas = new int[caso.entradas().length - 1];
+                System.arraycopy(caso.entradas(), 0, entradas, 0, i);
+                System.arraycopy(caso.entradas(), i + 1, entradas, i, entradas.length - i);
+                Caso menor = new Caso(caso.linhas(), entradas, caso.maxPassos());
+                if (comparar(trabalhador, menor) != null) {
+                    caso = menor;
+                    mudou = true;
+                }
+            }
+            // Limite de passos, pela metade enquanto divergir
+            while (caso.maxPassos() > 1) {
+                Caso menor = new Caso(caso.linhas(), caso.entradas(), caso.maxPassos() / 2);
+                if (comparar(trabalhador, menor) == null) {
+                    break;
+                }
+                caso = menor;
+                mudou = true;
+            }
+        }
+        return caso;
+    }
+
+    private List<String> simplificacoes(String linha) {
+        List<String> opcoes = new ArrayList<>(2);
+        int palavra;
+        try {
+            palavra = Integer.parseInt(linha.strip());
+        } catch (NumberFormatException ex) {
+            return opcoes; // Texto inválido: mantido
+        }
+        if (palavra != 0) {
+            opcoes.add(configuracao.formatarPalavra(0));
+            int semOperando = palavra - configuracao.operandoDe(palavra);
+            if (semOperando != palavra) {
+                opcoes.add(configuracao.formatarPalavra(semOperando));
+            }
+        }
+        return opcoes;
+    }
+
+    private void registrar(Trabalhador trabalhador, Caso caso) {
+        int numero = encontradas.incrementAndGet();
+        if (numero > MAXIMO_DE_DIVERGENCIAS) {
+            return;
+        }
+        Caso reduzido = reduzir(trabalhador, caso);
+        String descricao = comparar(trabalhador, reduzido);
+        Path arquivo = null;
+        if (diretorio != null) {
+            try {
+                Path programa = diretorio.resolve("divergencia-" + numero + ".sml");
+                Files.write(programa, Arrays.asList(reduzido.linhas()));
+                StringBuilder entradas = new StringBuilder();
+                for (int valor : reduzido.entradas()) {
+                    entradas.append(valor).append('\n');
+                }
+                Files.writeString(diretorio.resolve("divergencia-" + numero + ".in"), entradas);
+                arquivo = programa;
+            } catch (IOException ex) {
+                System.err.println("Não foi possível gravar a divergência " + numero + ": " + ex.getMessage());
+            }
+        }
+        synchronized (divergencias) {
+            divergencias.add(new Divergencia(reduzido, descricao, arquivo));
+        }
+    }
+
+    // --- Geração dos casos ---
+
+    /**
+     * Gera um caso aleatório. Cerca de 1 em 20 tem uma linha de texto inválida.
+     */
+    Caso gerar(Random aleatorio) {
+        int tamanho = configuracao.getTamanhoMemoria();
+        int sorteio = aleatorio.nextInt(10);
+        int comprimento = sorteio < 7 ? 1 + aleatorio.nextInt(Math.min(20, tamanho))
+                : sorteio < 9 ? 1 + aleatorio.nextInt(Math.min(100, tamanho)) : tamanho;
+
+        String[] linhas = new String[comprimento];
+        for (int i = 0; i < comprimento; i++) {
+            linhas[i] = configuracao.formatarPalavra(gerarPalavra(aleatorio, comprimento));
+        }
+        if (aleatorio.nextInt(20) == 0) {
+            int maior = configuracao.getMaiorPalavra();
+            int posicao = aleatorio.nextInt(comprimento);
+            linhas[posicao] = aleatorio.nextBoolean()
+                    ? TEXTOS_INVALIDOS[aleatorio.nextInt(TEXTOS_INVALIDOS.length)]
+                    : Long.toString(aleatorio.nextBoolean() ? maior + 1L : -maior - 1L);
+        }
+
+        int[] entradas = new int[aleatorio.nextInt(12)];
+        for (int i = 0; i < entradas.length; i++) {
+            entradas[i] = aleatorio.nextInt(10) == 0 ? valorForaDoIntervalo(aleatorio) : valorDeBorda(aleatorio);
+        }
+
+        sorteio = aleatorio.nextInt(20);
+        long maxPassos = sorteio < 16 ? 5000 : sorteio < 19 ? aleatorio.nextInt(64) : aleatorio.nextInt(5000);
+        return new Caso(linhas, entradas, maxPassos);
+    }
+
+    private int gerarPalavra(Random aleatorio, int comprimento) {
+        int base = configuracao.getBase();
+        int maior = configuracao.getMaiorPalavra();
+        int sorteio = aleatorio.nextInt(100);
+        if (sorteio < 55) {
+            int codigo = CODIGOS_VALIDOS[aleatorio.nextInt(CODIGOS_VALIDOS.length)];
+            int operando = aleatorio.nextInt(10) < 8 ? aleatorio.nextInt(Math.min(base, comprimento + 4))
+                    : aleatorio.nextInt(base);
+            return codigo * base + operando;
+        }
+        if (sorteio < 65) {
+            // Modifica o próprio código
+            return (aleatorio.nextBoolean() ? STORE : READ) * base + aleatorio.nextInt(comprimento);
+        }
+        if (sorteio < 85) {
+            return valorDeBorda(aleatorio);
+        }
+        if (sorteio < 95) {
+            return aleatorio.nextInt(2 * maior + 1) - maior;
+        }
+        // Código de operação inválido (ou uma instrução negativa)
+        int codigo;
+        do {
+            codigo = aleatorio.nextInt(maior / base + 1);
+        } while (Arrays.binarySearch(CODIGOS_VALIDOS, codigo) >= 0);
+        int palavra = codigo * base + aleatorio.nextInt(base);
+        return aleatorio.nextBoolean() ? palavra : -palavra;
+    }
+
+    /**
+     * @return um valor perto dos limites: zero, ±1, ±maior, ±(maior/2 + 1) (cujo dobro estoura) ou pequeno.
+     */
+    private int valorDeBorda(Random aleatorio) {
+        int maior = configuracao.getMaiorPalavra();
+        int valor = switch (aleatorio.nextInt(6)) {
+            case 0 -> 0;
+            case 1 -> 1;
+            case 2 -> maior;
+            case 3 -> maior / 2 + 1;
+            case 4 -> 100; // Multiplicado por si mesmo estoura a palavra clássica
+            default -> aleatorio.nextInt(20);
+        };
+        return aleatorio.nextBoolean() ? valor : -valor;
+    }
+
+    private int valorForaDoIntervalo(Random aleatorio) {
+        int maior = configuracao.getMaiorPalavra();
+        return switch (aleatorio.nextInt(3)) {
+            case 0 -> maior + 1;
+            case 1 -> -maior - 1;
+            default -> aleatorio.nextBoolean() ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+        };
+    }
+
+    // --- Trabalhadores ---
+
+    /** As máquinas e o gerador de uma thread. */
+    private final class Trabalhador {
+
+        final Random aleatorio;
+        final SimpletronLogic referencia = new SimpletronLogic(configuracao);
+        final SimpletronLogic auxiliar = new SimpletronLogic(configuracao);
+        final ProgramParser interpretador = new ProgramParser(configuracao);
+        final ExecutionProfiler perfilador = new ExecutionProfiler(configuracao.getTamanhoMemoria());
+        final MachineBank banco = configuracao.isClassica() ? new MachineBank(1) : null;
+        boolean rejeitado; // Se o último caso comparado foi rejeitado pelo carregador
+
+        Trabalhador(long semente) {
+            this.aleatorio = new Random(semente);
+        }
+
+        void executar(long prazo) {
+            while (System.nanoTime() < prazo && encontradas.get() < MAXIMO_DE_DIVERGENCIAS) {
+                Caso caso = gerar(aleatorio);
+                String divergencia = comparar(this, caso);
+                casos.increment();
+                if (rejeitado) {
+                    casosDeCarga.increment();
+                }
+                if (divergencia != null) {
+                    registrar(this, caso);
+                }
+            }
+        }
+
+        /**
+         * Executa a imagem já carregada e conferida em um mecanismo, em uma máquina recém-carregada.
+         */
+        Execucao executar(Mecanismo mecanismo, Caso caso, int[] imagem) {
+            execucoes.increment();
+            ArrayInputChannel entrada = new ArrayInputChannel(caso.entradas());
+            ArrayOutputChannel saida = new ArrayOutputChannel();
+            long maxPassos = caso.maxPassos();
+            if (mecanismo == Mecanismo.BANCO) {
+                banco.reiniciar(0);
+                for (int i = 0; i < imagem.length; i++) {
+                    banco.setMemoryAt(0, i, imagem[i]);
+                }
+                ExecutionResult resultado = banco.executar(0, maxPassos, entrada, saida);
+                int[] memoria = new int[imagem.length];
+                for (int i = 0; i < memoria.length; i++) {
+                    memoria[i] = banco.getMemoryAt(0, i);
+                }
+                return new Execucao(resultado.motivo(), resultado.passos(), resultado.endereco(),
+                        banco.getAccumulator(0), banco.getInstructionCounter(0), banco.getInstructionRegister(0),
+                        memoria, saida.getValores());
+            }
+
+            SimpletronLogic maquina = auxiliar;
+            maquina.carregarPrograma(caso.linhas());
+            ExecutionResult resultado = switch (mecanismo) {
+                case PASSO_A_PASSO -> passoAPasso(maquina, maxPassos, entrada, saida);
+                case INTERPRETADOR -> maquina.run(maxPassos, entrada, saida);
+                case PERFILADO -> {
+                    maquina.setPerfilador(perfilador);
+                    try {
+                        yield maquina.run(maxPassos, entrada, saida);
+                    } finally {
+                        maquina.setPerfilador(null);
+                    }
+                }
+                case FATIADO -> fatiado(maquina, maxPassos, entrada, saida);
+                case OTIMIZADO -> {
+                    maquina.setOtimizar(true);
+                    try {
+                        yield maquina.run(maxPassos, entrada, saida);
+                    } finally {
+                        maquina.setOtimizar(false);
+                    }
+                }
+                case COMPILADO -> CompiledEngine.compilar(maquina).run(maxPassos, entrada, saida);
+                case BANCO -> throw new IllegalStateException();
+            };
+            return new Execucao(resultado.motivo(), resultado.passos(), resultado.endereco(),
+                    maquina.getAccumulator(), maquina.getInstructionCounter(), maquina.getInstructionRegister(),
+                    maquina.getMemory().clone(), saida.getValores());
+        }
+
+        /**
+         * Executa com executarPasso(), reproduzindo os resultados de run(): o motivo, os passos e o endereço.
+         */
+        private ExecutionResult passoAPasso(SimpletronLogic maquina, long maxPassos, ArrayInputChannel entrada,
+                                            ArrayOutputChannel saida) {
+            maquina.conectarCanais(entrada, saida);
+            try {
+                long passos = 0;
+                while (true) {
+                    int endereco = maquina.getInstructionCounter();
+                    if (endereco >= maquina.getMemory().length) {
+                        return new ExecutionResult(HaltReason.HALTED, passos, endereco);
+                    }
+                    if (passos >= maxPassos) {
+                        return new ExecutionResult(HaltReason.STEP_LIMIT, passos, endereco);
+                    }
+                    int codigo = maquina.executarPasso();
+                    passos++;
+                    if (codigo == HALT || codigo < 0) {
+                        return new ExecutionResult(motivoDoCodigo(codigo), passos, endereco);
+                    }
+                }
+            } finally {
+                maquina.conectarCanais(null, null);
+            }
+        }
+
+        /**
+         * Executa em chamadas com os limites de {@link #FATIAS}, até terminar ou esgotar o limite.
+         */
+        private ExecutionResult fatiado(SimpletronLogic maquina, long maxPassos, ArrayInputChannel entrada,
+                                        ArrayOutputChannel saida) {
+            long passos = 0;
+            for (int chamada = 0; ; chamada++) {
+                long fatia = Math.min(FATIAS[chamada % FATIAS.length], maxPassos - passos);
+                ExecutionResult parcial = maquina.run(fatia, entrada, saida);
+                passos += parcial.passos();
+                if (parcial.motivo() != HaltReason.STEP_LIMIT || passos >= maxPassos) {
+                    return new ExecutionResult(parcial.motivo(), passos, parcial.endereco());
+                }
+            }
+        }
+    }
+
+    private static HaltReason motivoDoCodigo(int codigo) {
+        for (HaltReason motivo : HaltReason.values()) {
+            if (motivo.getCodigo() == codigo) {
+                return motivo;
+            }
+        }
+        throw new IllegalArgumentException("Código sem motivo correspondente: " + codigo);
+    }
+
+    public static void main(String[] args) {
+        double segundos = DURACAO_PADRAO;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long semente = new Random().nextLong();
+        Path diretorio = Path.of(".");
+        int palavras = MachineConfig.CLASSICA.getTamanhoMemoria();
+        int digitos = 0; // 0: os mínimos para o tamanho da memória
+
+        for (int i = 0; i < args.length; i++) {
+            if (i + 1 >= args.length) {
+                uso();
+                return;
+            }
+            try {
+                switch (args[i]) {
+                    case "-d" -> segundos = Double.parseDouble(args[++i]);
+                    case "-t" -> threads = Integer.parseInt(args[++i]);
+                    case "-s" -> semente = Long.parseLong(args[++i]);
+                    case "-o" -> diretorio = Path.of(args[++i]);
+                    case "-M" -> palavras = Integer.parseInt(args[++i]);
+                    case "-W" -> digitos = Integer.parseInt(args[++i]);
+                    default -> {
+                        uso();
+                        return;
+                    }
+                }
+            } catch (NumberFormatException ex) {
+                uso();
+                return;
+            }
+        }
+        if (threads <= 0 || segundos <= 0) {
+            uso();
+            return;
+        }
+        MachineConfig configuracao;
+        try {
+            configuracao = digitos == 0 ? MachineConfig.comTamanho(palavras) : new MachineConfig(palavras, digitos);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            uso();
+            return;
+        }
+
+        DifferentialFuzzer fuzzer = new DifferentialFuzzer(configuracao, diretorio);
+        System.out.printf("Comparando %s em %s, %d threads, semente %d, por %.0f s%n", fuzzer.getMecanismos(),
+                configuracao, threads, semente, segundos);
+        long inicio = System.nanoTime();
+        List<Divergencia> encontradas;
+        try {
+            encontradas = fuzzer.executar(threads, semente, (long) (segundos * 1e9));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        double duracao = (System.nanoTime() - inicio) / 1e9;
+
+        for (int i = 0; i < encontradas.size(); i++) {
+            Divergencia divergencia = encontradas.get(i);
+            Caso caso = divergencia.caso();
+            System.out.printf("%n=== Divergência %d: %d linhas, entradas %s, %d passos ===%n", i + 1,
+                    caso.linhas().length, Arrays.toString(caso.entradas()), caso.maxPassos());
+            System.out.println(String.join("\n", caso.linhas()));
+            System.out.println(divergencia.descricao());
+            if (divergencia.arquivo() != null) {
+                System.out.printf("Reproduzir: java org.simpletronv1.batch.SimpletronBatch -e %s -m %d %s%n",
+                        divergencia.arquivo().toString().replaceAll("\\.sml$", ".in"), caso.maxPassos(),
+                        divergencia.arquivo());
+            }
+        }
+        System.out.printf("%nCasos: %d (%d só de carregamento) em %.1f s: %.0f casos/s, %.0f execuções/s com %d threads%n",
+                fuzzer.getCasos(), fuzzer.getCasosDeCarga(), duracao, fuzzer.getCasos() / duracao,
+                fuzzer.getExecucoes() / duracao, threads);
+        System.out.println("Divergências: " + fuzzer.encontradas.get()
+                + (fuzzer.encontradas.get() > encontradas.size() ? " (relatadas as " + encontradas.size() + " primeiras)" : ""));
+        System.exit(encontradas.isEmpty() ? 0 : 1);
+    }
+
+    private static void uso() {
+        System.err.println("Uso: DifferentialFuzzer [-d segundos] [-t threads] [-s semente] [-o diretorio] [-M palavras] [-W digitos]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,193 @@
+package org.simpletronv1.batch;
+
+import org.simpletronv1.logic.ArrayInputChannel;
+import org.simpletronv1.logic.ArrayOutputChannel;
+import org.simpletronv1.logic.ExecutionResult;
+import org.simpletronv1.logic.ProgramAnalysis;
+import org.simpletronv1.logic.ProgramCache;
+import org.simpletronv1.logic.SimpletronLogic;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * A classe ParallelExecutor executa lotes de programas SML em paralelo, usando todos os núcleos.
+ *
+ * Cada trabalho roda em uma máquina isolada. As máquinas ({@link SimpletronLogic}) são reaproveitadas
+ * entre trabalhos através de um pool e reiniciadas com {@link SimpletronLogic#reiniciar()}, em vez
+ * de serem alocadas a cada execução. Os resultados são entregues na ordem de submissão, à medida
+ * que ficam prontos, mantendo no máximo uma janela limitada de trabalhos em andamento.
+ *
+ * Os programas são carregados através de um {@link ProgramCache} compartilhado pelos trabalhadores:
+ * quando o mesmo programa é executado muitas vezes com entradas diferentes, ele só é interpretado
+ * na primeira. Com {@link #setRejeitarProgramasComErro(boolean)}, cada programa também é analisado
+ * estaticamente ({@link ProgramAnalysis}, uma vez por programa) e os que certamente não terminam com
+ * HALT são rejeitados sem executar nenhuma instrução.
+ *
+ * Exemplo:
+ * <pre>
+ *   try (ParallelExecutor executor = new ParallelExecutor()) {
+ *       executor.executar(trabalhos, resultado -> System.out.println(resultado));
+ *   }
+ * </pre>
+ */
+public class ParallelExecutor implements AutoCloseable {
+
+    /**
+     * Um programa a ser executado.
+     *
+     * @param nome     identificação livre do trabalho (ex.: nome do arquivo).
+     * @param linhas   as linhas do programa, no formato aceito por carregarPrograma().
+     * @param entradas os valores consumidos, em ordem, pelas instruções READ.
+     * @param maxSteps limite de instruções da execução.
+     */
+    public record Job(String nome, String[] linhas, int[] entradas, long maxSteps) {
+    }
+
+    /**
+     * O resultado de um trabalho.
+     *
+     * @param indice       posição do trabalho no lote submetido.
+     * @param nome         o nome do trabalho.
+     * @param erroDeCarga  a mensagem de erro do carregamento (ou da análise, se o programa foi
+     *                     rejeitado), ou null se o programa foi carregado.
+     * @param execucao     o resultado da execução, ou null se o programa não foi carregado.
+     * @param saidas       os valores escritos pelas instruções WRITE, em ordem.
+     * @param acumulador   o valor final do acumulador.
+     * @param memoria      cópia da memória ao final da execução.
+     */
+    public record JobResult(int indice, String nome, String erroDeCarga, ExecutionResult execucao,
+                            int[] saidas, int acumulador, int[] memoria) {
+
+        public boolean isSucesso() {
+            return erroDeCarga == null && !execucao.isErro();
+        }
+    }
+
+    public static final int CAPACIDADE_PADRAO_DO_CACHE = 1024;
+
+    private final ForkJoinPool pool;
+    private final int janela;
+    private final ConcurrentLinkedQueue<SimpletronLogic> maquinas = new ConcurrentLinkedQueue<>();
+    private final ProgramCache cache;
+    private volatile boolean rejeitarProgramasComErro;
+
+    /**
+     * Cria um executor com um trabalhador por núcleo disponível.
+     */
+    public ParallelExecutor() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ParallelExecutor(int paralelismo) {
+        this(paralelismo, new ProgramCache(CAPACIDADE_PADRAO_DO_CACHE));
+    }
+
+    /**
+     * @param cache o cache de programas usado no carregamento; pode ser compartilhado com outros executores.
+     */
+    public ParallelExecutor(int paralelismo, ProgramCache cache) {
+        this.pool = new ForkJoinPool(paralelismo);
+        this.janela = paralelismo * 4;
+        this.cache = cache;
+    }
+
+    /**
+     * Habilita ou desabilita a rejeição, antes da execução, dos programas em que a análise estática
+     * encontra erros (laço infinito a partir do início ou nenhum HALT alcançável).
+     */
+    public void setRejeitarProgramasComErro(boolean rejeitar) {
+        rejeitarProgramasComErro = rejeitar;
+    }
+
+    /**
+     * @return o cache de programas, com as métricas de acertos e faltas.
+     */
+    public ProgramCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Executa um lote de trabalhos, entregando os resultados ao consumidor na ordem de submissão.
+     * O consumidor é chamado na thread que invocou este método.
+     *
+     * @param trabalhos  os trabalhos a executar.
+     * @param consumidor recebe cada resultado, na mesma ordem da lista de trabalhos.
+     */
+    public void executar(List<Job> trabalhos, Consumer<JobResult> consumidor) {
+        ArrayDeque<Future<JobResult>> emAndamento = new ArrayDeque<>();
+        int proximo = 0;
+
+        while (proximo < trabalhos.size() || !emAndamento.isEmpty()) {
+            while (proximo < trabalhos.size() && emAndamento.size() < janela) {
+                int indice = proximo++;
+                Job trabalho = trabalhos.get(indice);
+                emAndamento.add(pool.submit(() -> executarTrabalho(indice, trabalho)));
+            }
+            consumidor.accept(aguardar(emAndamento.poll()));
+        }
+    }
+
+    /**
+     * Executa um lote de trabalhos e devolve todos os resultados, na ordem de submissão.
+     */
+    public List<JobResult> executarTodos(List<Job> trabalhos) {
+        List<JobResult> resultados = new ArrayList<>(trabalhos.size());
+        executar(trabalhos, resultados::add);
+        return resultados;
+    }
+
+    private JobResult executarTrabalho(int indice, Job trabalho) {
+        SimpletronLogic maquina = maquinas.poll();
+        if (maquina == null) {
+            maquina = new SimpletronLogic();
+        }
+        try {
+            String erro = cache.carregar(maquina, trabalho.linhas());
+            if (erro == null && rejeitarProgramasComErro) {
+                ProgramAnalysis analise = cache.getAnalise(maquina.getConfiguracao(), trabalho.linhas());
+                if (analise == null) {
+                    analise = maquina.analisar(); // O programa já saiu do cache
+                }
+                if (analise.hasErros()) {
+                    erro = "Programa rejeitado pela análise: " + analise.getProblemas().get(0).mensagem();
+                }
+            }
+            if (erro != null) {
+                return new JobResult(indice, trabalho.nome(), erro, null, new int[0], 0, maquina.getMemory().clone());
+            }
+            ArrayOutputChannel saidas = new ArrayOutputChannel();
+            ExecutionResult execucao = maquina.run(trabalho.maxSteps(), new ArrayInputChannel(trabalho.entradas()), saidas);
+            return new JobResult(indice, trabalho.nome(), null, execucao, saidas.getValores(),
+                    maquina.getAccumulator(), maquina.getMemory().clone());
+        } finally {
+            maquina.reiniciar();
+            maquinas.offer(maquina);
+        }
+    }
+
+    private static JobResult aguardar(Future<JobResult> futuro) {
+        try {
+            return futuro.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Execução do lote interrompida.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Falha ao executar um trabalho do lote.", e.getCause());
+        }
+    }
+
+    /**
+     * Encerra as threads do executor.
+     */
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+}
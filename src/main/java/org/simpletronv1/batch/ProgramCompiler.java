@@ -0,0 +1,71 @@
+package org.simpletronv1.batch;
+
+import org.simpletronv1.logic.ProgramImage;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A classe ProgramCompiler monta programas SML em texto (.sml ou .txt) em imagens binárias
+ * ({@link ProgramImage}), que {@link SimpletronBatch} e a interface gráfica carregam sem
+ * interpretar o texto.
+ *
+ * Uso:
+ * <pre>
+ *   java org.simpletronv1.batch.ProgramCompiler [-d diretorio] programa1.sml [programa2.txt ...]
+ * </pre>
+ * - -d diretorio: grava as imagens no diretório informado (padrão: ao lado de cada programa).
+ *
+ * A imagem de "programa.sml" é gravada em "programa.sml.smli". O código de saída é 0 se todos os
+ * programas forem montados, 1 se algum for inválido e 2 em caso de argumentos inválidos ou falha de arquivo.
+ */
+public class ProgramCompiler {
+
+    public static void main(String[] args) {
+        Path diretorio = null;
+        List<Path> programas = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-d") && i + 1 < args.length) {
+                diretorio = Path.of(args[++i]);
+            } else {
+                programas.add(Path.of(args[i]));
+            }
+        }
+        if (programas.isEmpty()) {
+            uso();
+        }
+
+        int falhas = 0;
+        try {
+            for (Path programa : programas) {
+                String[] linhas = Files.readString(programa, StandardCharsets.UTF_8).lines().toArray(String[]::new);
+                ProgramImage imagem;
+                try {
+                    imagem = ProgramImage.compilar(linhas);
+                } catch (IllegalArgumentException ex) {
+                    System.out.println(programa + ": FALHA AO CARREGAR: " + ex.getMessage());
+                    falhas++;
+                    continue;
+                }
+                String nome = programa.getFileName() + ProgramImage.EXTENSAO;
+                Path destino = diretorio != null ? diretorio.resolve(nome) : programa.resolveSibling(nome);
+                imagem.gravar(destino);
+                System.out.printf("%s -> %s (%08x)%n", programa, destino, imagem.getChecksum());
+            }
+        } catch (IOException ex) {
+            System.err.println("Erro de arquivo: " + ex.getMessage());
+            System.exit(2);
+        }
+        System.exit(falhas == 0 ? 0 : 1);
+    }
+
+    private static void uso() {
+        System.err.println("Uso: ProgramCompiler [-d diretorio] programa.sml [programa2.sml ...]");
+        System.exit(2);
+    }
+}
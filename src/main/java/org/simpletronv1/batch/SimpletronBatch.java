@@ -0,0 +1,383 @@
+package org.simpletronv1.batch;
+
+import org.simpletronv1.logic.ArrayOutputChannel;
+import org.simpletronv1.logic.CompiledEngine;
+import org.simpletronv1.logic.ExecutionReport;
+import org.simpletronv1.logic.ExecutionResult;
+import org.simpletronv1.logic.ExecutionTrace;
+import org.simpletronv1.logic.InputChannel;
+import org.simpletronv1.logic.MachineConfig;
+import org.simpletronv1.logic.MachineSnapshot;
+import org.simpletronv1.logic.MappedInputChannel;
+import org.simpletronv1.logic.OutputChannel;
+import org.simpletronv1.logic.ProgramAnalysis;
+import org.simpletronv1.logic.ProgramImage;
+import org.simpletronv1.logic.ProgramOptimizer;
+import org.simpletronv1.logic.ProgramParser;
+import org.simpletronv1.logic.ReportWriter;
+import org.simpletronv1.logic.SimpletronLogic;
+import org.simpletronv1.logic.StreamInputChannel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A classe SimpletronBatch é um ponto de entrada de linha de comando que executa programas SML
+ * sem interface gráfica, na velocidade máxima do interpretador.
+ *
+ * Cada arquivo informado é interpretado com {@link ProgramParser}, que relata todos os erros do texto, e
+ * executado com {@link SimpletronLogic#run(long, InputChannel, OutputChannel)}
+ * até encontrar HALT, um erro ou o limite de passos. Os valores pedidos pelas
+ * instruções READ são lidos, em ordem, de um arquivo de entradas (mapeado em memória) ou da entrada padrão.
+ * Ao final de cada programa são impressos as saídas, o dump da máquina e o tempo gasto.
+ * Imagens ".smli", montadas por {@link ProgramCompiler}, são mapeadas em memória e copiadas para a
+ * máquina sem interpretação de texto. Um arquivo ".snap", gravado pela opção -s, é restaurado com {@link MachineSnapshot} em vez de
+ * carregado, e a execução continua do ponto em que parou.
+ *
+ * Nenhum objeto AWT/Swing é criado, o que permite o uso em servidores de CI sem display.
+ *
+ * Uso:
+ * <pre>
+ *   java org.simpletronv1.batch.SimpletronBatch [-e entradas.txt] [-m passos] [-j] [-q] [-t] [-s] [-a] [-o] [-M palavras] [-W digitos] [-r relatorios.jsonl] programa1.sml [programa2.txt ...]
+ * </pre>
+ * - -e arquivo: lê as entradas do arquivo (padrão: entrada padrão).
+ * - -m passos: limite de instruções por programa (padrão: 10.000.000), protege contra laços infinitos.
+ * - -j: compila cada programa para bytecode JVM com {@link CompiledEngine} antes de executar.
+ * - -q: não imprime o dump final da máquina.
+ * - -t: registra os últimos {@link #CAPACIDADE_DO_RASTRO} passos e, se o programa terminar com erro,
+ *   grava o rastro em "programa.sml.trace" (legível com {@link TraceDecoder}).
+ * - -s: se o programa terminar com erro ou exceder o limite de passos, grava o estado da máquina em
+ *   "programa.sml.snap", que pode ser executado de novo para reproduzir o erro ou continuar a execução.
+ * - -a: analisa cada programa antes de executá-lo ({@link ProgramAnalysis}), imprime os problemas
+ *   encontrados e não executa os que certamente não terminam com HALT.
+ * - -o: executa com o otimizador ({@link ProgramOptimizer}) e imprime quantas instruções ele removeu.
+ *   As saídas e o resultado não mudam; a quantidade de instruções executadas diminui.
+ * - -M palavras: tamanho da memória ({@link MachineConfig}), uma potência de 10 (padrão: 100).
+ * - -W digitos: dígitos de cada palavra (padrão: os mínimos para o tamanho da memória, 4 com 100 palavras).
+ *   Imagens ".smli", snapshots, rastros e a opção -j existem somente na configuração clássica; com outra
+ *   configuração, -s e -t são ignoradas e -j executa pelo interpretador.
+ * - -r arquivo: grava um relatório de cada execução (estado final, resultado e saídas) com {@link ReportWriter},
+ *   em segundo plano; o formato vem da extensão: ".jsonl" (JSON Lines), ".smlr" (binário) ou texto.
+ *
+ * O código de saída do processo é 0 se todos os programas terminarem com HALT, 1 se algum
+ * terminar com erro ou exceder o limite de passos e 2 em caso de argumentos inválidos ou falha de leitura de arquivos.
+ */
+public class SimpletronBatch {
+
+    public static final long LIMITE_PADRAO_DE_PASSOS = 10_000_000L;
+    public static final int CAPACIDADE_DO_RASTRO = 4096;
+    public static final String EXTENSAO_SNAPSHOT = ".snap";
+
+    private final SimpletronLogic simpletron;
+    private final ProgramParser interpretador;
+    private final InputChannel entradas;
+    private final PrintStream saida;
+    private final boolean imprimirDump;
+    private final long maxPassos;
+    private final boolean compilar;
+    private ExecutionTrace rastro;
+    private boolean gravarSnapshot;
+    private boolean analisar;
+    private ReportWriter relatorios;
+
+    public SimpletronBatch(InputChannel entradas, PrintStream saida, boolean imprimirDump, long maxPassos,
+                           boolean compilar) {
+        this(entradas, saida, imprimirDump, maxPassos, compilar, MachineConfig.CLASSICA);
+    }
+
+    /**
+     * @param configuracao o tamanho da memória e a largura das palavras da máquina que executa os programas.
+     */
+    public SimpletronBatch(InputChannel entradas, PrintStream saida, boolean imprimirDump, long maxPassos,
+                           boolean compilar, MachineConfig configuracao) {
+        this.simpletron = new SimpletronLogic(configuracao);
+        this.interpretador = new ProgramParser(configuracao);
+        this.entradas = entradas;
+        this.saida = saida;
+        this.imprimirDump = imprimirDump;
+        this.maxPassos = maxPassos;
+        this.compilar = compilar;
+    }
+
+    /**
+     * Habilita ou desabilita o rastro de execução gravado quando um programa termina com erro.
+     * Com o rastro habilitado, a opção de compilação é ignorada, pois o rastro é preenchido pelo interpretador.
+     * É ignorada fora da configuração clássica, que é a única com rastro.
+     */
+    public void setGravarRastro(boolean gravar) {
+        rastro = gravar && simpletron.getConfiguracao().isClassica() ? new ExecutionTrace(CAPACIDADE_DO_RASTRO) : null;
+        simpletron.setRastro(rastro);
+    }
+
+    /**
+     * Habilita ou desabilita a gravação do estado da máquina quando um programa não termina com HALT.
+     * É ignorada fora da configuração clássica, que é a única com snapshots.
+     */
+    public void setGravarSnapshot(boolean gravar) {
+        gravarSnapshot = gravar;
+    }
+
+    /**
+     * Habilita ou desabilita a análise estática antes da execução. Com ela, os programas com erros
+     * de análise são rejeitados sem executar nenhuma instrução.
+     */
+    public void setAnalisar(boolean analisar) {
+        this.analisar = analisar;
+    }
+
+    /**
+     * Habilita ou desabilita o otimizador. É ignorado com o rastro habilitado, que registra cada instrução.
+     */
+    public void setOtimizar(boolean otimizar) {
+        simpletron.setOtimizar(otimizar);
+    }
+
+    /**
+     * Define onde gravar um relatório de cada execução, ou null para não gravar. O gravador não é fechado aqui.
+     */
+    public void setRelatorios(ReportWriter relatorios) {
+        this.relatorios = relatorios;
+    }
+
+    /**
+     * Carrega e executa um único programa, imprimindo saídas, estado final e tempo gasto.
+     *
+     * @param arquivo caminho do programa SML (.sml ou .txt), de uma imagem (.smli) ou de um snapshot (.snap).
+     * @return true se o programa terminou normalmente com HALT, false caso contrário.
+     * @throws IOException se o arquivo do programa ou o de entradas não puder ser lido.
+     */
+    public boolean executarArquivo(Path arquivo) throws IOException {
+        saida.println("=== " + arquivo + " ===");
+
+        if (arquivo.toString().endsWith(EXTENSAO_SNAPSHOT) || arquivo.toString().endsWith(ProgramImage.EXTENSAO)) {
+            try {
+                if (arquivo.toString().endsWith(EXTENSAO_SNAPSHOT)) {
+                    try (InputStream origem = Files.newInputStream(arquivo)) {
+                        MachineSnapshot.ler(origem).restaurar(simpletron);
+                    }
+                    saida.printf("Continuando do passo %d (endereço %s)%n", simpletron.getPassosExecutados(),
+                            simpletron.getConfiguracao().formatarEndereco(simpletron.getInstructionCounter()));
+                } else {
+                    ProgramImage.abrir(arquivo).carregar(simpletron);
+                }
+            } catch (IllegalArgumentException ex) {
+                saida.println("FALHA AO CARREGAR: " + ex.getMessage());
+                return false;
+            }
+        } else {
+            if (!interpretador.analisar(ByteBuffer.wrap(Files.readAllBytes(arquivo)))) {
+                saida.print("FALHA AO CARREGAR:\n" + interpretador.getMensagemDeErro());
+                return false;
+            }
+            interpretador.carregar(simpletron);
+        }
+
+        if (analisar && !arquivo.toString().endsWith(EXTENSAO_SNAPSHOT)) { // A análise parte do endereço 00
+            ProgramAnalysis analise = simpletron.analisar();
+            for (ProgramAnalysis.Problema problema : analise.getProblemas()) {
+                saida.println(problema.formatar());
+            }
+            if (analise.hasErros()) {
+                saida.println("REJEITADO PELA ANÁLISE: o programa não foi executado.");
+                saida.println();
+                return false;
+            }
+        }
+
+        ArrayOutputChannel saidas = relatorios != null ? new ArrayOutputChannel() : null;
+        OutputChannel escrita = saidas == null ? valor -> saida.println("Saída: " + valor) : valor -> {
+            saida.println("Saída: " + valor);
+            saidas.escrever(valor);
+        };
+        long inicio = System.nanoTime();
+        ExecutionResult resultado = compilar
+                ? CompiledEngine.compilar(simpletron).run(maxPassos, entradas, escrita)
+                : simpletron.run(maxPassos, entradas, escrita);
+        long duracao = System.nanoTime() - inicio;
+        if (relatorios != null) {
+            relatorios.enviar(ExecutionReport.capturar(arquivo.toString(), simpletron, resultado, saidas.getValores(),
+                    null));
+        }
+
+        if (resultado.isErro()) {
+            MachineConfig configuracao = simpletron.getConfiguracao();
+            saida.printf("%s (endereço %s)%n", resultado.motivo().getDescricao(configuracao),
+                    configuracao.formatarEndereco(resultado.endereco()));
+            if (rastro != null) {
+                Path arquivoRastro = Path.of(arquivo + ".trace");
+                try (OutputStream destino = Files.newOutputStream(arquivoRastro)) {
+                    rastro.gravar(destino);
+                }
+                saida.println("Rastro dos últimos passos gravado em " + arquivoRastro);
+            }
+        } else {
+            saida.println("***Execução finalizada normalmente. ***");
+        }
+        if (resultado.isErro() && gravarSnapshot && simpletron.getConfiguracao().isClassica()) {
+            String nome = arquivo.toString();
+            Path arquivoSnapshot = Path.of(nome.endsWith(EXTENSAO_SNAPSHOT) ? nome : nome + EXTENSAO_SNAPSHOT);
+            try (OutputStream destino = Files.newOutputStream(arquivoSnapshot)) {
+                MachineSnapshot.capturar(simpletron).gravar(destino);
+            }
+            saida.println("Estado da máquina gravado em " + arquivoSnapshot);
+        }
+        ProgramOptimizer otimizacao = simpletron.getOtimizacao();
+        if (otimizacao != null) {
+            saida.printf("Otimizador: %d instruções removidas%n", otimizacao.getInstrucoesRemovidas());
+            if (imprimirDump) {
+                otimizacao.getTransformacoes().forEach(saida::println);
+            }
+        }
+        if (imprimirDump) {
+            saida.print(simpletron.obterDumpComoString());
+        }
+        double segundos = duracao / 1e9;
+        saida.printf("Instruções executadas: %d em %.3f ms (%.0f instruções/s)%n%n",
+                resultado.passos(), duracao / 1e6, segundos > 0 ? resultado.passos() / segundos : 0.0);
+        return !resultado.isErro();
+    }
+
+    public static void main(String[] args) {
+        Path arquivoEntradas = null;
+        boolean imprimirDump = true;
+        long maxPassos = LIMITE_PADRAO_DE_PASSOS;
+        boolean compilar = false;
+        boolean gravarRastro = false;
+        boolean gravarSnapshot = false;
+        boolean analisar = false;
+        boolean otimizar = false;
+        int palavras = MachineConfig.CLASSICA.getTamanhoMemoria();
+        int digitos = 0; // 0: os mínimos para o tamanho da memória
+        Path arquivoRelatorios = null;
+        List<Path> programas = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-e":
+                    if (++i >= args.length) {
+                        uso();
+                        return;
+                    }
+                    arquivoEntradas = Path.of(args[i]);
+                    break;
+                case "-m":
+                    if (++i >= args.length) {
+                        uso();
+                        return;
+                    }
+                    try {
+                        maxPassos = Long.parseLong(args[i]);
+                    } catch (NumberFormatException ex) {
+                        uso();
+                        return;
+                    }
+                    break;
+                case "-j":
+                    compilar = true;
+                    break;
+                case "-q":
+                    imprimirDump = false;
+                    break;
+                case "-t":
+                    gravarRastro = true;
+                    break;
+                case "-s":
+                    gravarSnapshot = true;
+                    break;
+                case "-a":
+                    analisar = true;
+                    break;
+                case "-o":
+                    otimizar = true;
+                    break;
+                case "-M":
+                    if (++i >= args.length) {
+                        uso();
+                        return;
+                    }
+                    try {
+                        palavras = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException ex) {
+                        uso();
+                        return;
+                    }
+                    break;
+                case "-r":
+                    if (++i >= args.length) {
+                        uso();
+                        return;
+                    }
+                    arquivoRelatorios = Path.of(args[i]);
+                    break;
+                case "-W":
+                    if (++i >= args.length) {
+                        uso();
+                        return;
+                    }
+                    try {
+                        digitos = Integer.parseInt(args[i]);
+                    } catch (NumberFormatException ex) {
+                        uso();
+                        return;
+                    }
+                    break;
+                default:
+                    programas.add(Path.of(args[i]));
+            }
+        }
+        if (programas.isEmpty()) {
+            uso();
+            return;
+        }
+        MachineConfig configuracao;
+        try {
+            configuracao = digitos == 0 ? MachineConfig.comTamanho(palavras) : new MachineConfig(palavras, digitos);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            uso();
+            return;
+        }
+
+        int falhas = 0;
+        // Fechado também em caso de erro, para que os relatórios já enviados sejam gravados antes de sair
+        try (ReportWriter relatorios = arquivoRelatorios != null ? new ReportWriter(arquivoRelatorios) : null) {
+            InputChannel entradas = arquivoEntradas != null
+                    ? MappedInputChannel.abrir(arquivoEntradas)
+                    : new StreamInputChannel(System.in);
+            SimpletronBatch batch = new SimpletronBatch(entradas, System.out, imprimirDump, maxPassos, compilar,
+                    configuracao);
+            batch.setGravarRastro(gravarRastro);
+            batch.setGravarSnapshot(gravarSnapshot);
+            batch.setAnalisar(analisar);
+            batch.setOtimizar(otimizar);
+            batch.setRelatorios(relatorios);
+            for (Path programa : programas) {
+                if (!batch.executarArquivo(programa)) {
+                    falhas++;
+                }
+            }
+        } catch (IOException ex) {
+            System.err.println("Erro de arquivo: " + ex.getMessage());
+            for (Throwable suprimida : ex.getSuppressed()) {
+                System.err.println("Erro de arquivo: " + suprimida.getMessage());
+            }
+            System.exit(2);
+        }
+
+        System.out.printf("Programas: %d, com falha: %d%n", programas.size(), falhas);
+        System.exit(falhas == 0 ? 0 : 1);
+    }
+
+    private static void uso() {
+        System.err.println("Uso: SimpletronBatch [-e entradas.txt] [-m passos] [-j] [-q] [-t] [-s] [-a] [-o] [-M palavras] [-W digitos] "
+                + "[-r relatorios.jsonl] programa.sml [programa2.sml ...]");
+        System.exit(2);
+    }
+}
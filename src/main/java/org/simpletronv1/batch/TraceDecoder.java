@@ -0,0 +1,68 @@
+package org.simpletronv1.batch;
+
+import org.simpletronv1.logic.ExecutionTrace;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A classe TraceDecoder imprime, em texto, um rastro de execução gravado em formato binário por
+ * {@link ExecutionTrace#gravar(java.io.OutputStream)} (ex.: pela opção -t de {@link SimpletronBatch}).
+ *
+ * Uso:
+ * <pre>
+ *   java org.simpletronv1.batch.TraceDecoder [-n passos] programa.sml.trace
+ * </pre>
+ * - -n passos: imprime somente os últimos passos do rastro.
+ *
+ * Cada linha traz o número do passo, o endereço e a instrução executada, o acumulador após a
+ * instrução e, se houver, a célula escrita e o seu novo valor.
+ */
+public class TraceDecoder {
+
+    public static void main(String[] args) {
+        int ultimos = Integer.MAX_VALUE;
+        Path arquivo = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-n") && i + 1 < args.length) {
+                try {
+                    ultimos = Integer.parseInt(args[++i]);
+                } catch (NumberFormatException ex) {
+                    uso();
+                }
+            } else if (arquivo == null) {
+                arquivo = Path.of(args[i]);
+            } else {
+                uso();
+            }
+        }
+        if (arquivo == null) {
+            uso();
+        }
+
+        List<ExecutionTrace.Passo> passos;
+        try (InputStream origem = new BufferedInputStream(Files.newInputStream(arquivo))) {
+            passos = ExecutionTrace.ler(origem);
+        } catch (IOException ex) {
+            System.err.println("Erro ao ler o rastro: " + ex.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        System.out.println("   passo end  instr  acumulador  escrita");
+        for (int i = Math.max(0, passos.size() - ultimos); i < passos.size(); i++) {
+            System.out.println(passos.get(i).formatar());
+        }
+        System.out.printf("Passos no rastro: %d%n", passos.size());
+    }
+
+    private static void uso() {
+        System.err.println("Uso: TraceDecoder [-n passos] programa.sml.trace");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,61 @@
+package org.simpletronv1.gui;
+
+import org.simpletronv1.logic.ExecutionProfiler;
+import org.simpletronv1.logic.SimpletronLogic;
+
+/**
+ * Retrato do estado da máquina a ser desenhado pela interface: registradores, células
+ * alteradas desde o último quadro, o texto de saída produzido nesse intervalo e, se houver um
+ * perfilador conectado, as execuções por endereço.
+ *
+ * Vários retratos capturados antes de a EDT desenhar o anterior são acumulados no mesmo
+ * quadro, de modo que uma execução rápida gera no máximo um redesenho por quadro.
+ */
+class DisplayFrame {
+
+    int acumulador;
+    int contadorInstrucao;
+    int registradorInstrucao;
+    int codigoOperacao;
+    int operando;
+    long passos;
+
+    final boolean[] alterada;
+    final int[] valores;
+    final StringBuilder saida = new StringBuilder();
+    final long[] execucoes;
+    long maximoExecucoes = -1; // -1 quando a máquina não tem perfilador
+
+    private final int[] enderecos;
+
+    DisplayFrame(int tamanhoMemoria) {
+        alterada = new boolean[tamanhoMemoria];
+        valores = new int[tamanhoMemoria];
+        enderecos = new int[tamanhoMemoria];
+        execucoes = new long[tamanhoMemoria];
+    }
+
+    /**
+     * Acumula neste quadro o estado atual da máquina. Deve ser chamado pela thread que controla
+     * a máquina no momento, pois consome o conjunto de células alteradas.
+     */
+    void capturar(SimpletronLogic maquina) {
+        acumulador = maquina.getAccumulator();
+        contadorInstrucao = maquina.getInstructionCounter();
+        registradorInstrucao = maquina.getInstructionRegister();
+        codigoOperacao = maquina.getOperationCode();
+        operando = maquina.getOperand();
+        passos = maquina.getPassosExecutados();
+
+        int[] memoria = maquina.getMemory();
+        int quantidade = maquina.coletarCelulasAlteradas(enderecos);
+        for (int i = 0; i < quantidade; i++) {
+            int endereco = enderecos[i];
+            alterada[endereco] = true;
+            valores[endereco] = memoria[endereco];
+        }
+
+        ExecutionProfiler perfilador = maquina.getPerfilador();
+        maximoExecucoes = perfilador != null ? perfilador.copiarExecucoes(execucoes) : -1;
+    }
+}
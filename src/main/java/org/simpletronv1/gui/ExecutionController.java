@@ -0,0 +1,180 @@
+package org.simpletronv1.gui;
+
+import org.simpletronv1.logic.ExecutionResult;
+import org.simpletronv1.logic.HaltReason;
+import org.simpletronv1.logic.InputChannel;
+import org.simpletronv1.logic.IoWaitEvent;
+import org.simpletronv1.logic.OutputChannel;
+import org.simpletronv1.logic.SimpletronLogic;
+
+import javax.swing.*;
+
+/**
+ * A classe ExecutionController executa a máquina em uma thread virtual, fora da EDT, para que a
+ * interface continue respondendo enquanto o programa roda na velocidade do interpretador.
+ *
+ * Cada comando (executar, executar até um breakpoint, executar um passo) inicia uma thread que
+ * roda até terminar o comando, até o programa parar ou até {@link #pausar()} ser chamado.
+ * Enquanto a thread roda, somente ela acessa a máquina. O estado é entregue à EDT em
+ * {@link DisplayFrame}s, agendados com {@link SwingUtilities#invokeLater(Runnable)} no máximo a cada
+ * {@link #MS_POR_QUADRO} ms (ou a cada passo, quando há atraso entre passos).
+ */
+class ExecutionController {
+
+    enum Modo { CONTINUO, ATE_BREAKPOINT, PASSO }
+
+    /**
+     * Recebe os eventos da execução. Todos os métodos são chamados na EDT.
+     */
+    interface Ouvinte {
+        void quadro(DisplayFrame quadro);
+
+        void pausado();
+
+        void terminado(ExecutionResult resultado);
+    }
+
+    private static final int PASSOS_POR_LOTE = 10_000;
+    private static final long MS_POR_QUADRO = 1000 / 30;
+
+    private final SimpletronLogic maquina;
+    private final InputChannel entrada;
+    private final OutputChannel saida;
+    private final Ouvinte ouvinte;
+
+    private final Object travaQuadro = new Object();
+    private DisplayFrame pendente; // protegido por travaQuadro
+
+    private volatile boolean pausaSolicitada;
+    private volatile Thread trabalhador;
+
+    /**
+     * @param maquina a máquina controlada.
+     * @param entrada fonte dos valores de READ; é chamada na thread de execução e pode bloquear.
+     * @param ouvinte recebe quadros e o fim de cada comando, na EDT.
+     */
+    ExecutionController(SimpletronLogic maquina, InputChannel entrada, Ouvinte ouvinte) {
+        this.maquina = maquina;
+        this.ouvinte = ouvinte;
+        // Antes de pedir um valor, entrega o estado atual para que o usuário veja onde a máquina parou
+        this.entrada = new InputChannel() {
+            @Override
+            public boolean temProximo() {
+                publicar();
+                IoWaitEvent espera = IoWaitEvent.iniciar("interface", true);
+                try {
+                    return entrada.temProximo();
+                } finally {
+                    espera.commit();
+                }
+            }
+
+            @Override
+            public int ler() {
+                return entrada.ler();
+            }
+        };
+        this.saida = valor -> {
+            synchronized (travaQuadro) {
+                quadroPendente().saida.append("Saída: ").append(valor).append('\n');
+            }
+        };
+    }
+
+    /**
+     * @return true enquanto um comando está em andamento.
+     */
+    boolean isExecutando() {
+        return trabalhador != null;
+    }
+
+    /**
+     * Inicia um comando em uma nova thread virtual.
+     *
+     * @param modo        CONTINUO até parar, ATE_BREAKPOINT até o contador atingir um breakpoint,
+     *                    ou PASSO para uma única instrução.
+     * @param atrasoMs    pausa entre instruções; 0 executa em lotes, na velocidade máxima.
+     * @param breakpoints endereços marcados como breakpoint (lido somente no modo ATE_BREAKPOINT).
+     */
+    void iniciar(Modo modo, int atrasoMs, boolean[] breakpoints) {
+        if (trabalhador != null) {
+            throw new IllegalStateException("Já existe uma execução em andamento.");
+        }
+        pausaSolicitada = false;
+        trabalhador = Thread.ofVirtual().name("simpletron-execucao").start(() -> executar(modo, atrasoMs, breakpoints));
+    }
+
+    /**
+     * Pede que o comando em andamento pare depois da instrução (ou lote) atual.
+     */
+    void pausar() {
+        pausaSolicitada = true;
+    }
+
+    private void executar(Modo modo, int atrasoMs, boolean[] breakpoints) {
+        ExecutionResult resultado = null;
+        long ultimoQuadro = System.nanoTime();
+        boolean porPasso = modo != Modo.CONTINUO || atrasoMs > 0;
+
+        try {
+            do {
+                resultado = maquina.run(porPasso ? 1 : PASSOS_POR_LOTE, entrada, saida);
+                if (resultado.motivo() != HaltReason.STEP_LIMIT || modo == Modo.PASSO) {
+                    break;
+                }
+                if (modo == Modo.ATE_BREAKPOINT && breakpoints[maquina.getInstructionCounter()]) {
+                    break;
+                }
+                if (atrasoMs > 0) {
+                    publicar();
+                    Thread.sleep(atrasoMs);
+                } else if (System.nanoTime() - ultimoQuadro >= MS_POR_QUADRO * 1_000_000) {
+                    publicar();
+                    ultimoQuadro = System.nanoTime();
+                }
+            } while (!pausaSolicitada);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            publicar();
+            ExecutionResult fim = resultado;
+            SwingUtilities.invokeLater(() -> {
+                trabalhador = null;
+                if (fim != null && fim.motivo() != HaltReason.STEP_LIMIT) {
+                    ouvinte.terminado(fim);
+                } else {
+                    ouvinte.pausado();
+                }
+            });
+        }
+    }
+
+    /**
+     * Captura o estado atual no quadro pendente e, se ainda não houver uma entrega agendada,
+     * agenda uma na EDT.
+     */
+    private void publicar() {
+        synchronized (travaQuadro) {
+            quadroPendente().capturar(maquina);
+        }
+    }
+
+    private DisplayFrame quadroPendente() {
+        if (pendente == null) {
+            pendente = new DisplayFrame(maquina.getMemory().length);
+            SwingUtilities.invokeLater(this::entregar);
+        }
+        return pendente;
+    }
+
+    private void entregar() {
+        DisplayFrame quadro;
+        synchronized (travaQuadro) {
+            quadro = pendente;
+            pendente = null;
+        }
+        if (quadro != null) {
+            ouvinte.quadro(quadro);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package org.simpletronv1.gui;
+
+import org.simpletronv1.logic.MachineConfig;
+
+import javax.swing.table.AbstractTableModel;
+
+/**
+ * Modelo da tabela de memória da interface: 10 palavras por linha, precedidas de uma coluna com o
+ * endereço da primeira palavra da linha.
+ *
+ * O modelo guarda apenas os valores exibidos; o texto de cada célula é formatado somente quando a
+ * JTable a desenha, ou seja, somente para as linhas visíveis. Assim, uma memória de 10.000 palavras
+ * não custa 10.000 componentes, e atualizar uma célula que está fora da área visível não formata nada.
+ */
+class MemoryTableModel extends AbstractTableModel {
+
+    static final int PALAVRAS_POR_LINHA = 10;
+
+    private final MachineConfig configuracao;
+    private final int[] valores;
+
+    MemoryTableModel(MachineConfig configuracao) {
+        this.configuracao = configuracao;
+        this.valores = new int[configuracao.getTamanhoMemoria()];
+    }
+
+    /**
+     * Altera o valor exibido em um endereço, avisando a tabela somente se ele mudou.
+     */
+    void atualizar(int endereco, int valor) {
+        if (valores[endereco] != valor) {
+            valores[endereco] = valor;
+            celulaAlterada(endereco);
+        }
+    }
+
+    /**
+     * Pede à tabela que redesenhe a célula de um endereço (por exemplo, porque a sua cor mudou).
+     */
+    void celulaAlterada(int endereco) {
+        if (endereco >= 0 && endereco < valores.length) {
+            fireTableCellUpdated(linhaDe(endereco), colunaDe(endereco));
+        }
+    }
+
+    /**
+     * @return o endereço exibido na célula, ou -1 na coluna de endereços.
+     */
+    int enderecoEm(int linha, int coluna) {
+        return coluna == 0 ? -1 : linha * PALAVRAS_POR_LINHA + coluna - 1;
+    }
+
+    static int linhaDe(int endereco) {
+        return endereco / PALAVRAS_POR_LINHA;
+    }
+
+    static int colunaDe(int endereco) {
+        return endereco % PALAVRAS_POR_LINHA + 1;
+    }
+
+    @Override
+    public int getRowCount() {
+        return valores.length / PALAVRAS_POR_LINHA;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return PALAVRAS_POR_LINHA + 1;
+    }
+
+    @Override
+    public String getColumnName(int coluna) {
+        return coluna == 0 ? "" : Integer.toString(coluna - 1);
+    }
+
+    @Override
+    public Object getValueAt(int linha, int coluna) {
+        if (coluna == 0) {
+            return configuracao.formatarEndereco(linha * PALAVRAS_POR_LINHA);
+        }
+        return configuracao.formatarPalavra(valores[enderecoEm(linha, coluna)]);
+    }
+}
@@ -1,20 +1,36 @@
 package org.simpletronv1.gui;
 
+import org.simpletronv1.logic.ExecutionProfiler;
+import org.simpletronv1.logic.ExecutionReport;
+import org.simpletronv1.logic.ExecutionResult;
+import org.simpletronv1.logic.ExecutionTrace;
+import org.simpletronv1.logic.HaltReason;
+import org.simpletronv1.logic.InputChannel;
+import org.simpletronv1.logic.MachineConfig;
+import org.simpletronv1.logic.ProgramAnalysis;
+import org.simpletronv1.logic.ProgramImage;
+import org.simpletronv1.logic.ProgramParser;
+import org.simpletronv1.logic.ReportWriter;
 import org.simpletronv1.logic.SimpletronLogic;
+import org.simpletronv1.logic.UndoLog;
 
 import javax.swing.*;
 import javax.swing.border.TitledBorder;
 import javax.swing.filechooser.FileNameExtensionFilter;
+import javax.swing.table.DefaultTableCellRenderer;
 import javax.swing.text.*;
 import java.awt.*;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.lang.reflect.InvocationTargetException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.nio.file.Path;
+import java.util.List;
 
 /**
  * A classe SimpletronGUI fornece uma interface gráfica para a simulação e controle da máquina Simpletron.
@@ -28,55 +44,109 @@ import java.time.format.DateTimeFormatter;
  *
  * Campos:
  * - simpletron: Um objeto que encapsula a lógica do Simpletron (uma instância de SimpletronLogic).
- * - temporizadorExecucao: Controla a execução contínua passo a passo com base no controle de tempo.
+ * - controlador: Executa a máquina em uma thread virtual e entrega o estado à EDT em quadros (ExecutionController).
+ * - breakpoints: Posições de memória em que o comando "Até Breakpoint" para (alternadas com duplo clique na célula).
+ * - perfilador: Contadores de execução por endereço, código de operação e desvio (ExecutionProfiler).
+ * - rastro: Os últimos passos executados (ExecutionTrace), incluídos no relatório de execução (só na máquina clássica).
+ * - interpretador: Interpreta o texto do editor (ProgramParser) e relata todos os erros de uma vez.
+ * - relatorios: Grava os relatórios de execução em "relatorio_execucao.log.txt" fora da EDT (ReportWriter),
+ *   rodando o arquivo a cada TAMANHO_DO_ARQUIVO_DE_RELATORIOS bytes.
+ * - historico: Histórico de desfazer (UndoLog) usado para voltar passos e saltar para um passo já executado.
+ *   Como o rastro, só existe na máquina clássica; nas demais, os controles de "Voltar no Tempo" ficam desabilitados.
  * - areaDecodigo: Componente de texto para visualização ou edição do código SML.
  * - botaoCarregarArquivo: Botão para carregar um programa SML de um arquivo de texto/sml.
  * - botaoCarregarMemoria: Botão para carregar o código do campo de texto para a memória do Simpletron.
  * - botaoExecutar: Botõa para iniciar ou continuar a execução das instruções.
+ * - botaoPausar: Botão para pausar a execução em andamento.
+ * - botaoPasso: Botão para executar uma única instrução.
+ * - botaoAteBreakpoint: Botão para executar até o contador de instrução atingir um breakpoint.
  * - botaoResetar: Botão para reinicializar o Simpletron para seu estado inicial.
  * - botaoSalvarRelatorio: Botão para salvar um relatório de execução em um arquivo externo.
- * - speedSlider: Controle deslizante para ajustar a velocidade de execução contínua.
+ * - botaoVoltar / campoVoltar: Desfazem a quantidade de passos indicada.
+ * - botaoIrPara / campoIrPara: Levam a máquina ao passo indicado, antes ou depois do atual (até o último executado).
+ * - rotuloPasso: Exibe a quantidade de passos executados.
+ * - speedSlider: Controle deslizante para ajustar o atraso entre instruções (0 a 1000 ms).
+ * - caixaTurbo: Ignora o atraso e executa em lotes, com a tela redesenhada a 30 quadros por segundo.
+ * - caixaPerfil: Conecta o perfilador de execução, que colore as células mais executadas e acrescenta
+ *   o relatório de pontos quentes ao relatório de execução.
  * - campoAcumulador: Campo de texto para exibir o valor do acumulador.
  * - campoContadorInstrucao: Campo de texto para exibir o índice da próxima instrução.
  * - campoRegistradorInstrucao: Campo de texto para exibir a instrução atual sendo executada.
  * - campoCodigoOperacao: Campo de texto para exibir o código de operação atual.
  * - campoOperando: Campo de texto para exibir o operando atual.
- * - camposMemoria: Campos de texto para exibição e edição das posições de memória do Simpletron.
+ * - tabelaMemoria / modeloMemoria: Tabela com as posições de memória do Simpletron, 10 por linha. O modelo
+ *   (MemoryTableModel) só formata as células visíveis, o que permite memórias de milhares de palavras.
+ * - configuracao: Tamanho da memória e largura das palavras da máquina (MachineConfig).
  * - areaConsole: Componente de texto para exibição de mensagens e saídas do Simpletron.
  * - seletorArquivo: Componente que permite selecionar arquivos pelo sistema de diretórios.
  *
  * Construtores:
  * - SimpletronGUI(): Construtor que inicializa a interface gráfica e associa as ações aos componentes.
+ * - SimpletronGUI(MachineConfig configuracao): Idem, para uma máquina com outro tamanho de memória ou de palavra.
  *
  * Métodos:
  * - initComponents(): Configura os componentes gráficos, layouts e painéis da interface.
  * - criarCampoRegistrador(): Cria e retorna um campo de texto configurado para exibição de valores de registradores.
  * - initActions(): Associa eventos aos componentes da interface, como cliques de botões e ajustes do slider.
- * - executarPasso(): Executa uma única instrução do programa carregado na memória do Simpletron.
+ * - iniciarExecucao(Modo modo): Inicia a execução contínua, até um breakpoint ou de um único passo.
+ * - aplicarQuadro(DisplayFrame quadro): Desenha um retrato do estado entregue pela thread de execução.
+ * - execucaoPausada() / execucaoTerminada(ExecutionResult): Tratam o fim de um comando de execução.
  * - erroFatal(String mensagem): Exibe uma mensagem de erro crítica e reinicia o Simpletron.
+ * - mostrarAnalise(): Mostra no console os erros e avisos da análise estática do programa carregado.
+ * - carregarImagem(File arquivo): Carrega na memória uma imagem binária (.smli), sem interpretar texto.
  * - definirControlesAtivos(boolean ativo): Habilita ou desabilita os componentes da interface.
- * - gerarRelatorioExecucao(): Gera e retorna um relatório textual detalhado sobre o estado atual do Simpletron.
- * - obterDumpComoString(): Retorna o estado atual da memória do Simpletron como uma string formatada.
+ * - definirExecucaoAtiva(boolean ativo): Habilita ou desabilita os botões que executam o programa.
+ * - definirNavegacaoAtiva(boolean ativo): Habilita Voltar e Ir para o Passo quando o histórico já tem passos.
+ * - irParaPasso(long passo): Move a máquina no tempo usando o histórico e redesenha a interface.
+ * - gerarDetalhesDoRelatorio(): Monta as seções do relatório de execução que só a interface conhece (código,
+ *   console, últimos passos e perfil); o relatório é gravado em segundo plano por relatorios.
  * - atualizarGUI(): Atualiza a interface refletindo o estado atual da memória, registradores e console.
- * - main(String[] args): Metodo principal que cria e exibe a interface da aplicação.
+ *   Somente as células alteradas desde a última atualização e o destaque do contador de instrução são redesenhados.
+ *   Só deve ser chamado com a máquina parada; durante a execução o estado chega por aplicarQuadro().
+ * - main(String[] args): Metodo principal que cria e exibe a interface da aplicação. Aceita, opcionalmente,
+ *   o tamanho da memória e os dígitos por palavra (ex.: "1000 5").
  */
 public class SimpletronGUI extends JFrame {
 
+    private final MachineConfig configuracao;
     private final SimpletronLogic simpletron;
-    private Timer temporizadorExecucao;
+    private final ExecutionController controlador;
+    private final boolean[] breakpoints;
+    private ExecutionController.Modo ultimoModo;
+    private final ExecutionProfiler perfilador;
+    private final ExecutionTrace rastro = new ExecutionTrace(1024);
+    private final UndoLog historico = new UndoLog(1 << 16, 1024, 256);
+    private final ProgramParser interpretador;
+    private static final int PASSOS_NO_RELATORIO = 32;
+    private static final long TAMANHO_DO_ARQUIVO_DE_RELATORIOS = 1L << 20;
+    private final ReportWriter relatorios = new ReportWriter(
+            Path.of(System.getProperty("user.dir"), "relatorio_execucao.log.txt"), ReportWriter.Formato.TEXTO,
+            TAMANHO_DO_ARQUIVO_DE_RELATORIOS, ReportWriter.ARQUIVOS_GUARDADOS_PADRAO, 64);
+    private ExecutionResult ultimoResultado;
 
     // --- Componentes da GUI ---
     private JTextArea areaDecodigo;
     private JButton botaoCarregarArquivo;
     private JButton botaoCarregarMemoria;
     private JButton botaoExecutar;
+    private JButton botaoPausar;
+    private JButton botaoPasso;
+    private JButton botaoAteBreakpoint;
     private JButton botaoResetar;
     private JButton botaoSalvarRelatorio;
+    private JButton botaoVoltar;
+    private JButton botaoIrPara;
+    private JSpinner campoVoltar;
+    private JSpinner campoIrPara;
+    private JLabel rotuloPasso;
     private JSlider speedSlider;
+    private JCheckBox caixaTurbo;
+    private JCheckBox caixaPerfil;
 
     private JTextField campoAcumulador, campoContadorInstrucao, campoRegistradorInstrucao, 
                       campoCodigoOperacao, campoOperando;
-    private JTextField[] camposMemoria;
+    private MemoryTableModel modeloMemoria;
+    private JTable tabelaMemoria;
     //private JTextArea areaConsole;
     private JTextPane areaConsole;
     private Style estiloPadrao;
@@ -85,9 +155,48 @@ public class SimpletronGUI extends JFrame {
 
     private JFileChooser seletorArquivo;
 
+    // --- Estado do redesenho incremental ---
+    private final int[] registradoresExibidos = new int[5];
+    private int icDestacado = -1;
+
+    // --- Mapa de calor do perfil de execução ---
+    private static final Color[] CORES_CALOR = criarCoresCalor(8);
+    private final int[] nivelCalor;
+
     public SimpletronGUI() {
-        super("Simulador Simpletron");
-        simpletron = new SimpletronLogic();
+        this(MachineConfig.CLASSICA);
+    }
+
+    public SimpletronGUI(MachineConfig configuracao) {
+        super(configuracao.isClassica() ? "Simulador Simpletron"
+                : String.format("Simulador Simpletron (%d palavras de %d dígitos)",
+                configuracao.getTamanhoMemoria(), configuracao.getDigitosPorPalavra()));
+        this.configuracao = configuracao;
+        breakpoints = new boolean[configuracao.getTamanhoMemoria()];
+        nivelCalor = new int[configuracao.getTamanhoMemoria()];
+        perfilador = new ExecutionProfiler(configuracao.getTamanhoMemoria());
+        interpretador = new ProgramParser(configuracao);
+        simpletron = new SimpletronLogic(configuracao);
+        if (configuracao.isClassica()) { // Rastro e histórico guardam endereços e palavras em 16 bits
+            simpletron.setRastro(rastro);
+            simpletron.setHistorico(historico);
+        }
+        controlador = new ExecutionController(simpletron, new EntradaPorDialogo(), new ExecutionController.Ouvinte() {
+            @Override
+            public void quadro(DisplayFrame quadro) {
+                aplicarQuadro(quadro);
+            }
+
+            @Override
+            public void pausado() {
+                execucaoPausada();
+            }
+
+            @Override
+            public void terminado(ExecutionResult resultado) {
+                execucaoTerminada(resultado);
+            }
+        });
 
         initComponents();
         initActions();
@@ -119,21 +228,43 @@ public class SimpletronGUI extends JFrame {
         botaoCarregarArquivo = new JButton("Carregar Arquivo...");
         botaoCarregarMemoria = new JButton("Carregar na Memória");
         botaoExecutar = new JButton("Executar");
+        botaoPausar = new JButton("Pausar");
+        botaoPasso = new JButton("Passo");
+        botaoAteBreakpoint = new JButton("Até Breakpoint");
         botaoResetar = new JButton("Reiniciar");
         botaoSalvarRelatorio = new JButton("Salvar Relatório...");
 
-        botaoExecutar.setEnabled(false);
+        definirExecucaoAtiva(false);
+        botaoPausar.setEnabled(false);
         botaoSalvarRelatorio.setEnabled(false);
 
         painelControle.add(botaoCarregarArquivo);
         painelControle.add(botaoCarregarMemoria);
         painelControle.add(botaoExecutar);
+        painelControle.add(botaoPausar);
+        painelControle.add(botaoPasso);
+        painelControle.add(botaoAteBreakpoint);
         painelControle.add(botaoSalvarRelatorio);
         painelControle.add(botaoResetar);
 
+        JPanel painelTempo = new JPanel(new FlowLayout(FlowLayout.CENTER, 5, 2));
+        painelTempo.setBorder(new TitledBorder("4. Voltar no Tempo"));
+        campoVoltar = new JSpinner(new SpinnerNumberModel(1, 1, Integer.MAX_VALUE, 1));
+        botaoVoltar = new JButton("Voltar");
+        campoIrPara = new JSpinner(new SpinnerNumberModel(0L, 0L, Long.MAX_VALUE, 1L));
+        ((JSpinner.DefaultEditor) campoIrPara.getEditor()).getTextField().setColumns(8);
+        botaoIrPara = new JButton("Ir para o Passo");
+        rotuloPasso = new JLabel("Passo: 0");
+        painelTempo.add(botaoVoltar);
+        painelTempo.add(campoVoltar);
+        painelTempo.add(new JLabel("passos"));
+        painelTempo.add(botaoIrPara);
+        painelTempo.add(campoIrPara);
+        painelTempo.add(rotuloPasso);
+
         JPanel painelSpeed = new JPanel(new BorderLayout());
         painelSpeed.setBorder(new TitledBorder("3. Controle de Velocidade (ms por passo)"));
-        speedSlider = new JSlider(JSlider.HORIZONTAL, 20, 1000, 200); // Mínimo(rápido), Máximo(lento), Valor Inicial
+        speedSlider = new JSlider(JSlider.HORIZONTAL, 0, 1000, 200); // Mínimo(rápido), Máximo(lento), Valor Inicial
         speedSlider.setMajorTickSpacing(200);
         speedSlider.setMinorTickSpacing(50);
         speedSlider.setPaintTicks(true);
@@ -141,9 +272,16 @@ public class SimpletronGUI extends JFrame {
         painelSpeed.add(new JLabel("Rápido"), BorderLayout.WEST);
         painelSpeed.add(speedSlider, BorderLayout.CENTER);
         painelSpeed.add(new JLabel("Lento"), BorderLayout.EAST);
+        caixaTurbo = new JCheckBox("Velocidade máxima (ignora o atraso, tela atualizada a 30 quadros/s)");
+        caixaPerfil = new JCheckBox("Perfil de execução (destaca as células mais executadas)");
+        JPanel painelOpcoes = new JPanel(new GridLayout(2, 1));
+        painelOpcoes.add(caixaTurbo);
+        painelOpcoes.add(caixaPerfil);
+        painelSpeed.add(painelOpcoes, BorderLayout.SOUTH);
 
         southPanel.add(painelControle);
         southPanel.add(painelSpeed); // Adiciona o painel de velocidade abaixo dos botões
+        southPanel.add(painelTempo);
         painelEsquerdo.add(southPanel, BorderLayout.SOUTH);
         //painelEsquerdo.add(painelControle, BorderLayout.SOUTH);
 
@@ -173,18 +311,30 @@ public class SimpletronGUI extends JFrame {
 
         painelDireito.add(painelRegistradores, BorderLayout.NORTH);
 
-        JPanel painelMemoria = new JPanel(new GridLayout(10, 10, 2, 2));
+        modeloMemoria = new MemoryTableModel(configuracao);
+        tabelaMemoria = new JTable(modeloMemoria);
+        tabelaMemoria.setFont(new Font("Monospaced", Font.BOLD, 12));
+        tabelaMemoria.setRowHeight(22);
+        tabelaMemoria.setCellSelectionEnabled(false);
+        tabelaMemoria.setFocusable(false);
+        tabelaMemoria.getTableHeader().setReorderingAllowed(false);
+        tabelaMemoria.setToolTipText("Duplo clique para marcar/desmarcar um breakpoint");
+        tabelaMemoria.setDefaultRenderer(Object.class, new RenderizadorMemoria());
+        tabelaMemoria.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2) {
+                    int endereco = modeloMemoria.enderecoEm(tabelaMemoria.rowAtPoint(e.getPoint()),
+                            tabelaMemoria.columnAtPoint(e.getPoint()));
+                    if (endereco >= 0) {
+                        alternarBreakpoint(endereco);
+                    }
+                }
+            }
+        });
+
+        JScrollPane painelMemoria = new JScrollPane(tabelaMemoria);
         painelMemoria.setBorder(new TitledBorder("Memória"));
-        camposMemoria = new JTextField[100];
-        
-        for (int i = 0; i < 100; i++) {
-            camposMemoria[i] = new JTextField(5);
-            camposMemoria[i].setEditable(false);
-            camposMemoria[i].setHorizontalAlignment(JTextField.CENTER);
-            camposMemoria[i].setFont(new Font("Monospaced", Font.BOLD, 12));
-            painelMemoria.add(camposMemoria[i]);
-        }
-        
         painelDireito.add(painelMemoria, BorderLayout.CENTER);
         add(painelDireito, BorderLayout.CENTER);
 
@@ -214,6 +364,7 @@ public class SimpletronGUI extends JFrame {
         add(painelRolagemConsole, BorderLayout.SOUTH);
 
         atualizarGUI();
+        definirNavegacaoAtiva(true);
     }
 
     private JTextField criarCampoRegistrador() {
@@ -226,13 +377,17 @@ public class SimpletronGUI extends JFrame {
     private void initActions() {
         seletorArquivo = new JFileChooser(System.getProperty("user.dir"));
         FileNameExtensionFilter filtro = new FileNameExtensionFilter(
-            "Arquivos Simpletron (*.sml, *.txt)", "sml", "txt");
+            "Arquivos Simpletron (*.sml, *.txt, *.smli)", "sml", "txt", "smli");
         seletorArquivo.setFileFilter(filtro);
 
         botaoCarregarArquivo.addActionListener(e -> {
             int resultado = seletorArquivo.showOpenDialog(this);
             if (resultado == JFileChooser.APPROVE_OPTION) {
                 File arquivoSelecionado = seletorArquivo.getSelectedFile();
+                if (arquivoSelecionado.getName().endsWith(ProgramImage.EXTENSAO)) {
+                    carregarImagem(arquivoSelecionado);
+                    return;
+                }
                 try {
                     String conteudo = Files.readString(arquivoSelecionado.toPath(), StandardCharsets.UTF_8);
                     areaDecodigo.setText(conteudo);
@@ -248,17 +403,26 @@ public class SimpletronGUI extends JFrame {
         });
 
         botaoCarregarMemoria.addActionListener(e -> {
-            String[] linhas = areaDecodigo.getText().lines().toArray(String[]::new);
-            String mensagemErro = simpletron.carregarPrograma(linhas);
+            String texto = areaDecodigo.getText();
+            String mensagemErro = null;
+            if (interpretador.analisar(texto)) {
+                interpretador.carregar(simpletron);
+            } else {
+                simpletron.reiniciar();
+                mensagemErro = interpretador.getMensagemDeErro();
+            }
 
             atualizarGUI();
+            definirNavegacaoAtiva(true); // A carga esvazia o histórico
             // Não houve problemas ao carregar o programa na memória
             if (mensagemErro == null) {
                 adicionarAoPainel("Programa carregado na memória com sucesso.\n", estiloPadrao);
+                mostrarAnalise();
                 //areaConsole.append("Programa carregado na memória com sucesso.\n");
-                botaoExecutar.setEnabled(true);
+                definirExecucaoAtiva(true);
                 botaoSalvarRelatorio.setEnabled(false);
 
+                String[] linhas = texto.lines().toArray(String[]::new);
                 StringBuilder formattedCode = new StringBuilder();
                 for (int i=0; i<linhas.length; i++) {
                     String linhaOriginal = linhas[i];
@@ -268,15 +432,15 @@ public class SimpletronGUI extends JFrame {
                         parteIsntrucao = linhaOriginal.substring(0, linhaOriginal.indexOf("//"));
                     }
 
-                    if (parteIsntrucao.trim().isEmpty()) {
+                    if (parteIsntrucao.trim().isEmpty() || i >= simpletron.getMemory().length) {
                         formattedCode.append(linhaOriginal).append("\n");
                     } else {
                         int isntrucao = simpletron.getMemoryAt(i);
                         String comentario = simpletron.getCommentAt(i);
 
-                        String formattedLine = String.format("%+05d", isntrucao);
+                        String formattedLine = formatarPalavra(isntrucao);
                         if (comentario != null && !comentario.isEmpty()) {
-                            formattedLine += String.format("  // %s", comentario);
+                            formattedLine += "  // " + comentario;
                         }
                         formattedCode.append(formattedLine).append("\n");
                     }
@@ -284,123 +448,275 @@ public class SimpletronGUI extends JFrame {
                 areaDecodigo.setText(formattedCode.toString());
             } else {
                 JOptionPane.showMessageDialog(this, mensagemErro, "Erro de Carregamento", JOptionPane.ERROR_MESSAGE);
-                adicionarAoPainel("FALHA AO CARREGAR: " + mensagemErro + "\n", estiloErro);
+                adicionarAoPainel("FALHA AO CARREGAR:\n" + mensagemErro, estiloErro);
                 //areaConsole.append("FALHA AO CARREGAR: " + mensagemErro + "\n");
-                botaoExecutar.setEnabled(false);
+                definirExecucaoAtiva(false);
             }
             botaoSalvarRelatorio.setEnabled(false);
         });
 
         botaoExecutar.addActionListener(e -> {
-            definirControlesAtivos(false);
-            areaConsole.setText("");
+            // Ao continuar de uma pausa, o console é mantido
+            if (simpletron.getPassosExecutados() == 0) {
+                areaConsole.setText("");
+            }
             adicionarAoPainel("Iniciando execução...\n", estiloPadrao);
             //areaConsole.append("Iniciando execução...\n");
-            temporizadorExecucao.start();
+            iniciarExecucao(ExecutionController.Modo.CONTINUO);
+        });
+
+        botaoAteBreakpoint.addActionListener(e -> iniciarExecucao(ExecutionController.Modo.ATE_BREAKPOINT));
+
+        botaoPasso.addActionListener(e -> iniciarExecucao(ExecutionController.Modo.PASSO));
+
+        botaoPausar.addActionListener(e -> {
+            botaoPausar.setEnabled(false);
+            controlador.pausar();
         });
 
         botaoResetar.addActionListener(e -> {
-            if (temporizadorExecucao.isRunning()) {
-                temporizadorExecucao.stop();
-            }
             simpletron.reiniciar();
             atualizarGUI();
             areaDecodigo.setText("");
             areaConsole.setText("Simulador resetado.\n");
             definirControlesAtivos(true);
-            botaoExecutar.setEnabled(false);
+            definirExecucaoAtiva(false);
             botaoSalvarRelatorio.setEnabled(false);
         });
 
-        botaoSalvarRelatorio.addActionListener(e -> {
-            String nomeArquivo = "relatorio_execucao.log.txt";
-            File arquivoRelatorio = new File(System.getProperty("user.dir"), nomeArquivo);
+        botaoVoltar.addActionListener(e ->
+                irParaPasso(historico.getPassoAtual() - ((Number) campoVoltar.getValue()).longValue()));
+
+        botaoIrPara.addActionListener(e -> irParaPasso(((Number) campoIrPara.getValue()).longValue()));
 
-            try (PrintWriter saida = new PrintWriter(new FileWriter(arquivoRelatorio, true))) {
-                saida.println(gerarRelatorioExecucao());
-                saida.println("\n");
+        caixaPerfil.addActionListener(e -> {
+            simpletron.setPerfilador(caixaPerfil.isSelected() ? perfilador : null);
+            if (!caixaPerfil.isSelected()) {
+                atualizarCalor(new long[nivelCalor.length], 0);
+            }
+        });
 
+        botaoSalvarRelatorio.addActionListener(e -> {
+            ExecutionReport relatorio = ExecutionReport.capturar(null, simpletron, ultimoResultado, null,
+                    gerarDetalhesDoRelatorio());
+            IOException falhaAnterior = relatorios.getErro();
+            if (falhaAnterior != null) {
+                JOptionPane.showMessageDialog(this,
+                        "Erro ao salvar o arquivo de relatorio: " + falhaAnterior.getMessage(),
+                        "Erro de Arquivo",
+                        JOptionPane.ERROR_MESSAGE);
+            } else if (relatorios.oferecer(relatorio)) {
                 JOptionPane.showMessageDialog(this,
-                        "Relatório adicionado com sucesso ao arquivo:\n" + arquivoRelatorio.getAbsolutePath(),
+                        "Relatório enviado para o arquivo:\n" + relatorios.getArquivo().toAbsolutePath(),
                         "Sucesso",
                         JOptionPane.INFORMATION_MESSAGE);
-            } catch (IOException ex) {
+            } else {
                 JOptionPane.showMessageDialog(this,
-                        "Erro ao salvar o arquivo de relatorio: " + ex.getMessage(),
+                        "Muitos relatórios aguardando gravação; tente novamente.",
                         "Erro de Arquivo",
                         JOptionPane.ERROR_MESSAGE);
             }
         });
 
-        speedSlider.addChangeListener(e -> {
-            if (temporizadorExecucao != null) {
-                temporizadorExecucao.setDelay(speedSlider.getValue());
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                try {
+                    relatorios.close(); // Grava os relatórios pendentes antes de a aplicação terminar
+                } catch (IOException ex) {
+                    System.err.println("Erro ao salvar o arquivo de relatorio: " + ex.getMessage());
+                }
             }
         });
+    }
+
+    /**
+     * Carrega diretamente na memória uma imagem montada por ProgramCompiler e mostra o programa no editor.
+     */
+    private void carregarImagem(File arquivo) {
+        ProgramImage imagem;
+        try {
+            imagem = ProgramImage.abrir(arquivo.toPath());
+            imagem.carregar(simpletron);
+        } catch (IOException | IllegalArgumentException ex) {
+            JOptionPane.showMessageDialog(this, "Erro ao ler a imagem: " + ex.getMessage(),
+                    "Erro de arquivo", JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        atualizarGUI();
+        definirNavegacaoAtiva(true);
+        areaDecodigo.setText(imagem.paraTexto());
+        areaConsole.setText("Imagem '" + arquivo.getName() + "' carregada na memória com sucesso.\n");
+        mostrarAnalise();
+        definirExecucaoAtiva(true);
+        botaoSalvarRelatorio.setEnabled(false);
+    }
+
+    /**
+     * Mostra no console os problemas encontrados pela análise estática do programa carregado.
+     */
+    private void mostrarAnalise() {
+        List<ProgramAnalysis.Problema> problemas = simpletron.analisar().getProblemas();
+        for (ProgramAnalysis.Problema problema : problemas) {
+            adicionarAoPainel(problema.formatar() + "\n",
+                    problema.severidade() == ProgramAnalysis.Severidade.ERRO ? estiloErro : estiloPadrao);
+        }
+    }
+
+    /**
+     * Inicia um comando do controlador de execução, desabilitando os controles enquanto ele roda.
+     */
+    private void iniciarExecucao(ExecutionController.Modo modo) {
+        definirControlesAtivos(false);
+        botaoPausar.setEnabled(true);
+        int atraso = caixaTurbo.isSelected() ? 0 : speedSlider.getValue();
+        ultimoModo = modo;
+        controlador.iniciar(modo, atraso, breakpoints);
+    }
+
+    private void aplicarQuadro(DisplayFrame quadro) {
+        if (quadro.saida.length() > 0) {
+            adicionarAoPainel(quadro.saida.toString(), estiloSaida);
+        }
+        atualizarRegistrador(0, campoAcumulador, quadro.acumulador, true);
+        atualizarRegistrador(1, campoContadorInstrucao, quadro.contadorInstrucao, false);
+        atualizarRegistrador(2, campoRegistradorInstrucao, quadro.registradorInstrucao, true);
+        atualizarRegistrador(3, campoCodigoOperacao, quadro.codigoOperacao, false);
+        atualizarRegistrador(4, campoOperando, quadro.operando, false);
+
+        for (int i = 0; i < quadro.alterada.length; i++) {
+            if (quadro.alterada[i]) {
+                modeloMemoria.atualizar(i, quadro.valores[i]);
+            }
+        }
 
-        temporizadorExecucao = new Timer(speedSlider.getValue(), e -> executarPasso());
-        //temporizadorExecucao = new Timer(500, e -> executarPasso());
+        if (quadro.maximoExecucoes >= 0) {
+            atualizarCalor(quadro.execucoes, quadro.maximoExecucoes);
+        }
 
+        rotuloPasso.setText("Passo: " + quadro.passos);
 
+        int contadorInstrucao = quadro.contadorInstrucao;
+        if (contadorInstrucao != icDestacado) {
+            int anterior = icDestacado;
+            icDestacado = contadorInstrucao;
+            pintarCelula(anterior);
+            pintarCelula(contadorInstrucao);
+            mostrarCelula(contadorInstrucao);
+        }
     }
 
-    private void executarPasso() {
-        int codigoOp = simpletron.executarPasso();
-        if (codigoOp == SimpletronLogic.READ) {
-            temporizadorExecucao.stop();
-            String entrada = JOptionPane.showInputDialog(this, "Digite um valor para a instrução READ ");
-            try {
-                int valor = Integer.parseInt(entrada);
-                // Validação de estouro do acumulador
-                if (valor < -9999 || valor > 9999) {
-                    erroFatal("Valor de entrada fora da faixa [-9999, 9999]");
-                    return;
-                }
-                simpletron.setMemoryAt(simpletron.getOperand(), valor);
-                temporizadorExecucao.start();
-            } catch (NumberFormatException ex) {
-                erroFatal("Entrada Inválida. A execução foi abortada. ");
+    /**
+     * Rola a tabela de memória até a linha do endereço, se ela não estiver visível.
+     */
+    private void mostrarCelula(int endereco) {
+        if (endereco >= 0 && endereco < breakpoints.length) {
+            tabelaMemoria.scrollRectToVisible(tabelaMemoria.getCellRect(MemoryTableModel.linhaDe(endereco),
+                    MemoryTableModel.colunaDe(endereco), true));
+        }
+    }
+
+    /**
+     * Recalcula o nível de calor de cada célula, em escala logarítmica relativa à célula mais
+     * executada, e repinta somente as células cujo nível mudou.
+     */
+    private void atualizarCalor(long[] execucoes, long maximo) {
+        double escala = Math.log1p(maximo);
+        for (int i = 0; i < nivelCalor.length; i++) {
+            int nivel = 0;
+            if (execucoes[i] > 0) {
+                nivel = 1 + (int) ((CORES_CALOR.length - 2) * Math.log1p(execucoes[i]) / escala);
+            }
+            if (nivel != nivelCalor[i]) {
+                nivelCalor[i] = nivel;
+                pintarCelula(i);
+            }
+        }
+    }
+
+    /**
+     * Cria a escala de cores do mapa de calor, do branco (nunca executada) ao vermelho.
+     */
+    private static Color[] criarCoresCalor(int niveis) {
+        Color[] cores = new Color[niveis];
+        cores[0] = Color.WHITE;
+        for (int i = 1; i < niveis; i++) {
+            float t = (float) i / (niveis - 1);
+            cores[i] = new Color(255, (int) (235 - 175 * t), (int) (170 - 130 * t));
+        }
+        return cores;
+    }
+
+    /**
+     * Pede o redesenho de uma célula cuja cor mudou. A cor é escolhida por {@link RenderizadorMemoria}.
+     */
+    private void pintarCelula(int endereco) {
+        modeloMemoria.celulaAlterada(endereco);
+    }
+
+    /**
+     * Define a cor de fundo de cada célula da tabela de memória: ciano para a próxima instrução, rosa
+     * para breakpoints e, com o perfil ativo, a cor do mapa de calor. A coluna de endereços fica cinza.
+     */
+    private class RenderizadorMemoria extends DefaultTableCellRenderer {
+
+        RenderizadorMemoria() {
+            setHorizontalAlignment(CENTER);
+        }
+
+        @Override
+        public Component getTableCellRendererComponent(JTable tabela, Object valor, boolean selecionada,
+                                                       boolean foco, int linha, int coluna) {
+            super.getTableCellRendererComponent(tabela, valor, false, false, linha, coluna);
+            int endereco = modeloMemoria.enderecoEm(linha, coluna);
+            Color cor;
+            if (endereco < 0) {
+                cor = tabela.getTableHeader().getBackground();
+            } else if (endereco == icDestacado) {
+                cor = Color.CYAN;
+            } else if (breakpoints[endereco]) {
+                cor = Color.PINK;
+            } else {
+                cor = CORES_CALOR[nivelCalor[endereco]];
             }
+            setBackground(cor);
+            return this;
         }
-        else if(codigoOp == SimpletronLogic.WRITE) {
-            String mensagemDeSaida = "Saída: " + simpletron.getMemoryAt(simpletron.getOperand()) + "\n";
-            adicionarAoPainel(mensagemDeSaida, estiloSaida);
-            //adicionarAoPainel("Saída: ", estiloPadrao);
-            //adicionarAoPainel(String.valueOf(simpletron.getMemoryAt(simpletron.getOperand())) + "\n", estiloSaida);
-            //areaConsole.append("Saída: " + simpletron.getMemoryAt(simpletron.getOperand()) + "\n");
+    }
+
+    private void alternarBreakpoint(int endereco) {
+        breakpoints[endereco] = !breakpoints[endereco];
+        pintarCelula(endereco);
+    }
+
+    private void execucaoPausada() {
+        if (ultimoModo != ExecutionController.Modo.PASSO) {
+            adicionarAoPainel("Execução pausada na posição " + formatarEndereco(simpletron.getInstructionCounter()) + ".\n",
+                    estiloPadrao);
         }
-        else if (codigoOp == SimpletronLogic.HALT) {
-            temporizadorExecucao.stop();
+        definirControlesAtivos(true);
+        botaoPausar.setEnabled(false);
+    }
+
+    private void execucaoTerminada(ExecutionResult resultado) {
+        ultimoResultado = resultado;
+        if (resultado.motivo() == HaltReason.HALTED) {
             adicionarAoPainel("\n***Execução finalizada normalmente. ***\n", estiloPadrao);
-            //areaConsole.append("\n***Execução finalizada normalmente. ***\n");
             definirControlesAtivos(true);
             botaoSalvarRelatorio.setEnabled(true);
-            botaoExecutar.setEnabled(false);
+            definirExecucaoAtiva(false);
+        } else {
+            erroFatal(resultado.motivo().getDescricao(configuracao));
         }
-        else if (codigoOp < 0) {
-            switch (codigoOp) {
-                case -1:
-                    erroFatal("Erro fatal: Tentativa de divisão por zero.");
-                    break;
-                case -2:
-                    erroFatal("Erro fatal: Código de operação inválido.");
-                    break;
-                case -3:
-                    erroFatal("Erro fatal: Estouro do acumulador. ");
-                    break;
-            }
-            return;
-        }
-        atualizarGUI();
     }
 
     private void erroFatal(String mensagem) {
-        temporizadorExecucao.stop();
         adicionarAoPainel("\n" + mensagem + "\n", estiloErro);
         //areaConsole.append("\n" + mensagem + "\n");
         JOptionPane.showMessageDialog(this, mensagem, "Erro Fatal", JOptionPane.ERROR_MESSAGE);
         definirControlesAtivos(true);
-        botaoExecutar.setEnabled(false);
+        definirExecucaoAtiva(false);
+        botaoSalvarRelatorio.setEnabled(true); // O relatório traz os passos que levaram ao erro
     }
 
     private void adicionarAoPainel(String msg, Style estilo) {
@@ -415,19 +731,48 @@ public class SimpletronGUI extends JFrame {
     private void definirControlesAtivos(boolean ativo) {
         botaoCarregarArquivo.setEnabled(ativo);
         botaoCarregarMemoria.setEnabled(ativo);
-        botaoExecutar.setEnabled(ativo);
+        definirExecucaoAtiva(ativo);
         botaoResetar.setEnabled(ativo);
+        caixaPerfil.setEnabled(ativo);
+        definirNavegacaoAtiva(ativo);
         areaDecodigo.setEnabled(ativo);
     }
 
-    private String gerarRelatorioExecucao() {
-        StringBuilder relatorio = new StringBuilder();
-        DateTimeFormatter formatador = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss");
+    /**
+     * Habilita Voltar e Ir para o Passo somente fora de uma execução e quando o histórico já registrou
+     * algum passo: logo depois de carregar ou resetar não há para onde ir.
+     */
+    private void definirNavegacaoAtiva(boolean ativo) {
+        boolean comPassos = ativo && simpletron.getHistorico() != null
+                && historico.getUltimoPasso() > historico.getPrimeiroPasso();
+        botaoVoltar.setEnabled(comPassos);
+        botaoIrPara.setEnabled(comPassos);
+    }
+
+    private void irParaPasso(long passo) {
+        if (!simpletron.irParaPasso(passo)) {
+            adicionarAoPainel(String.format("O histórico só alcança os passos %d a %d.%n",
+                    historico.getPrimeiroPasso(), historico.getUltimoPasso()), estiloErro);
+            return;
+        }
+        atualizarGUI();
+        adicionarAoPainel("Máquina levada ao passo " + passo + " (as saídas já exibidas não são desfeitas).\n",
+                estiloPadrao);
+        definirExecucaoAtiva(true); // A partir desse passo, o programa pode ser executado de novo
+    }
 
-        relatorio.append("==============================================\n");
-        relatorio.append("   RELATÓRIO DE EXECUÇÃO DO SIMPLETRON\n");
-        relatorio.append("==============================================\n\n");
-        relatorio.append("Data/Hora da Execução: ").append(formatador.format(LocalDateTime.now())).append("\n\n");
+    private void definirExecucaoAtiva(boolean ativo) {
+        botaoExecutar.setEnabled(ativo);
+        botaoPasso.setEnabled(ativo);
+        botaoAteBreakpoint.setEnabled(ativo);
+    }
+
+    /**
+     * Monta as seções do relatório que só a interface conhece: o código, o console, os últimos passos e o
+     * perfil. Os registradores e o dump são formatados por ReportWriter, fora da EDT.
+     */
+    private String gerarDetalhesDoRelatorio() {
+        StringBuilder relatorio = new StringBuilder();
 
         relatorio.append("--- CÓDIGO SML EXECUTADO ---\n");
         relatorio.append(areaDecodigo.getText()).append("\n\n");
@@ -435,62 +780,94 @@ public class SimpletronGUI extends JFrame {
         relatorio.append("--- LOG DO CONSOLE (ENTRADA/SAÍDA) ---\n");
         relatorio.append(areaConsole.getText()).append("\n");
 
-        relatorio.append("--- DUMP FINAL DA MÁQUINA ---\n");
-        relatorio.append(obterDumpComoString());
+        List<ExecutionTrace.Passo> passos = rastro.copiar();
+        if (!passos.isEmpty()) {
+            relatorio.append("--- ÚLTIMOS PASSOS EXECUTADOS ---\n");
+            for (int i = Math.max(0, passos.size() - PASSOS_NO_RELATORIO); i < passos.size(); i++) {
+                relatorio.append(passos.get(i).formatar()).append("\n");
+            }
+            relatorio.append("\n");
+        }
+
+        if (simpletron.getPerfilador() != null) {
+            relatorio.append("--- PERFIL DE EXECUÇÃO (PONTOS QUENTES) ---\n");
+            relatorio.append(perfilador.gerarRelatorio(simpletron.getMemory(), 10, configuracao)).append("\n");
+        }
 
         return relatorio.toString();
     }
 
-    private String obterDumpComoString() {
-        StringBuilder dump = new StringBuilder();
-
-        dump.append("REGISTRADORES:\n");
-        dump.append(String.format("acumulador:            %+05d\n", simpletron.getAccumulator()));
-        dump.append(String.format("contadorDeInstrucao:   %02d\n", simpletron.getInstructionCounter()));
-        dump.append(String.format("registradorDeInstrucao: %+05d\n", simpletron.getInstructionRegister()));
-        dump.append(String.format("codigoDeOperacao:      %02d\n", simpletron.getOperationCode()));
-        dump.append(String.format("operando:              %02d\n\n", simpletron.getOperand()));
+    private void atualizarGUI() {
+        DisplayFrame quadro = new DisplayFrame(breakpoints.length);
+        quadro.capturar(simpletron);
+        aplicarQuadro(quadro);
+    }
 
-        dump.append("MEMÓRIA:\n");
-        dump.append("    ");
-        for (int i = 0; i < 10; i++) {
-            dump.append(String.format("   %d  ", i));
+    /**
+     * Atualiza o texto de um campo de registrador somente se o valor mudou desde o último redesenho.
+     */
+    private void atualizarRegistrador(int indice, JTextField campo, int valor, boolean comSinal) {
+        if (registradoresExibidos[indice] == valor && !campo.getText().isEmpty()) {
+            return;
         }
-        dump.append("\n");
+        registradoresExibidos[indice] = valor;
+        campo.setText(comSinal ? formatarPalavra(valor) : formatarEndereco(valor));
+    }
 
-        int[] memoria = simpletron.getMemory();
-        for (int i = 0; i < 100; i++) {
-            if (i % 10 == 0) {
-                dump.append(String.format("%2d  ", i));
-            }
-            dump.append(String.format("%+05d ", memoria[i]));
-            if ((i + 1) % 10 == 0) {
-                dump.append("\n");
-            }
-        }
-        return dump.toString();
+    /**
+     * Formata uma palavra com sinal e zeros à esquerda (na máquina clássica, "%+05d").
+     */
+    private String formatarPalavra(int valor) {
+        return configuracao.formatarPalavra(valor);
     }
 
-    private void atualizarGUI() {
-        campoAcumulador.setText(String.format("%+05d", simpletron.getAccumulator()));
-        campoContadorInstrucao.setText(String.format("%02d", simpletron.getInstructionCounter()));
-        campoRegistradorInstrucao.setText(String.format("%+05d", simpletron.getInstructionRegister()));
-        campoCodigoOperacao.setText(String.format("%02d", simpletron.getOperationCode()));
-        campoOperando.setText(String.format("%02d", simpletron.getOperand()));
-        
-        int[] memoria = simpletron.getMemory();
-        for (int i = 0; i < memoria.length; i++) {
-            camposMemoria[i].setText(String.format("%+05d", memoria[i]));
-            camposMemoria[i].setBackground(Color.WHITE);
+    /**
+     * Formata um endereço com zeros à esquerda (na máquina clássica, "%02d").
+     */
+    private String formatarEndereco(int valor) {
+        return configuracao.formatarEndereco(valor);
+    }
+
+    /**
+     * Canal de entrada da execução: pede cada valor ao usuário com um diálogo exibido na EDT,
+     * enquanto a thread de execução aguarda.
+     */
+    private class EntradaPorDialogo implements InputChannel {
+        private String texto;
+
+        @Override
+        public boolean temProximo() {
+            try {
+                SwingUtilities.invokeAndWait(() -> texto = JOptionPane.showInputDialog(
+                        SimpletronGUI.this, "Digite um valor para a instrução READ "));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } catch (InvocationTargetException e) {
+                return false;
+            }
+            return true; // Um diálogo cancelado (texto null) é tratado como entrada inválida em ler()
         }
-        
-        int contadorInstrucao = simpletron.getInstructionCounter();
-        if (contadorInstrucao >= 0 && contadorInstrucao < 100) {
-            camposMemoria[contadorInstrucao].setBackground(Color.CYAN);
+
+        @Override
+        public int ler() {
+            return Integer.parseInt(texto);
         }
     }
 
     public static void main(String[] args) {
-        SwingUtilities.invokeLater(SimpletronGUI::new);
+        MachineConfig configuracao = MachineConfig.CLASSICA;
+        try {
+            if (args.length == 1) {
+                configuracao = MachineConfig.comTamanho(Integer.parseInt(args[0]));
+            } else if (args.length >= 2) {
+                configuracao = new MachineConfig(Integer.parseInt(args[0]), Integer.parseInt(args[1]));
+            }
+        } catch (IllegalArgumentException ex) { // Inclui NumberFormatException
+            System.err.println("Uso: SimpletronGUI [palavras [digitos]]: " + ex.getMessage());
+            System.exit(2);
+        }
+        MachineConfig escolhida = configuracao;
+        SwingUtilities.invokeLater(() -> new SimpletronGUI(escolhida));
     }
 }
\ No newline at end of file
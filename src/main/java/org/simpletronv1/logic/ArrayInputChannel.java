@@ -0,0 +1,39 @@
+package org.simpletronv1.logic;
+
+/**
+ * Canal de entrada que fornece, em ordem, os valores de um array carregado previamente.
+ * Não faz nenhuma alocação durante a execução.
+ */
+public class ArrayInputChannel implements InputChannel {
+
+    private final int[] valores;
+    private int posicao;
+
+    public ArrayInputChannel(int... valores) {
+        this.valores = valores;
+    }
+
+    @Override
+    public boolean temProximo() {
+        return posicao < valores.length;
+    }
+
+    @Override
+    public int ler() {
+        return valores[posicao++];
+    }
+
+    /**
+     * @return a quantidade de valores já consumidos.
+     */
+    public int getPosicao() {
+        return posicao;
+    }
+
+    /**
+     * Volta ao primeiro valor, permitindo reutilizar o canal em outra execução.
+     */
+    public void reiniciar() {
+        posicao = 0;
+    }
+}
@@ -0,0 +1,46 @@
+package org.simpletronv1.logic;
+
+import java.util.Arrays;
+
+/**
+ * Canal de saída que acumula os valores escritos em um array primitivo que cresce sob demanda.
+ */
+public class ArrayOutputChannel implements OutputChannel {
+
+    private int[] valores;
+    private int tamanho;
+
+    public ArrayOutputChannel() {
+        this(16);
+    }
+
+    public ArrayOutputChannel(int capacidadeInicial) {
+        this.valores = new int[Math.max(1, capacidadeInicial)];
+    }
+
+    @Override
+    public void escrever(int valor) {
+        if (tamanho == valores.length) {
+            valores = Arrays.copyOf(valores, tamanho * 2);
+        }
+        valores[tamanho++] = valor;
+    }
+
+    /**
+     * @return uma cópia dos valores escritos, em ordem.
+     */
+    public int[] getValores() {
+        return Arrays.copyOf(valores, tamanho);
+    }
+
+    public int getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Descarta os valores escritos, mantendo o array para reutilização.
+     */
+    public void limpar() {
+        tamanho = 0;
+    }
+}
@@ -0,0 +1,305 @@
+package org.simpletronv1.logic;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gerador mínimo de arquivos .class usado pelo {@link CompiledEngine}.
+ *
+ * Produz uma classe com um único método estático, no formato de class file 49 (Java 5).
+ * Essa versão é verificada por inferência de tipos e dispensa o atributo StackMapTable,
+ * o que mantém o gerador pequeno. A API java.lang.classfile só é final a partir do Java 24;
+ * este projeto compila para Java 21.
+ *
+ * Apenas as instruções JVM necessárias para traduzir SML são suportadas.
+ */
+class BytecodeWriter {
+
+    // --- Opcodes JVM utilizados ---
+    static final int ICONST_M1 = 0x02, ICONST_0 = 0x03, BIPUSH = 0x10, SIPUSH = 0x11;
+    static final int ILOAD = 0x15, ALOAD = 0x19, IALOAD = 0x2e, ISTORE = 0x36, IASTORE = 0x4f;
+    static final int POP = 0x57, DUP = 0x59, IADD = 0x60, ISUB = 0x64, IMUL = 0x68, IDIV = 0x6c, IINC = 0x84;
+    static final int IFEQ = 0x99, IFNE = 0x9a, IFLT = 0x9b, IF_ICMPLT = 0xa1, IF_ICMPGT = 0xa3;
+    static final int GOTO = 0xa7, TABLESWITCH = 0xaa, IRETURN = 0xac, INVOKEINTERFACE = 0xb9;
+
+    private static final int CLASS_FILE_VERSION = 49;
+
+    /**
+     * Posição no código que pode ser referenciada antes de ser definida.
+     */
+    static final class Label {
+        private int posicao = -1;
+        private final List<int[]> pendencias = new ArrayList<>(); // {origem, local do deslocamento, largura}
+    }
+
+    private final ByteArrayOutputStream constantes = new ByteArrayOutputStream();
+    private final DataOutputStream pool = new DataOutputStream(constantes);
+    private final Map<String, Integer> indices = new HashMap<>();
+    private int proximoIndice = 1;
+
+    private byte[] codigo = new byte[1024];
+    private int tamanho;
+    private final List<int[]> tratadores = new ArrayList<>(); // {inicio, fim, tratador, tipo}
+
+    // --- Pool de constantes ---
+
+    int utf8(String valor) {
+        return constante("U" + valor, () -> {
+            pool.writeByte(1);
+            pool.writeUTF(valor);
+        });
+    }
+
+    int classe(String nomeInterno) {
+        int nome = utf8(nomeInterno);
+        return constante("C" + nomeInterno, () -> {
+            pool.writeByte(7);
+            pool.writeShort(nome);
+        });
+    }
+
+    int metodoDeInterface(String dono, String nome, String descritor) {
+        int classe = classe(dono);
+        int nomeUtf8 = utf8(nome);
+        int descritorUtf8 = utf8(descritor);
+        int nomeETipo = constante("N" + nome + descritor, () -> {
+            pool.writeByte(12);
+            pool.writeShort(nomeUtf8);
+            pool.writeShort(descritorUtf8);
+        });
+        return constante("I" + dono + "." + nome + descritor, () -> {
+            pool.writeByte(11);
+            pool.writeShort(classe);
+            pool.writeShort(nomeETipo);
+        });
+    }
+
+    private interface EscritaDeConstante {
+        void escrever() throws IOException;
+    }
+
+    private int constante(String chave, EscritaDeConstante escrita) {
+        Integer indice = indices.get(chave);
+        if (indice != null) {
+            return indice;
+        }
+        try {
+            escrita.escrever();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        indices.put(chave, proximoIndice);
+        return proximoIndice++;
+    }
+
+    // --- Emissão de código ---
+
+    int posicao() {
+        return tamanho;
+    }
+
+    void op(int opcode) {
+        u1(opcode);
+    }
+
+    void iload(int local) {
+        u1(ILOAD);
+        u1(local);
+    }
+
+    void istore(int local) {
+        u1(ISTORE);
+        u1(local);
+    }
+
+    void aload(int local) {
+        u1(ALOAD);
+        u1(local);
+    }
+
+    void iinc(int local, int incremento) {
+        u1(IINC);
+        u1(local);
+        u1(incremento);
+    }
+
+    /**
+     * Empilha uma constante inteira usando a instrução mais curta disponível.
+     */
+    void constanteInt(int valor) {
+        if (valor >= -1 && valor <= 5) {
+            u1(ICONST_0 + valor);
+        } else if (valor >= Byte.MIN_VALUE && valor <= Byte.MAX_VALUE) {
+            u1(BIPUSH);
+            u1(valor);
+        } else {
+            u1(SIPUSH);
+            u2(valor);
+        }
+    }
+
+    void invokeInterface(int metodo, int argumentos) {
+        u1(INVOKEINTERFACE);
+        u2(metodo);
+        u1(argumentos + 1);
+        u1(0);
+    }
+
+    /**
+     * Emite um desvio (GOTO ou IF*) para um rótulo, que pode ainda não estar definido.
+     */
+    void desvio(int opcode, Label destino) {
+        int origem = tamanho;
+        u1(opcode);
+        referenciar(destino, origem, 2);
+    }
+
+    /**
+     * Emite um TABLESWITCH com os destinos de low até low + destinos.length - 1.
+     */
+    void tableSwitch(int low, Label padrao, Label[] destinos) {
+        int origem = tamanho;
+        u1(TABLESWITCH);
+        while (tamanho % 4 != 0) {
+            u1(0);
+        }
+        referenciar(padrao, origem, 4);
+        u4(low);
+        u4(low + destinos.length - 1);
+        for (Label destino : destinos) {
+            referenciar(destino != null ? destino : padrao, origem, 4);
+        }
+    }
+
+    void marcar(Label label) {
+        label.posicao = tamanho;
+        for (int[] pendencia : label.pendencias) {
+            corrigir(pendencia[0], pendencia[1], pendencia[2], tamanho);
+        }
+        label.pendencias.clear();
+    }
+
+    /**
+     * Registra um tratador de exceções para o intervalo [inicio, fim) do código.
+     */
+    void tratador(int inicio, int fim, Label tratador, int tipo) {
+        tratadores.add(new int[]{inicio, fim, tratador.posicao, tipo});
+    }
+
+    private void referenciar(Label destino, int origem, int largura) {
+        if (destino.posicao >= 0) {
+            int deslocamento = destino.posicao - origem;
+            if (largura == 2) {
+                u2(deslocamento);
+            } else {
+                u4(deslocamento);
+            }
+        } else {
+            destino.pendencias.add(new int[]{origem, tamanho, largura});
+            for (int i = 0; i < largura; i++) {
+                u1(0);
+            }
+        }
+    }
+
+    private void corrigir(int origem, int local, int largura, int destino) {
+        int deslocamento = destino - origem;
+        if (largura == 2) {
+            if (deslocamento < Short.MIN_VALUE || deslocamento > Short.MAX_VALUE) {
+                throw new IllegalStateException("Desvio longo demais para o código gerado.");
+            }
+            codigo[local] = (byte) (deslocamento >> 8);
+            codigo[local + 1] = (byte) deslocamento;
+        } else {
+            codigo[local] = (byte) (deslocamento >> 24);
+            codigo[local + 1] = (byte) (deslocamento >> 16);
+            codigo[local + 2] = (byte) (deslocamento >> 8);
+            codigo[local + 3] = (byte) deslocamento;
+        }
+    }
+
+    private void u1(int valor) {
+        if (tamanho == codigo.length) {
+            codigo = Arrays.copyOf(codigo, codigo.length * 2);
+        }
+        codigo[tamanho++] = (byte) valor;
+    }
+
+    private void u2(int valor) {
+        u1(valor >> 8);
+        u1(valor);
+    }
+
+    private void u4(int valor) {
+        u2(valor >> 16);
+        u2(valor);
+    }
+
+    // --- Montagem do arquivo .class ---
+
+    /**
+     * Monta o arquivo .class com o código emitido como corpo de um método público e estático.
+     *
+     * @param nomeClasse nome interno da classe (ex.: "org/simpletronv1/logic/Programa").
+     * @param nomeMetodo nome do método gerado.
+     * @param descritor  descritor JVM do método.
+     * @param maxPilha   profundidade máxima da pilha de operandos.
+     * @param maxLocais  quantidade de variáveis locais, incluindo os parâmetros.
+     * @return os bytes do arquivo .class.
+     */
+    byte[] montarClasse(String nomeClasse, String nomeMetodo, String descritor, int maxPilha, int maxLocais) {
+        int estaClasse = classe(nomeClasse);
+        int superClasse = classe("java/lang/Object");
+        int nome = utf8(nomeMetodo);
+        int tipo = utf8(descritor);
+        int atributoCode = utf8("Code");
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream saida = new DataOutputStream(bytes);
+            saida.writeInt(0xCAFEBABE);
+            saida.writeShort(0);
+            saida.writeShort(CLASS_FILE_VERSION);
+            saida.writeShort(proximoIndice);
+            constantes.writeTo(saida);
+            saida.writeShort(0x0031); // public final super
+            saida.writeShort(estaClasse);
+            saida.writeShort(superClasse);
+            saida.writeShort(0); // interfaces
+            saida.writeShort(0); // campos
+            saida.writeShort(1); // métodos
+
+            saida.writeShort(0x0009); // public static
+            saida.writeShort(nome);
+            saida.writeShort(tipo);
+            saida.writeShort(1);
+            saida.writeShort(atributoCode);
+            saida.writeInt(12 + tamanho + 8 * tratadores.size());
+            saida.writeShort(maxPilha);
+            saida.writeShort(maxLocais);
+            saida.writeInt(tamanho);
+            saida.write(codigo, 0, tamanho);
+            saida.writeShort(tratadores.size());
+            for (int[] tratador : tratadores) {
+                saida.writeShort(tratador[0]);
+                saida.writeShort(tratador[1]);
+                saida.writeShort(tratador[2]);
+                saida.writeShort(tratador[3]);
+            }
+            saida.writeShort(0); // atributos do Code
+
+            saida.writeShort(0); // atributos da classe
+            saida.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,535 @@
+package org.simpletronv1.logic;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.simpletronv1.logic.BytecodeWriter.*;
+import static org.simpletronv1.logic.SimpletronLogic.*;
+
+/**
+ * A classe CompiledEngine é um mecanismo de execução opcional que traduz a imagem de memória
+ * carregada em um {@link SimpletronLogic} para bytecode JVM, permitindo que o HotSpot otimize
+ * programas longos como código nativo.
+ *
+ * A tradução parte do contador de instrução atual e segue todos os desvios possíveis. Cada bloco
+ * básico vira código linear e BRANCH, BRANCHNEG e BRANCHZERO viram desvios reais da JVM. As
+ * células alcançadas formam o conjunto de células de código. Um STORE ou READ que escreva em uma
+ * dessas células termina o código compilado logo após a escrita e a execução continua no
+ * interpretador ({@link SimpletronLogic#run(long, InputChannel, OutputChannel)}), o que preserva
+ * o comportamento de programas que modificam o próprio código.
+ *
+ * O resultado observável (saídas, registradores, memória, passos e motivo de término, incluindo
+ * os erros -1, -2 e -3 e a verificação de estouro de ±9999) é o mesmo do interpretador.
+ *
+ * Somente a configuração clássica ({@link MachineConfig#CLASSICA}) é compilada; em máquinas de
+ * outro tamanho, o mecanismo apenas repassa a execução ao interpretador.
+ */
+public class CompiledEngine {
+
+    // --- Estados devolvidos pelo método gerado, além de HALT e dos erros -1, -2 e -3 ---
+    private static final int STATUS_LIMITE = 1;
+    private static final int STATUS_INTERPRETAR = 2;
+    private static final int STATUS_ENTRADA_ESGOTADA = 3;
+    private static final int STATUS_ENTRADA_INVALIDA = 4;
+    private static final int STATUS_FIM_DA_MEMORIA = 5;
+
+    // --- Variáveis locais do método gerado ---
+    private static final int L_MEMORIA = 0, L_ESTADO = 1, L_ENTRADA = 2, L_SAIDA = 3, L_ORCAMENTO = 4;
+    private static final int L_ACUMULADOR = 5, L_PASSOS = 6, L_ULTIMO = 7, L_TEMP = 8, L_IC = 9, L_STATUS = 10;
+    private static final int MAX_LOCAIS = 11, MAX_PILHA = 4;
+
+    // Orçamento máximo por chamada: mantém passos + tamanho do bloco dentro de um int
+    private static final int ORCAMENTO_MAXIMO = Integer.MAX_VALUE - 1024;
+
+    private static final String DESCRITOR = "([I[IL" + InputChannel.class.getName().replace('.', '/')
+            + ";L" + OutputChannel.class.getName().replace('.', '/') + ";I)I";
+    private static final MethodType TIPO = MethodType.methodType(int.class,
+            int[].class, int[].class, InputChannel.class, OutputChannel.class, int.class);
+
+    private final SimpletronLogic maquina;
+    private final int[] imagem;
+    private final boolean[] codigo;
+    private final boolean[] escritas;
+    private final MethodHandle programa;
+
+    private CompiledEngine(SimpletronLogic maquina, int[] imagem, boolean[] codigo, boolean[] escritas,
+                           MethodHandle programa) {
+        this.maquina = maquina;
+        this.imagem = imagem;
+        this.codigo = codigo;
+        this.escritas = escritas;
+        this.programa = programa;
+    }
+
+    /**
+     * Compila o programa presente na memória da máquina a partir do seu contador de instrução atual.
+     *
+     * @param maquina a máquina cujo programa já foi carregado com carregarPrograma().
+     * @return o mecanismo compilado, ligado a essa máquina.
+     */
+    public static CompiledEngine compilar(SimpletronLogic maquina) {
+        int[] imagem = maquina.getMemory().clone();
+        int entrada = maquina.getInstructionCounter();
+        if (!maquina.getConfiguracao().isClassica()) {
+            return new CompiledEngine(maquina, imagem, new boolean[imagem.length], new boolean[imagem.length], null);
+        }
+
+        boolean[] codigo = new boolean[imagem.length];
+        boolean[] lider = new boolean[imagem.length + 1];
+        if (entrada < imagem.length) {
+            marcarAlcancaveis(imagem, entrada, codigo, lider);
+        }
+
+        boolean[] escritas = new boolean[imagem.length];
+        for (int i = 0; i < imagem.length; i++) {
+            int op = imagem[i] / 100;
+            if (codigo[i] && (op == READ || op == STORE)) {
+                escritas[imagem[i] % 100] = true;
+            }
+        }
+
+        byte[] classe = gerarClasse(imagem, codigo, lider);
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClass(classe, true);
+            MethodHandle programa = lookup.findStatic(lookup.lookupClass(), "executar", TIPO);
+            return new CompiledEngine(maquina, imagem, codigo, escritas, programa);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Falha ao carregar o programa compilado.", e);
+        }
+    }
+
+    /**
+     * Executa o programa com a mesma semântica de {@link SimpletronLogic#run(long, InputChannel, OutputChannel)}.
+     * Se as células de código tiverem sido alteradas desde a compilação, o estado da máquina
+     * não permitir começar pelo código compilado ou houver perfilador, rastro ou histórico
+     * conectado, toda a execução é feita pelo interpretador.
+     */
+    public ExecutionResult run(long maxSteps, InputChannel entrada, OutputChannel saida) {
+        int acc = maquina.getAccumulator();
+        if (programa == null || maxSteps <= 0 || acc > 9999 || acc < -9999 || maquina.isInstrumentada()
+                || !codigoInalterado()) {
+            return maquina.run(maxSteps, entrada, saida);
+        }
+
+        ProgramRunEvent evento = new ProgramRunEvent();
+        evento.begin();
+        long inicio = System.nanoTime();
+        int[] memoria = maquina.getMemory();
+        int[] estado = new int[4];
+        long restante = maxSteps;
+        long total = 0;
+
+        while (true) {
+            int orcamento = (int) Math.min(restante, ORCAMENTO_MAXIMO);
+            estado[0] = maquina.getAccumulator();
+            estado[1] = maquina.getInstructionCounter();
+            estado[2] = 0;
+            estado[3] = -1;
+
+            int status;
+            try {
+                status = (int) programa.invokeExact(memoria, estado, entrada, saida, orcamento);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+
+            int passos = estado[2];
+            int ultimo = estado[3];
+            maquina.atualizarRegistradores(estado[0], estado[1],
+                    ultimo >= 0 ? imagem[ultimo] : maquina.getInstructionRegister(), passos);
+            for (int i = 0; i < escritas.length; i++) {
+                if (escritas[i]) {
+                    maquina.invalidarDecodificacao(i);
+                }
+            }
+            restante -= passos;
+            total += passos;
+
+            if (status == STATUS_LIMITE && orcamento < restante + passos) {
+                continue; // Apenas o orçamento desta chamada acabou
+            }
+            ExecutionResult resultado;
+            if (status == STATUS_LIMITE || status == STATUS_INTERPRETAR) {
+                ExecutionResult resto = maquina.executar(restante, entrada, saida);
+                resultado = new ExecutionResult(resto.motivo(), total + resto.passos(), resto.endereco());
+            } else {
+                resultado = new ExecutionResult(motivo(status), total,
+                        status == STATUS_FIM_DA_MEMORIA ? estado[1] : ultimo);
+            }
+            maquina.registrarExecucao(evento, resultado, maxSteps, inicio, "compilado");
+            return resultado;
+        }
+    }
+
+    /**
+     * @return true se a célula fizer parte do código alcançável compilado.
+     */
+    public boolean isCelulaDeCodigo(int endereco) {
+        return codigo[endereco];
+    }
+
+    private boolean codigoInalterado() {
+        int[] memoria = maquina.getMemory();
+        for (int i = 0; i < imagem.length; i++) {
+            if (codigo[i] && memoria[i] != imagem[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static HaltReason motivo(int status) {
+        switch (status) {
+            case HALT:
+            case STATUS_FIM_DA_MEMORIA:
+                return HaltReason.HALTED;
+            case -1:
+                return HaltReason.DIVIDE_BY_ZERO;
+            case -2:
+                return HaltReason.INVALID_OPCODE;
+            case -3:
+                return HaltReason.OVERFLOW;
+            case STATUS_ENTRADA_ESGOTADA:
+                return HaltReason.INPUT_EXHAUSTED;
+            case STATUS_ENTRADA_INVALIDA:
+                return HaltReason.INVALID_INPUT;
+            default:
+                throw new IllegalStateException("Status desconhecido: " + status);
+        }
+    }
+
+    // --- Análise ---
+
+    private static boolean isDesvio(int op) {
+        return op == BRANCH || op == BRANCHNEG || op == BRANCHZERO;
+    }
+
+    private static boolean isValido(int op) {
+        switch (op) {
+            case READ: case WRITE: case LOAD: case STORE:
+            case ADD: case SUBTRACT: case DIVIDE: case MULTIPLY:
+            case BRANCH: case BRANCHNEG: case BRANCHZERO: case HALT:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Marca as células alcançáveis a partir do endereço de entrada e os líderes de bloco
+     * (entrada, destinos de desvio e instruções seguintes a desvios condicionais).
+     */
+    private static void marcarAlcancaveis(int[] imagem, int entrada, boolean[] codigo, boolean[] lider) {
+        int[] pilha = new int[imagem.length * 2 + 1];
+        int topo = 0;
+        pilha[topo++] = entrada;
+        lider[entrada] = true;
+
+        while (topo > 0) {
+            int endereco = pilha[--topo];
+            if (endereco >= imagem.length || codigo[endereco]) {
+                continue;
+            }
+            codigo[endereco] = true;
+            int op = imagem[endereco] / 100;
+            int operando = imagem[endereco] % 100;
+
+            if (isDesvio(op)) {
+                lider[operando] = true;
+                pilha[topo++] = operando;
+                if (op != BRANCH) {
+                    lider[endereco + 1] = true;
+                    pilha[topo++] = endereco + 1;
+                }
+            } else if (op != HALT && isValido(op)) {
+                pilha[topo++] = endereco + 1;
+            }
+        }
+    }
+
+    // --- Geração de código ---
+
+    private static byte[] gerarClasse(int[] imagem, boolean[] codigo, boolean[] lider) {
+        BytecodeWriter w = new BytecodeWriter();
+        String entrada = InputChannel.class.getName().replace('.', '/');
+        int temProximo = w.metodoDeInterface(entrada, "temProximo", "()Z");
+        int ler = w.metodoDeInterface(entrada, "ler", "()I");
+        int escrever = w.metodoDeInterface(OutputChannel.class.getName().replace('.', '/'), "escrever", "(I)V");
+        int numberFormat = w.classe("java/lang/NumberFormatException");
+
+        Label[] blocos = new Label[imagem.length];
+        for (int i = 0; i < imagem.length; i++) {
+            if (codigo[i] && lider[i]) {
+                blocos[i] = new Label();
+            }
+        }
+        Label saida = new Label();
+        List<Saida> saidas = new ArrayList<>();
+        Label naoCompilado = new Label();
+
+        // Prólogo: carrega o estado e salta para o bloco do contador de instrução
+        w.aload(L_ESTADO);
+        w.constanteInt(0);
+        w.op(IALOAD);
+        w.istore(L_ACUMULADOR);
+        w.constanteInt(0);
+        w.istore(L_PASSOS);
+        w.constanteInt(-1);
+        w.istore(L_ULTIMO);
+        w.aload(L_ESTADO);
+        w.constanteInt(1);
+        w.op(IALOAD);
+        w.istore(L_IC);
+        w.iload(L_IC);
+        w.tableSwitch(0, naoCompilado, blocos);
+
+        w.marcar(naoCompilado);
+        w.constanteInt(STATUS_INTERPRETAR);
+        w.istore(L_STATUS);
+        w.desvio(GOTO, saida);
+
+        for (int inicio = 0; inicio < imagem.length; inicio++) {
+            if (blocos[inicio] == null) {
+                continue;
+            }
+            int fim = inicio;
+            while (fim + 1 < imagem.length && !terminaBloco(imagem[fim] / 100)
+                    && codigo[fim + 1] && !lider[fim + 1]) {
+                fim++;
+            }
+            gerarBloco(w, imagem, codigo, blocos, inicio, fim, saidas, temProximo, ler, escrever);
+        }
+        for (Saida s : saidas) {
+            gerarSaida(w, s, saida, numberFormat);
+        }
+
+        // Epílogo comum: grava o estado e devolve o status
+        w.marcar(saida);
+        gravarEstado(w, 0, L_ACUMULADOR);
+        gravarEstado(w, 1, L_IC);
+        gravarEstado(w, 2, L_PASSOS);
+        gravarEstado(w, 3, L_ULTIMO);
+        w.iload(L_STATUS);
+        w.op(IRETURN);
+
+        return w.montarClasse(SimpletronLogic.class.getPackageName().replace('.', '/') + "/ProgramaCompilado",
+                "executar", DESCRITOR, MAX_PILHA, MAX_LOCAIS);
+    }
+
+    private static boolean terminaBloco(int op) {
+        return isDesvio(op) || op == HALT || !isValido(op);
+    }
+
+    private static void gravarEstado(BytecodeWriter w, int indice, int local) {
+        w.aload(L_ESTADO);
+        w.constanteInt(indice);
+        w.iload(local);
+        w.op(IASTORE);
+    }
+
+    /**
+     * Trecho de saída do código gerado: grava último endereço, contador de instrução e status,
+     * e salta para o epílogo comum. Emitido depois de todos os blocos para manter o código
+     * dos blocos linear.
+     */
+    private static final class Saida {
+        final Label label = new Label();
+        final int ultimo; // -1 mantém o valor atual da variável
+        final int ic;
+        final int status;
+        int inicioTry = -1, fimTry;
+
+        Saida(int ultimo, int ic, int status) {
+            this.ultimo = ultimo;
+            this.ic = ic;
+            this.status = status;
+        }
+    }
+
+    private static void gerarSaida(BytecodeWriter w, Saida s, Label epilogo, int numberFormat) {
+        w.marcar(s.label);
+        if (s.inicioTry >= 0) {
+            w.tratador(s.inicioTry, s.fimTry, s.label, numberFormat);
+            w.op(POP); // descarta a NumberFormatException
+        }
+        if (s.ultimo >= 0) {
+            w.constanteInt(s.ultimo);
+            w.istore(L_ULTIMO);
+        }
+        w.constanteInt(s.ic);
+        w.istore(L_IC);
+        w.constanteInt(s.status);
+        w.istore(L_STATUS);
+        w.desvio(GOTO, epilogo);
+    }
+
+    private static void gerarBloco(BytecodeWriter w, int[] imagem, boolean[] codigo, Label[] blocos,
+                                   int inicio, int fim, List<Saida> saidas,
+                                   int temProximo, int ler, int escrever) {
+        w.marcar(blocos[inicio]);
+
+        // Se o bloco inteiro não couber no orçamento, o interpretador executa o restante
+        Saida limite = new Saida(-1, inicio, STATUS_LIMITE);
+        saidas.add(limite);
+        w.iload(L_PASSOS);
+        w.constanteInt(fim - inicio + 1);
+        w.op(IADD);
+        w.iload(L_ORCAMENTO);
+        w.desvio(IF_ICMPGT, limite.label);
+
+        for (int x = inicio; x <= fim; x++) {
+            int op = imagem[x] / 100;
+            int operando = imagem[x] % 100;
+            w.iinc(L_PASSOS, 1);
+
+            switch (op) {
+                case READ: {
+                    Saida esgotada = new Saida(x, x + 1, STATUS_ENTRADA_ESGOTADA);
+                    Saida invalida = new Saida(x, x + 1, STATUS_ENTRADA_INVALIDA);
+                    Saida invalidaExcecao = new Saida(x, x + 1, STATUS_ENTRADA_INVALIDA);
+                    saidas.add(esgotada);
+                    saidas.add(invalida);
+                    saidas.add(invalidaExcecao);
+
+                    w.aload(L_ENTRADA);
+                    w.invokeInterface(temProximo, 0);
+                    w.desvio(IFEQ, esgotada.label);
+                    invalidaExcecao.inicioTry = w.posicao();
+                    w.aload(L_ENTRADA);
+                    w.invokeInterface(ler, 0);
+                    invalidaExcecao.fimTry = w.posicao();
+                    w.istore(L_TEMP);
+                    w.iload(L_TEMP);
+                    w.constanteInt(-9999);
+                    w.desvio(IF_ICMPLT, invalida.label);
+                    w.iload(L_TEMP);
+                    w.constanteInt(9999);
+                    w.desvio(IF_ICMPGT, invalida.label);
+                    w.aload(L_MEMORIA);
+                    w.constanteInt(operando);
+                    w.iload(L_TEMP);
+                    w.op(IASTORE);
+                    gerarRetornoAoInterpretador(w, codigo, x, operando, saidas);
+                    break;
+                }
+                case WRITE:
+                    w.aload(L_SAIDA);
+                    w.aload(L_MEMORIA);
+                    w.constanteInt(operando);
+                    w.op(IALOAD);
+                    w.invokeInterface(escrever, 1);
+                    break;
+                case LOAD:
+                    w.aload(L_MEMORIA);
+                    w.constanteInt(operando);
+                    w.op(IALOAD);
+                    w.istore(L_ACUMULADOR);
+                    gerarVerificacaoDeEstouro(w, x, saidas);
+                    break;
+                case STORE:
+                    w.aload(L_MEMORIA);
+                    w.constanteInt(operando);
+                    w.iload(L_ACUMULADOR);
+                    w.op(IASTORE);
+                    gerarRetornoAoInterpretador(w, codigo, x, operando, saidas);
+                    break;
+                case ADD:
+                case SUBTRACT:
+                case MULTIPLY:
+                    w.iload(L_ACUMULADOR);
+                    w.aload(L_MEMORIA);
+                    w.constanteInt(operando);
+                    w.op(IALOAD);
+                    w.op(op == ADD ? IADD : op == SUBTRACT ? ISUB : IMUL);
+                    w.istore(L_ACUMULADOR);
+                    gerarVerificacaoDeEstouro(w, x, saidas);
+                    break;
+                case DIVIDE: {
+                    Saida divisaoPorZero = new Saida(x, x, -1);
+                    saidas.add(divisaoPorZero);
+                    w.aload(L_MEMORIA);
+                    w.constanteInt(operando);
+                    w.op(IALOAD);
+                    w.op(DUP);
+                    w.istore(L_TEMP);
+                    w.desvio(IFEQ, divisaoPorZero.label);
+                    w.iload(L_ACUMULADOR);
+                    w.iload(L_TEMP);
+                    w.op(IDIV);
+                    w.istore(L_ACUMULADOR);
+                    gerarVerificacaoDeEstouro(w, x, saidas);
+                    break;
+                }
+                case BRANCH:
+                    w.constanteInt(x);
+                    w.istore(L_ULTIMO);
+                    w.desvio(GOTO, blocos[operando]);
+                    return;
+                case BRANCHNEG:
+                case BRANCHZERO:
+                    w.constanteInt(x);
+                    w.istore(L_ULTIMO);
+                    w.iload(L_ACUMULADOR);
+                    w.desvio(op == BRANCHNEG ? IFLT : IFEQ, blocos[operando]);
+                    gerarSequencia(w, blocos, x, saidas, imagem.length);
+                    return;
+                case HALT:
+                    Saida pare = new Saida(x, x, HALT);
+                    saidas.add(pare);
+                    w.desvio(GOTO, pare.label);
+                    return;
+                default:
+                    Saida invalido = new Saida(x, x, -2);
+                    saidas.add(invalido);
+                    w.desvio(GOTO, invalido.label);
+                    return;
+            }
+        }
+
+        // O bloco terminou porque a próxima célula inicia outro bloco (ou a memória acabou)
+        w.constanteInt(fim);
+        w.istore(L_ULTIMO);
+        gerarSequencia(w, blocos, fim, saidas, imagem.length);
+    }
+
+    /**
+     * Segue para a instrução seguinte a x, que é o início de outro bloco ou o fim da memória.
+     */
+    private static void gerarSequencia(BytecodeWriter w, Label[] blocos, int x, List<Saida> saidas, int tamanho) {
+        if (x + 1 < tamanho) {
+            w.desvio(GOTO, blocos[x + 1]);
+        } else {
+            Saida fimDaMemoria = new Saida(x, tamanho, STATUS_FIM_DA_MEMORIA);
+            saidas.add(fimDaMemoria);
+            w.desvio(GOTO, fimDaMemoria.label);
+        }
+    }
+
+    private static void gerarVerificacaoDeEstouro(BytecodeWriter w, int x, List<Saida> saidas) {
+        Saida estouro = new Saida(x, x + 1, -3);
+        saidas.add(estouro);
+        w.iload(L_ACUMULADOR);
+        w.constanteInt(9999);
+        w.desvio(IF_ICMPGT, estouro.label);
+        w.iload(L_ACUMULADOR);
+        w.constanteInt(-9999);
+        w.desvio(IF_ICMPLT, estouro.label);
+    }
+
+    /**
+     * Depois de uma escrita em célula de código, devolve o controle ao interpretador.
+     */
+    private static void gerarRetornoAoInterpretador(BytecodeWriter w, boolean[] codigo, int x, int destino,
+                                                    List<Saida> saidas) {
+        if (codigo[destino]) {
+            Saida interpretar = new Saida(x, x + 1, STATUS_INTERPRETAR);
+            saidas.add(interpretar);
+            w.desvio(GOTO, interpretar.label);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package org.simpletronv1.logic;
+
+import java.util.Arrays;
+
+import static org.simpletronv1.logic.SimpletronLogic.*;
+
+/**
+ * A classe ExecutionProfiler conta, durante a execução, quantas vezes cada endereço foi executado,
+ * quantas instruções de cada código de operação foram executadas e quantos desvios foram ou não
+ * tomados em cada endereço.
+ *
+ * O perfilador é opcional: é conectado com {@link SimpletronLogic#setPerfilador(ExecutionProfiler)}
+ * e, sem ele, o interpretador paga apenas uma comparação com null por instrução. Com um perfilador
+ * conectado, as superinstruções e o {@link CompiledEngine} não são usados, para que cada instrução
+ * seja contada individualmente.
+ *
+ * Os contadores são arrays de long, escritos somente pela thread que executa a máquina. Para
+ * exibir o perfil enquanto a máquina roda em outra thread, copie-os com {@link #copiarExecucoes(long[])}
+ * na própria thread de execução.
+ */
+public class ExecutionProfiler {
+
+    private final long[] execucoesPorEndereco;
+    private final long[] execucoesPorCodigo = new long[100];
+    private final long[] desviosTomados;
+    private final long[] desviosNaoTomados;
+
+    public ExecutionProfiler() {
+        this(100);
+    }
+
+    /**
+     * @param tamanhoMemoria quantidade de endereços da máquina perfilada.
+     */
+    public ExecutionProfiler(int tamanhoMemoria) {
+        execucoesPorEndereco = new long[tamanhoMemoria];
+        desviosTomados = new long[tamanhoMemoria];
+        desviosNaoTomados = new long[tamanhoMemoria];
+    }
+
+    /**
+     * Registra a busca de uma instrução.
+     *
+     * @param endereco o endereço da instrução.
+     * @param codigo   o código de operação decodificado (códigos inválidos contam apenas no endereço).
+     */
+    void registrar(int endereco, int codigo) {
+        execucoesPorEndereco[endereco]++;
+        if (codigo >= 0 && codigo < execucoesPorCodigo.length) {
+            execucoesPorCodigo[codigo]++;
+        }
+    }
+
+    /**
+     * Registra o resultado de um desvio (BRANCH conta sempre como tomado).
+     */
+    void registrarDesvio(int endereco, boolean tomado) {
+        if (tomado) {
+            desviosTomados[endereco]++;
+        } else {
+            desviosNaoTomados[endereco]++;
+        }
+    }
+
+    /**
+     * Zera todos os contadores.
+     */
+    public void zerar() {
+        Arrays.fill(execucoesPorEndereco, 0);
+        Arrays.fill(execucoesPorCodigo, 0);
+        Arrays.fill(desviosTomados, 0);
+        Arrays.fill(desviosNaoTomados, 0);
+    }
+
+    public long getExecucoes(int endereco) {
+        return execucoesPorEndereco[endereco];
+    }
+
+    public long getExecucoesDoCodigo(int codigo) {
+        return execucoesPorCodigo[codigo];
+    }
+
+    public long getDesviosTomados(int endereco) {
+        return desviosTomados[endereco];
+    }
+
+    public long getDesviosNaoTomados(int endereco) {
+        return desviosNaoTomados[endereco];
+    }
+
+    /**
+     * @return o total de instruções registradas.
+     */
+    public long getTotal() {
+        long total = 0;
+        for (long execucoes : execucoesPorEndereco) {
+            total += execucoes;
+        }
+        return total;
+    }
+
+    /**
+     * Copia as execuções por endereço para o array informado, sem alocar.
+     *
+     * @param destino array com pelo menos o tamanho da memória.
+     * @return a maior contagem copiada.
+     */
+    public long copiarExecucoes(long[] destino) {
+        long maximo = 0;
+        for (int i = 0; i < execucoesPorEndereco.length; i++) {
+            destino[i] = execucoesPorEndereco[i];
+            maximo = Math.max(maximo, destino[i]);
+        }
+        return maximo;
+    }
+
+    /**
+     * Gera o relatório de pontos quentes: os endereços mais executados, a contagem por código de
+     * operação, os desvios condicionais e os laços (desvios tomados para trás).
+     *
+     * @param memoria  a memória da máquina, usada para mostrar as instruções e os destinos dos desvios.
+     * @param limite   quantidade máxima de endereços listados entre os mais executados.
+     * @return o relatório formatado, no mesmo estilo do dump da máquina.
+     */
+    public String gerarRelatorio(int[] memoria, int limite) {
+        return gerarRelatorio(memoria, limite, MachineConfig.comTamanho(memoria.length));
+    }
+
+    /**
+     * Gera o relatório de pontos quentes com os endereços e as palavras formatados conforme a
+     * configuração da máquina.
+     *
+     * @see #gerarRelatorio(int[], int)
+     */
+    public String gerarRelatorio(int[] memoria, int limite, MachineConfig configuracao) {
+        int base = configuracao.getBase();
+        StringBuilder relatorio = new StringBuilder();
+        long total = getTotal();
+        relatorio.append(String.format("Instruções executadas: %d\n\n", total));
+        if (total == 0) {
+            return relatorio.toString();
+        }
+
+        relatorio.append("ENDEREÇOS MAIS EXECUTADOS:\n");
+        Integer[] ordem = new Integer[execucoesPorEndereco.length];
+        for (int i = 0; i < ordem.length; i++) {
+            ordem[i] = i;
+        }
+        Arrays.sort(ordem, (a, b) -> Long.compare(execucoesPorEndereco[b], execucoesPorEndereco[a]));
+        for (int i = 0; i < Math.min(limite, ordem.length) && execucoesPorEndereco[ordem[i]] > 0; i++) {
+            int endereco = ordem[i];
+            relatorio.append(String.format("  %s  %s  %12d  %5.1f%%\n", configuracao.formatarEndereco(endereco),
+                    configuracao.formatarPalavra(memoria[endereco]), execucoesPorEndereco[endereco],
+                    100.0 * execucoesPorEndereco[endereco] / total));
+        }
+
+        relatorio.append("\nEXECUÇÕES POR CÓDIGO DE OPERAÇÃO:\n");
+        int[] codigos = {READ, WRITE, LOAD, STORE, ADD, SUBTRACT, DIVIDE, MULTIPLY, BRANCH, BRANCHNEG, BRANCHZERO, HALT};
+        String[] nomes = {"READ", "WRITE", "LOAD", "STORE", "ADD", "SUBTRACT", "DIVIDE", "MULTIPLY",
+                "BRANCH", "BRANCHNEG", "BRANCHZERO", "HALT"};
+        for (int i = 0; i < codigos.length; i++) {
+            if (execucoesPorCodigo[codigos[i]] > 0) {
+                relatorio.append(String.format("  %-10s  %12d\n", nomes[i], execucoesPorCodigo[codigos[i]]));
+            }
+        }
+
+        relatorio.append("\nDESVIOS CONDICIONAIS (tomados / não tomados):\n");
+        for (int i = 0; i < execucoesPorEndereco.length; i++) {
+            int codigo = memoria[i] / base;
+            if ((codigo == BRANCHNEG || codigo == BRANCHZERO) && desviosTomados[i] + desviosNaoTomados[i] > 0) {
+                relatorio.append(String.format("  %s  %s  %12d / %d\n", configuracao.formatarEndereco(i),
+                        configuracao.formatarPalavra(memoria[i]), desviosTomados[i], desviosNaoTomados[i]));
+            }
+        }
+
+        relatorio.append("\nLAÇOS (desvios tomados para trás):\n");
+        for (int i = 0; i < execucoesPorEndereco.length; i++) {
+            int codigo = memoria[i] / base;
+            int destino = memoria[i] % base;
+            if ((codigo == BRANCH || codigo == BRANCHNEG || codigo == BRANCHZERO)
+                    && destino <= i && desviosTomados[i] > 0) {
+                relatorio.append(String.format("  %s..%s  %12d iterações\n", configuracao.formatarEndereco(destino),
+                        configuracao.formatarEndereco(i), desviosTomados[i]));
+            }
+        }
+        return relatorio.toString();
+    }
+}
@@ -0,0 +1,38 @@
+package org.simpletronv1.logic;
+
+/**
+ * O relatório de uma execução: o estado final da máquina, o resultado e, opcionalmente, as saídas e
+ * um texto livre. É capturado na thread que controla a máquina ({@link #capturar}) e formatado depois,
+ * por {@link ReportWriter}, em outra thread.
+ *
+ * @param instante     o momento da captura, em milissegundos desde 1970 (System.currentTimeMillis()).
+ * @param programa     identificação do programa (ex.: nome do arquivo), ou null.
+ * @param configuracao o tamanho da memória e a largura das palavras da máquina.
+ * @param motivo       o motivo do término da última execução, ou null se não houve execução.
+ * @param passos       total de passos executados pela máquina desde o último reinício.
+ * @param endereco     endereço da última instrução buscada (veja {@link ExecutionResult#endereco()}), ou -1.
+ * @param memoria      cópia da memória.
+ * @param saidas       os valores escritos pelas instruções WRITE, ou null se não foram coletados.
+ * @param detalhes     texto livre incluído somente no formato de texto (ex.: o código e o console da interface), ou null.
+ */
+public record ExecutionReport(long instante, String programa, MachineConfig configuracao, HaltReason motivo,
+                              long passos, int endereco, int acumulador, int contadorInstrucao,
+                              int registradorInstrucao, int codigoOperacao, int operando, int[] memoria,
+                              int[] saidas, String detalhes) {
+
+    /**
+     * Copia o estado atual da máquina. A máquina não deve estar executando em outra thread.
+     *
+     * @param resultado o resultado da última execução, ou null.
+     * @param saidas    os valores escritos pelo programa, ou null.
+     * @param detalhes  texto livre para o formato de texto, ou null.
+     */
+    public static ExecutionReport capturar(String programa, SimpletronLogic maquina, ExecutionResult resultado,
+                                           int[] saidas, String detalhes) {
+        return new ExecutionReport(System.currentTimeMillis(), programa, maquina.getConfiguracao(),
+                resultado != null ? resultado.motivo() : null, maquina.getPassosExecutados(),
+                resultado != null ? resultado.endereco() : -1, maquina.getAccumulator(),
+                maquina.getInstructionCounter(), maquina.getInstructionRegister(), maquina.getOperationCode(),
+                maquina.getOperand(), maquina.getMemory().clone(), saidas, detalhes);
+    }
+}
@@ -0,0 +1,17 @@
+package org.simpletronv1.logic;
+
+/**
+ * Resultado de uma chamada a {@link SimpletronLogic#run(long, InputChannel, OutputChannel)}.
+ *
+ * @param motivo   o motivo do término da execução.
+ * @param passos   quantidade de instruções buscadas nesta execução, incluindo HALT e a
+ *                 instrução que causou o erro, se houver.
+ * @param endereco endereço da última instrução buscada (a instrução que causou o término).
+ *                 Para {@link HaltReason#STEP_LIMIT} é o endereço da próxima instrução a executar.
+ */
+public record ExecutionResult(HaltReason motivo, long passos, int endereco) {
+
+    public boolean isErro() {
+        return motivo.isErro();
+    }
+}
@@ -0,0 +1,234 @@
+package org.simpletronv1.logic;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A classe ExecutionTrace guarda, em um buffer circular de tamanho fixo, os últimos passos executados
+ * pela máquina: endereço, instrução, acumulador após a instrução e a célula escrita (STORE/READ).
+ *
+ * O buffer é preenchido pelo interpretador ({@link SimpletronLogic#setRastro(ExecutionTrace)}) sem
+ * nenhuma alocação: cada passo ocupa {@link #INTS_POR_PASSO} posições de um int[] pré-alocado. Há um
+ * único escritor, a thread que executa a máquina; outras threads podem copiar o conteúdo a qualquer
+ * momento com {@link #copiar()}, sem travas: o contador de passos é publicado com semântica de
+ * liberação e o leitor descarta os passos que possam ter sido sobrescritos durante a cópia.
+ *
+ * O rastro pode ser gravado em um formato binário compacto ({@link #gravar(OutputStream)}) e lido
+ * de volta com {@link #ler(InputStream)}; a ferramenta {@code org.simpletronv1.batch.TraceDecoder}
+ * imprime um arquivo gravado.
+ *
+ * Formato binário (big-endian):
+ * <pre>
+ *   int   MAGICO ("SMLT")
+ *   short VERSAO
+ *   long  número do primeiro passo gravado (0 = primeiro passo desde o reinício)
+ *   int   quantidade de passos
+ *   para cada passo:
+ *     byte  endereço da instrução
+ *     short instrução
+ *     int   acumulador após a instrução
+ *     byte  endereço escrito, ou -1 se a instrução não escreveu na memória
+ *     short valor escrito
+ * </pre>
+ */
+public class ExecutionTrace {
+
+    public static final int MAGICO = 0x534D4C54; // "SMLT"
+    public static final short VERSAO = 1;
+
+    static final int INTS_POR_PASSO = 3;
+
+    /** Sem escrita na memória. */
+    private static final int SEM_ESCRITA = 0;
+
+    private static final VarHandle ESCRITOS;
+
+    static {
+        try {
+            ESCRITOS = MethodHandles.lookup().findVarHandle(ExecutionTrace.class, "escritos", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    /**
+     * Um passo do rastro.
+     *
+     * @param passo           número do passo desde o reinício do rastro.
+     * @param endereco        endereço da instrução executada.
+     * @param instrucao       a palavra executada.
+     * @param acumulador      o acumulador após a instrução (pode estar fora da faixa, em caso de estouro).
+     * @param enderecoEscrito a célula escrita pela instrução, ou -1.
+     * @param valorEscrito    o valor escrito nessa célula.
+     */
+    public record Passo(long passo, int endereco, int instrucao, int acumulador, int enderecoEscrito,
+                        int valorEscrito) {
+
+        /**
+         * @return o passo em uma linha de texto, no estilo do dump da máquina.
+         */
+        public String formatar() {
+            String linha = String.format("%8d  %02d  %+05d  acc=%+05d", passo, endereco, instrucao, acumulador);
+            if (enderecoEscrito >= 0) {
+                linha += String.format("  [%02d] <- %+05d", enderecoEscrito, valorEscrito);
+            }
+            return linha;
+        }
+    }
+
+    private final int[] buffer;
+    private final int mascara;
+    @SuppressWarnings("unused") // Acessado por ESCRITOS
+    private volatile long escritos;
+
+    /**
+     * @param capacidade quantidade de passos mantidos; arredondada para a próxima potência de 2.
+     */
+    public ExecutionTrace(int capacidade) {
+        if (capacidade <= 0 || capacidade > (1 << 24)) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacidade);
+        }
+        int tamanho = Integer.highestOneBit(capacidade);
+        if (tamanho < capacidade) {
+            tamanho <<= 1;
+        }
+        this.mascara = tamanho - 1;
+        this.buffer = new int[tamanho * INTS_POR_PASSO];
+    }
+
+    public int getCapacidade() {
+        return mascara + 1;
+    }
+
+    /**
+     * @return o total de passos registrados desde o último reinício (inclusive os já sobrescritos).
+     */
+    public long getTotalRegistrado() {
+        return (long) ESCRITOS.getAcquire(this);
+    }
+
+    /**
+     * Registra um passo. Deve ser chamado somente pela thread que executa a máquina.
+     *
+     * @param enderecoEscrito a célula escrita, ou -1.
+     */
+    void registrar(int endereco, int instrucao, int acumulador, int enderecoEscrito, int valorEscrito) {
+        long n = (long) ESCRITOS.getOpaque(this);
+        int i = ((int) n & mascara) * INTS_POR_PASSO;
+        buffer[i] = endereco << 16 | (instrucao & 0xFFFF);
+        buffer[i + 1] = acumulador;
+        buffer[i + 2] = enderecoEscrito < 0 ? SEM_ESCRITA : (enderecoEscrito + 1) << 16 | (valorEscrito & 0xFFFF);
+        ESCRITOS.setRelease(this, n + 1);
+    }
+
+    /**
+     * Descarta todos os passos. Deve ser chamado somente pela thread que executa a máquina.
+     */
+    public void zerar() {
+        ESCRITOS.setRelease(this, 0L);
+    }
+
+    /**
+     * Copia os passos disponíveis, do mais antigo ao mais recente. Pode ser chamado de qualquer
+     * thread, inclusive enquanto a máquina executa.
+     */
+    public List<Passo> copiar() {
+        int capacidade = getCapacidade();
+        int[] copia = new int[buffer.length];
+        while (true) {
+            long fim = (long) ESCRITOS.getAcquire(this);
+            long inicio = Math.max(0, fim - capacidade);
+            for (long n = inicio; n < fim; n++) {
+                int i = ((int) n & mascara) * INTS_POR_PASSO;
+                copia[i] = buffer[i];
+                copia[i + 1] = buffer[i + 1];
+                copia[i + 2] = buffer[i + 2];
+            }
+            VarHandle.acquireFence();
+            long depois = (long) ESCRITOS.getAcquire(this);
+            if (depois < fim) {
+                continue; // O rastro foi reiniciado durante a cópia
+            }
+            // O escritor pode estar sobrescrevendo o passo (depois - capacidade); os anteriores a ele também são descartados
+            long validos = Math.max(inicio, depois + 1 - capacidade);
+            List<Passo> passos = new ArrayList<>((int) Math.max(0, fim - validos));
+            for (long n = validos; n < fim; n++) {
+                int i = ((int) n & mascara) * INTS_POR_PASSO;
+                passos.add(decodificar(n, copia[i], copia[i + 1], copia[i + 2]));
+            }
+            return passos;
+        }
+    }
+
+    private static Passo decodificar(long n, int enderecoInstrucao, int acumulador, int escrita) {
+        int endereco = enderecoInstrucao >>> 16;
+        int instrucao = (short) enderecoInstrucao;
+        if (escrita == SEM_ESCRITA) {
+            return new Passo(n, endereco, instrucao, acumulador, -1, 0);
+        }
+        return new Passo(n, endereco, instrucao, acumulador, (escrita >>> 16) - 1, (short) escrita);
+    }
+
+    /**
+     * Grava os passos disponíveis no formato binário descrito na documentação da classe.
+     */
+    public void gravar(OutputStream destino) throws IOException {
+        List<Passo> passos = copiar();
+        DataOutputStream saida = new DataOutputStream(destino);
+        saida.writeInt(MAGICO);
+        saida.writeShort(VERSAO);
+        saida.writeLong(passos.isEmpty() ? getTotalRegistrado() : passos.get(0).passo());
+        saida.writeInt(passos.size());
+        for (Passo p : passos) {
+            saida.writeByte(p.endereco());
+            saida.writeShort(p.instrucao());
+            saida.writeInt(p.acumulador());
+            saida.writeByte(p.enderecoEscrito());
+            saida.writeShort(p.valorEscrito());
+        }
+        saida.flush();
+    }
+
+    /**
+     * Lê um rastro gravado com {@link #gravar(OutputStream)}.
+     *
+     * @throws IOException se o conteúdo não for um rastro válido.
+     */
+    public static List<Passo> ler(InputStream origem) throws IOException {
+        DataInputStream entrada = new DataInputStream(origem);
+        if (entrada.readInt() != MAGICO) {
+            throw new IOException("O arquivo não é um rastro de execução do Simpletron.");
+        }
+        short versao = entrada.readShort();
+        if (versao != VERSAO) {
+            throw new IOException("Versão de rastro não suportada: " + versao);
+        }
+        long primeiro = entrada.readLong();
+        int quantidade = entrada.readInt();
+        if (quantidade < 0) {
+            throw new IOException("Quantidade de passos inválida: " + quantidade);
+        }
+        List<Passo> passos = new ArrayList<>(Math.min(quantidade, 1 << 16));
+        try {
+            for (int n = 0; n < quantidade; n++) {
+                int endereco = entrada.readUnsignedByte();
+                int instrucao = entrada.readShort();
+                int acumulador = entrada.readInt();
+                int enderecoEscrito = entrada.readByte();
+                int valorEscrito = entrada.readShort();
+                passos.add(new Passo(primeiro + n, endereco, instrucao, acumulador, enderecoEscrito, valorEscrito));
+            }
+        } catch (EOFException e) {
+            throw new IOException("Rastro truncado: esperados " + quantidade + " passos.", e);
+        }
+        return passos;
+    }
+}
@@ -0,0 +1,55 @@
+package org.simpletronv1.logic;
+
+/**
+ * Motivo pelo qual uma execução iniciada por {@link SimpletronLogic#run(long, InputChannel, OutputChannel)}
+ * foi encerrada. Os erros correspondem aos códigos negativos devolvidos por
+ * {@link SimpletronLogic#executarPasso()}; os de entrada só ocorrem com um canal de entrada conectado.
+ */
+public enum HaltReason {
+
+    HALTED(SimpletronLogic.HALT, "Execução finalizada normalmente."),
+    DIVIDE_BY_ZERO(-1, "Erro fatal: Tentativa de divisão por zero."),
+    INVALID_OPCODE(-2, "Erro fatal: Código de operação inválido."),
+    OVERFLOW(-3, "Erro fatal: Estouro do acumulador."),
+    STEP_LIMIT(0, "Execução interrompida: limite de passos atingido."),
+    INPUT_EXHAUSTED(SimpletronLogic.ERRO_ENTRADA_ESGOTADA, "Erro fatal: Entrada esgotada para a instrução READ."),
+    INVALID_INPUT(SimpletronLogic.ERRO_ENTRADA_INVALIDA, "Erro fatal: Valor de entrada inválido ou fora da faixa das palavras.");
+
+    private final int codigo;
+    private final String descricao;
+
+    HaltReason(int codigo, String descricao) {
+        this.codigo = codigo;
+        this.descricao = descricao;
+    }
+
+    /**
+     * @return o código equivalente devolvido por executarPasso() (43 ou -1 a -5),
+     * ou 0 para o limite de passos, que não existe na execução passo a passo.
+     */
+    public int getCodigo() {
+        return codigo;
+    }
+
+    public String getDescricao() {
+        return descricao;
+    }
+
+    /**
+     * @return a descrição com os detalhes da configuração da máquina; para INVALID_INPUT, a faixa
+     * válida das palavras (ex.: [-9999, 9999] na configuração clássica).
+     */
+    public String getDescricao(MachineConfig configuracao) {
+        if (this == INVALID_INPUT) {
+            return "Erro fatal: Valor de entrada inválido ou fora da faixa " + configuracao.getIntervalo() + ".";
+        }
+        return descricao;
+    }
+
+    /**
+     * @return true se o motivo representa um término anormal (qualquer motivo exceto HALTED).
+     */
+    public boolean isErro() {
+        return this != HALTED;
+    }
+}
@@ -0,0 +1,21 @@
+package org.simpletronv1.logic;
+
+/**
+ * Fonte dos valores consumidos pela instrução READ quando a máquina é executada com
+ * {@link SimpletronLogic#run(long, InputChannel, OutputChannel)}.
+ */
+public interface InputChannel {
+
+    /**
+     * @return true se ainda existe um valor disponível para leitura.
+     */
+    boolean temProximo();
+
+    /**
+     * Lê o próximo valor. Só deve ser chamado depois de {@link #temProximo()} devolver true.
+     *
+     * @return o valor lido.
+     * @throws NumberFormatException se a fonte for textual e o valor não for um inteiro válido.
+     */
+    int ler();
+}
@@ -0,0 +1,47 @@
+package org.simpletronv1.logic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento do Java Flight Recorder que cobre uma espera de entrada ou saída de um canal: a leitura de
+ * mais dados por {@link StreamInputChannel}, a gravação do buffer de {@link StreamOutputChannel} ou a
+ * espera pelo valor digitado na interface. Por padrão só são gravadas as esperas de pelo menos 1 ms.
+ *
+ * Uso:
+ * <pre>
+ *   IoWaitEvent espera = IoWaitEvent.iniciar("entrada padrão", true);
+ *   ... operação que pode bloquear ...
+ *   espera.commit();
+ * </pre>
+ */
+@Name("org.simpletronv1.IoWait")
+@Label("Espera de E/S")
+@Category("Simpletron")
+@Description("Tempo bloqueado esperando um canal de entrada ou saída")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class IoWaitEvent extends jdk.jfr.Event {
+
+    @Label("Canal")
+    String canal;
+
+    @Label("Entrada")
+    @Description("true para leitura (READ), false para escrita (WRITE)")
+    boolean entrada;
+
+    /**
+     * Cria e inicia a medição de uma espera; termine-a com {@link #commit()}.
+     */
+    public static IoWaitEvent iniciar(String canal, boolean entrada) {
+        IoWaitEvent evento = new IoWaitEvent();
+        evento.canal = canal;
+        evento.entrada = entrada;
+        evento.begin();
+        return evento;
+    }
+}
@@ -0,0 +1,290 @@
+package org.simpletronv1.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.simpletronv1.logic.SimpletronLogic.*;
+
+/**
+ * A classe MachineBank guarda o estado de muitas máquinas Simpletron em um único array primitivo
+ * contíguo ("struct of arrays"), para simular centenas de milhares de máquinas com pouco uso de heap.
+ *
+ * Cada máquina ocupa {@link #PALAVRAS_POR_MAQUINA} inteiros consecutivos: as 100 palavras de
+ * memória seguidas do acumulador, do contador de instrução, do registrador de instrução e do
+ * estado. O código de operação e o operando não são guardados, pois são derivados do registrador
+ * de instrução. Não há objetos por máquina: 100 mil máquinas ocupam um único int[] de ~42 MB.
+ *
+ * Os comentários ficam fora do banco, em uma tabela de programas compartilhada que só é usada
+ * no carregamento: cada programa é interpretado uma vez por {@link #registrarPrograma(String[])}
+ * e depois copiado para quantas máquinas forem necessárias com {@link #carregar(int, int)}.
+ *
+ * A execução de cada máquina segue exatamente a semântica de {@link SimpletronLogic#executarPasso()}.
+ */
+public class MachineBank {
+
+    public static final int TAMANHO_MEMORIA = 100;
+
+    // --- Deslocamentos dos registradores dentro do bloco de cada máquina ---
+    private static final int ACUMULADOR = TAMANHO_MEMORIA;
+    private static final int CONTADOR = TAMANHO_MEMORIA + 1;
+    private static final int REGISTRADOR = TAMANHO_MEMORIA + 2;
+    private static final int ESTADO = TAMANHO_MEMORIA + 3;
+
+    public static final int PALAVRAS_POR_MAQUINA = TAMANHO_MEMORIA + 4;
+
+    // Valor de ESTADO enquanto a máquina não terminou; depois guarda HALT ou o código de erro
+    private static final int EM_EXECUCAO = 0;
+
+    private final int[] banco;
+    private final int capacidade;
+
+    // Tabela de programas compartilhada, usada apenas no carregamento
+    private final List<int[]> imagens = new ArrayList<>();
+    private final List<String[]> comentarios = new ArrayList<>();
+
+    /**
+     * @param capacidade quantidade de máquinas do banco.
+     */
+    public MachineBank(int capacidade) {
+        if (capacidade <= 0 || (long) capacidade * PALAVRAS_POR_MAQUINA > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacidade);
+        }
+        this.capacidade = capacidade;
+        this.banco = new int[capacidade * PALAVRAS_POR_MAQUINA];
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    /**
+     * Interpreta um programa e o guarda na tabela compartilhada.
+     *
+     * @param linhas as linhas do programa, no formato aceito por {@link SimpletronLogic#carregarPrograma(String[])}.
+     * @return o identificador do programa, usado em {@link #carregar(int, int)}.
+     * @throws IllegalArgumentException com a mensagem do carregador, se o programa for inválido.
+     */
+    public synchronized int registrarPrograma(String[] linhas) {
+        SimpletronLogic carregador = new SimpletronLogic();
+        String erro = carregador.carregarPrograma(linhas);
+        if (erro != null) {
+            throw new IllegalArgumentException(erro);
+        }
+        String[] textos = new String[TAMANHO_MEMORIA];
+        for (int i = 0; i < TAMANHO_MEMORIA; i++) {
+            textos[i] = carregador.getCommentAt(i);
+        }
+        imagens.add(carregador.getMemory().clone());
+        comentarios.add(textos);
+        return imagens.size() - 1;
+    }
+
+    /**
+     * Reinicia a máquina e copia para a sua memória a imagem de um programa registrado.
+     */
+    public void carregar(int maquina, int programa) {
+        int base = base(maquina);
+        System.arraycopy(imagens.get(programa), 0, banco, base, TAMANHO_MEMORIA);
+        banco[base + ACUMULADOR] = 0;
+        banco[base + CONTADOR] = 0;
+        banco[base + REGISTRADOR] = 0;
+        banco[base + ESTADO] = EM_EXECUCAO;
+    }
+
+    /**
+     * Copia para a máquina o estado guardado em um snapshot (memória e registradores, em uma única
+     * cópia em bloco), para continuar a execução a partir dele. Os comentários não são copiados.
+     */
+    public void carregar(int maquina, MachineSnapshot snapshot) {
+        int base = base(maquina);
+        snapshot.copiarPara(banco, base);
+        banco[base + ESTADO] = EM_EXECUCAO;
+    }
+
+    /**
+     * Zera a memória e os registradores de uma máquina.
+     */
+    public void reiniciar(int maquina) {
+        int base = base(maquina);
+        Arrays.fill(banco, base, base + PALAVRAS_POR_MAQUINA, 0);
+    }
+
+    /**
+     * Executa uma instrução da máquina indicada. Máquinas que já terminaram não são alteradas
+     * e devolvem novamente o código com que terminaram.
+     *
+     * @return o código da operação executada, HALT ou um código de erro negativo, como em
+     * {@link SimpletronLogic#executarPasso()}. Em READ e WRITE o chamador trata a entrada/saída
+     * usando {@link #getOperand(int)}, {@link #getMemoryAt(int, int)} e {@link #setMemoryAt(int, int, int)}.
+     */
+    public int passo(int maquina) {
+        final int[] b = banco;
+        final int base = base(maquina);
+        if (b[base + ESTADO] != EM_EXECUCAO) {
+            return b[base + ESTADO];
+        }
+
+        int ic = b[base + CONTADOR];
+        if (ic >= TAMANHO_MEMORIA) {
+            return b[base + ESTADO] = HALT;
+        }
+        int ir = b[base + ic];
+        int op = ir / 100;
+        int endereco = base + ir % 100;
+        int acc = b[base + ACUMULADOR];
+        b[base + REGISTRADOR] = ir;
+
+        switch (op) {
+            case READ:
+            case WRITE:
+                ic++;
+                break;
+            case LOAD:
+                acc = b[endereco];
+                ic++;
+                break;
+            case STORE:
+                b[endereco] = acc;
+                ic++;
+                break;
+            case ADD:
+                acc += b[endereco];
+                ic++;
+                break;
+            case SUBTRACT:
+                acc -= b[endereco];
+                ic++;
+                break;
+            case DIVIDE:
+                if (b[endereco] == 0) {
+                    return b[base + ESTADO] = -1;
+                }
+                acc /= b[endereco];
+                ic++;
+                break;
+            case MULTIPLY:
+                acc *= b[endereco];
+                ic++;
+                break;
+            case BRANCH:
+                ic = ir % 100;
+                break;
+            case BRANCHNEG:
+                ic = acc < 0 ? ir % 100 : ic + 1;
+                break;
+            case BRANCHZERO:
+                ic = acc == 0 ? ir % 100 : ic + 1;
+                break;
+            case HALT:
+                return b[base + ESTADO] = HALT;
+            default:
+                return b[base + ESTADO] = -2;
+        }
+
+        b[base + ACUMULADOR] = acc;
+        b[base + CONTADOR] = ic;
+        if (acc > 9999 || acc < -9999) {
+            return b[base + ESTADO] = -3;
+        }
+        return op;
+    }
+
+    /**
+     * Executa a máquina indicada até HALT, erro ou o limite de passos, tratando READ e WRITE com
+     * os canais informados, com a mesma semântica de
+     * {@link SimpletronLogic#run(long, InputChannel, OutputChannel)}.
+     */
+    public ExecutionResult executar(int maquina, long maxSteps, InputChannel entrada, OutputChannel saida) {
+        final int base = base(maquina);
+        long passos = 0;
+        while (true) {
+            int ic = banco[base + CONTADOR];
+            boolean busca = banco[base + ESTADO] == EM_EXECUCAO && ic < TAMANHO_MEMORIA;
+            if (busca && passos >= maxSteps) {
+                return new ExecutionResult(HaltReason.STEP_LIMIT, passos, ic);
+            }
+            int codigo = passo(maquina);
+            if (busca) {
+                passos++;
+            }
+
+            switch (codigo) {
+                case READ:
+                    if (!entrada.temProximo()) {
+                        return new ExecutionResult(HaltReason.INPUT_EXHAUSTED, passos, ic);
+                    }
+                    int valor;
+                    try {
+                        valor = entrada.ler();
+                    } catch (NumberFormatException e) {
+                        return new ExecutionResult(HaltReason.INVALID_INPUT, passos, ic);
+                    }
+                    if (valor < -9999 || valor > 9999) {
+                        return new ExecutionResult(HaltReason.INVALID_INPUT, passos, ic);
+                    }
+                    banco[base + getOperand(maquina)] = valor;
+                    break;
+                case WRITE:
+                    saida.escrever(banco[base + getOperand(maquina)]);
+                    break;
+                case HALT:
+                    return new ExecutionResult(HaltReason.HALTED, passos, busca ? ic : banco[base + CONTADOR]);
+                case -1:
+                    return new ExecutionResult(HaltReason.DIVIDE_BY_ZERO, passos, ic);
+                case -2:
+                    return new ExecutionResult(HaltReason.INVALID_OPCODE, passos, ic);
+                case -3:
+                    return new ExecutionResult(HaltReason.OVERFLOW, passos, ic);
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * @return true se a máquina ainda não executou HALT nem encontrou um erro.
+     */
+    public boolean isEmExecucao(int maquina) {
+        return banco[base(maquina) + ESTADO] == EM_EXECUCAO;
+    }
+
+    public int getAccumulator(int maquina) {
+        return banco[base(maquina) + ACUMULADOR];
+    }
+
+    public int getInstructionCounter(int maquina) {
+        return banco[base(maquina) + CONTADOR];
+    }
+
+    public int getInstructionRegister(int maquina) {
+        return banco[base(maquina) + REGISTRADOR];
+    }
+
+    public int getOperationCode(int maquina) {
+        return getInstructionRegister(maquina) / 100;
+    }
+
+    public int getOperand(int maquina) {
+        return getInstructionRegister(maquina) % 100;
+    }
+
+    public int getMemoryAt(int maquina, int endereco) {
+        return banco[base(maquina) + endereco];
+    }
+
+    public void setMemoryAt(int maquina, int endereco, int valor) {
+        banco[base(maquina) + endereco] = valor;
+    }
+
+    /**
+     * @return o comentário de uma célula de um programa registrado.
+     */
+    public String getCommentAt(int programa, int endereco) {
+        return comentarios.get(programa)[endereco];
+    }
+
+    private int base(int maquina) {
+        return maquina * PALAVRAS_POR_MAQUINA;
+    }
+}
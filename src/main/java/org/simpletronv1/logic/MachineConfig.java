@@ -0,0 +1,169 @@
+package org.simpletronv1.logic;
+
+/**
+ * A classe MachineConfig descreve o tamanho de uma máquina Simpletron: a quantidade de palavras da
+ * memória e a quantidade de dígitos de cada palavra.
+ *
+ * A memória tem uma potência de 10 de palavras (100, 1.000, 10.000, ...), e o operando de uma
+ * instrução tem um dígito para cada potência: 2 dígitos em 100 palavras, 3 em 1.000, 4 em 10.000.
+ * A instrução é o código de operação (sempre 2 dígitos) seguido do operando, de modo que as palavras
+ * têm pelo menos 2 dígitos a mais que o operando; palavras mais largas só ampliam o intervalo dos
+ * dados e do acumulador. Exemplos:
+ * <pre>
+ *   100 palavras de 4 dígitos (clássica): +2014 = LOAD 14,   intervalo [-9999, 9999]
+ *   1.000 palavras de 5 dígitos:          +20140 = LOAD 140, intervalo [-99999, 99999]
+ *   10.000 palavras de 6 dígitos:         +201400 = LOAD 1400
+ * </pre>
+ *
+ * Imagens binárias ({@link ProgramImage}), snapshots ({@link MachineSnapshot}), o banco de máquinas
+ * ({@link MachineBank}), o rastro ({@link ExecutionTrace}), o histórico ({@link UndoLog}) e o bytecode de
+ * {@link CompiledEngine} existem somente na configuração clássica.
+ */
+public final class MachineConfig {
+
+    /** A máquina original: 100 palavras de 4 dígitos. */
+    public static final MachineConfig CLASSICA = new MachineConfig(100, 4);
+
+    /** Maior largura de palavra: a soma de duas palavras ainda cabe em um int. */
+    public static final int MAXIMO_DE_DIGITOS = 9;
+
+    private static final int MAXIMO_DE_PALAVRAS = 1_000_000;
+
+    private final int tamanhoMemoria;
+    private final int digitosPorPalavra;
+    private final int digitosDoEndereco;
+    private final int maiorPalavra;
+
+    /**
+     * @param tamanhoMemoria    quantidade de palavras: uma potência de 10, de 100 a 1.000.000.
+     * @param digitosPorPalavra dígitos de cada palavra, de 2 a mais que o operando até {@link #MAXIMO_DE_DIGITOS}.
+     * @throws IllegalArgumentException se a combinação não for válida.
+     */
+    public MachineConfig(int tamanhoMemoria, int digitosPorPalavra) {
+        int digitos = 0;
+        int potencia = 1;
+        while (potencia < tamanhoMemoria && potencia <= MAXIMO_DE_PALAVRAS) {
+            potencia *= 10;
+            digitos++;
+        }
+        if (tamanhoMemoria < 100 || tamanhoMemoria > MAXIMO_DE_PALAVRAS || potencia != tamanhoMemoria) {
+            throw new IllegalArgumentException("Tamanho de memória inválido: " + tamanhoMemoria
+                    + " (use uma potência de 10, de 100 a " + MAXIMO_DE_PALAVRAS + ").");
+        }
+        if (digitosPorPalavra < digitos + 2 || digitosPorPalavra > MAXIMO_DE_DIGITOS) {
+            throw new IllegalArgumentException("Uma memória de " + tamanhoMemoria + " palavras exige palavras de "
+                    + (digitos + 2) + " a " + MAXIMO_DE_DIGITOS + " dígitos: " + digitosPorPalavra);
+        }
+        int limite = 1;
+        for (int i = 0; i < digitosPorPalavra; i++) {
+            limite *= 10;
+        }
+        this.tamanhoMemoria = tamanhoMemoria;
+        this.digitosPorPalavra = digitosPorPalavra;
+        this.digitosDoEndereco = digitos;
+        this.maiorPalavra = limite - 1;
+    }
+
+    /**
+     * @return a configuração com o tamanho de memória informado e as palavras mais estreitas possíveis.
+     * @throws IllegalArgumentException se o tamanho não for válido.
+     */
+    public static MachineConfig comTamanho(int tamanhoMemoria) {
+        int digitos = 2;
+        for (int potencia = 100; potencia < tamanhoMemoria && digitos < MAXIMO_DE_DIGITOS; potencia *= 10) {
+            digitos++;
+        }
+        return new MachineConfig(tamanhoMemoria, digitos + 2);
+    }
+
+    public int getTamanhoMemoria() {
+        return tamanhoMemoria;
+    }
+
+    public int getDigitosPorPalavra() {
+        return digitosPorPalavra;
+    }
+
+    /**
+     * @return os dígitos do operando e dos endereços.
+     */
+    public int getDigitosDoEndereco() {
+        return digitosDoEndereco;
+    }
+
+    /**
+     * @return o divisor que separa o código de operação do operando (igual ao tamanho da memória).
+     */
+    public int getBase() {
+        return tamanhoMemoria;
+    }
+
+    /**
+     * @return o maior valor de uma palavra e do acumulador; o menor é o seu negativo.
+     */
+    public int getMaiorPalavra() {
+        return maiorPalavra;
+    }
+
+    public boolean isClassica() {
+        return equals(CLASSICA);
+    }
+
+    public int codigoDe(int palavra) {
+        return palavra / tamanhoMemoria;
+    }
+
+    public int operandoDe(int palavra) {
+        return palavra % tamanhoMemoria;
+    }
+
+    /**
+     * @return o texto do intervalo válido das palavras, ex.: "[-9999, 9999]".
+     */
+    public String getIntervalo() {
+        return "[-" + maiorPalavra + ", " + maiorPalavra + "]";
+    }
+
+    /**
+     * Formata uma palavra com sinal e zeros à esquerda (na clássica, equivale a String.format("%+05d", valor)).
+     */
+    public String formatarPalavra(int valor) {
+        return formatar(valor, digitosPorPalavra, true);
+    }
+
+    /**
+     * Formata um endereço com zeros à esquerda (na clássica, equivale a String.format("%02d", valor)).
+     */
+    public String formatarEndereco(int valor) {
+        return formatar(valor, digitosDoEndereco, false);
+    }
+
+    private static String formatar(int valor, int largura, boolean comSinal) {
+        String digitos = Long.toString(Math.abs((long) valor));
+        StringBuilder texto = new StringBuilder(largura + 1);
+        if (comSinal || valor < 0) {
+            texto.append(valor < 0 ? '-' : '+');
+        }
+        int minimo = comSinal || valor >= 0 ? largura : largura - 1; // Como em "%02d", o sinal ocupa uma posição
+        for (int i = digitos.length(); i < minimo; i++) {
+            texto.append('0');
+        }
+        return texto.append(digitos).toString();
+    }
+
+    @Override
+    public boolean equals(Object outro) {
+        return outro instanceof MachineConfig configuracao && configuracao.tamanhoMemoria == tamanhoMemoria
+                && configuracao.digitosPorPalavra == digitosPorPalavra;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * tamanhoMemoria + digitosPorPalavra;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MachineConfig[%d palavras de %d dígitos]", tamanhoMemoria, digitosPorPalavra);
+    }
+}
@@ -0,0 +1,288 @@
+package org.simpletronv1.logic;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A classe MachineSnapshot guarda o estado completo de uma máquina Simpletron: memória, acumulador,
+ * contador de instrução, registrador de instrução, contador de passos e comentários.
+ *
+ * Um snapshot é imutável e pode ser restaurado quantas vezes for preciso, em qualquer máquina
+ * ({@link #restaurar(SimpletronLogic)}) ou em uma máquina de um {@link MachineBank}
+ * ({@link MachineBank#carregar(int, MachineSnapshot)}); por exemplo, para iniciar muitas execuções a
+ * partir de um mesmo estado. A memória e os registradores ficam em um único int[], no mesmo layout
+ * do bloco de cada máquina do banco, de modo que a restauração é uma única cópia em bloco.
+ *
+ * O snapshot pode ser convertido em um formato binário de layout fixo ({@link #paraBytes()}) e lido de
+ * volta com {@link #deBytes(byte[])}: são {@link #TAMANHO_FIXO} bytes para o estado da máquina, seguidos
+ * somente dos comentários não vazios.
+ *
+ * Formato binário (big-endian):
+ * <pre>
+ *   int   MAGICO ("SMLS")
+ *   short VERSAO
+ *   short tamanho da memória (100)
+ *   long  passos executados
+ *   int   acumulador
+ *   short contador de instrução
+ *   short registrador de instrução
+ *   short memória[100]
+ *   short quantidade de comentários não vazios
+ *   para cada comentário:
+ *     byte  endereço
+ *     short tamanho do texto em bytes
+ *     byte  texto[tamanho] (UTF-8)
+ * </pre>
+ * Comentários com mais de 65535 bytes são cortados no último caractere inteiro que couber.
+ */
+public final class MachineSnapshot {
+
+    public static final int MAGICO = 0x534D4C53; // "SMLS"
+    public static final short VERSAO = 1;
+
+    private static final int TAMANHO_MEMORIA = MachineBank.TAMANHO_MEMORIA;
+
+    // --- Deslocamentos dos registradores no array de estado (os mesmos de MachineBank) ---
+    static final int ACUMULADOR = TAMANHO_MEMORIA;
+    static final int CONTADOR = TAMANHO_MEMORIA + 1;
+    static final int REGISTRADOR = TAMANHO_MEMORIA + 2;
+    static final int PALAVRAS = TAMANHO_MEMORIA + 3;
+
+    /** Tamanho, em bytes, da parte fixa do formato binário (tudo menos os comentários). */
+    public static final int TAMANHO_FIXO = 4 + 2 + 2 + 8 + 4 + 2 + 2 + 2 * TAMANHO_MEMORIA;
+
+    private final int[] estado;
+    private final long passos;
+    private final String[] comentarios;
+
+    private MachineSnapshot(int[] estado, long passos, String[] comentarios) {
+        this.estado = estado;
+        this.passos = passos;
+        this.comentarios = comentarios;
+    }
+
+    /**
+     * Copia o estado atual da máquina. A máquina não deve estar executando em outra thread.
+     *
+     * @throws IllegalArgumentException se a máquina não tem a configuração clássica.
+     */
+    public static MachineSnapshot capturar(SimpletronLogic maquina) {
+        verificarConfiguracao(maquina);
+        int[] estado = new int[PALAVRAS];
+        System.arraycopy(maquina.getMemory(), 0, estado, 0, TAMANHO_MEMORIA);
+        estado[ACUMULADOR] = maquina.getAccumulator();
+        estado[CONTADOR] = maquina.getInstructionCounter();
+        estado[REGISTRADOR] = maquina.getInstructionRegister();
+        String[] comentarios = new String[TAMANHO_MEMORIA];
+        for (int i = 0; i < TAMANHO_MEMORIA; i++) {
+            comentarios[i] = maquina.getCommentAt(i);
+        }
+        return new MachineSnapshot(estado, maquina.getPassosExecutados(), comentarios);
+    }
+
+    /**
+     * Leva a máquina ao estado guardado. O histórico e o rastro da máquina, se houver, são esvaziados,
+     * pois não descrevem os passos que levaram a este estado.
+     *
+     * @throws IllegalArgumentException se a máquina não tem a configuração clássica.
+     */
+    public void restaurar(SimpletronLogic maquina) {
+        verificarConfiguracao(maquina);
+        maquina.restaurarSnapshot(estado, passos, comentarios);
+    }
+
+    private static boolean isPalavra(int valor) {
+        return valor >= -9999 && valor <= 9999;
+    }
+
+    /**
+     * Corta um texto em UTF-8 para no máximo a quantidade de bytes informada, sem dividir um caractere
+     * de vários bytes: o corte recua enquanto o byte seguinte for de continuação (10xxxxxx).
+     */
+    static byte[] truncarUtf8(byte[] texto, int maximo) {
+        if (texto.length <= maximo) {
+            return texto;
+        }
+        int fim = maximo;
+        while (fim > 0 && (texto[fim] & 0xC0) == 0x80) {
+            fim--;
+        }
+        return Arrays.copyOf(texto, fim);
+    }
+
+    private static void verificarConfiguracao(SimpletronLogic maquina) {
+        if (!maquina.getConfiguracao().isClassica()) {
+            throw new IllegalArgumentException("Snapshots existem somente na configuração clássica: "
+                    + maquina.getConfiguracao());
+        }
+    }
+
+    /**
+     * Copia o estado para o bloco de uma máquina do banco, cujo bloco começa na posição informada.
+     */
+    void copiarPara(int[] banco, int base) {
+        System.arraycopy(estado, 0, banco, base, PALAVRAS);
+    }
+
+    public int getMemoryAt(int endereco) {
+        return estado[endereco];
+    }
+
+    public int getAccumulator() {
+        return estado[ACUMULADOR];
+    }
+
+    public int getInstructionCounter() {
+        return estado[CONTADOR];
+    }
+
+    public int getInstructionRegister() {
+        return estado[REGISTRADOR];
+    }
+
+    public long getPassosExecutados() {
+        return passos;
+    }
+
+    public String getCommentAt(int endereco) {
+        return comentarios[endereco];
+    }
+
+    /**
+     * Converte o snapshot para o formato binário descrito na documentação da classe.
+     *
+     * @throws IllegalStateException se alguma palavra da memória, o acumulador ou o registrador de
+     *                               instrução estiver fora do intervalo [-9999, 9999].
+     */
+    public byte[] paraBytes() {
+        if (!isPalavra(estado[ACUMULADOR]) || !isPalavra(estado[REGISTRADOR])) {
+            throw new IllegalStateException(String.format("Acumulador (%+d) ou registrador de instrução (%+d) fora do intervalo.",
+                    estado[ACUMULADOR], estado[REGISTRADOR]));
+        }
+        byte[][] textos = new byte[TAMANHO_MEMORIA][];
+        int quantidade = 0;
+        int tamanho = TAMANHO_FIXO + 2;
+        for (int i = 0; i < TAMANHO_MEMORIA; i++) {
+            if (!comentarios[i].isEmpty()) {
+                byte[] texto = comentarios[i].getBytes(StandardCharsets.UTF_8);
+                textos[i] = truncarUtf8(texto, 0xFFFF);
+                tamanho += 3 + textos[i].length;
+                quantidade++;
+            }
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(tamanho);
+        buffer.putInt(MAGICO);
+        buffer.putShort(VERSAO);
+        buffer.putShort((short) TAMANHO_MEMORIA);
+        buffer.putLong(passos);
+        buffer.putInt(estado[ACUMULADOR]);
+        buffer.putShort((short) estado[CONTADOR]);
+        buffer.putShort((short) estado[REGISTRADOR]);
+        for (int i = 0; i < TAMANHO_MEMORIA; i++) {
+            if (!isPalavra(estado[i])) {
+                throw new IllegalStateException(String.format("A palavra %+d da posição %02d está fora do intervalo.",
+                        estado[i], i));
+            }
+            buffer.putShort((short) estado[i]);
+        }
+        buffer.putShort((short) quantidade);
+        for (int i = 0; i < TAMANHO_MEMORIA; i++) {
+            if (textos[i] != null) {
+                buffer.put((byte) i);
+                buffer.putShort((short) textos[i].length);
+                buffer.put(textos[i]);
+            }
+        }
+        return buffer.array();
+    }
+
+    /**
+     * Lê um snapshot gravado com {@link #paraBytes()}.
+     *
+     * @throws IllegalArgumentException se o conteúdo não for um snapshot válido, inclusive com palavras,
+     *                                  acumulador ou registrador de instrução fora do intervalo [-9999, 9999].
+     */
+    public static MachineSnapshot deBytes(byte[] dados) {
+        ByteBuffer buffer = ByteBuffer.wrap(dados);
+        try {
+            if (buffer.getInt() != MAGICO) {
+                throw new IllegalArgumentException("O conteúdo não é um snapshot do Simpletron.");
+            }
+            short versao = buffer.getShort();
+            if (versao != VERSAO) {
+                throw new IllegalArgumentException("Versão de snapshot não suportada: " + versao);
+            }
+            short tamanhoMemoria = buffer.getShort();
+            if (tamanhoMemoria != TAMANHO_MEMORIA) {
+                throw new IllegalArgumentException("Tamanho de memória não suportado: " + tamanhoMemoria);
+            }
+
+            long passos = buffer.getLong();
+            int[] estado = new int[PALAVRAS];
+            estado[ACUMULADOR] = buffer.getInt();
+            estado[CONTADOR] = buffer.getShort();
+            estado[REGISTRADOR] = buffer.getShort();
+            if (estado[CONTADOR] < 0 || estado[CONTADOR] > TAMANHO_MEMORIA) {
+                throw new IllegalArgumentException("Contador de instrução inválido: " + estado[CONTADOR]);
+            }
+            if (!isPalavra(estado[ACUMULADOR])) {
+                throw new IllegalArgumentException("Acumulador fora do intervalo: " + estado[ACUMULADOR]);
+            }
+            if (!isPalavra(estado[REGISTRADOR])) {
+                throw new IllegalArgumentException("Registrador de instrução fora do intervalo: " + estado[REGISTRADOR]);
+            }
+            for (int i = 0; i < TAMANHO_MEMORIA; i++) {
+                estado[i] = buffer.getShort();
+                if (!isPalavra(estado[i])) {
+                    throw new IllegalArgumentException(String.format("A palavra %+d da posição %02d está fora do intervalo.",
+                            estado[i], i));
+                }
+            }
+
+            String[] comentarios = new String[TAMANHO_MEMORIA];
+            Arrays.fill(comentarios, "");
+            int quantidade = buffer.getShort() & 0xFFFF;
+            for (int n = 0; n < quantidade; n++) {
+                int endereco = buffer.get() & 0xFF;
+                byte[] texto = new byte[buffer.getShort() & 0xFFFF];
+                buffer.get(texto);
+                if (endereco >= TAMANHO_MEMORIA) {
+                    throw new IllegalArgumentException("Endereço de comentário inválido: " + endereco);
+                }
+                comentarios[endereco] = new String(texto, StandardCharsets.UTF_8);
+            }
+            return new MachineSnapshot(estado, passos, comentarios);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Snapshot truncado.", e);
+        }
+    }
+
+    /**
+     * Grava o snapshot no formato binário.
+     */
+    public void gravar(OutputStream destino) throws IOException {
+        destino.write(paraBytes());
+        destino.flush();
+    }
+
+    /**
+     * Lê um snapshot gravado com {@link #gravar(OutputStream)}, consumindo todo o conteúdo da origem.
+     *
+     * @throws IOException se a leitura falhar ou o conteúdo não for um snapshot válido.
+     */
+    public static MachineSnapshot ler(InputStream origem) throws IOException {
+        byte[] dados = new DataInputStream(origem).readAllBytes();
+        try {
+            return deBytes(dados);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package org.simpletronv1.logic;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Canal de entrada que lê valores textuais (ASCII) de um arquivo mapeado em memória.
+ * O conteúdo é lido diretamente das páginas do arquivo, sem cópias para buffers
+ * intermediários, o que é vantajoso para arquivos grandes de entradas usados em lotes.
+ */
+public class MappedInputChannel extends TextInputChannel {
+
+    private final MappedByteBuffer dados;
+
+    private MappedInputChannel(MappedByteBuffer dados) {
+        this.dados = dados;
+    }
+
+    /**
+     * Mapeia o arquivo de entradas para leitura.
+     *
+     * @param arquivo arquivo com valores separados por espaços ou quebras de linha.
+     * @return o canal posicionado no primeiro valor.
+     * @throws IOException se o arquivo não puder ser aberto ou mapeado.
+     */
+    public static MappedInputChannel abrir(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return new MappedInputChannel(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        }
+    }
+
+    @Override
+    protected int proximoCaractere() {
+        return dados.hasRemaining() ? dados.get() & 0xFF : -1;
+    }
+}
@@ -0,0 +1,16 @@
+package org.simpletronv1.logic;
+
+/**
+ * Destino dos valores produzidos pela instrução WRITE quando a máquina é executada com
+ * {@link SimpletronLogic#run(long, InputChannel, OutputChannel)}.
+ */
+@FunctionalInterface
+public interface OutputChannel {
+
+    /**
+     * Recebe o valor da posição de memória indicada pela instrução WRITE.
+     *
+     * @param valor o valor escrito.
+     */
+    void escrever(int valor);
+}
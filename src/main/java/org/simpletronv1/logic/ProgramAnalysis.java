@@ -0,0 +1,378 @@
+package org.simpletronv1.logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.simpletronv1.logic.SimpletronLogic.*;
+
+/**
+ * A classe ProgramAnalysis é a análise estática de um programa carregado, feita sobre a imagem da
+ * memória sem executar nenhuma instrução.
+ *
+ * A análise monta o grafo de fluxo de controle a partir do endereço 00 (BRANCH tem um sucessor, BRANCHNEG
+ * e BRANCHZERO têm dois, HALT e códigos inválidos nenhum; as demais instruções seguem para a próxima
+ * célula, e passar da última célula encerra a execução como HALT). Com ele, classifica cada célula como
+ * código (alcançável), dado (operando de uma instrução alcançável), ambos ou não usada, e relata:
+ * - ERRO: o programa certamente não termina com HALT, seja porque nunca termina (laço infinito sem
+ *   nenhuma saída a partir do endereço 00), seja porque nenhum HALT é alcançável;
+ * - AVISO: códigos de operação inválidos alcançáveis, laços infinitos que começam em algum ponto do
+ *   programa, código que sobrescreve o próprio código e células não usadas com conteúdo.
+ *
+ * São consideradas saídas de um laço, além de HALT e do fim da memória, as instruções que podem
+ * terminar a execução com erro (READ, ADD, SUBTRACT, DIVIDE, MULTIPLY e códigos inválidos). Se o
+ * programa sobrescreve o próprio código, os STORE/READ envolvidos e as células sobrescritas também
+ * contam como saídas, e a ausência de HALT passa a ser um aviso.
+ */
+public final class ProgramAnalysis {
+
+    /** O papel de uma célula no programa. */
+    public enum TipoDeCelula {
+        NAO_USADA, CODIGO, DADO, CODIGO_E_DADO
+    }
+
+    public enum Severidade {
+        ERRO, AVISO
+    }
+
+    /**
+     * Um problema encontrado pela análise.
+     *
+     * @param endereco o endereço relacionado ao problema.
+     */
+    public record Problema(Severidade severidade, int endereco, String mensagem) {
+
+        public String formatar() {
+            return String.format("%-5s [%02d] %s", severidade, endereco, mensagem);
+        }
+    }
+
+    /**
+     * Sucessor que representa a saída pelo fim da memória na configuração clássica; em geral, é o
+     * tamanho da memória ({@link #getFimDaMemoria()}).
+     */
+    public static final int FIM_DA_MEMORIA = MachineBank.TAMANHO_MEMORIA;
+
+    private static final int SEM_SUCESSOR = -1;
+
+    private final MachineConfig configuracao;
+    private final int tamanho;
+    private final int base;
+    private final int[] memoria;
+    private final int[] sucessor1;
+    private final int[] sucessor2;
+    private final boolean[] alcancavel;
+    private final boolean[] dado;
+    private final boolean[] sobrescrita;
+    private final boolean[] podeTerminar;
+    private final List<Problema> problemas = new ArrayList<>();
+    private boolean automodificavel;
+    private boolean haltAlcancavel;
+
+    private ProgramAnalysis(int[] memoria, MachineConfig configuracao) {
+        this.configuracao = configuracao;
+        this.tamanho = memoria.length;
+        this.base = configuracao.getBase();
+        this.memoria = memoria.clone();
+        this.sucessor1 = new int[tamanho];
+        this.sucessor2 = new int[tamanho];
+        this.alcancavel = new boolean[tamanho];
+        this.dado = new boolean[tamanho];
+        this.sobrescrita = new boolean[tamanho];
+        this.podeTerminar = new boolean[tamanho];
+    }
+
+    /**
+     * Analisa a imagem de um programa.
+     *
+     * @param memoria as palavras da memória, a partir do endereço 00.
+     */
+    public static ProgramAnalysis analisar(int[] memoria) {
+        return analisar(memoria, MachineConfig.CLASSICA);
+    }
+
+    /**
+     * Analisa a imagem de um programa de uma máquina com a configuração informada.
+     *
+     * @param memoria as palavras da memória, a partir do endereço 00.
+     */
+    public static ProgramAnalysis analisar(int[] memoria, MachineConfig configuracao) {
+        if (memoria.length != configuracao.getTamanhoMemoria()) {
+            throw new IllegalArgumentException("Tamanho de memória não suportado: " + memoria.length);
+        }
+        ProgramAnalysis analise = new ProgramAnalysis(memoria, configuracao);
+        analise.montarGrafo();
+        analise.percorrer();
+        analise.classificarDados();
+        analise.calcularSaidas();
+        analise.relatar();
+        return analise;
+    }
+
+    private void montarGrafo() {
+        for (int i = 0; i < tamanho; i++) {
+            int op = memoria[i] / base;
+            int destino = memoria[i] % base;
+            sucessor1[i] = SEM_SUCESSOR;
+            sucessor2[i] = SEM_SUCESSOR;
+            switch (op) {
+                case READ, WRITE, LOAD, STORE, ADD, SUBTRACT, DIVIDE, MULTIPLY -> sucessor1[i] = i + 1;
+                case BRANCH -> sucessor1[i] = destino;
+                case BRANCHNEG, BRANCHZERO -> {
+                    sucessor1[i] = destino;
+                    sucessor2[i] = i + 1;
+                }
+                default -> {
+                    // HALT e códigos inválidos não têm sucessores
+                }
+            }
+        }
+    }
+
+    private void percorrer() {
+        int[] pilha = new int[tamanho];
+        int topo = 0;
+        pilha[topo++] = 0;
+        alcancavel[0] = true;
+        while (topo > 0) {
+            int i = pilha[--topo];
+            for (int sucessor : new int[]{sucessor1[i], sucessor2[i]}) {
+                if (sucessor >= 0 && sucessor < tamanho && !alcancavel[sucessor]) {
+                    alcancavel[sucessor] = true;
+                    pilha[topo++] = sucessor;
+                }
+            }
+        }
+    }
+
+    private void classificarDados() {
+        for (int i = 0; i < tamanho; i++) {
+            if (alcancavel[i] && acessaMemoria(memoria[i] / base)) {
+                dado[memoria[i] % base] = true;
+            }
+        }
+        for (int i = 0; i < tamanho; i++) {
+            int op = memoria[i] / base;
+            int alvo = memoria[i] % base;
+            if (alcancavel[i] && (op == STORE || op == READ) && alcancavel[alvo]) {
+                automodificavel = true;
+                sobrescrita[alvo] = true;
+            }
+        }
+    }
+
+    /**
+     * Marca as células a partir das quais alguma saída é alcançável (ponto fixo sobre o grafo reverso).
+     */
+    private void calcularSaidas() {
+        for (int i = 0; i < tamanho; i++) {
+            podeTerminar[i] = isSaida(i);
+        }
+        boolean mudou = true;
+        while (mudou) {
+            mudou = false;
+            for (int i = tamanho - 1; i >= 0; i--) {
+                if (!podeTerminar[i] && (terminaPor(sucessor1[i]) || terminaPor(sucessor2[i]))) {
+                    podeTerminar[i] = true;
+                    mudou = true;
+                }
+            }
+        }
+    }
+
+    private boolean terminaPor(int sucessor) {
+        return sucessor == tamanho || (sucessor >= 0 && podeTerminar[sucessor]);
+    }
+
+    private boolean isSaida(int i) {
+        if (sobrescrita[i]) {
+            return true; // Código que pode ser trocado durante a execução: o conteúdo atual não é garantido
+        }
+        int op = memoria[i] / base;
+        int alvo = memoria[i] % base;
+        switch (op) {
+            case HALT, READ, ADD, SUBTRACT, DIVIDE, MULTIPLY:
+                return true;
+            case STORE:
+                return alcancavel[alvo]; // Sobrescreve código: o comportamento seguinte não é conhecido
+            case WRITE, LOAD, BRANCH, BRANCHNEG, BRANCHZERO:
+                return false;
+            default:
+                return true; // Código inválido: termina com erro
+        }
+    }
+
+    private void relatar() {
+        for (int i = 0; i < tamanho; i++) {
+            if (alcancavel[i] && (memoria[i] / base == HALT || sucessor1[i] == tamanho
+                    || sucessor2[i] == tamanho)) {
+                haltAlcancavel = true;
+            }
+        }
+
+        if (!podeTerminar[0]) {
+            problemas.add(new Problema(Severidade.ERRO, 0,
+                    "O programa nunca termina: nenhuma saída (HALT, fim da memória ou erro) é alcançável."));
+        } else if (!haltAlcancavel) {
+            problemas.add(new Problema(automodificavel ? Severidade.AVISO : Severidade.ERRO, 0,
+                    "Nenhum HALT é alcançável: o programa só pode terminar com erro."));
+        }
+
+        for (int i = 0; i < tamanho; i++) {
+            if (!alcancavel[i]) {
+                continue;
+            }
+            int op = memoria[i] / base;
+            if (!isCodigoValido(op)) {
+                problemas.add(new Problema(Severidade.AVISO, i,
+                        String.format("Código de operação inválido alcançável: %+05d.", memoria[i])));
+            }
+            if ((op == STORE || op == READ) && alcancavel[memoria[i] % base]) {
+                problemas.add(new Problema(Severidade.AVISO, i, String.format(
+                        "A instrução sobrescreve o código no endereço %02d; a análise não garante o comportamento.",
+                        memoria[i] % base)));
+            }
+            // Entrada de um laço sem saída: célula sem saída com um predecessor que ainda tem saída
+            if (i != 0 && !podeTerminar[i] && podeTerminar[0] && temPredecessorComSaida(i)) {
+                problemas.add(new Problema(Severidade.AVISO, i,
+                        "Laço infinito: se a execução chegar a este endereço, o programa nunca termina."));
+            }
+        }
+
+        for (int i = 0; i < tamanho; i++) {
+            if (memoria[i] != 0 && getTipo(i) == TipoDeCelula.NAO_USADA) {
+                int fim = i;
+                while (fim + 1 < tamanho && memoria[fim + 1] != 0 && getTipo(fim + 1) == TipoDeCelula.NAO_USADA) {
+                    fim++;
+                }
+                problemas.add(new Problema(Severidade.AVISO, i, fim == i
+                        ? "Célula com conteúdo não usada (código inalcançável ou dado sem referência)."
+                        : String.format("Células %02d a %02d com conteúdo não usadas (código inalcançável ou dado sem referência).",
+                        i, fim)));
+                i = fim;
+            }
+        }
+        problemas.sort((a, b) -> a.severidade() != b.severidade()
+                ? a.severidade().compareTo(b.severidade()) : Integer.compare(a.endereco(), b.endereco()));
+    }
+
+    private boolean temPredecessorComSaida(int celula) {
+        for (int i = 0; i < tamanho; i++) {
+            if (alcancavel[i] && podeTerminar[i] && (sucessor1[i] == celula || sucessor2[i] == celula)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean acessaMemoria(int op) {
+        return op == READ || op == WRITE || op == LOAD || op == STORE
+                || op == ADD || op == SUBTRACT || op == DIVIDE || op == MULTIPLY;
+    }
+
+    private static boolean isCodigoValido(int op) {
+        return acessaMemoria(op) || op == BRANCH || op == BRANCHNEG || op == BRANCHZERO || op == HALT;
+    }
+
+    /**
+     * @return os problemas encontrados: primeiro os erros, depois os avisos, por endereço.
+     */
+    public List<Problema> getProblemas() {
+        return Collections.unmodifiableList(problemas);
+    }
+
+    /**
+     * @return true se algum problema é um erro, ou seja, o programa certamente não termina com HALT.
+     */
+    public boolean hasErros() {
+        return !problemas.isEmpty() && problemas.get(0).severidade() == Severidade.ERRO;
+    }
+
+    public TipoDeCelula getTipo(int endereco) {
+        if (alcancavel[endereco]) {
+            return dado[endereco] ? TipoDeCelula.CODIGO_E_DADO : TipoDeCelula.CODIGO;
+        }
+        return dado[endereco] ? TipoDeCelula.DADO : TipoDeCelula.NAO_USADA;
+    }
+
+    /**
+     * @return true se a célula pode ser executada a partir do endereço 00.
+     */
+    public boolean isAlcancavel(int endereco) {
+        return alcancavel[endereco];
+    }
+
+    /**
+     * @return true se, a partir da célula, alguma saída (HALT, fim da memória ou erro) é alcançável.
+     */
+    public boolean isPodeTerminar(int endereco) {
+        return podeTerminar[endereco];
+    }
+
+    /**
+     * @return os sucessores da célula no grafo de fluxo de controle; {@link #getFimDaMemoria()} indica
+     * a saída pelo fim da memória.
+     */
+    public int[] getSucessores(int endereco) {
+        if (sucessor1[endereco] == SEM_SUCESSOR) {
+            return new int[0];
+        }
+        return sucessor2[endereco] == SEM_SUCESSOR ? new int[]{sucessor1[endereco]}
+                : new int[]{sucessor1[endereco], sucessor2[endereco]};
+    }
+
+    /**
+     * @return o sucessor que representa a saída pelo fim da memória: o tamanho da memória.
+     */
+    public int getFimDaMemoria() {
+        return tamanho;
+    }
+
+    public MachineConfig getConfiguracao() {
+        return configuracao;
+    }
+
+    /**
+     * @return true se alguma instrução alcançável escreve em uma célula de código.
+     */
+    public boolean isAutomodificavel() {
+        return automodificavel;
+    }
+
+    /**
+     * Gera o relatório da análise: os problemas encontrados seguidos do mapa da memória, no layout do
+     * dump da máquina (C = código, D = dado, * = código usado como dado, . = não usada).
+     */
+    public String gerarRelatorio() {
+        StringBuilder relatorio = new StringBuilder();
+        if (problemas.isEmpty()) {
+            relatorio.append("Nenhum problema encontrado.\n");
+        }
+        for (Problema problema : problemas) {
+            relatorio.append(problema.formatar()).append('\n');
+        }
+
+        int digitosDoRotulo = configuracao.getDigitosDoEndereco();
+        relatorio.append("\nMAPA DA MEMÓRIA (C = código, D = dado, * = ambos, . = não usada):\n")
+                .append(" ".repeat(digitosDoRotulo + 2));
+        for (int i = 0; i < 10; i++) {
+            relatorio.append(' ').append(i);
+        }
+        relatorio.append('\n');
+        for (int i = 0; i < tamanho; i++) {
+            if (i % 10 == 0) {
+                relatorio.append(String.format("%" + digitosDoRotulo + "d  ", i));
+            }
+            relatorio.append(' ').append(switch (getTipo(i)) {
+                case CODIGO -> 'C';
+                case DADO -> 'D';
+                case CODIGO_E_DADO -> '*';
+                case NAO_USADA -> '.';
+            });
+            if ((i + 1) % 10 == 0) {
+                relatorio.append('\n');
+            }
+        }
+        return relatorio.toString();
+    }
+}
@@ -0,0 +1,234 @@
+package org.simpletronv1.logic;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A classe ProgramCache guarda programas já carregados, indexados pelo conteúdo do texto, para que
+ * carregar de novo um programa conhecido não repita nenhum trabalho de interpretação.
+ *
+ * Cada entrada guarda o resultado completo do carregamento: as palavras da memória, os comentários,
+ * a forma decodificada de cada célula e as superinstruções identificadas pela pré-análise (ou a
+ * mensagem de erro, se o programa for inválido), além da análise estática ({@link ProgramAnalysis}),
+ * calculada na primeira vez em que é pedida. Em um acerto, {@link #carregar(SimpletronLogic, String[])}
+ * copia tudo isso em bloco para a máquina, sem interpretar texto nem decodificar instruções.
+ *
+ * A chave é um hash de 64 bits do texto e da configuração da máquina ({@link MachineConfig}),
+ * calculado sem alocações: o mesmo texto tem outra decodificação em uma memória de outro tamanho, e
+ * por isso ocupa uma entrada para cada configuração. Como colisões são possíveis, o texto e a
+ * configuração guardados na entrada são comparados com os informados antes de considerar um acerto. O cache tem
+ * capacidade limitada e descarta a entrada usada há mais tempo (LRU). Pode ser compartilhado entre
+ * threads: cada operação é sincronizada e dura apenas uma cópia de poucos arrays.
+ */
+public class ProgramCache {
+
+    /** Um programa carregado, com tudo o que foi calculado no carregamento. */
+    private static final class Entrada {
+        final String[] linhas;
+        final MachineConfig configuracao;
+        final String erro;
+        final int[] memoria;
+        final int[] codigos;
+        final int[] operandos;
+        final int[] fusoes;
+        final String[] comentarios;
+        volatile ProgramAnalysis analise;
+
+        Entrada(String[] linhas, MachineConfig configuracao, String erro, int[] memoria, int[] codigos,
+                int[] operandos, int[] fusoes, String[] comentarios) {
+            this.linhas = linhas;
+            this.configuracao = configuracao;
+            this.erro = erro;
+            this.memoria = memoria;
+            this.codigos = codigos;
+            this.operandos = operandos;
+            this.fusoes = fusoes;
+            this.comentarios = comentarios;
+        }
+    }
+
+    private final int capacidade;
+    private final LinkedHashMap<Long, Entrada> entradas;
+
+    private long acertos;
+    private long faltas;
+    private long remocoes;
+
+    /**
+     * @param capacidade quantidade máxima de programas guardados.
+     */
+    public ProgramCache(int capacidade) {
+        if (capacidade <= 0) {
+            throw new IllegalArgumentException("Capacidade inválida: " + capacidade);
+        }
+        this.capacidade = capacidade;
+        this.entradas = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entrada> maisAntiga) {
+                if (size() > ProgramCache.this.capacidade) {
+                    remocoes++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Carrega um programa na máquina, como {@link SimpletronLogic#carregarPrograma(String[])}, usando o
+     * resultado guardado se o mesmo texto já tiver sido carregado antes.
+     *
+     * @return a mensagem de erro do carregamento, ou null se o programa foi carregado com sucesso.
+     */
+    public String carregar(SimpletronLogic maquina, String[] linhas) {
+        MachineConfig configuracao = maquina.getConfiguracao();
+        long chave = calcularHash(linhas, configuracao);
+        Entrada entrada;
+        synchronized (this) {
+            entrada = entradas.get(chave);
+            if (corresponde(entrada, configuracao, linhas)) {
+                acertos++;
+            } else {
+                faltas++;
+                entrada = null;
+            }
+        }
+
+        if (entrada != null) {
+            if (entrada.erro == null) {
+                maquina.carregarDecodificado(entrada.memoria, entrada.codigos, entrada.operandos, entrada.fusoes,
+                        entrada.comentarios);
+                return null;
+            }
+            // Programas inválidos deixam a máquina como carregarPrograma() a deixaria
+            maquina.carregarPrograma(entrada.linhas);
+            return entrada.erro;
+        }
+
+        // Falta: carrega normalmente e guarda o resultado
+        String erro = maquina.carregarPrograma(linhas);
+        int tamanho = maquina.getMemory().length;
+        Entrada nova;
+        if (erro == null) {
+            int[] codigos = new int[tamanho];
+            int[] operandos = new int[tamanho];
+            int[] fusoes = new int[tamanho];
+            maquina.copiarDecodificacao(codigos, operandos, fusoes);
+            String[] comentarios = new String[tamanho];
+            for (int i = 0; i < tamanho; i++) {
+                comentarios[i] = maquina.getCommentAt(i);
+            }
+            nova = new Entrada(linhas.clone(), configuracao, null, maquina.getMemory().clone(), codigos, operandos,
+                    fusoes, comentarios);
+        } else {
+            nova = new Entrada(linhas.clone(), configuracao, erro, null, null, null, null, null);
+        }
+        synchronized (this) {
+            entradas.put(chave, nova);
+        }
+        return erro;
+    }
+
+    /**
+     * Devolve a análise estática de um programa do cache, calculando-a na primeira vez. Não altera as métricas.
+     *
+     * @param configuracao a configuração da máquina em que o programa foi carregado.
+     * @return a análise, ou null se o texto não está no cache para essa configuração ou o programa é inválido.
+     */
+    public ProgramAnalysis getAnalise(MachineConfig configuracao, String[] linhas) {
+        Entrada entrada;
+        synchronized (this) {
+            entrada = entradas.get(calcularHash(linhas, configuracao));
+        }
+        if (!corresponde(entrada, configuracao, linhas) || entrada.erro != null) {
+            return null;
+        }
+        ProgramAnalysis analise = entrada.analise;
+        if (analise == null) {
+            analise = ProgramAnalysis.analisar(entrada.memoria, entrada.configuracao);
+            entrada.analise = analise;
+        }
+        return analise;
+    }
+
+    /**
+     * @return true se o texto já está no cache para a configuração informada. Não altera as métricas.
+     */
+    public synchronized boolean contem(MachineConfig configuracao, String[] linhas) {
+        return corresponde(entradas.get(calcularHash(linhas, configuracao)), configuracao, linhas);
+    }
+
+    private static boolean corresponde(Entrada entrada, MachineConfig configuracao, String[] linhas) {
+        return entrada != null && entrada.configuracao.equals(configuracao) && Arrays.equals(entrada.linhas, linhas);
+    }
+
+    /**
+     * Descarta todas as entradas. As métricas são mantidas.
+     */
+    public synchronized void limpar() {
+        entradas.clear();
+    }
+
+    /**
+     * Zera as contagens de acertos, faltas e remoções.
+     */
+    public synchronized void zerarMetricas() {
+        acertos = faltas = remocoes = 0;
+    }
+
+    public int getCapacidade() {
+        return capacidade;
+    }
+
+    public synchronized int getTamanho() {
+        return entradas.size();
+    }
+
+    public synchronized long getAcertos() {
+        return acertos;
+    }
+
+    public synchronized long getFaltas() {
+        return faltas;
+    }
+
+    /**
+     * @return a quantidade de entradas descartadas por falta de espaço.
+     */
+    public synchronized long getRemocoes() {
+        return remocoes;
+    }
+
+    /**
+     * @return a fração dos carregamentos atendidos pelo cache, entre 0 e 1.
+     */
+    public synchronized double getTaxaDeAcertos() {
+        long total = acertos + faltas;
+        return total == 0 ? 0.0 : (double) acertos / total;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ProgramCache[%d/%d programas, acertos=%d, faltas=%d, remoções=%d, taxa=%.1f%%]",
+                entradas.size(), capacidade, acertos, faltas, remocoes, 100 * getTaxaDeAcertos());
+    }
+
+    /**
+     * Hash de 64 bits (FNV-1a com mistura final) da configuração e dos caracteres de todas as linhas,
+     * com um separador entre elas, calculado sem converter o texto em bytes.
+     */
+    static long calcularHash(String[] linhas, MachineConfig configuracao) {
+        long hash = (0xcbf29ce484222325L ^ configuracao.hashCode()) * 0x100000001b3L;
+        for (String linha : linhas) {
+            for (int i = 0; i < linha.length(); i++) {
+                hash = (hash ^ linha.charAt(i)) * 0x100000001b3L;
+            }
+            hash = (hash ^ '\n') * 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
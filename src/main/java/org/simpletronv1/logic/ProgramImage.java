@@ -0,0 +1,257 @@
+package org.simpletronv1.logic;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+/**
+ * A classe ProgramImage é um programa SML já montado: as 100 palavras da memória e os comentários,
+ * em um formato binário que dispensa a interpretação do texto a cada carregamento.
+ *
+ * A imagem é gerada a partir do texto por {@link #compilar(String[])} (com as mesmas regras e
+ * mensagens de erro de {@link SimpletronLogic#carregarPrograma(String[])}) e gravada com
+ * {@link #gravar(Path)}; a ferramenta {@code org.simpletronv1.batch.ProgramCompiler} compila
+ * arquivos .sml/.txt. {@link #abrir(Path)} mapeia o arquivo em memória e valida o cabeçalho e o
+ * checksum uma única vez; depois disso, {@link #carregar(SimpletronLogic)} é uma única cópia em bloco
+ * das palavras para a memória da máquina, e a mesma imagem pode ser carregada quantas vezes for preciso.
+ *
+ * Formato binário (big-endian):
+ * <pre>
+ *   int   MAGICO ("SMLI")
+ *   short VERSAO
+ *   short tamanho da memória (100)
+ *   int   CRC32 de todo o conteúdo após o cabeçalho
+ *   int   quantidade de comentários não vazios
+ *   int   memória[100]
+ *   para cada comentário:
+ *     byte  endereço
+ *     short tamanho do texto em bytes
+ *     byte  texto[tamanho] (UTF-8)
+ * </pre>
+ * Comentários com mais de 65535 bytes são cortados no último caractere inteiro que couber.
+ * As palavras ficam em inteiros alinhados logo após o cabeçalho, para que possam ser copiadas
+ * diretamente das páginas do arquivo.
+ */
+public final class ProgramImage {
+
+    public static final int MAGICO = 0x534D4C49; // "SMLI"
+    public static final short VERSAO = 1;
+    public static final String EXTENSAO = ".smli";
+
+    private static final int TAMANHO_MEMORIA = MachineBank.TAMANHO_MEMORIA;
+    private static final int TAMANHO_CABECALHO = 4 + 2 + 2 + 4 + 4;
+
+    /** Tamanho, em bytes, de uma imagem sem comentários. */
+    public static final int TAMANHO_MINIMO = TAMANHO_CABECALHO + 4 * TAMANHO_MEMORIA;
+
+    private final ByteBuffer dados;
+    private final IntBuffer palavras;
+    private final String[] comentarios;
+    private final int checksum;
+
+    private ProgramImage(ByteBuffer dados, String[] comentarios, int checksum) {
+        this.dados = dados;
+        this.palavras = dados.slice(TAMANHO_CABECALHO, 4 * TAMANHO_MEMORIA).asIntBuffer();
+        this.comentarios = comentarios;
+        this.checksum = checksum;
+    }
+
+    /**
+     * Monta a imagem de um programa em texto.
+     *
+     * @param linhas as linhas do programa, no formato aceito por {@link SimpletronLogic#carregarPrograma(String[])}.
+     * @throws IllegalArgumentException com a mensagem do carregador, se o programa for inválido.
+     */
+    public static ProgramImage compilar(String[] linhas) {
+        SimpletronLogic carregador = new SimpletronLogic();
+        String erro = carregador.carregarPrograma(linhas);
+        if (erro != null) {
+            throw new IllegalArgumentException(erro);
+        }
+
+        byte[][] textos = new byte[TAMANHO_MEMORIA][];
+        int quantidade = 0;
+        int tamanho = TAMANHO_MINIMO;
+        for (int i = 0; i < TAMANHO_MEMORIA; i++) {
+            String comentario = carregador.getCommentAt(i);
+            if (!comentario.isEmpty()) {
+                byte[] texto = comentario.getBytes(StandardCharsets.UTF_8);
+                textos[i] = MachineSnapshot.truncarUtf8(texto, 0xFFFF);
+                tamanho += 3 + textos[i].length;
+                quantidade++;
+            }
+        }
+
+        ByteBuffer dados = ByteBuffer.allocate(tamanho);
+        dados.putInt(MAGICO);
+        dados.putShort(VERSAO);
+        dados.putShort((short) TAMANHO_MEMORIA);
+        dados.putInt(0); // CRC32, calculado no final
+        dados.putInt(quantidade);
+        for (int i = 0; i < TAMANHO_MEMORIA; i++) {
+            dados.putInt(carregador.getMemoryAt(i));
+        }
+        for (int i = 0; i < TAMANHO_MEMORIA; i++) {
+            if (textos[i] != null) {
+                dados.put((byte) i);
+                dados.putShort((short) textos[i].length);
+                dados.put(textos[i]);
+            }
+        }
+        int checksum = calcularChecksum(dados);
+        dados.putInt(8, checksum);
+        return ler(dados.clear());
+    }
+
+    /**
+     * Mapeia um arquivo de imagem em memória e valida o seu conteúdo.
+     *
+     * @throws IOException se o arquivo não puder ser lido ou não for uma imagem válida.
+     */
+    public static ProgramImage abrir(Path arquivo) throws IOException {
+        try (FileChannel canal = FileChannel.open(arquivo, StandardOpenOption.READ)) {
+            return ler(canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException(arquivo + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Lê uma imagem de um array gerado por {@link #paraBytes()}.
+     *
+     * @throws IllegalArgumentException se o conteúdo não for uma imagem válida.
+     */
+    public static ProgramImage deBytes(byte[] conteudo) {
+        return ler(ByteBuffer.wrap(conteudo));
+    }
+
+    private static ProgramImage ler(ByteBuffer dados) {
+        if (dados.remaining() < TAMANHO_MINIMO || dados.getInt(0) != MAGICO) {
+            throw new IllegalArgumentException("O conteúdo não é uma imagem de programa do Simpletron.");
+        }
+        short versao = dados.getShort(4);
+        if (versao != VERSAO) {
+            throw new IllegalArgumentException("Versão de imagem não suportada: " + versao);
+        }
+        short tamanhoMemoria = dados.getShort(6);
+        if (tamanhoMemoria != TAMANHO_MEMORIA) {
+            throw new IllegalArgumentException("Tamanho de memória não suportado: " + tamanhoMemoria);
+        }
+        int checksum = dados.getInt(8);
+        if (calcularChecksum(dados) != checksum) {
+            throw new IllegalArgumentException("Imagem corrompida: o checksum não confere.");
+        }
+
+        for (int i = 0; i < TAMANHO_MEMORIA; i++) {
+            int palavra = dados.getInt(TAMANHO_CABECALHO + 4 * i);
+            if (palavra < -9999 || palavra > 9999) {
+                throw new IllegalArgumentException(String.format("A palavra %+d da posição %02d está fora do intervalo.",
+                        palavra, i));
+            }
+        }
+
+        String[] comentarios = new String[TAMANHO_MEMORIA];
+        Arrays.fill(comentarios, "");
+        int quantidade = dados.getInt(12);
+        int posicao = TAMANHO_MINIMO;
+        for (int n = 0; n < quantidade; n++) {
+            if (posicao + 3 > dados.limit()) {
+                throw new IllegalArgumentException("Tabela de comentários truncada.");
+            }
+            int endereco = dados.get(posicao) & 0xFF;
+            int tamanho = dados.getShort(posicao + 1) & 0xFFFF;
+            posicao += 3;
+            if (endereco >= TAMANHO_MEMORIA || posicao + tamanho > dados.limit()) {
+                throw new IllegalArgumentException("Tabela de comentários inválida.");
+            }
+            byte[] texto = new byte[tamanho];
+            dados.get(posicao, texto);
+            comentarios[endereco] = new String(texto, StandardCharsets.UTF_8);
+            posicao += tamanho;
+        }
+        return new ProgramImage(dados, comentarios, checksum);
+    }
+
+    private static int calcularChecksum(ByteBuffer dados) {
+        CRC32 crc = new CRC32();
+        crc.update(dados.slice(TAMANHO_CABECALHO, dados.limit() - TAMANHO_CABECALHO));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * Reinicia a máquina e copia o programa para a sua memória.
+     *
+     * @throws IllegalArgumentException se a máquina não tem a configuração clássica.
+     */
+    public void carregar(SimpletronLogic maquina) {
+        if (!maquina.getConfiguracao().isClassica()) {
+            throw new IllegalArgumentException("Imagens de programa existem somente na configuração clássica: "
+                    + maquina.getConfiguracao());
+        }
+        maquina.carregarImagem(palavras, comentarios);
+    }
+
+    /**
+     * Grava a imagem em um arquivo.
+     */
+    public void gravar(Path arquivo) throws IOException {
+        Files.write(arquivo, paraBytes());
+    }
+
+    /**
+     * @return uma cópia do conteúdo binário da imagem.
+     */
+    public byte[] paraBytes() {
+        byte[] conteudo = new byte[dados.limit()];
+        dados.get(0, conteudo);
+        return conteudo;
+    }
+
+    /**
+     * @return o programa em texto, uma palavra por linha com o seu comentário, no formato aceito
+     * por {@link SimpletronLogic#carregarPrograma(String[])}. Termina na última posição não vazia.
+     */
+    public String paraTexto() {
+        int fim = TAMANHO_MEMORIA;
+        while (fim > 0 && palavras.get(fim - 1) == 0 && comentarios[fim - 1].isEmpty()) {
+            fim--;
+        }
+        StringBuilder texto = new StringBuilder(fim * 8);
+        for (int i = 0; i < fim; i++) {
+            int palavra = palavras.get(i);
+            texto.append(palavra < 0 ? '-' : '+');
+            String digitos = Integer.toString(Math.abs(palavra));
+            for (int d = digitos.length(); d < 4; d++) {
+                texto.append('0');
+            }
+            texto.append(digitos);
+            if (!comentarios[i].isEmpty()) {
+                texto.append("  // ").append(comentarios[i]);
+            }
+            texto.append('\n');
+        }
+        return texto.toString();
+    }
+
+    public int getMemoryAt(int endereco) {
+        return palavras.get(endereco);
+    }
+
+    public String getCommentAt(int endereco) {
+        return comentarios[endereco];
+    }
+
+    /**
+     * @return o CRC32 do conteúdo da imagem, gravado no cabeçalho.
+     */
+    public int getChecksum() {
+        return checksum;
+    }
+}
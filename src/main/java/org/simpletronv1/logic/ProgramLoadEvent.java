@@ -0,0 +1,30 @@
+package org.simpletronv1.logic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Evento do Java Flight Recorder emitido a cada carregamento de programa em uma {@link SimpletronLogic}.
+ * Só tem custo com uma gravação ativa (ex.: java -XX:StartFlightRecording ...).
+ */
+@Name("org.simpletronv1.ProgramLoad")
+@Label("Carregamento de programa")
+@Category("Simpletron")
+@Description("Carga de um programa na memória de uma máquina Simpletron")
+@StackTrace(false)
+public final class ProgramLoadEvent extends jdk.jfr.Event {
+
+    @Label("Origem")
+    @Description("texto, parser, imagem ou cache")
+    String origem;
+
+    @Label("Palavras")
+    @Description("Tamanho da memória da máquina")
+    int palavras;
+
+    @Label("Erro")
+    String erro;
+}
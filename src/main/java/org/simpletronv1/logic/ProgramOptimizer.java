@@ -0,0 +1,398 @@
+package org.simpletronv1.logic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.simpletronv1.logic.SimpletronLogic.*;
+
+/**
+ * A classe ProgramOptimizer é uma passada de otimização sobre a imagem de um programa carregado,
+ * usada por {@link SimpletronLogic#run(long, InputChannel, OutputChannel)} quando habilitada com
+ * {@link SimpletronLogic#setOtimizar(boolean)}.
+ *
+ * A memória não é alterada: o resultado é um plano de execução que diz, para cada célula, onde a
+ * execução continua depois dela. Ao seguir para a próxima instrução, o plano pula:
+ * - LOAD redundantes, que carregam a célula que acabou de ser gravada (STORE x; LOAD x) ou carregada;
+ * - aritmética com células de dados que nenhuma instrução alcançável escreve: ADD/SUBTRACT de zero e
+ *   MULTIPLY/DIVIDE por um são removidos, e um LOAD de uma dessas células seguido de aritmética com
+ *   outras delas vira o carregamento do resultado, calculado aqui;
+ * - desvios cujo resultado já é conhecido: cadeias de BRANCH e desvios condicionais cujo teste é
+ *   decidido pelo desvio anterior ou pelo valor calculado.
+ *
+ * Nenhuma instrução que possa escrever, produzir saída ou terminar com erro é pulada, e o plano vale
+ * para qualquer estado em que a execução chegue à célula. As saídas de WRITE, o motivo de término,
+ * o endereço do erro e os registradores em caso de erro ou ao sair do fim da memória são os mesmos
+ * da execução sem otimização; somente a quantidade de passos diminui. Se a execução escrever em uma
+ * célula da qual o plano depende (código modificado pelo próprio programa), o plano é descartado e a
+ * execução segue sem ele.
+ */
+public final class ProgramOptimizer {
+
+    /** Valor de {@link #constantes} nas células que não foram transformadas em carregamento de constante. */
+    static final int SEM_CONSTANTE = Integer.MIN_VALUE;
+
+    // Conhecimento sobre o acumulador: desconhecido, falso ou verdadeiro
+    private static final int DESCONHECIDO = -1, NAO = 0, SIM = 1;
+
+    private final MachineConfig configuracao;
+    private final int tamanho;
+    private final int base;
+    private final int maiorPalavra;
+    private final int[] memoria;
+    private final boolean[] escrita;
+    private final ProgramAnalysis analise;
+
+    // --- Plano de execução, lido por SimpletronLogic.run() ---
+    /** Onde a execução continua depois da instrução de cada célula, quando não há desvio. */
+    final int[] proximos;
+    /** O destino de cada desvio, já seguindo os desvios conhecidos. */
+    final int[] destinos;
+    /** O valor carregado no acumulador pelas células transformadas em carregamento de constante. */
+    final int[] constantes;
+    private final long[] dependencias;
+
+    private final List<String> transformacoes = new ArrayList<>();
+    private boolean alterado;
+    private int instrucoesRemovidas;
+
+    // Estado de seguir(): células puladas, células de dados lidas e valor calculado
+    private final int[] puladas;
+    private int quantidadePuladas;
+    private final int[] lidas;
+    private int quantidadeLidas;
+    private int valor;
+
+    private ProgramOptimizer(int[] memoria, MachineConfig configuracao) {
+        this.configuracao = configuracao;
+        this.tamanho = memoria.length;
+        this.base = configuracao.getBase();
+        this.maiorPalavra = configuracao.getMaiorPalavra();
+        this.memoria = memoria.clone();
+        this.escrita = new boolean[tamanho];
+        this.analise = ProgramAnalysis.analisar(this.memoria, configuracao);
+        this.proximos = new int[tamanho];
+        this.destinos = new int[tamanho];
+        this.constantes = new int[tamanho];
+        this.dependencias = new long[(tamanho + 63) / 64];
+        this.puladas = new int[tamanho + 1];
+        this.lidas = new int[tamanho + 2];
+    }
+
+    /**
+     * Otimiza a imagem de um programa.
+     *
+     * @param memoria as palavras da memória, a partir do endereço 00.
+     */
+    public static ProgramOptimizer otimizar(int[] memoria) {
+        return otimizar(memoria, MachineConfig.CLASSICA);
+    }
+
+    /**
+     * Otimiza a imagem de um programa de uma máquina com a configuração informada.
+     *
+     * @param memoria as palavras da memória, a partir do endereço 00.
+     */
+    public static ProgramOptimizer otimizar(int[] memoria, MachineConfig configuracao) {
+        ProgramOptimizer otimizador = new ProgramOptimizer(memoria, configuracao);
+        otimizador.marcarEscritas();
+        for (int i = 0; i < otimizador.tamanho; i++) {
+            otimizador.planejar(i);
+        }
+        otimizador.contarRemovidas();
+        return otimizador;
+    }
+
+    private void marcarEscritas() {
+        for (int i = 0; i < tamanho; i++) {
+            int op = memoria[i] / base;
+            if (analise.isAlcancavel(i) && (op == STORE || op == READ)) {
+                escrita[memoria[i] % base] = true;
+            }
+        }
+    }
+
+    /**
+     * Calcula o plano da célula: por padrão, a próxima célula e o operando do desvio.
+     */
+    private void planejar(int i) {
+        int op = memoria[i] / base;
+        int operando = memoria[i] % base;
+        proximos[i] = i + 1;
+        destinos[i] = operando;
+        constantes[i] = SEM_CONSTANTE;
+
+        switch (op) {
+            case LOAD -> {
+                boolean constante = isConstante(operando);
+                int proximo = seguir(i + 1, constante ? memoria[operando] : 0, constante, operando, constante);
+                if (proximo != i + 1) {
+                    proximos[i] = proximo;
+                    if (constante) {
+                        constantes[i] = valor;
+                        lidas[quantidadeLidas++] = operando;
+                    }
+                    confirmar(i, constante ? String.format("acumulador = %+05d, segue para", valor) : "segue para",
+                            proximo);
+                }
+            }
+            case READ, WRITE, STORE, ADD, SUBTRACT, DIVIDE, MULTIPLY -> {
+                // Depois de STORE x, o acumulador é igual à célula x
+                int proximo = seguirSemValor(i + 1, DESCONHECIDO, DESCONHECIDO, op == STORE ? operando : -1);
+                if (proximo != i + 1) {
+                    proximos[i] = proximo;
+                    confirmar(i, "segue para", proximo);
+                }
+            }
+            case BRANCH, BRANCHNEG, BRANCHZERO -> {
+                // Desvio tomado: BRANCHNEG sabe que o acumulador é negativo; BRANCHZERO, que é zero
+                int destino = seguirSemValor(operando, op == BRANCHNEG ? SIM : op == BRANCHZERO ? NAO : DESCONHECIDO,
+                        op == BRANCHZERO ? SIM : op == BRANCHNEG ? NAO : DESCONHECIDO, -1);
+                if (destino != operando) {
+                    destinos[i] = destino;
+                    confirmar(i, "desvia para", destino);
+                }
+                if (op != BRANCH) {
+                    int proximo = seguirSemValor(i + 1, op == BRANCHNEG ? NAO : DESCONHECIDO,
+                            op == BRANCHZERO ? NAO : DESCONHECIDO, -1);
+                    if (proximo != i + 1) {
+                        proximos[i] = proximo;
+                        confirmar(i, "segue para", proximo);
+                    }
+                }
+            }
+            default -> {
+                // HALT e códigos inválidos encerram a execução
+            }
+        }
+    }
+
+    private int seguirSemValor(int inicio, int negativo, int zero, int igualA) {
+        return seguir(inicio, 0, false, igualA, false, negativo, zero);
+    }
+
+    private int seguir(int inicio, int acumulador, boolean conhecido, int igualA, boolean podeAlterar) {
+        return seguir(inicio, acumulador, conhecido, igualA, podeAlterar,
+                conhecido ? (acumulador < 0 ? SIM : NAO) : DESCONHECIDO,
+                conhecido ? (acumulador == 0 ? SIM : NAO) : DESCONHECIDO);
+    }
+
+    /**
+     * Percorre, a partir de {@code inicio}, as instruções que podem ser puladas sem mudar o resultado.
+     *
+     * @param acumulador  o valor do acumulador, se {@code conhecido}.
+     * @param igualA      a célula cujo valor é igual ao do acumulador, ou -1.
+     * @param podeAlterar se o plano pode mudar o valor do acumulador (somente em carregamentos de constante).
+     * @param negativo    se o acumulador é negativo (SIM, NAO ou DESCONHECIDO).
+     * @param zero        se o acumulador é zero (SIM, NAO ou DESCONHECIDO).
+     * @return a célula em que a execução continua; as células puladas ficam em {@link #puladas}, as
+     * células de dados usadas, em {@link #lidas}, e o valor final do acumulador, em {@link #valor}.
+     */
+    private int seguir(int inicio, int acumulador, boolean conhecido, int igualA, boolean podeAlterar,
+                       int negativo, int zero) {
+        quantidadePuladas = 0;
+        quantidadeLidas = 0;
+        valor = acumulador;
+        int valorAntesDaUltima = acumulador;
+        int p = inicio;
+        while (p < tamanho) {
+            if (quantidadePuladas > tamanho) {
+                // Laço de desvios sem saída: a célula fica como está
+                quantidadePuladas = 0;
+                valor = acumulador;
+                return inicio;
+            }
+            int op = memoria[p] / base;
+            int operando = memoria[p] % base;
+            int seguinte = p + 1;
+            int valorAntes = valor;
+
+            switch (op) {
+                case LOAD -> {
+                    if (operando == igualA) {
+                        break;
+                    }
+                    if (!podeAlterar || !isConstante(operando)) {
+                        return p;
+                    }
+                    valor = memoria[operando];
+                    igualA = operando;
+                    lidas[quantidadeLidas++] = operando;
+                }
+                case ADD, SUBTRACT, DIVIDE, MULTIPLY -> {
+                    if (!isConstante(operando)) {
+                        return p;
+                    }
+                    int argumento = memoria[operando];
+                    boolean neutro = op == ADD || op == SUBTRACT ? argumento == 0 : argumento == 1;
+                    if (!neutro) {
+                        if (!podeAlterar || op == DIVIDE && argumento == 0) {
+                            return p;
+                        }
+                        long resultado = switch (op) {
+                            case ADD -> (long) valor + argumento;
+                            case SUBTRACT -> (long) valor - argumento;
+                            case DIVIDE -> valor / argumento;
+                            default -> (long) valor * argumento;
+                        };
+                        if (resultado > maiorPalavra || resultado < -maiorPalavra) {
+                            return p; // O estouro acontece na execução, como sem otimização
+                        }
+                        valor = (int) resultado;
+                        igualA = -1;
+                    }
+                    lidas[quantidadeLidas++] = operando;
+                }
+                case BRANCH -> seguinte = operando;
+                case BRANCHNEG, BRANCHZERO -> {
+                    int teste = op == BRANCHNEG ? negativo : zero;
+                    if (teste == DESCONHECIDO) {
+                        return p;
+                    }
+                    if (teste == SIM) {
+                        seguinte = operando;
+                    }
+                }
+                default -> {
+                    return p;
+                }
+            }
+
+            puladas[quantidadePuladas++] = p;
+            valorAntesDaUltima = valorAntes;
+            if (podeAlterar) {
+                negativo = valor < 0 ? SIM : NAO;
+                zero = valor == 0 ? SIM : NAO;
+            } else if (op == BRANCHNEG || op == BRANCHZERO) {
+                // Desvio decidido: o teste inverso também passa a ser conhecido
+                if (op == BRANCHNEG && negativo == SIM || op == BRANCHZERO && zero == SIM) {
+                    negativo = op == BRANCHNEG ? SIM : NAO;
+                    zero = op == BRANCHZERO ? SIM : NAO;
+                }
+            }
+            p = seguinte;
+        }
+        if (quantidadePuladas > 0) {
+            // A execução sairia do fim da memória: a última instrução pulada é executada, para que o
+            // registrador de instrução final seja o mesmo da execução sem otimização
+            valor = valorAntesDaUltima;
+            return puladas[--quantidadePuladas];
+        }
+        return p;
+    }
+
+    /**
+     * @return true se a célula é um dado que nenhuma instrução alcançável escreve, com valor válido.
+     */
+    private boolean isConstante(int endereco) {
+        return endereco >= 0 && !escrita[endereco] && memoria[endereco] >= -maiorPalavra
+                && memoria[endereco] <= maiorPalavra;
+    }
+
+    /**
+     * Registra a transformação da célula: o plano passa a depender dela, das células puladas e das
+     * células de dados usadas.
+     */
+    private void confirmar(int i, String acao, int destino) {
+        alterado = true;
+        depender(i);
+        for (int j = 0; j < quantidadePuladas; j++) {
+            depender(puladas[j]);
+        }
+        for (int j = 0; j < quantidadeLidas; j++) {
+            depender(lidas[j]);
+        }
+        if (!analise.isAlcancavel(i)) {
+            return; // Somente as células alcançáveis são descritas
+        }
+        StringBuilder descricao = new StringBuilder()
+                .append('[').append(configuracao.formatarEndereco(i)).append("] ")
+                .append(configuracao.formatarPalavra(memoria[i])).append(": ")
+                .append(acao).append(' ').append(configuracao.formatarEndereco(destino)).append(", pulando");
+        for (int j = 0; j < quantidadePuladas; j++) {
+            descricao.append(' ').append(configuracao.formatarEndereco(puladas[j]));
+        }
+        transformacoes.add(descricao.toString());
+    }
+
+    private void depender(int endereco) {
+        dependencias[endereco >> 6] |= 1L << endereco;
+    }
+
+    /**
+     * Conta as instruções alcançáveis no programa original que deixaram de ser alcançáveis no plano.
+     */
+    private void contarRemovidas() {
+        boolean[] alcancada = new boolean[tamanho];
+        int[] pilha = new int[2 * tamanho];
+        int topo = 0;
+        pilha[topo++] = 0;
+        alcancada[0] = true;
+        while (topo > 0) {
+            int i = pilha[--topo];
+            int op = memoria[i] / base;
+            int primeiro = -1;
+            int segundo = -1;
+            if (op == READ || op == WRITE || op == LOAD || op == STORE || op == ADD || op == SUBTRACT || op == DIVIDE || op == MULTIPLY) {
+                primeiro = proximos[i];
+            } else if (op == BRANCH) {
+                primeiro = destinos[i];
+            } else if (op == BRANCHNEG || op == BRANCHZERO) {
+                primeiro = destinos[i];
+                segundo = proximos[i];
+            }
+            for (int sucessor : new int[]{primeiro, segundo}) {
+                if (sucessor >= 0 && sucessor < tamanho && !alcancada[sucessor]) {
+                    alcancada[sucessor] = true;
+                    pilha[topo++] = sucessor;
+                }
+            }
+        }
+        for (int i = 0; i < tamanho; i++) {
+            if (analise.isAlcancavel(i) && !alcancada[i]) {
+                instrucoesRemovidas++;
+            }
+        }
+    }
+
+    /**
+     * Ajusta o plano a uma célula recém-escrita. Uma célula sem otimização segue para a próxima e
+     * desvia para o seu operando, qualquer que seja o conteúdo novo.
+     *
+     * @return false se o plano depende da célula e deixou de valer.
+     */
+    boolean aceitarEscrita(int endereco, int palavra) {
+        if ((dependencias[endereco >> 6] & (1L << endereco)) != 0) {
+            return false;
+        }
+        destinos[endereco] = palavra % base;
+        return true;
+    }
+
+    /**
+     * @return a quantidade de instruções alcançáveis no programa original que o plano nunca executa.
+     */
+    public int getInstrucoesRemovidas() {
+        return instrucoesRemovidas;
+    }
+
+    /**
+     * @return a descrição de cada célula alcançável cujo plano difere da execução normal, por endereço.
+     */
+    public List<String> getTransformacoes() {
+        return Collections.unmodifiableList(transformacoes);
+    }
+
+    /**
+     * @return true se alguma célula tem um plano diferente da execução normal.
+     */
+    public boolean isAlterado() {
+        return alterado;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProgramOptimizer[%d instruções removidas, %d células otimizadas]",
+                instrucoesRemovidas, transformacoes.size());
+    }
+}
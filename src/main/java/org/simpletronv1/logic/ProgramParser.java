@@ -0,0 +1,362 @@
+package org.simpletronv1.logic;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A classe ProgramParser interpreta o texto de um programa SML diretamente de um {@link CharSequence},
+ * de um {@link Reader} ou de um {@link ByteBuffer} (UTF-8), sem dividir o texto em linhas.
+ *
+ * O texto é lido caractere a caractere por um autômato escrito à mão: as palavras são acumuladas
+ * diretamente em um int[] e nenhum objeto é criado por linha (só os comentários não vazios viram
+ * String, pois fazem parte do resultado). Um mesmo ProgramParser pode ser reutilizado para
+ * muitos programas, sem novas alocações.
+ *
+ * As regras são as de {@link SimpletronLogic#carregarPrograma(String[])}: cada linha corresponde a
+ * uma posição da memória; o que vem após "//" é o comentário; linhas em branco deixam a posição
+ * zerada; a instrução é um inteiro com sinal opcional e zeros à esquerda (ex.: +00004, -0001), no
+ * intervalo das palavras da máquina ([-9999, 9999] na configuração clássica). Diferenças:
+ * - todos os erros são relatados em uma única passada, com linha e coluna ({@link #getErros()});
+ * - linhas além da última posição da memória são aceitas se estiverem em branco ou tiverem só comentário.
+ *
+ * Exemplo:
+ * <pre>
+ *   ProgramParser parser = new ProgramParser();
+ *   if (parser.analisar(texto)) {
+ *       parser.carregar(maquina);
+ *   } else {
+ *       parser.getErros().forEach(erro -> System.out.println(erro.formatar()));
+ *   }
+ * </pre>
+ */
+public class ProgramParser {
+
+    /**
+     * Um erro encontrado no texto.
+     *
+     * @param linha    a linha do erro, a partir de 1.
+     * @param coluna   a coluna do primeiro caractere da instrução, a partir de 1.
+     * @param mensagem a descrição do erro.
+     */
+    public record Diagnostico(int linha, int coluna, String mensagem) {
+
+        public String formatar() {
+            return String.format("Erro na linha %d, coluna %d: %s", linha, coluna, mensagem);
+        }
+    }
+
+    private static final int TAMANHO_DO_BLOCO = 4096;
+
+    // --- Estados do autômato, dentro de uma linha ---
+    private static final int INICIO = 0;      // Espaços antes da instrução
+    private static final int INSTRUCAO = 1;   // Dentro da instrução
+    private static final int APOS = 2;        // Espaços depois da instrução
+    private static final int COMENTARIO = 3;  // Depois de "//"
+
+    private final MachineConfig configuracao;
+    private final int tamanhoMemoria;
+    private final int maiorPalavra;
+    private final int[] palavras;
+    private final String[] comentarios;
+    private final List<Diagnostico> erros = new ArrayList<>();
+
+    // Linha atual: usada somente para montar mensagens de erro
+    private final StringBuilder linhaAtual = new StringBuilder(80);
+    private final StringBuilder comentario = new StringBuilder(80);
+
+    // Reaproveitados por analisar(Reader) e analisar(ByteBuffer)
+    private final char[] bloco = new char[TAMANHO_DO_BLOCO];
+    private final CharBuffer blocoDecodificado = CharBuffer.wrap(bloco);
+    private final CharsetDecoder decodificador = StandardCharsets.UTF_8.newDecoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private int linha;
+    private int coluna;
+    private int estado;
+    private boolean barra;          // O caractere anterior foi uma "/" ainda não classificada
+    private boolean retornoAnterior; // O caractere anterior foi '\r' (um '\n' em seguida não abre linha nova)
+    private boolean vazia;          // Nenhum caractere na linha atual
+
+    // A instrução da linha atual (colunaInstrucao é 0 enquanto não há instrução)
+    private int colunaInstrucao;
+    private boolean negativa;
+    private int digitos;
+    private long valor;
+    private boolean malFormada;
+    private boolean programaGrande;
+
+    public ProgramParser() {
+        this(MachineConfig.CLASSICA);
+    }
+
+    /**
+     * Cria um interpretador para programas de uma máquina com a configuração informada.
+     */
+    public ProgramParser(MachineConfig configuracao) {
+        this.configuracao = configuracao;
+        this.tamanhoMemoria = configuracao.getTamanhoMemoria();
+        this.maiorPalavra = configuracao.getMaiorPalavra();
+        this.palavras = new int[tamanhoMemoria];
+        this.comentarios = new String[tamanhoMemoria];
+    }
+
+    /**
+     * Interpreta um programa em texto.
+     *
+     * @return true se não houve erros.
+     */
+    public boolean analisar(CharSequence texto) {
+        iniciar();
+        for (int i = 0, n = texto.length(); i < n; i++) {
+            consumir(texto.charAt(i));
+        }
+        return terminar();
+    }
+
+    /**
+     * Interpreta um programa lido de um Reader, em blocos, sem ler o texto inteiro para a memória.
+     *
+     * @return true se não houve erros.
+     * @throws IOException se a leitura falhar.
+     */
+    public boolean analisar(Reader leitor) throws IOException {
+        iniciar();
+        int lidos;
+        while ((lidos = leitor.read(bloco)) != -1) {
+            for (int i = 0; i < lidos; i++) {
+                consumir(bloco[i]);
+            }
+        }
+        return terminar();
+    }
+
+    /**
+     * Interpreta um programa em UTF-8, das posições restantes do buffer (ex.: um arquivo mapeado em
+     * memória). A posição do buffer é avançada até o final.
+     *
+     * @return true se não houve erros.
+     */
+    public boolean analisar(ByteBuffer bytes) {
+        iniciar();
+        decodificador.reset();
+        boolean fim = false;
+        while (true) {
+            blocoDecodificado.clear();
+            CoderResult resultado = fim ? decodificador.flush(blocoDecodificado)
+                    : decodificador.decode(bytes, blocoDecodificado, true);
+            for (int i = 0; i < blocoDecodificado.position(); i++) {
+                consumir(bloco[i]);
+            }
+            if (resultado.isUnderflow()) {
+                if (fim) {
+                    break;
+                }
+                fim = true;
+            }
+        }
+        return terminar();
+    }
+
+    /**
+     * Reinicia a máquina e carrega o último programa interpretado com sucesso.
+     *
+     * @throws IllegalStateException    se a última interpretação teve erros.
+     * @throws IllegalArgumentException se a máquina tem outra configuração.
+     */
+    public void carregar(SimpletronLogic maquina) {
+        if (!erros.isEmpty()) {
+            throw new IllegalStateException("O programa tem erros e não pode ser carregado.");
+        }
+        if (!maquina.getConfiguracao().equals(configuracao)) {
+            throw new IllegalArgumentException("O programa foi interpretado para outra máquina: " + configuracao);
+        }
+        maquina.carregarPalavras(palavras, comentarios);
+    }
+
+    /**
+     * @return os erros da última interpretação, na ordem do texto (vazia se não houve erros).
+     */
+    public List<Diagnostico> getErros() {
+        return erros;
+    }
+
+    /**
+     * @return os erros da última interpretação em texto, um por linha, ou null se não houve erros.
+     */
+    public String getMensagemDeErro() {
+        if (erros.isEmpty()) {
+            return null;
+        }
+        StringBuilder mensagem = new StringBuilder();
+        for (Diagnostico erro : erros) {
+            mensagem.append(erro.formatar()).append('\n');
+        }
+        return mensagem.toString();
+    }
+
+    /**
+     * @return a quantidade de linhas do último texto interpretado.
+     */
+    public int getQuantidadeDeLinhas() {
+        return linha;
+    }
+
+    public MachineConfig getConfiguracao() {
+        return configuracao;
+    }
+
+    public int getMemoryAt(int endereco) {
+        return palavras[endereco];
+    }
+
+    public String getCommentAt(int endereco) {
+        return comentarios[endereco];
+    }
+
+    private void iniciar() {
+        Arrays.fill(palavras, 0);
+        Arrays.fill(comentarios, "");
+        erros.clear();
+        linha = 0;
+        programaGrande = false;
+        retornoAnterior = false;
+        iniciarLinha();
+    }
+
+    private void iniciarLinha() {
+        linhaAtual.setLength(0);
+        comentario.setLength(0);
+        coluna = 0;
+        estado = INICIO;
+        barra = false;
+        vazia = true;
+        colunaInstrucao = 0;
+        negativa = false;
+        digitos = 0;
+        valor = 0;
+        malFormada = false;
+    }
+
+    private void consumir(char c) {
+        if (c == '\n' || c == '\r') {
+            if (c == '\n' && retornoAnterior) {
+                retornoAnterior = false;
+                return;
+            }
+            retornoAnterior = c == '\r';
+            terminarLinha();
+            return;
+        }
+        retornoAnterior = false;
+        vazia = false;
+        coluna++;
+        linhaAtual.append(c);
+
+        if (estado == COMENTARIO) {
+            comentario.append(c);
+            return;
+        }
+        if (barra) {
+            barra = false;
+            if (c == '/') {
+                estado = COMENTARIO;
+                return;
+            }
+            // Uma "/" isolada faz parte da instrução, e a invalida
+            instrucao('/', coluna - 1);
+        }
+        if (c == '/') {
+            barra = true;
+        } else if (c <= ' ') {
+            if (estado == INSTRUCAO) {
+                estado = APOS;
+            }
+        } else {
+            instrucao(c, coluna);
+        }
+    }
+
+    /**
+     * Acrescenta um caractere (que não é espaço nem comentário) à instrução da linha.
+     */
+    private void instrucao(char c, int colunaDoCaractere) {
+        if (estado == INICIO) {
+            estado = INSTRUCAO;
+            colunaInstrucao = colunaDoCaractere;
+            if (c == '+' || c == '-') {
+                negativa = c == '-';
+                return;
+            }
+        } else if (estado == APOS) {
+            malFormada = true; // Espaço no meio da instrução
+            return;
+        }
+        if (c >= '0' && c <= '9') {
+            digitos++;
+            if (valor <= 1L + Integer.MAX_VALUE) { // Além disso, o valor já não é um int válido
+                valor = valor * 10 + (c - '0');
+            }
+        } else {
+            malFormada = true;
+        }
+    }
+
+    private void terminarLinha() {
+        if (barra) {
+            barra = false;
+            instrucao('/', coluna);
+        }
+        int endereco = linha++;
+
+        if (endereco < tamanhoMemoria) {
+            comentarios[endereco] = comentarioAparado();
+        }
+        if (colunaInstrucao > 0) { // A linha tem instrução
+            if (endereco >= tamanhoMemoria) {
+                if (!programaGrande) {
+                    programaGrande = true;
+                    erros.add(new Diagnostico(endereco + 1, colunaInstrucao,
+                            "O programa é muito grande! Máximo de " + tamanhoMemoria + " instruções permitidas."));
+                }
+            } else if (malFormada || digitos == 0 || valor > (negativa ? 1L + Integer.MAX_VALUE : Integer.MAX_VALUE)) {
+                erros.add(new Diagnostico(endereco + 1, colunaInstrucao,
+                        "O texto '" + linhaAtual.toString().trim() + "' não é uma instrução válida."));
+            } else if (valor > maiorPalavra) {
+                erros.add(new Diagnostico(endereco + 1, colunaInstrucao, "A instrução '" + linhaAtual.toString().trim()
+                        + "' está fora do intervalo permitido " + configuracao.getIntervalo() + "."));
+            } else {
+                palavras[endereco] = negativa ? (int) -valor : (int) valor;
+            }
+        }
+        iniciarLinha();
+    }
+
+    private String comentarioAparado() {
+        int inicio = 0;
+        int fim = comentario.length();
+        while (inicio < fim && comentario.charAt(inicio) <= ' ') {
+            inicio++;
+        }
+        while (fim > inicio && comentario.charAt(fim - 1) <= ' ') {
+            fim--;
+        }
+        return inicio == fim ? "" : comentario.substring(inicio, fim);
+    }
+
+    private boolean terminar() {
+        if (!vazia) {
+            terminarLinha(); // Última linha sem quebra no final
+        }
+        return erros.isEmpty();
+    }
+}
@@ -0,0 +1,43 @@
+package org.simpletronv1.logic;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+/**
+ * Evento do Java Flight Recorder que cobre uma chamada de
+ * {@link SimpletronLogic#run(long, InputChannel, OutputChannel)} ou de {@link CompiledEngine}: o
+ * início e a duração do evento são o início e o fim da execução.
+ *
+ * Por padrão só são gravadas as execuções de pelo menos 1 ms, para que um lote de milhões de
+ * programas curtos não encha a gravação; para gravar todas, use a opção
+ * "org.simpletronv1.ProgramRun#threshold=0 ms" nas configurações da gravação.
+ */
+@Name("org.simpletronv1.ProgramRun")
+@Label("Execução de programa")
+@Category("Simpletron")
+@Description("Uma chamada de run() em uma máquina Simpletron")
+@StackTrace(false)
+@Threshold("1 ms")
+public final class ProgramRunEvent extends jdk.jfr.Event {
+
+    @Label("Mecanismo")
+    @Description("interpretador ou compilado")
+    String mecanismo;
+
+    @Label("Limite de passos")
+    long maxPassos;
+
+    @Label("Passos")
+    long passos;
+
+    @Label("Motivo do término")
+    String motivo;
+
+    @Label("Endereço")
+    @Description("Endereço da última instrução buscada")
+    int endereco;
+}
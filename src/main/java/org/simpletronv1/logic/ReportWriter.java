@@ -0,0 +1,710 @@
+package org.simpletronv1.logic;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+
+/**
+ * A classe ReportWriter grava relatórios de execução ({@link ExecutionReport}) em um arquivo, fora da
+ * thread que os produz.
+ *
+ * Os relatórios entram em uma fila limitada e são formatados e gravados por uma única thread, em lotes:
+ * a thread espera o primeiro relatório, retira de uma vez todos os que já estão na fila (até
+ * {@link #TAMANHO_DO_LOTE}) e descarrega o buffer do arquivo uma vez por lote. Quem produz os relatórios
+ * paga apenas a cópia do estado da máquina e a inserção na fila. {@link #oferecer(ExecutionReport)}
+ * nunca bloqueia (com a fila cheia, o relatório é descartado e contado); {@link #enviar(ExecutionReport)}
+ * espera por espaço, para lotes de execuções em que nenhum relatório pode se perder.
+ *
+ * Quando o arquivo passaria de {@link #getTamanhoMaximo()} bytes, ele é renomeado para "arquivo.1" (os
+ * anteriores passam a "arquivo.2", "arquivo.3", ...) e um novo arquivo é iniciado; somente os
+ * {@link #getArquivosGuardados()} mais recentes são mantidos. Um único relatório maior que o limite é
+ * gravado inteiro.
+ *
+ * Formatos ({@link Formato}):
+ * - TEXTO: o layout legível do relatório da interface, com o dump da máquina;
+ * - JSON: um objeto JSON por linha (JSON Lines), sem o texto livre e com a memória sem os zeros finais;
+ * - BINARIO: registros de tamanho variável, legíveis com {@link #ler(InputStream)}.
+ *
+ * Formato binário (big-endian), repetido no início de cada arquivo da rotação:
+ * <pre>
+ *   int   MAGICO ("SMLR")
+ *   short VERSAO
+ *   para cada relatório:
+ *     int   tamanho do registro em bytes (sem este campo)
+ *     long  instante (ms desde 1970)
+ *     int   tamanho da memória
+ *     byte  dígitos por palavra
+ *     byte  motivo do término (ordinal de HaltReason), ou -1
+ *     long  passos
+ *     int   endereço, acumulador, contador de instrução, registrador de instrução, código de operação, operando
+ *     int   quantidade de saídas, ou -1 se não foram coletadas
+ *     int   saídas[quantidade]
+ *     int   quantidade de palavras gravadas (a memória sem os zeros finais)
+ *     int   memória[quantidade]
+ *     int   tamanho do nome do programa em bytes, ou -1
+ *     byte  nome[tamanho] (UTF-8)
+ * </pre>
+ *
+ * Exemplo:
+ * <pre>
+ *   try (ReportWriter relatorios = new ReportWriter(Path.of("execucoes.jsonl"))) {
+ *       ExecutionResult resultado = maquina.run(limite, entrada, saida);
+ *       relatorios.enviar(ExecutionReport.capturar("programa.sml", maquina, resultado, null, null));
+ *   }
+ * </pre>
+ */
+public class ReportWriter implements Flushable, AutoCloseable {
+
+    /** O formato dos relatórios gravados. */
+    public enum Formato {
+        TEXTO(".txt"), JSON(".jsonl"), BINARIO(".smlr");
+
+        private final String extensao;
+
+        Formato(String extensao) {
+            this.extensao = extensao;
+        }
+
+        public String getExtensao() {
+            return extensao;
+        }
+
+        /**
+         * @return o formato correspondente à extensão do arquivo: JSON para ".jsonl" e ".json",
+         * BINARIO para ".smlr" e TEXTO para as demais.
+         */
+        public static Formato deArquivo(Path arquivo) {
+            String nome = arquivo.getFileName().toString();
+            if (nome.endsWith(JSON.extensao) || nome.endsWith(".json")) {
+                return JSON;
+            }
+            return nome.endsWith(BINARIO.extensao) ? BINARIO : TEXTO;
+        }
+    }
+
+    public static final int MAGICO = 0x534D4C52; // "SMLR"
+    public static final short VERSAO = 1;
+
+    /** Os campos de tamanho fixo de um registro binário: do instante ao tamanho do nome do programa. */
+    private static final int TAMANHO_MINIMO_DO_REGISTRO = 8 + 4 + 1 + 1 + 8 + 6 * 4 + 4 + 4 + 4;
+
+    public static final long TAMANHO_MAXIMO_PADRAO = 8L << 20;
+    public static final int ARQUIVOS_GUARDADOS_PADRAO = 4;
+    public static final int CAPACIDADE_PADRAO = 1024;
+    public static final int TAMANHO_DO_LOTE = 256;
+
+    private static final int TAMANHO_DO_CABECALHO = 4 + 2;
+    private static final DateTimeFormatter FORMATO_DATA = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm:ss")
+            .withZone(ZoneId.systemDefault());
+
+    /** Marca o fim da fila, inserida por close(). */
+    private static final ExecutionReport FIM = new ExecutionReport(0, null, MachineConfig.CLASSICA, null, 0, -1,
+            0, 0, 0, 0, 0, new int[0], null, null);
+
+    private final Path arquivo;
+    private final Formato formato;
+    private final long tamanhoMaximo;
+    private final int arquivosGuardados;
+    private final ArrayBlockingQueue<ExecutionReport> fila;
+    private final Thread escritor;
+
+    // --- Usados somente pela thread de escrita ---
+    private final StringBuilder texto = new StringBuilder(4096);
+    private final ByteArrayOutputStream registro = new ByteArrayOutputStream(4096);
+    private final DataOutputStream dados = new DataOutputStream(registro);
+    private OutputStream saida;
+    private long tamanhoAtual;
+
+    // --- Métricas, protegidas por this ---
+    private long recebidos;
+    private long escritos;
+    private long descartados;
+    private long perdidos;
+    private long rotacoes;
+    private long lotes;
+    private IOException erro;
+    private boolean fechado;
+
+    /**
+     * Cria um gravador no formato indicado pela extensão do arquivo, com os limites padrão.
+     */
+    public ReportWriter(Path arquivo) {
+        this(arquivo, Formato.deArquivo(arquivo), TAMANHO_MAXIMO_PADRAO, ARQUIVOS_GUARDADOS_PADRAO, CAPACIDADE_PADRAO);
+    }
+
+    /**
+     * @param arquivo           o arquivo atual; os relatórios são acrescentados ao fim dele, se já existir.
+     * @param formato           o formato dos relatórios.
+     * @param tamanhoMaximo     tamanho, em bytes, a partir do qual o arquivo é rodado.
+     * @param arquivosGuardados quantidade de arquivos antigos mantidos pela rotação (0 descarta o conteúdo antigo).
+     * @param capacidade        quantidade máxima de relatórios esperando na fila.
+     */
+    public ReportWriter(Path arquivo, Formato formato, long tamanhoMaximo, int arquivosGuardados, int capacidade) {
+        if (tamanhoMaximo <= 0 || arquivosGuardados < 0 || capacidade <= 0) {
+            throw new IllegalArgumentException(String.format(
+                    "Parâmetros inválidos: tamanho máximo %d, arquivos guardados %d, capacidade %d.",
+                    tamanhoMaximo, arquivosGuardados, capacidade));
+        }
+        this.arquivo = arquivo;
+        this.formato = formato;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.arquivosGuardados = arquivosGuardados;
+        this.fila = new ArrayBlockingQueue<>(capacidade);
+        this.escritor = Thread.ofPlatform().daemon().name("simpletron-relatorios").start(this::executar);
+    }
+
+    /**
+     * Coloca um relatório na fila sem bloquear.
+     *
+     * @return false se a fila estava cheia e o relatório foi descartado.
+     * @throws IllegalStateException se o gravador já foi fechado.
+     */
+    public boolean oferecer(ExecutionReport relatorio) {
+        synchronized (this) {
+            verificarAberto();
+            if (!fila.offer(relatorio)) {
+                descartados++;
+                return false;
+            }
+            recebidos++;
+            return true;
+        }
+    }
+
+    /**
+     * Coloca um relatório na fila, esperando por espaço se ela estiver cheia.
+     *
+     * @return false se a thread foi interrompida durante a espera e o relatório foi descartado.
+     * @throws IllegalStateException se o gravador já foi fechado.
+     */
+    public boolean enviar(ExecutionReport relatorio) {
+        synchronized (this) {
+            verificarAberto();
+            recebidos++; // Contado antes da espera, para que flush() também espere por este relatório
+        }
+        try {
+            fila.put(relatorio);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (this) {
+                recebidos--;
+                descartados++;
+                notifyAll();
+            }
+            return false;
+        }
+    }
+
+    private void verificarAberto() {
+        if (fechado) {
+            throw new IllegalStateException("O gravador de relatórios já foi fechado.");
+        }
+    }
+
+    /**
+     * Espera até que todos os relatórios colocados na fila até agora tenham sido gravados.
+     *
+     * @throws IOException se alguma gravação falhou desde a criação do gravador.
+     */
+    @Override
+    public void flush() throws IOException {
+        synchronized (this) {
+            long alvo = recebidos;
+            try {
+                while (escritos + perdidos < alvo && escritor.isAlive()) {
+                    wait();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrompido esperando a gravação dos relatórios.");
+            }
+            if (erro != null) {
+                throw falhaDeGravacao();
+            }
+        }
+    }
+
+    /**
+     * Grava os relatórios que estão na fila, encerra a thread de escrita e fecha o arquivo.
+     *
+     * @throws IOException se alguma gravação falhou desde a criação do gravador.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+        }
+        boolean interrompida = false;
+        while (true) {
+            try {
+                fila.put(FIM);
+                escritor.join();
+                break;
+            } catch (InterruptedException e) {
+                interrompida = true; // Os relatórios já aceitos ainda são gravados
+            }
+        }
+        if (interrompida) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (erro != null) {
+                throw falhaDeGravacao();
+            }
+        }
+    }
+
+    /**
+     * Uma exceção nova a cada chamada, com a falha original como causa: flush() e close() podem
+     * lançá-la no mesmo try-with-resources, e uma exceção não pode ser suprimida por ela mesma.
+     */
+    private IOException falhaDeGravacao() {
+        return new IOException("Falha ao gravar os relatórios em " + arquivo + ": " + erro.getMessage(), erro);
+    }
+
+    // --- Thread de escrita ---
+
+    private void executar() {
+        List<ExecutionReport> lote = new ArrayList<>(TAMANHO_DO_LOTE);
+        boolean fim = false;
+        while (!fim) {
+            try {
+                lote.add(fila.take());
+            } catch (InterruptedException e) {
+                continue; // Só close() encerra a thread
+            }
+            fila.drainTo(lote, TAMANHO_DO_LOTE - 1);
+            fim = lote.removeIf(relatorio -> relatorio == FIM);
+            gravarLote(lote);
+            lote.clear();
+        }
+        fecharArquivo();
+    }
+
+    private void gravarLote(List<ExecutionReport> lote) {
+        int gravados = 0;
+        IOException falha = null;
+        try {
+            if (saida == null) {
+                abrirArquivo();
+            }
+            for (ExecutionReport relatorio : lote) {
+                formatar(relatorio);
+                if (tamanhoAtual > TAMANHO_DO_CABECALHO && tamanhoAtual + registro.size() > tamanhoMaximo) {
+                    rodar();
+                }
+                registro.writeTo(saida);
+                tamanhoAtual += registro.size();
+                gravados++;
+            }
+            saida.flush();
+        } catch (IOException e) {
+            falha = e;
+            fecharArquivo(); // O próximo lote tenta abrir o arquivo de novo
+        }
+        synchronized (this) {
+            if (falha == null) {
+                escritos += gravados;
+            } else {
+                perdidos += lote.size(); // Os relatórios do lote podem ter sido gravados pela metade
+                if (erro == null) {
+                    erro = falha;
+                }
+            }
+            lotes++;
+            notifyAll();
+        }
+    }
+
+    private void abrirArquivo() throws IOException {
+        Path pasta = arquivo.toAbsolutePath().getParent();
+        if (pasta != null) {
+            Files.createDirectories(pasta);
+        }
+        saida = new BufferedOutputStream(Files.newOutputStream(arquivo, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND), 1 << 16);
+        tamanhoAtual = Files.size(arquivo);
+        if (formato == Formato.BINARIO && tamanhoAtual == 0) {
+            DataOutputStream cabecalho = new DataOutputStream(saida);
+            cabecalho.writeInt(MAGICO);
+            cabecalho.writeShort(VERSAO);
+            tamanhoAtual = TAMANHO_DO_CABECALHO;
+        }
+    }
+
+    private void fecharArquivo() {
+        if (saida != null) {
+            try {
+                saida.close();
+            } catch (IOException e) {
+                synchronized (this) {
+                    if (erro == null) {
+                        erro = e;
+                    }
+                }
+            }
+            saida = null;
+        }
+    }
+
+    /**
+     * Fecha o arquivo atual, desloca os arquivos antigos ("arquivo.1" passa a "arquivo.2", ...) e abre um novo.
+     */
+    private void rodar() throws IOException {
+        saida.close();
+        saida = null;
+        if (arquivosGuardados == 0) {
+            Files.delete(arquivo);
+        } else {
+            Files.deleteIfExists(antigo(arquivosGuardados));
+            for (int i = arquivosGuardados - 1; i >= 1; i--) {
+                if (Files.exists(antigo(i))) {
+                    Files.move(antigo(i), antigo(i + 1), StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            Files.move(arquivo, antigo(1), StandardCopyOption.REPLACE_EXISTING);
+        }
+        abrirArquivo();
+        synchronized (this) {
+            rotacoes++;
+        }
+    }
+
+    private Path antigo(int indice) {
+        return arquivo.resolveSibling(arquivo.getFileName() + "." + indice);
+    }
+
+    /**
+     * Formata o relatório em {@link #registro}.
+     */
+    private void formatar(ExecutionReport relatorio) throws IOException {
+        registro.reset();
+        if (formato == Formato.BINARIO) {
+            formatarBinario(relatorio);
+            return;
+        }
+        texto.setLength(0);
+        if (formato == Formato.JSON) {
+            formatarJson(relatorio);
+        } else {
+            formatarTexto(relatorio);
+        }
+        registro.write(texto.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void formatarTexto(ExecutionReport r) {
+        MachineConfig cfg = r.configuracao();
+        texto.append("==============================================\n");
+        texto.append("   RELATÓRIO DE EXECUÇÃO DO SIMPLETRON\n");
+        texto.append("==============================================\n\n");
+        texto.append("Data/Hora da Execução: ").append(FORMATO_DATA.format(Instant.ofEpochMilli(r.instante())))
+                .append("\n");
+        if (r.programa() != null) {
+            texto.append("Programa: ").append(r.programa()).append('\n');
+        }
+        if (r.motivo() != null) {
+            texto.append("Resultado: ").append(r.motivo().getDescricao(cfg));
+            if (r.endereco() >= 0) {
+                texto.append(" (endereço ").append(cfg.formatarEndereco(r.endereco())).append(')');
+            }
+            texto.append('\n');
+        }
+        texto.append("Instruções executadas: ").append(r.passos()).append('\n');
+        if (r.saidas() != null) {
+            texto.append("Saídas:");
+            for (int valor : r.saidas()) {
+                texto.append(' ').append(valor);
+            }
+            texto.append('\n');
+        }
+        texto.append('\n');
+        if (r.detalhes() != null) {
+            texto.append(r.detalhes());
+        }
+        texto.append("--- DUMP FINAL DA MÁQUINA ---\n");
+        SimpletronLogic.formatarDump(texto, cfg, r.acumulador(), r.contadorInstrucao(), r.registradorInstrucao(),
+                r.codigoOperacao(), r.operando(), r.memoria());
+        texto.append("\n\n\n");
+    }
+
+    private void formatarJson(ExecutionReport r) {
+        texto.append("{\"instante\":\"").append(Instant.ofEpochMilli(r.instante())).append('"');
+        texto.append(",\"programa\":");
+        if (r.programa() == null) {
+            texto.append("null");
+        } else {
+            acrescentarStringJson(r.programa());
+        }
+        texto.append(",\"palavras\":").append(r.configuracao().getTamanhoMemoria());
+        texto.append(",\"digitos\":").append(r.configuracao().getDigitosPorPalavra());
+        texto.append(",\"motivo\":").append(r.motivo() == null ? "null" : "\"" + r.motivo().name() + "\"");
+        texto.append(",\"passos\":").append(r.passos());
+        texto.append(",\"endereco\":").append(r.endereco());
+        texto.append(",\"acumulador\":").append(r.acumulador());
+        texto.append(",\"contadorDeInstrucao\":").append(r.contadorInstrucao());
+        texto.append(",\"registradorDeInstrucao\":").append(r.registradorInstrucao());
+        texto.append(",\"codigoDeOperacao\":").append(r.codigoOperacao());
+        texto.append(",\"operando\":").append(r.operando());
+        if (r.saidas() != null) {
+            texto.append(",\"saidas\":");
+            acrescentarArrayJson(r.saidas(), r.saidas().length);
+        }
+        texto.append(",\"memoria\":");
+        acrescentarArrayJson(r.memoria(), palavrasGravadas(r.memoria()));
+        texto.append("}\n");
+    }
+
+    private void acrescentarArrayJson(int[] valores, int quantidade) {
+        texto.append('[');
+        for (int i = 0; i < quantidade; i++) {
+            if (i > 0) {
+                texto.append(',');
+            }
+            texto.append(valores[i]);
+        }
+        texto.append(']');
+    }
+
+    private void acrescentarStringJson(String valor) {
+        texto.append('"');
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            switch (c) {
+                case '"' -> texto.append("\\\"");
+                case '\\' -> texto.append("\\\\");
+                case '\n' -> texto.append("\\n");
+                case '\r' -> texto.append("\\r");
+                case '\t' -> texto.append("\\t");
+                default -> {
+                    if (c < ' ') {
+                        texto.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        texto.append(c);
+                    }
+                }
+            }
+        }
+        texto.append('"');
+    }
+
+    private void formatarBinario(ExecutionReport r) throws IOException {
+        dados.writeInt(0); // Tamanho do registro, preenchido no fim
+        dados.writeLong(r.instante());
+        dados.writeInt(r.configuracao().getTamanhoMemoria());
+        dados.writeByte(r.configuracao().getDigitosPorPalavra());
+        dados.writeByte(r.motivo() == null ? -1 : r.motivo().ordinal());
+        dados.writeLong(r.passos());
+        dados.writeInt(r.endereco());
+        dados.writeInt(r.acumulador());
+        dados.writeInt(r.contadorInstrucao());
+        dados.writeInt(r.registradorInstrucao());
+        dados.writeInt(r.codigoOperacao());
+        dados.writeInt(r.operando());
+        if (r.saidas() == null) {
+            dados.writeInt(-1);
+        } else {
+            dados.writeInt(r.saidas().length);
+            for (int valor : r.saidas()) {
+                dados.writeInt(valor);
+            }
+        }
+        int palavras = palavrasGravadas(r.memoria());
+        dados.writeInt(palavras);
+        for (int i = 0; i < palavras; i++) {
+            dados.writeInt(r.memoria()[i]);
+        }
+        if (r.programa() == null) {
+            dados.writeInt(-1);
+        } else {
+            byte[] nome = r.programa().getBytes(StandardCharsets.UTF_8);
+            dados.writeInt(nome.length);
+            dados.write(nome);
+        }
+        dados.flush();
+        byte[] conteudo = registro.toByteArray();
+        int tamanho = conteudo.length - 4;
+        registro.reset();
+        dados.writeInt(tamanho);
+        registro.write(conteudo, 4, tamanho);
+    }
+
+    /**
+     * @return a quantidade de palavras até a última diferente de zero.
+     */
+    private static int palavrasGravadas(int[] memoria) {
+        int fim = memoria.length;
+        while (fim > 0 && memoria[fim - 1] == 0) {
+            fim--;
+        }
+        return fim;
+    }
+
+    /**
+     * Lê os relatórios de um arquivo gravado no formato binário. O texto livre não é gravado e volta como null.
+     *
+     * @throws IOException se o conteúdo não for um arquivo de relatórios válido.
+     */
+    public static List<ExecutionReport> ler(InputStream origem) throws IOException {
+        DataInputStream entrada = new DataInputStream(origem);
+        if (entrada.readInt() != MAGICO) {
+            throw new IOException("O arquivo não é um arquivo de relatórios do Simpletron.");
+        }
+        short versao = entrada.readShort();
+        if (versao != VERSAO) {
+            throw new IOException("Versão de arquivo de relatórios não suportada: " + versao);
+        }
+        List<ExecutionReport> relatorios = new ArrayList<>();
+        while (true) {
+            int tamanho;
+            try {
+                tamanho = entrada.readInt();
+            } catch (EOFException e) {
+                return relatorios;
+            }
+            if (tamanho < TAMANHO_MINIMO_DO_REGISTRO) {
+                throw new IOException("Tamanho inválido no relatório de número " + (relatorios.size() + 1) + ": "
+                        + tamanho);
+            }
+            // Lido aos poucos: um tamanho corrompido maior que o arquivo não reserva a memória toda de uma vez
+            byte[] conteudo = entrada.readNBytes(tamanho);
+            try {
+                if (conteudo.length < tamanho) {
+                    throw new EOFException();
+                }
+                relatorios.add(decodificar(new DataInputStream(new ByteArrayInputStream(conteudo))));
+            } catch (EOFException e) {
+                throw new IOException("Relatório truncado: o de número " + (relatorios.size() + 1) + ".", e);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                throw new IOException("Relatório inválido: o de número " + (relatorios.size() + 1) + ".", e);
+            }
+        }
+    }
+
+    private static ExecutionReport decodificar(DataInputStream entrada) throws IOException {
+        long instante = entrada.readLong();
+        int tamanhoMemoria = entrada.readInt();
+        MachineConfig configuracao = new MachineConfig(tamanhoMemoria, entrada.readByte());
+        int motivo = entrada.readByte();
+        long passos = entrada.readLong();
+        int endereco = entrada.readInt();
+        int acumulador = entrada.readInt();
+        int contador = entrada.readInt();
+        int registrador = entrada.readInt();
+        int codigo = entrada.readInt();
+        int operando = entrada.readInt();
+        int quantidade = entrada.readInt();
+        if (quantidade < -1 || quantidade > entrada.available() / Integer.BYTES) {
+            throw new IOException("Quantidade de saídas inválida: " + quantidade);
+        }
+        int[] saidas = null;
+        if (quantidade >= 0) {
+            saidas = new int[quantidade];
+            for (int i = 0; i < quantidade; i++) {
+                saidas[i] = entrada.readInt();
+            }
+        }
+        int[] memoria = new int[tamanhoMemoria];
+        int palavras = entrada.readInt();
+        for (int i = 0; i < palavras; i++) {
+            memoria[i] = entrada.readInt();
+        }
+        String programa = null;
+        int tamanhoDoNome = entrada.readInt();
+        if (tamanhoDoNome < -1 || tamanhoDoNome > entrada.available()) {
+            throw new IOException("Tamanho de nome inválido: " + tamanhoDoNome);
+        }
+        if (tamanhoDoNome >= 0) {
+            byte[] nome = new byte[tamanhoDoNome];
+            entrada.readFully(nome);
+            programa = new String(nome, StandardCharsets.UTF_8);
+        }
+        return new ExecutionReport(instante, programa, configuracao, motivo < 0 ? null : HaltReason.values()[motivo],
+                passos, endereco, acumulador, contador, registrador, codigo, operando, memoria, saidas, null);
+    }
+
+    // --- Consultas ---
+
+    public Path getArquivo() {
+        return arquivo;
+    }
+
+    public Formato getFormato() {
+        return formato;
+    }
+
+    public long getTamanhoMaximo() {
+        return tamanhoMaximo;
+    }
+
+    public int getArquivosGuardados() {
+        return arquivosGuardados;
+    }
+
+    /**
+     * @return a quantidade de relatórios gravados no arquivo.
+     */
+    public synchronized long getEscritos() {
+        return escritos;
+    }
+
+    /**
+     * @return a quantidade de relatórios descartados porque a fila estava cheia (ou o envio foi interrompido).
+     */
+    public synchronized long getDescartados() {
+        return descartados;
+    }
+
+    /**
+     * @return a quantidade de relatórios perdidos por falhas de gravação.
+     */
+    public synchronized long getPerdidos() {
+        return perdidos;
+    }
+
+    public synchronized long getRotacoes() {
+        return rotacoes;
+    }
+
+    /**
+     * @return a quantidade de lotes gravados; escritos / lotes é o tamanho médio de um lote.
+     */
+    public synchronized long getLotes() {
+        return lotes;
+    }
+
+    /**
+     * @return a primeira falha de gravação, ou null se todas as gravações tiveram sucesso.
+     */
+    public synchronized IOException getErro() {
+        return erro;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format("ReportWriter[%s, %s, escritos=%d, descartados=%d, perdidos=%d, lotes=%d, rotações=%d]",
+                arquivo, formato, escritos, descartados, perdidos, lotes, rotacoes);
+    }
+}
@@ -1,5 +1,6 @@
 package org.simpletronv1.logic;
 
+import java.nio.IntBuffer;
 import java.util.Arrays;
 
 
@@ -18,19 +19,83 @@ public class SimpletronLogic {
     public static final int ADD = 30, SUBTRACT = 31, DIVIDE = 32, MULTIPLY = 33;
     public static final int BRANCH = 40, BRANCHNEG = 41, BRANCHZERO = 42, HALT = 43;
 
+    // --- Códigos de erro de E/S, devolvidos por executarPasso() quando há canais conectados ---
+    public static final int ERRO_ENTRADA_ESGOTADA = -4, ERRO_ENTRADA_INVALIDA = -5;
+
+    // Marca uma célula cuja forma decodificada precisa ser recalculada
+    private static final int NAO_DECODIFICADO = Integer.MIN_VALUE;
+
+    // --- Superinstruções: sequências frequentes executadas em um único despacho por run() ---
+    private static final int SEM_FUSAO = 0;
+    private static final int FUSAO_LOAD_ARITMETICA_STORE = 1; // LOAD a; ADD/SUB/DIV/MUL b; STORE c
+    private static final int FUSAO_ARITMETICA_STORE = 2;      // ADD/SUB/DIV/MUL b; STORE c
+    private static final int FUSAO_LOAD_DESVIO = 3;           // LOAD a; BRANCHNEG/BRANCHZERO t
+
+    // --- Configuração: tamanho da memória e largura das palavras ---
+    private final MachineConfig configuracao;
+    private final int base;         // Separa o código de operação do operando (100 na clássica)
+    private final int maiorPalavra; // Limite do acumulador e das palavras (9999 na clássica)
+
     // --- Registradores e Memória ---
     private final int[] memory;
+    // Cache da instrução decodificada de cada célula (código de operação e operando),
+    // invalidado sempre que a célula correspondente é escrita
+    private final int[] codigosDecodificados;
+    private final int[] operandosDecodificados;
+    // Superinstrução que começa em cada célula, invalidada quando qualquer célula da sequência é escrita
+    private final int[] superinstrucoes;
+    // Conjunto (em bits) das células escritas desde a última coleta, usado para redesenho incremental
+    private final long[] celulasAlteradas;
+    // Próxima célula de cada endereço, usada por run() quando não há plano do otimizador
+    private final int[] sequencia;
     private String[] comments;
     private int accumulator;
     private int insctructionCounter;
     private int instructionRegister;
     private int operationCode;
     private int operand;
+    private long passosExecutados;
+
+    // --- Canais de E/S opcionais ---
+    private InputChannel canalEntrada;
+    private OutputChannel canalSaida;
+
+    // --- Perfilador, rastro e histórico opcionais (null quando desabilitados) ---
+    private ExecutionProfiler perfilador;
+    private ExecutionTrace rastro;
+    private UndoLog historico;
+
+    // --- Otimizador opcional: plano calculado na primeira execução, descartado se o código mudar ---
+    private boolean otimizar;
+    private ProgramOptimizer otimizacao;
+    private boolean planoValido;
+
+    // --- Métricas (null quando desabilitadas): as globais, publicadas via JMX, por padrão ---
+    private SimpletronMetrics metricas = SimpletronMetrics.getGlobal();
 
 
     public SimpletronLogic() {
-        this.memory = new int[100];
-        comments = new String[100];
+        this(MachineConfig.CLASSICA);
+    }
+
+    /**
+     * Cria uma máquina com o tamanho de memória e a largura de palavra informados.
+     */
+    public SimpletronLogic(MachineConfig configuracao) {
+        int tamanho = configuracao.getTamanhoMemoria();
+        this.configuracao = configuracao;
+        this.base = configuracao.getBase();
+        this.maiorPalavra = configuracao.getMaiorPalavra();
+        this.memory = new int[tamanho];
+        this.codigosDecodificados = new int[tamanho];
+        this.operandosDecodificados = new int[tamanho];
+        this.superinstrucoes = new int[tamanho];
+        this.celulasAlteradas = new long[(tamanho + 63) / 64];
+        this.sequencia = new int[tamanho];
+        for (int i = 0; i < sequencia.length; i++) {
+            sequencia[i] = i + 1;
+        }
+        comments = new String[tamanho];
         reiniciar();
     }
 
@@ -42,17 +107,25 @@ public class SimpletronLogic {
      *
      * @param linhasDoPrograma um array de strings, onde cada string representa uma instrução
      *                         ou uma linha em branco. As instruções devem ser inteiros
-     *                         no intervalo de [-9999, 9999].
+     *                         no intervalo de [-9999, 9999] (na configuração clássica).
      * @return uma string com a mensagem de erro se o programa for inválido (ex: tamanho excedido,
      * instrução não numérica, valor fora do intervalo). Retorna null se o programa
      * for carregado com sucesso.
      */
 
     public String carregarPrograma(String[] linhasDoPrograma) {
+        ProgramLoadEvent evento = new ProgramLoadEvent();
+        evento.begin();
+        String erro = interpretarTexto(linhasDoPrograma);
+        registrarCarga(evento, "texto", erro);
+        return erro;
+    }
+
+    private String interpretarTexto(String[] linhasDoPrograma) {
         reiniciar(); // Garante que a máquina esteja limpa antes de carregar
 
         if (linhasDoPrograma.length > memory.length) {
-            return "Erro: o programa é muito grande! Máximo de 100 instruções permitidas.";
+            return "Erro: o programa é muito grande! Máximo de " + memory.length + " instruções permitidas.";
         }
 
         for (int i = 0; i < linhasDoPrograma.length; i++) {
@@ -79,31 +152,290 @@ public class SimpletronLogic {
             try {
                 int instrucao = Integer.parseInt(instrucaoStr);
 
-                if (instrucao < -9999 || instrucao > 9999) {
+                if (instrucao < -maiorPalavra || instrucao > maiorPalavra) {
                     return String.format("Erro na linha %d: A instrução '%s' está fora " +
-                            "do intervalo permitido [-9999, 9999].", i + 1, linha);
+                            "do intervalo permitido %s.", i + 1, linha, configuracao.getIntervalo());
                 }
                 memory[i] = instrucao;
+                invalidar(i);
             } catch (NumberFormatException e) {
                 return String.format("Erro na linha %d: O texto '%s' " +
                         "não é uma instrução válida.", i + 1, linha);
             }
         }
+
+        // Pré-análise: identifica as superinstruções do programa recém-carregado
+        for (int i = 0; i < memory.length; i++) {
+            analisarFusao(i);
+        }
         return null; // Nulo indica que o carregamento foi bem-sucedido
     }
 
+    /**
+     * Carrega um programa já montado por {@link ProgramImage}: as palavras são copiadas em bloco
+     * para a memória, sem nenhuma interpretação de texto.
+     *
+     * @param palavras as palavras do programa, já validadas, uma por posição da memória.
+     * @param textos   os comentários de cada posição.
+     */
+    void carregarImagem(IntBuffer palavras, String[] textos) {
+        ProgramLoadEvent evento = new ProgramLoadEvent();
+        evento.begin();
+        reiniciar();
+        palavras.get(0, memory);
+        concluirCarregamento(textos);
+        registrarCarga(evento, "imagem", null);
+    }
+
+    /**
+     * Carrega um programa já interpretado por {@link ProgramParser}.
+     *
+     * @param palavras as palavras do programa, já validadas, uma por posição da memória.
+     * @param textos   os comentários de cada posição.
+     */
+    void carregarPalavras(int[] palavras, String[] textos) {
+        ProgramLoadEvent evento = new ProgramLoadEvent();
+        evento.begin();
+        reiniciar();
+        System.arraycopy(palavras, 0, memory, 0, memory.length);
+        concluirCarregamento(textos);
+        registrarCarga(evento, "parser", null);
+    }
+
+    /**
+     * Conta um carregamento nas métricas e o grava no JFR, se houver uma gravação ativa.
+     */
+    private void registrarCarga(ProgramLoadEvent evento, String origem, String erro) {
+        if (metricas != null) {
+            metricas.registrarCarga(erro == null);
+        }
+        if (evento.shouldCommit()) {
+            evento.origem = origem;
+            evento.palavras = memory.length;
+            evento.erro = erro;
+            evento.commit();
+        }
+    }
+
+    private void concluirCarregamento(String[] textos) {
+        System.arraycopy(textos, 0, comments, 0, comments.length);
+        for (int i = 0; i < memory.length; i++) {
+            analisarFusao(i);
+        }
+    }
+
+    /**
+     * Carrega um programa guardado por {@link ProgramCache}, já decodificado: as palavras, a forma
+     * decodificada de cada célula e as superinstruções são copiadas em bloco.
+     */
+    void carregarDecodificado(int[] palavras, int[] codigos, int[] operandos, int[] fusoes, String[] textos) {
+        ProgramLoadEvent evento = new ProgramLoadEvent();
+        evento.begin();
+        reiniciar();
+        System.arraycopy(palavras, 0, memory, 0, memory.length);
+        System.arraycopy(codigos, 0, codigosDecodificados, 0, memory.length);
+        System.arraycopy(operandos, 0, operandosDecodificados, 0, memory.length);
+        System.arraycopy(fusoes, 0, superinstrucoes, 0, memory.length);
+        System.arraycopy(textos, 0, comments, 0, comments.length);
+        registrarCarga(evento, "cache", null);
+    }
+
+    /**
+     * Copia a forma decodificada de cada célula e as superinstruções identificadas, para
+     * {@link #carregarDecodificado(int[], int[], int[], int[], String[])}.
+     */
+    void copiarDecodificacao(int[] codigos, int[] operandos, int[] fusoes) {
+        System.arraycopy(codigosDecodificados, 0, codigos, 0, memory.length);
+        System.arraycopy(operandosDecodificados, 0, operandos, 0, memory.length);
+        System.arraycopy(superinstrucoes, 0, fusoes, 0, memory.length);
+    }
+
     /**
      * Reinicia o estado da máquina Simpletron.
      * Zera a memória, o acumulador e todos os registradores.
      */
     public void reiniciar() {
         Arrays.fill(memory, 0);
+        Arrays.fill(codigosDecodificados, NAO_DECODIFICADO);
+        Arrays.fill(superinstrucoes, NAO_DECODIFICADO);
+        Arrays.fill(celulasAlteradas, -1L);
         Arrays.fill(comments, "");
         accumulator = 0;
         insctructionCounter = 0;
         instructionRegister = 0;
         operationCode = 0;
         operand = 0;
+        passosExecutados = 0;
+        descartarOtimizacao();
+        if (perfilador != null) {
+            perfilador.zerar();
+        }
+        if (rastro != null) {
+            rastro.zerar();
+        }
+        if (historico != null) {
+            historico.zerar(0);
+        }
+    }
+
+    /**
+     * Conecta os canais usados pelas instruções READ e WRITE. Com canais conectados, a própria
+     * máquina faz a entrada e a saída em {@link #executarPasso()} e em {@link #run(long)},
+     * sem devolver o controle ao chamador a cada instrução de E/S.
+     *
+     * @param entrada fonte dos valores de READ, ou null para deixar a leitura com o chamador.
+     * @param saida   destino dos valores de WRITE, ou null para deixar a escrita com o chamador.
+     */
+    public void conectarCanais(InputChannel entrada, OutputChannel saida) {
+        this.canalEntrada = entrada;
+        this.canalSaida = saida;
+    }
+
+    /**
+     * Conecta um perfilador, que passa a contar as instruções executadas por {@link #executarPasso()}
+     * e por {@link #run(long, InputChannel, OutputChannel)}. Os contadores são zerados em {@link #reiniciar()}.
+     *
+     * @param perfilador o perfilador, ou null para desabilitar a contagem.
+     */
+    public void setPerfilador(ExecutionProfiler perfilador) {
+        this.perfilador = perfilador;
+    }
+
+    public ExecutionProfiler getPerfilador() {
+        return perfilador;
+    }
+
+    /**
+     * Conecta um rastro, que passa a guardar os últimos passos executados por {@link #executarPasso()}
+     * e por {@link #run(long, InputChannel, OutputChannel)}, inclusive a instrução que causou um erro.
+     * O rastro é esvaziado em {@link #reiniciar()}.
+     *
+     * @param rastro o rastro, ou null para desabilitar o registro.
+     * @throws IllegalArgumentException fora da configuração clássica: o rastro guarda endereços e
+     *                                  palavras em 16 bits.
+     */
+    public void setRastro(ExecutionTrace rastro) {
+        verificarClassica(rastro, "O rastro de execução");
+        this.rastro = rastro;
+    }
+
+    public ExecutionTrace getRastro() {
+        return rastro;
+    }
+
+    /**
+     * Conecta um histórico de execução, que permite voltar passos com {@link #voltarPassos(long)}
+     * e saltar para um passo já executado com {@link #irParaPasso(long)}. O histórico começa no
+     * passo atual e é esvaziado em {@link #reiniciar()}.
+     *
+     * @param historico o histórico, ou null para desabilitar o registro.
+     * @throws IllegalArgumentException fora da configuração clássica: o histórico guarda endereços e
+     *                                  palavras em 16 bits.
+     */
+    public void setHistorico(UndoLog historico) {
+        verificarClassica(historico, "O histórico de execução");
+        this.historico = historico;
+        if (historico != null) {
+            historico.vincular(this, passosExecutados);
+        }
+    }
+
+    private void verificarClassica(Object recurso, String nome) {
+        if (recurso != null && !configuracao.isClassica()) {
+            throw new IllegalArgumentException(nome + " existe somente na configuração clássica: " + configuracao);
+        }
+    }
+
+    public UndoLog getHistorico() {
+        return historico;
+    }
+
+    /**
+     * Desfaz os últimos passos executados.
+     *
+     * @param quantidade quantidade de passos a desfazer.
+     * @return true se a máquina voltou, false se não há histórico conectado ou ele não alcança tanto.
+     */
+    public boolean voltarPassos(long quantidade) {
+        return historico != null && quantidade >= 0 && irParaPasso(historico.getPassoAtual() - quantidade);
+    }
+
+    /**
+     * Leva a máquina ao estado em que estava antes de executar o passo indicado (ou seja, com
+     * {@code passo} instruções executadas). O passo pode estar antes do atual ou depois dele, até o
+     * último passo já executado. Os valores lidos por READ são repetidos e as saídas de WRITE
+     * não são emitidas novamente.
+     *
+     * @return true se a máquina foi levada ao passo, false se não há histórico conectado ou o passo
+     * está fora dele.
+     */
+    public boolean irParaPasso(long passo) {
+        if (historico == null) {
+            return false;
+        }
+        // A reexecução não deve aparecer no perfil, no rastro nem nas métricas
+        ExecutionProfiler perfil = perfilador;
+        ExecutionTrace trilha = rastro;
+        SimpletronMetrics contadores = metricas;
+        perfilador = null;
+        rastro = null;
+        metricas = null;
+        try {
+            return historico.irPara(passo);
+        } finally {
+            perfilador = perfil;
+            rastro = trilha;
+            metricas = contadores;
+        }
+    }
+
+    /**
+     * Habilita ou desabilita o otimizador ({@link ProgramOptimizer}) em
+     * {@link #run(long, InputChannel, OutputChannel)}. O plano é calculado na primeira execução após o
+     * carregamento e pula instruções sem efeito, o que reduz a quantidade de passos; saídas, erros e
+     * estado final não mudam. Não é usado por {@link #executarPasso()} nem com perfilador, rastro ou
+     * histórico conectado, que precisam de cada instrução.
+     */
+    public void setOtimizar(boolean otimizar) {
+        this.otimizar = otimizar;
+    }
+
+    public boolean isOtimizar() {
+        return otimizar;
+    }
+
+    /**
+     * @return o plano do otimizador para o programa atual (com a quantidade de instruções removidas),
+     * ou null se ainda não foi calculado. Continua disponível se for descartado porque o programa
+     * modificou o próprio código.
+     */
+    public ProgramOptimizer getOtimizacao() {
+        return otimizacao;
+    }
+
+    /**
+     * Define onde contar as instruções, execuções e erros desta máquina ({@link SimpletronMetrics}),
+     * ou null para não contar. Por padrão são usadas as métricas globais, publicadas via JMX.
+     */
+    public void setMetricas(SimpletronMetrics metricas) {
+        this.metricas = metricas;
+    }
+
+    public SimpletronMetrics getMetricas() {
+        return metricas;
+    }
+
+    private void descartarOtimizacao() {
+        otimizacao = null;
+        planoValido = false;
+    }
+
+    /**
+     * @return true se há perfilador, rastro ou histórico conectado, situação em que cada instrução
+     * precisa passar individualmente pelo interpretador.
+     */
+    boolean isInstrumentada() {
+        return perfilador != null || rastro != null || historico != null;
     }
 
     /**
@@ -111,33 +443,87 @@ public class SimpletronLogic {
      * Decodifica e executa a instrução apontada pelo contadorDeInstrucao.
      *
      * @return O código da operação executada. Retorna um valor negativo em caso de erro
-     * (ex: -1 para divisão por zero, -2 para código inválido, -3 para estouro).
+     * (ex: -1 para divisão por zero, -2 para código inválido, -3 para estouro; com um canal
+     * de entrada conectado, -4 para entrada esgotada e -5 para entrada inválida).
      * Retorna a constante PARE (43) se a execução terminar.
      */
 
 
     public int executarPasso() {
+        long antes = passosExecutados;
+        int codigo = executarPassoInstrumentado();
+        if (metricas != null && passosExecutados != antes) {
+            metricas.registrarPasso(codigo);
+        }
+        return codigo;
+    }
+
+    private int executarPassoInstrumentado() {
+        if ((rastro == null && historico == null) || insctructionCounter >= memory.length) {
+            return passo();
+        }
+        int endereco = insctructionCounter;
+        if (historico != null) {
+            int palavra = memory[endereco];
+            boolean escreve = palavra / base == STORE || palavra / base == READ;
+            historico.registrar(accumulator, endereco, instructionRegister, escreve ? palavra % base : -1, memory);
+        }
+        int codigo = passo();
+        if (historico != null && codigo == READ && canalEntrada != null) {
+            historico.registrarEntrada(memory[operand]);
+        }
+        if (rastro == null) {
+            return codigo;
+        }
+        // READ sem canal conectado é concluído pelo chamador, com setMemoryAt(), e não aparece como escrita
+        boolean escreveu = operationCode == STORE
+                || (operationCode == READ && canalEntrada != null && codigo == READ);
+        rastro.registrar(endereco, instructionRegister, accumulator,
+                escreveu ? operand : -1, escreveu ? memory[operand] : 0);
+        return codigo;
+    }
+
+    private int passo() {
         if (insctructionCounter >= memory.length) {
             return HALT; // Para se o contador sair dos limites da memória
         }
 
-        // Busca e decodifica a instrução
+        passosExecutados++;
+
+        // Busca e decodifica a instrução (usando o cache, se a célula não mudou)
+        if (codigosDecodificados[insctructionCounter] == NAO_DECODIFICADO) {
+            decodificar(insctructionCounter);
+        }
         instructionRegister = memory[insctructionCounter];
-        operationCode = instructionRegister / 100;
-        operand = instructionRegister % 100;
+        operationCode = codigosDecodificados[insctructionCounter];
+        operand = operandosDecodificados[insctructionCounter];
+        if (perfilador != null) {
+            perfilador.registrar(insctructionCounter, operationCode);
+        }
 
         boolean houveDesvio = false;
 
         switch (operationCode) {
-            case READ: // A GUI cuida da leitura.
+            case READ: // Sem canal conectado, o chamador (ex.: a GUI) cuida da leitura.
+                if (canalEntrada != null) {
+                    int codigoLeitura = lerDoCanal(operand);
+                    if (codigoLeitura < 0) {
+                        insctructionCounter++;
+                        return codigoLeitura;
+                    }
+                }
                 break;
-            case WRITE: // A GUI cuida da escrita.
+            case WRITE: // Sem canal conectado, o chamador cuida da escrita.
+                if (canalSaida != null) {
+                    canalSaida.escrever(memory[operand]);
+                }
                 break;
             case LOAD:
                 accumulator = memory[operand];
                 break;
             case STORE:
                 memory[operand] = accumulator;
+                invalidar(operand);
                 break;
             case ADD:
                 accumulator += memory[operand];
@@ -150,19 +536,28 @@ public class SimpletronLogic {
                 accumulator /= memory[operand];
                 break;
             case MULTIPLY:
-                accumulator *= memory[operand];
+                accumulator = multiplicar(accumulator, memory[operand]);
                 break;
             case BRANCH:
+                if (perfilador != null) {
+                    perfilador.registrarDesvio(insctructionCounter, true);
+                }
                 insctructionCounter = operand;
                 houveDesvio = true;
                 break;
             case BRANCHNEG:
+                if (perfilador != null) {
+                    perfilador.registrarDesvio(insctructionCounter, accumulator < 0);
+                }
                 if (accumulator < 0) {
                     insctructionCounter = operand;
                     houveDesvio = true;
                 }
                 break;
             case BRANCHZERO:
+                if (perfilador != null) {
+                    perfilador.registrarDesvio(insctructionCounter, accumulator == 0);
+                }
                 if (accumulator == 0) {
                     insctructionCounter = operand;
                     houveDesvio = true;
@@ -180,7 +575,7 @@ public class SimpletronLogic {
         }
 
         // Validação de estouro (overflow) do acumulador
-        if (accumulator > 9999 || accumulator < -9999) {
+        if (accumulator > maiorPalavra || accumulator < -maiorPalavra) {
             return -3; // Sinal de erro: Estouro do acumulador
         }
 
@@ -188,6 +583,627 @@ public class SimpletronLogic {
     }
 
 
+    /**
+     * Lê um valor do canal de entrada conectado e o grava no endereço indicado.
+     *
+     * @return 0 em caso de sucesso, ou ERRO_ENTRADA_ESGOTADA / ERRO_ENTRADA_INVALIDA.
+     */
+    private int lerDoCanal(int endereco) {
+        if (!canalEntrada.temProximo()) {
+            return ERRO_ENTRADA_ESGOTADA;
+        }
+        int valor;
+        try {
+            valor = canalEntrada.ler();
+        } catch (NumberFormatException e) {
+            return ERRO_ENTRADA_INVALIDA;
+        }
+        if (valor < -maiorPalavra || valor > maiorPalavra) {
+            return ERRO_ENTRADA_INVALIDA;
+        }
+        memory[endereco] = valor;
+        invalidar(endereco);
+        return 0;
+    }
+
+    /**
+     * Executa o programa carregado usando os canais conectados com {@link #conectarCanais}.
+     *
+     * @param maxSteps quantidade máxima de instruções a buscar nesta chamada.
+     * @return o motivo do término, o número de passos executados e o endereço da última instrução.
+     * @throws IllegalStateException se algum dos canais não estiver conectado.
+     */
+    public ExecutionResult run(long maxSteps) {
+        if (canalEntrada == null || canalSaida == null) {
+            throw new IllegalStateException("Os canais de entrada e saída não foram conectados.");
+        }
+        return run(maxSteps, canalEntrada, canalSaida);
+    }
+
+    /**
+     * Executa o programa carregado até HALT, um erro ou o esgotamento do limite de passos.
+     * Diferente de {@link #executarPasso()}, as instruções READ e WRITE são tratadas aqui mesmo,
+     * usando os canais informados, sem devolver o controle ao chamador a cada instrução.
+     *
+     * Os registradores são copiados para variáveis locais durante o laço e gravados de volta
+     * ao final, de modo que o estado observável depois do retorno é o mesmo que seria obtido
+     * chamando executarPasso() repetidamente. A execução pode ser retomada com uma nova chamada
+     * quando o motivo de término for {@link HaltReason#STEP_LIMIT}.
+     *
+     * @param maxSteps quantidade máxima de instruções a buscar nesta chamada.
+     * @param entrada  fonte dos valores lidos por READ. Valores fora do intervalo das palavras
+     *                 ([-9999, 9999] na configuração clássica) encerram a execução.
+     * @param saida    destino dos valores escritos por WRITE.
+     * @return o motivo do término, o número de passos executados e o endereço da última instrução.
+     */
+    public ExecutionResult run(long maxSteps, InputChannel entrada, OutputChannel saida) {
+        ProgramRunEvent evento = new ProgramRunEvent();
+        evento.begin();
+        long inicio = System.nanoTime();
+        ExecutionResult resultado = executar(maxSteps, entrada, saida);
+        registrarExecucao(evento, resultado, maxSteps, inicio, "interpretador");
+        return resultado;
+    }
+
+    /**
+     * O laço do interpretador, sem métricas nem eventos: usado por run() e pelos mecanismos do pacote
+     * que já registram a execução por conta própria.
+     */
+    ExecutionResult executar(long maxSteps, InputChannel entrada, OutputChannel saida) {
+        final int[] mem = memory;
+        final int[] codigos = codigosDecodificados;
+        final int[] operandos = operandosDecodificados;
+        final int[] fusoes = superinstrucoes;
+        final ExecutionProfiler perfil = perfilador;
+        final ExecutionTrace trilha = rastro;
+        final UndoLog hist = historico;
+        final int base = this.base;
+        final int limite = maiorPalavra;
+        final boolean fundir = perfil == null && trilha == null && hist == null;
+        if (otimizar && fundir && otimizacao == null) {
+            otimizacao = ProgramOptimizer.otimizar(mem, configuracao);
+            planoValido = true;
+        }
+        // Plano do otimizador: para onde seguir depois de cada célula. Sem plano, a próxima célula e o operando
+        int[] proximos = sequencia;
+        int[] destinos = operandos;
+        int[] constantes = null;
+        if (otimizar && fundir && planoValido) {
+            proximos = otimizacao.proximos;
+            destinos = otimizacao.destinos;
+            constantes = otimizacao.constantes;
+        }
+        int acc = accumulator;
+        int ic = insctructionCounter;
+        int op = operationCode;
+        int opr = operand;
+        long passos = 0;
+        int endereco = ic;
+        boolean registrada = true; // Se a última instrução buscada já está no rastro
+        HaltReason motivo;
+
+        laco:
+        while (true) {
+            if (ic >= mem.length) {
+                motivo = HaltReason.HALTED; // Mesmo comportamento de executarPasso()
+                endereco = ic;
+                break;
+            }
+            if (passos >= maxSteps) {
+                motivo = HaltReason.STEP_LIMIT;
+                endereco = ic;
+                break;
+            }
+
+            // LOAD transformado pelo otimizador em carregamento do valor já calculado
+            if (constantes != null && constantes[ic] != ProgramOptimizer.SEM_CONSTANTE) {
+                acc = constantes[ic];
+                op = LOAD;
+                opr = mem[ic] % base;
+                endereco = ic;
+                ic = proximos[ic];
+                passos++;
+                continue;
+            }
+
+            // Superinstruções: executadas de uma vez somente quando nenhuma das instruções da
+            // sequência pode gerar erro e o orçamento comporta todas elas. Caso contrário a
+            // sequência segue pelo caminho normal, uma instrução por vez.
+            // Com perfilador, rastro ou histórico conectado, cada instrução segue pelo caminho normal para ser registrada.
+            int fusao = fusoes[ic];
+            if (fusao == NAO_DECODIFICADO) {
+                fusao = analisarFusao(ic);
+            }
+            if (fusao != SEM_FUSAO && fundir && maxSteps - passos >= (fusao == FUSAO_LOAD_ARITMETICA_STORE ? 3 : 2)) {
+                switch (fusao) {
+                    case FUSAO_LOAD_ARITMETICA_STORE: {
+                        int valor = mem[operandos[ic]];
+                        int aritmetica = codigos[ic + 1];
+                        int argumento = mem[operandos[ic + 1]];
+                        if (valor > limite || valor < -limite || (aritmetica == DIVIDE && argumento == 0)) {
+                            break;
+                        }
+                        int resultado = calcular(aritmetica, valor, argumento);
+                        if (resultado > limite || resultado < -limite) {
+                            break;
+                        }
+                        acc = resultado;
+                        opr = operandos[ic + 2];
+                        mem[opr] = acc;
+                        invalidar(opr);
+                        op = STORE;
+                        endereco = ic + 2;
+                        if (!planoValido) {
+                            proximos = sequencia;
+                            destinos = operandos;
+                            constantes = null;
+                        }
+                        ic = proximos[endereco];
+                        passos += 3;
+                        continue;
+                    }
+                    case FUSAO_ARITMETICA_STORE: {
+                        int aritmetica = codigos[ic];
+                        int argumento = mem[operandos[ic]];
+                        if (aritmetica == DIVIDE && argumento == 0) {
+                            break;
+                        }
+                        int resultado = calcular(aritmetica, acc, argumento);
+                        if (resultado > limite || resultado < -limite) {
+                            break;
+                        }
+                        acc = resultado;
+                        opr = operandos[ic + 1];
+                        mem[opr] = acc;
+                        invalidar(opr);
+                        op = STORE;
+                        endereco = ic + 1;
+                        if (!planoValido) {
+                            proximos = sequencia;
+                            destinos = operandos;
+                            constantes = null;
+                        }
+                        ic = proximos[endereco];
+                        passos += 2;
+                        continue;
+                    }
+                    case FUSAO_LOAD_DESVIO: {
+                        int valor = mem[operandos[ic]];
+                        if (valor > limite || valor < -limite) {
+                            break;
+                        }
+                        acc = valor;
+                        op = codigos[ic + 1];
+                        opr = operandos[ic + 1];
+                        endereco = ic + 1;
+                        boolean desvia = op == BRANCHZERO ? acc == 0 : acc < 0;
+                        ic = desvia ? destinos[endereco] : proximos[endereco];
+                        passos += 2;
+                        continue;
+                    }
+                }
+            }
+
+            endereco = ic;
+            int registradorAnterior = op * base + opr;
+            op = codigos[ic];
+            if (op == NAO_DECODIFICADO) {
+                op = decodificar(ic);
+            }
+            opr = operandos[ic];
+            passos++;
+            if (perfil != null) {
+                perfil.registrar(ic, op);
+            }
+            if (hist != null) {
+                hist.registrar(acc, ic, registradorAnterior, op == STORE || op == READ ? opr : -1, mem);
+            }
+            registrada = false;
+
+            switch (op) {
+                case READ:
+                    ic++;
+                    if (!entrada.temProximo()) {
+                        motivo = HaltReason.INPUT_EXHAUSTED;
+                        break laco;
+                    }
+                    int valor;
+                    try {
+                        valor = entrada.ler();
+                    } catch (NumberFormatException e) {
+                        motivo = HaltReason.INVALID_INPUT;
+                        break laco;
+                    }
+                    if (valor < -limite || valor > limite) {
+                        motivo = HaltReason.INVALID_INPUT;
+                        break laco;
+                    }
+                    mem[opr] = valor;
+                    invalidar(opr);
+                    if (hist != null) {
+                        hist.registrarEntrada(valor);
+                    }
+                    if (!planoValido) {
+                        proximos = sequencia;
+                        destinos = operandos;
+                        constantes = null;
+                    }
+                    ic = proximos[endereco];
+                    break;
+                case WRITE:
+                    ic = proximos[ic];
+                    saida.escrever(mem[opr]);
+                    break;
+                case LOAD:
+                    ic = proximos[ic];
+                    acc = mem[opr];
+                    break;
+                case STORE:
+                    mem[opr] = acc;
+                    invalidar(opr);
+                    if (!planoValido) {
+                        proximos = sequencia;
+                        destinos = operandos;
+                        constantes = null;
+                    }
+                    ic = proximos[ic];
+                    break;
+                case ADD:
+                    ic = proximos[ic];
+                    acc += mem[opr];
+                    break;
+                case SUBTRACT:
+                    ic = proximos[ic];
+                    acc -= mem[opr];
+                    break;
+                case DIVIDE:
+                    if (mem[opr] == 0) {
+                        motivo = HaltReason.DIVIDE_BY_ZERO;
+                        break laco;
+                    }
+                    ic = proximos[ic];
+                    acc /= mem[opr];
+                    break;
+                case MULTIPLY:
+                    ic = proximos[ic];
+                    acc = multiplicar(acc, mem[opr]);
+                    break;
+                case BRANCH:
+                    if (perfil != null) {
+                        perfil.registrarDesvio(ic, true);
+                    }
+                    ic = destinos[ic];
+                    break;
+                case BRANCHNEG:
+                    if (perfil != null) {
+                        perfil.registrarDesvio(ic, acc < 0);
+                    }
+                    ic = acc < 0 ? destinos[ic] : proximos[ic];
+                    break;
+                case BRANCHZERO:
+                    if (perfil != null) {
+                        perfil.registrarDesvio(ic, acc == 0);
+                    }
+                    ic = acc == 0 ? destinos[ic] : proximos[ic];
+                    break;
+                case HALT:
+                    motivo = HaltReason.HALTED;
+                    break laco;
+                default:
+                    motivo = HaltReason.INVALID_OPCODE;
+                    break laco;
+            }
+
+            if (trilha != null) {
+                boolean escreveu = op == STORE || op == READ;
+                trilha.registrar(endereco, op * base + opr, acc, escreveu ? opr : -1, escreveu ? mem[opr] : 0);
+                registrada = true;
+            }
+
+            if (acc > limite || acc < -limite) {
+                motivo = HaltReason.OVERFLOW;
+                ic = endereco + 1; // Mesmo contador da execução sem otimização
+                break;
+            }
+        }
+
+        if (trilha != null && !registrada) {
+            // A instrução que encerrou a execução (HALT, erro ou falha de entrada) não escreveu na memória
+            trilha.registrar(endereco, op * base + opr, acc, -1, 0);
+        }
+
+        accumulator = acc;
+        insctructionCounter = ic;
+        if (passos > 0) {
+            // A palavra buscada é reconstruída a partir da forma decodificada, pois a própria
+            // instrução pode ter sobrescrito a sua célula (ex.: STORE no próprio endereço)
+            instructionRegister = op * base + opr;
+        }
+        operationCode = op;
+        operand = opr;
+        passosExecutados += passos;
+        return new ExecutionResult(motivo, passos, endereco);
+    }
+
+    /**
+     * Conta uma chamada de run() (ou de um mecanismo equivalente) nas métricas e emite o evento
+     * {@link ProgramRunEvent}, se estiver habilitado.
+     *
+     * @param inicio o instante do início da chamada, de System.nanoTime().
+     */
+    void registrarExecucao(ProgramRunEvent evento, ExecutionResult resultado, long maxSteps, long inicio,
+                           String mecanismo) {
+        if (metricas != null) {
+            metricas.registrarExecucao(resultado, System.nanoTime() - inicio);
+        }
+        if (evento.shouldCommit()) {
+            evento.mecanismo = mecanismo;
+            evento.maxPassos = maxSteps;
+            evento.passos = resultado.passos();
+            evento.motivo = resultado.motivo().name();
+            evento.endereco = resultado.endereco();
+            evento.commit();
+        }
+    }
+
+    /**
+     * Decodifica a palavra armazenada em um endereço e guarda o resultado no cache.
+     *
+     * @param endereco o endereço da célula.
+     * @return o código de operação decodificado.
+     */
+    private int decodificar(int endereco) {
+        int palavra = memory[endereco];
+        operandosDecodificados[endereco] = palavra % base;
+        return codigosDecodificados[endereco] = palavra / base;
+    }
+
+    /**
+     * Identifica a superinstrução que começa em um endereço e guarda o resultado.
+     *
+     * @param endereco o endereço da primeira instrução da sequência.
+     * @return o tipo de superinstrução, ou SEM_FUSAO.
+     */
+    private int analisarFusao(int endereco) {
+        int fusao = SEM_FUSAO;
+        if (endereco + 1 < memory.length) {
+            int primeiro = codigoEm(endereco);
+            int segundo = codigoEm(endereco + 1);
+            if (primeiro == LOAD && (segundo == BRANCHNEG || segundo == BRANCHZERO)) {
+                fusao = FUSAO_LOAD_DESVIO;
+            } else if (isAritmetica(primeiro) && segundo == STORE) {
+                fusao = FUSAO_ARITMETICA_STORE;
+            } else if (primeiro == LOAD && isAritmetica(segundo)
+                    && endereco + 2 < memory.length && codigoEm(endereco + 2) == STORE) {
+                fusao = FUSAO_LOAD_ARITMETICA_STORE;
+            }
+        }
+        return superinstrucoes[endereco] = fusao;
+    }
+
+    private int codigoEm(int endereco) {
+        int op = codigosDecodificados[endereco];
+        return op != NAO_DECODIFICADO ? op : decodificar(endereco);
+    }
+
+    private static boolean isAritmetica(int op) {
+        return op == ADD || op == SUBTRACT || op == DIVIDE || op == MULTIPLY;
+    }
+
+    private static int calcular(int op, int a, int b) {
+        switch (op) {
+            case ADD:
+                return a + b;
+            case SUBTRACT:
+                return a - b;
+            case DIVIDE:
+                return a / b;
+            default:
+                return multiplicar(a, b);
+        }
+    }
+
+    /**
+     * Multiplica dois valores do intervalo das palavras. Com palavras de até 4 dígitos o produto
+     * sempre cabe em um int; com palavras mais largas, um produto que não cabe é saturado, o que
+     * mantém a detecção de estouro.
+     */
+    private static int multiplicar(int a, int b) {
+        long produto = (long) a * b;
+        return produto == (int) produto ? (int) produto : produto > 0 ? Integer.MAX_VALUE : Integer.MIN_VALUE;
+    }
+
+    /**
+     * Copia para o array informado os endereços das células escritas desde a última coleta
+     * (ou desde o último reinício) e limpa o conjunto. Permite que a interface redesenhe
+     * somente as células alteradas.
+     *
+     * @param destino array com pelo menos {@code getMemory().length} posições.
+     * @return a quantidade de endereços copiados.
+     */
+    public int coletarCelulasAlteradas(int[] destino) {
+        int quantidade = 0;
+        for (int bloco = 0; bloco < celulasAlteradas.length; bloco++) {
+            long bits = celulasAlteradas[bloco];
+            while (bits != 0) {
+                int endereco = (bloco << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+                if (endereco < memory.length) {
+                    destino[quantidade++] = endereco;
+                }
+            }
+            celulasAlteradas[bloco] = 0;
+        }
+        return quantidade;
+    }
+
+    /**
+     * Invalida a forma decodificada de uma célula recém-escrita, as superinstruções que a incluem e o
+     * plano do otimizador, se ele depende da célula. Deve ser chamado depois da escrita.
+     */
+    private void invalidar(int endereco) {
+        celulasAlteradas[endereco >> 6] |= 1L << endereco;
+        if (planoValido) {
+            planoValido = otimizacao.aceitarEscrita(endereco, memory[endereco]);
+        }
+        codigosDecodificados[endereco] = NAO_DECODIFICADO;
+        superinstrucoes[endereco] = NAO_DECODIFICADO;
+        if (endereco >= 1) {
+            superinstrucoes[endereco - 1] = NAO_DECODIFICADO;
+        }
+        if (endereco >= 2) {
+            superinstrucoes[endereco - 2] = NAO_DECODIFICADO;
+        }
+    }
+
+    /**
+     * Marca a forma decodificada de uma célula como inválida. Usado por mecanismos de execução
+     * do pacote que escrevem diretamente no array de memória.
+     */
+    void invalidarDecodificacao(int endereco) {
+        invalidar(endereco);
+    }
+
+    /**
+     * Restaura um estado completo guardado pelo histórico.
+     */
+    void restaurarEstado(int[] imagem, int acc, int ic, int palavra, long passos) {
+        System.arraycopy(imagem, 0, memory, 0, memory.length);
+        Arrays.fill(codigosDecodificados, NAO_DECODIFICADO);
+        Arrays.fill(superinstrucoes, NAO_DECODIFICADO);
+        Arrays.fill(celulasAlteradas, -1L);
+        descartarOtimizacao();
+        accumulator = acc;
+        insctructionCounter = ic;
+        instructionRegister = palavra;
+        operationCode = palavra / base;
+        operand = palavra % base;
+        passosExecutados = passos;
+    }
+
+    /**
+     * Desfaz um passo com os valores anteriores guardados pelo histórico.
+     *
+     * @param endereco a célula sobrescrita pelo passo, ou -1.
+     * @param valor    o valor anterior dessa célula.
+     */
+    void desfazerPasso(int acc, int ic, int palavra, int endereco, int valor) {
+        if (endereco >= 0) {
+            memory[endereco] = valor;
+            invalidar(endereco);
+        }
+        accumulator = acc;
+        insctructionCounter = ic;
+        instructionRegister = palavra;
+        operationCode = palavra / base;
+        operand = palavra % base;
+        passosExecutados--;
+    }
+
+    /**
+     * Restaura o estado guardado em um {@link MachineSnapshot}: memória e registradores com uma
+     * única cópia em bloco, seguidos dos comentários. O histórico e o rastro recomeçam neste estado.
+     *
+     * @param estado a memória seguida do acumulador, do contador e do registrador de instrução.
+     */
+    void restaurarSnapshot(int[] estado, long passos, String[] textos) {
+        restaurarEstado(estado, estado[MachineSnapshot.ACUMULADOR], estado[MachineSnapshot.CONTADOR],
+                estado[MachineSnapshot.REGISTRADOR], passos);
+        System.arraycopy(textos, 0, comments, 0, comments.length);
+        if (rastro != null) {
+            rastro.zerar();
+        }
+        if (historico != null) {
+            historico.zerar(passos);
+        }
+    }
+
+    /**
+     * Grava os registradores calculados por outro mecanismo de execução do pacote.
+     *
+     * @param acc         o novo acumulador.
+     * @param ic          o novo contador de instrução.
+     * @param palavra     a última palavra buscada, que define o registrador de instrução,
+     *                    o código de operação e o operando.
+     * @param passos      quantidade de instruções executadas, somada ao contador de passos.
+     */
+    void atualizarRegistradores(int acc, int ic, int palavra, long passos) {
+        accumulator = acc;
+        insctructionCounter = ic;
+        instructionRegister = palavra;
+        operationCode = palavra / base;
+        operand = palavra % base;
+        passosExecutados += passos;
+    }
+
+    /**
+     * Analisa estaticamente o programa que está na memória, sem executá-lo.
+     *
+     * @return o grafo de fluxo de controle, o papel de cada célula e os problemas encontrados.
+     */
+    public ProgramAnalysis analisar() {
+        return ProgramAnalysis.analisar(memory, configuracao);
+    }
+
+    /**
+     * Gera o dump textual do estado atual da máquina: registradores seguidos
+     * da memória em linhas de 10 palavras (uma grade de 10 x 10 na configuração clássica).
+     *
+     * @return o dump formatado, no mesmo layout usado pelo relatório de execução.
+     */
+    public String obterDumpComoString() {
+        StringBuilder dump = new StringBuilder(64 + memory.length * (configuracao.getDigitosPorPalavra() + 3));
+        formatarDump(dump, configuracao, accumulator, insctructionCounter, instructionRegister, operationCode, operand,
+                memory);
+        return dump.toString();
+    }
+
+    /**
+     * Escreve o dump de um estado da máquina, no layout de {@link #obterDumpComoString()}, sem interpretar
+     * nenhum formato. Usado também por {@link ReportWriter}, fora da thread que executa a máquina.
+     */
+    static void formatarDump(StringBuilder dump, MachineConfig cfg, int acumulador, int contador, int registrador,
+                             int codigo, int operando, int[] memoria) {
+        dump.append("REGISTRADORES:\n");
+        dump.append("acumulador:            ").append(cfg.formatarPalavra(acumulador)).append('\n');
+        dump.append("contadorDeInstrucao:   ").append(cfg.formatarEndereco(contador)).append('\n');
+        dump.append("registradorDeInstrucao: ").append(cfg.formatarPalavra(registrador)).append('\n');
+        dump.append("codigoDeOperacao:      ").append(codigo >= 0 && codigo < 10 ? "0" : "").append(codigo).append('\n');
+        dump.append("operando:              ").append(cfg.formatarEndereco(operando)).append("\n\n");
+
+        // Cada célula ocupa o sinal, os dígitos e um espaço; o índice da coluna fica sobre o último dígito
+        int digitosDoRotulo = cfg.getDigitosDoEndereco();
+        String margem = " ".repeat(cfg.getDigitosPorPalavra() - 1);
+        dump.append("MEMÓRIA:\n");
+        dump.append(" ".repeat(digitosDoRotulo + 2));
+        for (int i = 0; i < 10; i++) {
+            dump.append(margem).append(i).append("  ");
+        }
+        dump.append("\n");
+
+        for (int i = 0; i < memoria.length; i++) {
+            if (i % 10 == 0) {
+                String rotulo = Integer.toString(i); // Como "%2d" na clássica: alinhado à direita
+                for (int j = rotulo.length(); j < digitosDoRotulo; j++) {
+                    dump.append(' ');
+                }
+                dump.append(rotulo).append("  ");
+            }
+            dump.append(cfg.formatarPalavra(memoria[i])).append(' ');
+            if ((i + 1) % 10 == 0) {
+                dump.append("\n");
+            }
+        }
+    }
+
+    /**
+     * @return o tamanho da memória e a largura das palavras desta máquina.
+     */
+    public MachineConfig getConfiguracao() {
+        return configuracao;
+    }
+
+
     // Métodos "get" para a GUI poder ler os estados
     public int getAccumulator() {
         return accumulator;
@@ -208,6 +1224,13 @@ public class SimpletronLogic {
         return "";
     }
 
+    /**
+     * @return o total de instruções buscadas desde o último reinício da máquina.
+     */
+    public long getPassosExecutados() {
+        return passosExecutados;
+    }
+
     public int getOperationCode() {
         return operationCode;
     }
@@ -216,6 +1239,10 @@ public class SimpletronLogic {
         return operand;
     }
 
+    /**
+     * @return o array interno da memória. Deve ser tratado como somente leitura: escritas
+     * devem passar por {@link #setMemoryAt(int, int)} para manter o cache de decodificação válido.
+     */
     public int[] getMemory() {
         return memory;
     }
@@ -226,5 +1253,7 @@ public class SimpletronLogic {
 
     public void setMemoryAt(int location, int value) {
         memory[location] = value;
+        invalidar(location);
+        descartarOtimizacao(); // Recalculado na próxima execução
     }
 }
@@ -0,0 +1,215 @@
+package org.simpletronv1.logic;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A classe SimpletronMetrics conta o trabalho das máquinas: instruções executadas, execuções,
+ * programas concluídos e erros de cada tipo. As métricas globais ({@link #getGlobal()}), usadas por
+ * padrão por todas as máquinas, são publicadas via JMX como {@value #NOME}.
+ *
+ * O custo é baixo o suficiente para ficar sempre ligado: nada é contado dentro do laço do
+ * interpretador. {@link SimpletronLogic#run(long, InputChannel, OutputChannel)} registra uma vez por
+ * chamada os passos e o motivo do término, e executarPasso() soma um passo por chamada. Os contadores
+ * são {@link LongAdder}s, que não disputam a mesma variável quando muitas threads executam ao mesmo tempo.
+ *
+ * Uma máquina pode usar outras métricas (ex.: para medir um único lote) com
+ * {@link SimpletronLogic#setMetricas(SimpletronMetrics)}. {@link MachineBank} não é contado.
+ */
+public final class SimpletronMetrics implements SimpletronMetricsMXBean {
+
+    /** O nome JMX das métricas globais. */
+    public static final String NOME = "org.simpletronv1:type=SimpletronMetrics";
+
+    private static final class Global {
+        static final SimpletronMetrics INSTANCIA = new SimpletronMetrics();
+
+        static {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCIA, new ObjectName(NOME));
+            } catch (InstanceAlreadyExistsException ex) {
+                // Outra cópia da classe (ex.: outro class loader) já publicou as suas métricas
+            } catch (JMException | SecurityException ex) {
+                System.err.println("Métricas do Simpletron não publicadas via JMX: " + ex.getMessage());
+            }
+        }
+    }
+
+    private final LongAdder instrucoes = new LongAdder();
+    private final LongAdder execucoes = new LongAdder();
+    private final LongAdder tempoDeExecucao = new LongAdder();
+    private final LongAdder carregados = new LongAdder();
+    private final LongAdder errosDeCarga = new LongAdder();
+    private final LongAdder[] porMotivo = new LongAdder[HaltReason.values().length];
+
+    // Amostra da leitura anterior de getInstrucoesPorSegundo()
+    private long instanteDaAmostra = System.nanoTime();
+    private long instrucoesDaAmostra;
+    private double taxa;
+
+    public SimpletronMetrics() {
+        for (int i = 0; i < porMotivo.length; i++) {
+            porMotivo[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @return as métricas usadas por padrão pelas máquinas, publicadas via JMX na primeira chamada.
+     */
+    public static SimpletronMetrics getGlobal() {
+        return Global.INSTANCIA;
+    }
+
+    /**
+     * Registra uma chamada de run() (ou de um mecanismo equivalente). O término só é contado se a
+     * chamada executou alguma instrução: chamar run() de novo em uma máquina que já saiu do fim da
+     * memória não conclui outro programa.
+     *
+     * @param duracao o tempo da chamada, em nanossegundos.
+     */
+    void registrarExecucao(ExecutionResult resultado, long duracao) {
+        execucoes.increment();
+        tempoDeExecucao.add(duracao);
+        if (resultado.passos() > 0) {
+            instrucoes.add(resultado.passos());
+            porMotivo[resultado.motivo().ordinal()].increment();
+        }
+    }
+
+    /**
+     * Registra um passo de executarPasso().
+     *
+     * @param codigo o código devolvido pelo passo.
+     */
+    void registrarPasso(int codigo) {
+        instrucoes.increment();
+        if (codigo == SimpletronLogic.HALT) {
+            porMotivo[HaltReason.HALTED.ordinal()].increment();
+        } else if (codigo < 0) {
+            for (HaltReason motivo : HaltReason.values()) {
+                if (motivo.getCodigo() == codigo) {
+                    porMotivo[motivo.ordinal()].increment();
+                }
+            }
+        }
+    }
+
+    void registrarCarga(boolean sucesso) {
+        carregados.increment();
+        if (!sucesso) {
+            errosDeCarga.increment();
+        }
+    }
+
+    /**
+     * @return as execuções que terminaram pelo motivo informado.
+     */
+    public long getTerminos(HaltReason motivo) {
+        return porMotivo[motivo.ordinal()].sum();
+    }
+
+    @Override
+    public long getInstrucoesExecutadas() {
+        return instrucoes.sum();
+    }
+
+    @Override
+    public synchronized double getInstrucoesPorSegundo() {
+        long agora = System.nanoTime();
+        if (agora - instanteDaAmostra >= 1_000_000_000L) {
+            long total = instrucoes.sum();
+            taxa = (total - instrucoesDaAmostra) * 1e9 / (agora - instanteDaAmostra);
+            instanteDaAmostra = agora;
+            instrucoesDaAmostra = total;
+        }
+        return taxa;
+    }
+
+    @Override
+    public double getInstrucoesPorSegundoDeExecucao() {
+        long tempo = tempoDeExecucao.sum();
+        return tempo == 0 ? 0.0 : instrucoes.sum() * 1e9 / tempo;
+    }
+
+    @Override
+    public long getTempoDeExecucaoMs() {
+        return tempoDeExecucao.sum() / 1_000_000;
+    }
+
+    @Override
+    public long getExecucoes() {
+        return execucoes.sum();
+    }
+
+    @Override
+    public long getProgramasConcluidos() {
+        return getTerminos(HaltReason.HALTED);
+    }
+
+    @Override
+    public long getProgramasCarregados() {
+        return carregados.sum();
+    }
+
+    @Override
+    public long getErrosDeCarga() {
+        return errosDeCarga.sum();
+    }
+
+    @Override
+    public long getErrosDivisaoPorZero() {
+        return getTerminos(HaltReason.DIVIDE_BY_ZERO);
+    }
+
+    @Override
+    public long getErrosCodigoInvalido() {
+        return getTerminos(HaltReason.INVALID_OPCODE);
+    }
+
+    @Override
+    public long getErrosEstouro() {
+        return getTerminos(HaltReason.OVERFLOW);
+    }
+
+    @Override
+    public long getErrosEntradaEsgotada() {
+        return getTerminos(HaltReason.INPUT_EXHAUSTED);
+    }
+
+    @Override
+    public long getErrosEntradaInvalida() {
+        return getTerminos(HaltReason.INVALID_INPUT);
+    }
+
+    @Override
+    public long getInterrupcoesPorLimite() {
+        return getTerminos(HaltReason.STEP_LIMIT);
+    }
+
+    @Override
+    public synchronized void zerar() {
+        instrucoes.reset();
+        execucoes.reset();
+        tempoDeExecucao.reset();
+        carregados.reset();
+        errosDeCarga.reset();
+        for (LongAdder contador : porMotivo) {
+            contador.reset();
+        }
+        instanteDaAmostra = System.nanoTime();
+        instrucoesDaAmostra = 0;
+        taxa = 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SimpletronMetrics[instruções=%d, execuções=%d, concluídos=%d, divisão por zero=%d, "
+                        + "código inválido=%d, estouro=%d, entrada=%d, limite=%d, carregados=%d]",
+                getInstrucoesExecutadas(), getExecucoes(), getProgramasConcluidos(), getErrosDivisaoPorZero(),
+                getErrosCodigoInvalido(), getErrosEstouro(), getErrosEntradaEsgotada() + getErrosEntradaInvalida(),
+                getInterrupcoesPorLimite(), getProgramasCarregados());
+    }
+}
@@ -0,0 +1,51 @@
+package org.simpletronv1.logic;
+
+/**
+ * A interface de gerenciamento (JMX) das métricas de execução, publicada por {@link SimpletronMetrics}
+ * com o nome {@value SimpletronMetrics#NOME}. Pode ser lida com o jconsole, o VisualVM ou qualquer
+ * cliente JMX.
+ */
+public interface SimpletronMetricsMXBean {
+
+    /** @return as instruções executadas por todas as máquinas. */
+    long getInstrucoesExecutadas();
+
+    /** @return as instruções por segundo desde a leitura anterior (medidas em intervalos de pelo menos 1 s). */
+    double getInstrucoesPorSegundo();
+
+    /** @return as instruções por segundo de execução, sem contar o tempo em que nenhuma máquina executava. */
+    double getInstrucoesPorSegundoDeExecucao();
+
+    /** @return o tempo total dentro de run(), em milissegundos. */
+    long getTempoDeExecucaoMs();
+
+    /** @return as chamadas de run() e de mecanismos equivalentes. */
+    long getExecucoes();
+
+    /** @return os programas que terminaram com HALT. */
+    long getProgramasConcluidos();
+
+    /** @return os programas carregados (inclusive a partir de imagens e do cache). */
+    long getProgramasCarregados();
+
+    /** @return os textos de programa rejeitados pelo carregador. */
+    long getErrosDeCarga();
+
+    long getErrosDivisaoPorZero();
+
+    long getErrosCodigoInvalido();
+
+    long getErrosEstouro();
+
+    /** @return as execuções encerradas porque faltou um valor para READ. */
+    long getErrosEntradaEsgotada();
+
+    /** @return as execuções encerradas por um valor de entrada inválido. */
+    long getErrosEntradaInvalida();
+
+    /** @return as execuções interrompidas pelo limite de passos (podem ser retomadas). */
+    long getInterrupcoesPorLimite();
+
+    /** Zera todos os contadores. */
+    void zerar();
+}
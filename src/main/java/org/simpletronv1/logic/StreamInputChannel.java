@@ -0,0 +1,49 @@
+package org.simpletronv1.logic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Canal de entrada que lê valores textuais de um {@link Reader} ou {@link InputStream},
+ * usando um buffer próprio de caracteres. Os valores só são lidos da fonte quando uma
+ * instrução READ precisa deles, o que permite o uso interativo com a entrada padrão.
+ */
+public class StreamInputChannel extends TextInputChannel {
+
+    private final Reader leitor;
+    private final char[] buffer = new char[8192];
+    private int posicao;
+    private int limite;
+
+    public StreamInputChannel(Reader leitor) {
+        this.leitor = leitor;
+    }
+
+    public StreamInputChannel(InputStream entrada) {
+        this(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected int proximoCaractere() {
+        if (posicao == limite) {
+            IoWaitEvent espera = IoWaitEvent.iniciar("fluxo de entrada", true);
+            try {
+                limite = leitor.read(buffer);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                espera.commit();
+            }
+            posicao = 0;
+            if (limite <= 0) {
+                limite = 0;
+                return -1;
+            }
+        }
+        return buffer[posicao++];
+    }
+}
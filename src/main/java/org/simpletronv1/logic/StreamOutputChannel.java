@@ -0,0 +1,65 @@
+package org.simpletronv1.logic;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Canal de saída que escreve cada valor em uma linha de um {@link Writer} com buffer.
+ * Os valores só chegam ao destino quando o buffer enche ou quando {@link #flush()} é chamado.
+ */
+public class StreamOutputChannel implements OutputChannel, Flushable, AutoCloseable {
+
+    private final Writer escritor;
+    private final String prefixo;
+
+    /**
+     * @param escritor destino dos valores.
+     * @param prefixo  texto escrito antes de cada valor (ex.: "Saída: "), ou "" para nenhum.
+     */
+    public StreamOutputChannel(Writer escritor, String prefixo) {
+        this.escritor = escritor instanceof BufferedWriter ? escritor : new BufferedWriter(escritor);
+        this.prefixo = prefixo;
+    }
+
+    public StreamOutputChannel(OutputStream saida) {
+        this(new OutputStreamWriter(saida, StandardCharsets.UTF_8), "");
+    }
+
+    @Override
+    public void escrever(int valor) {
+        try {
+            escritor.write(prefixo);
+            escritor.write(Integer.toString(valor));
+            escritor.write(System.lineSeparator());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void flush() {
+        IoWaitEvent espera = IoWaitEvent.iniciar("fluxo de saída", false);
+        try {
+            escritor.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            espera.commit();
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            escritor.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package org.simpletronv1.logic;
+
+import java.util.NoSuchElementException;
+
+/**
+ * Base dos canais de entrada textuais: lê inteiros separados por espaços ou quebras de linha,
+ * aceitando sinal explícito (ex.: "+0004", "-1"), diretamente dos caracteres da fonte,
+ * sem criar Strings intermediárias.
+ */
+abstract class TextInputChannel implements InputChannel {
+
+    private static final int NADA_LIDO = -2;
+
+    private int atual = NADA_LIDO;
+
+    /**
+     * @return o próximo caractere da fonte, ou -1 no fim dos dados.
+     */
+    protected abstract int proximoCaractere();
+
+    private int espiar() {
+        if (atual == NADA_LIDO) {
+            atual = proximoCaractere();
+        }
+        return atual;
+    }
+
+    private void consumir() {
+        atual = NADA_LIDO;
+    }
+
+    @Override
+    public boolean temProximo() {
+        while (true) {
+            int c = espiar();
+            if (c == -1) {
+                return false;
+            }
+            if (!Character.isWhitespace(c)) {
+                return true;
+            }
+            consumir();
+        }
+    }
+
+    /**
+     * Lê o próximo valor. Um valor mal formado é consumido por inteiro antes da exceção,
+     * de modo que a leitura seguinte começa no próximo valor.
+     *
+     * @throws NumberFormatException se o texto não for um inteiro válido.
+     */
+    @Override
+    public int ler() {
+        if (!temProximo()) {
+            throw new NoSuchElementException("Não há mais valores de entrada.");
+        }
+        int c = espiar();
+        boolean negativo = false;
+        if (c == '+' || c == '-') {
+            negativo = c == '-';
+            consumir();
+            c = espiar();
+        }
+
+        long valor = 0;
+        int digitos = 0;
+        boolean valido = true;
+        while (c != -1 && !Character.isWhitespace(c)) {
+            if (c >= '0' && c <= '9' && digitos < 10) {
+                valor = valor * 10 + (c - '0');
+                digitos++;
+            } else {
+                valido = false;
+            }
+            consumir();
+            c = espiar();
+        }
+
+        valor = negativo ? -valor : valor;
+        if (!valido || digitos == 0 || valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Valor de entrada inválido.");
+        }
+        return (int) valor;
+    }
+}
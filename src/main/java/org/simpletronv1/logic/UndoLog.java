@@ -0,0 +1,287 @@
+package org.simpletronv1.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A classe UndoLog guarda o histórico de execução de uma máquina para permitir voltar passos
+ * ("step back") e saltar para qualquer passo já executado, sem reexecutar o programa desde o início.
+ *
+ * O histórico tem três partes, todas de tamanho limitado ou proporcional ao que é realmente necessário:
+ * - Deltas: para cada um dos últimos {@link #getCapacidade()} passos, o acumulador, o contador e o
+ *   registrador de instrução anteriores ao passo e a única palavra de memória que ele sobrescreveu
+ *   (STORE/READ). Cada passo ocupa {@link #INTS_POR_PASSO} posições de um int[] circular pré-alocado.
+ * - Pontos de controle: cópias completas do estado a cada K passos. Quando passam de um limite,
+ *   metade é descartada e K dobra, de modo que o uso de memória fica limitado mesmo em execuções
+ *   de milhões de passos.
+ * - Entradas: os valores lidos por READ, para que a reexecução a partir de um ponto de controle
+ *   seja determinística.
+ *
+ * Voltar dentro da janela de deltas aplica os deltas em ordem inversa. Saltos maiores (ou para
+ * frente, até o último passo já executado) restauram o ponto de controle mais próximo e reexecutam
+ * os passos que faltam, usando as entradas registradas e descartando as saídas.
+ *
+ * O histórico é conectado com {@link SimpletronLogic#setHistorico(UndoLog)} e usado por
+ * {@link SimpletronLogic#voltarPassos(long)} e {@link SimpletronLogic#irParaPasso(long)}. Os passos
+ * são numerados como em {@link SimpletronLogic#getPassosExecutados()}. Escritas feitas fora da
+ * execução (ex.: {@link SimpletronLogic#setMemoryAt(int, int)}) não entram no histórico.
+ */
+public class UndoLog {
+
+    static final int INTS_POR_PASSO = 3;
+
+    private static final int SEM_ESCRITA = 0;
+
+    /** Um ponto de controle: o estado completo da máquina antes do passo indicado. */
+    private record PontoDeControle(long passo, int[] memoria, int acumulador, int contador, int registrador) {
+    }
+
+    private final int[] deltas;
+    private final int mascara;
+    private final int maximoDePontos;
+    private final int intervaloInicial;
+
+    private SimpletronLogic maquina;
+
+    private long passoAtual;
+    private long passoMaximo;        // Último passo alcançável por reexecução
+    private long inicioDeltas;       // Janela [inicioDeltas, fimDeltas) de deltas válidos
+    private long fimDeltas;
+    private int intervalo;
+    private final List<PontoDeControle> pontos = new ArrayList<>();
+
+    // Entradas lidas por READ: passo em que foram lidas e valor
+    private long[] passosDasEntradas = new long[16];
+    private int[] valoresDasEntradas = new int[16];
+    private int quantidadeDeEntradas;
+
+    private boolean reexecutando;
+
+    /**
+     * @param capacidade     quantidade de passos com delta guardado; arredondada para a próxima potência de 2.
+     * @param intervalo      passos entre pontos de controle (K).
+     * @param maximoDePontos quantidade máxima de pontos de controle antes de descartar a metade.
+     */
+    public UndoLog(int capacidade, int intervalo, int maximoDePontos) {
+        if (capacidade <= 0 || capacidade > (1 << 24) || intervalo <= 0 || maximoDePontos < 2) {
+            throw new IllegalArgumentException("Parâmetros inválidos para o histórico.");
+        }
+        int tamanho = Integer.highestOneBit(capacidade);
+        if (tamanho < capacidade) {
+            tamanho <<= 1;
+        }
+        this.mascara = tamanho - 1;
+        this.deltas = new int[tamanho * INTS_POR_PASSO];
+        this.intervaloInicial = intervalo;
+        this.intervalo = intervalo;
+        this.maximoDePontos = maximoDePontos;
+    }
+
+    public int getCapacidade() {
+        return mascara + 1;
+    }
+
+    /**
+     * @return o passo em que a máquina está (a quantidade de passos executados).
+     */
+    public long getPassoAtual() {
+        return passoAtual;
+    }
+
+    /**
+     * @return o menor passo para o qual é possível voltar.
+     */
+    public long getPrimeiroPasso() {
+        return pontos.isEmpty() ? passoAtual : pontos.get(0).passo();
+    }
+
+    /**
+     * @return o maior passo já executado, para o qual é possível avançar de novo depois de voltar.
+     */
+    public long getUltimoPasso() {
+        return passoMaximo;
+    }
+
+    /**
+     * Associa o histórico a uma máquina e o esvazia, começando no passo atual dela.
+     */
+    void vincular(SimpletronLogic maquina, long passo) {
+        this.maquina = maquina;
+        zerar(passo);
+    }
+
+    /**
+     * Esvazia o histórico, que passa a começar no passo indicado.
+     */
+    void zerar(long passo) {
+        passoAtual = passoMaximo = inicioDeltas = fimDeltas = passo;
+        intervalo = intervaloInicial;
+        pontos.clear();
+        quantidadeDeEntradas = 0;
+    }
+
+    /**
+     * Registra o estado anterior a um passo, antes que ele seja executado.
+     *
+     * @param enderecoEscrito a célula que o passo pode sobrescrever (STORE/READ), ou -1.
+     */
+    void registrar(int acumulador, int contador, int registrador, int enderecoEscrito, int[] memoria) {
+        long passo = passoAtual;
+        if (!reexecutando && passo < passoMaximo) {
+            descartarFuturo(passo); // Uma nova execução a partir de um passo anterior substitui a antiga
+        }
+
+        if (pontos.isEmpty() || (passo % intervalo == 0 && passo > pontos.get(pontos.size() - 1).passo())) {
+            pontos.add(new PontoDeControle(passo, memoria.clone(), acumulador, contador, registrador));
+            if (pontos.size() > maximoDePontos) {
+                reduzirPontos();
+            }
+        }
+
+        if (passo < inicioDeltas || passo > fimDeltas) {
+            inicioDeltas = fimDeltas = passo; // Reexecução fora da janela: a janela recomeça aqui
+        }
+        int i = ((int) passo & mascara) * INTS_POR_PASSO;
+        deltas[i] = acumulador;
+        deltas[i + 1] = contador << 16 | (registrador & 0xFFFF);
+        deltas[i + 2] = enderecoEscrito < 0 ? SEM_ESCRITA
+                : (enderecoEscrito + 1) << 16 | (memoria[enderecoEscrito] & 0xFFFF);
+        if (passo == fimDeltas) {
+            fimDeltas++;
+            if (fimDeltas - inicioDeltas > getCapacidade()) {
+                inicioDeltas = fimDeltas - getCapacidade();
+            }
+        }
+
+        passoAtual = passo + 1;
+        if (passoAtual > passoMaximo) {
+            passoMaximo = passoAtual;
+        }
+    }
+
+    /**
+     * Registra o valor lido pela instrução READ do último passo registrado.
+     */
+    void registrarEntrada(int valor) {
+        if (reexecutando) {
+            return;
+        }
+        if (quantidadeDeEntradas == valoresDasEntradas.length) {
+            passosDasEntradas = Arrays.copyOf(passosDasEntradas, quantidadeDeEntradas * 2);
+            valoresDasEntradas = Arrays.copyOf(valoresDasEntradas, quantidadeDeEntradas * 2);
+        }
+        passosDasEntradas[quantidadeDeEntradas] = passoAtual - 1;
+        valoresDasEntradas[quantidadeDeEntradas++] = valor;
+    }
+
+    /**
+     * Leva a máquina ao estado anterior ao passo indicado.
+     *
+     * @return true se o passo estava dentro do histórico, false caso contrário (a máquina não é alterada).
+     */
+    boolean irPara(long alvo) {
+        if (maquina == null || alvo < getPrimeiroPasso() || alvo > passoMaximo) {
+            return false;
+        }
+        if (alvo == passoAtual) {
+            return true; // Já está no passo; também cobre o histórico recém-esvaziado, ainda sem pontos de controle
+        }
+        if (pontos.isEmpty()) {
+            return false;
+        }
+
+        // Voltar dentro da janela de deltas: desfaz passo a passo, sem reexecutar, quando isso
+        // custa menos passos do que reexecutar a partir do ponto de controle mais próximo
+        PontoDeControle ponto = pontoAte(alvo);
+        if (alvo <= passoAtual && alvo >= inicioDeltas && passoAtual <= fimDeltas
+                && passoAtual - alvo <= Math.max(1, alvo - ponto.passo())) {
+            while (passoAtual > alvo) {
+                desfazer();
+            }
+            return true;
+        }
+
+        // Caso contrário: parte do ponto de controle (ou do próprio estado atual, se estiver mais perto) e reexecuta
+        if (alvo < passoAtual || ponto.passo() > passoAtual) {
+            maquina.restaurarEstado(ponto.memoria(), ponto.acumulador(), ponto.contador(), ponto.registrador(),
+                    ponto.passo());
+            passoAtual = ponto.passo();
+        }
+        reexecutar(alvo - passoAtual);
+        return true;
+    }
+
+    private void desfazer() {
+        long passo = passoAtual - 1;
+        int i = ((int) passo & mascara) * INTS_POR_PASSO;
+        int contadorRegistrador = deltas[i + 1];
+        int escrita = deltas[i + 2];
+        maquina.desfazerPasso(deltas[i], contadorRegistrador >>> 16, (short) contadorRegistrador,
+                escrita == SEM_ESCRITA ? -1 : (escrita >>> 16) - 1, (short) escrita);
+        passoAtual = passo;
+    }
+
+    private void reexecutar(long passos) {
+        if (passos <= 0) {
+            return;
+        }
+        int proxima = 0;
+        while (proxima < quantidadeDeEntradas && passosDasEntradas[proxima] < passoAtual) {
+            proxima++;
+        }
+        int primeira = proxima;
+        InputChannel entradas = new InputChannel() {
+            private int posicao = primeira;
+
+            @Override
+            public boolean temProximo() {
+                return posicao < quantidadeDeEntradas;
+            }
+
+            @Override
+            public int ler() {
+                return valoresDasEntradas[posicao++];
+            }
+        };
+        reexecutando = true;
+        try {
+            maquina.executar(passos, entradas, valor -> { });
+        } finally {
+            reexecutando = false;
+        }
+    }
+
+    private PontoDeControle pontoAte(long passo) {
+        PontoDeControle escolhido = pontos.get(0);
+        for (PontoDeControle ponto : pontos) {
+            if (ponto.passo() > passo) {
+                break;
+            }
+            escolhido = ponto;
+        }
+        return escolhido;
+    }
+
+    private void descartarFuturo(long passo) {
+        passoMaximo = passo;
+        if (fimDeltas > passo) {
+            fimDeltas = Math.max(passo, inicioDeltas);
+        }
+        while (!pontos.isEmpty() && pontos.get(pontos.size() - 1).passo() > passo) {
+            pontos.remove(pontos.size() - 1);
+        }
+        while (quantidadeDeEntradas > 0 && passosDasEntradas[quantidadeDeEntradas - 1] >= passo) {
+            quantidadeDeEntradas--;
+        }
+    }
+
+    /**
+     * Mantém somente os pontos de controle múltiplos do dobro do intervalo (e o primeiro deles).
+     */
+    private void reduzirPontos() {
+        intervalo *= 2;
+        PontoDeControle primeiro = pontos.get(0);
+        pontos.removeIf(ponto -> ponto != primeiro && ponto.passo() % intervalo != 0);
+    }
+}
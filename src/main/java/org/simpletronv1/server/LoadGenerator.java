@@ -0,0 +1,286 @@
+package org.simpletronv1.server;
+
+import org.simpletronv1.logic.MappedInputChannel;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A classe LoadGenerator mede a vazão e a latência de um {@link SimpletronServer}: abre várias
+ * conexões e, em cada uma, envia o mesmo programa repetidamente, esperando cada resposta antes de
+ * enviar a próxima requisição (carga em laço fechado). Ao final imprime as requisições por segundo e
+ * os percentis da latência (p50, p90, p99, p99,9 e máximo), medida do envio da requisição até a
+ * leitura completa da resposta.
+ *
+ * Um período de aquecimento opcional é executado antes da medição e descartado, para que o JIT do
+ * servidor e o cache de programas já estejam prontos. As respostas também são conferidas: todas
+ * devem ser iguais à primeira, já que o programa e as entradas não mudam.
+ *
+ * Uso:
+ * <pre>
+ *   java org.simpletronv1.server.LoadGenerator [-p porta | -u arquivo.sock] [-c conexoes] [-n requisicoes | -d segundos]
+ *        [-w segundos] [-e entradas.txt] [-m passos] programa.sml
+ * </pre>
+ * - -p porta / -u arquivo: o endereço do servidor (padrão: 127.0.0.1, porta {@link SimpletronServer#PORTA_PADRAO}).
+ * - -c conexoes: quantidade de conexões simultâneas, cada uma em uma thread virtual (padrão: 4).
+ * - -n requisicoes: total de requisições medidas (padrão: 10.000).
+ * - -d segundos: mede por um tempo fixo, em vez de uma quantidade de requisições.
+ * - -w segundos: aquecimento antes da medição (padrão: 0).
+ * - -e arquivo: as entradas do programa, separadas por espaços ou quebras de linha.
+ * - -m passos: limite de passos pedido ao servidor (padrão: o do servidor).
+ */
+public class LoadGenerator {
+
+    public static final int CONEXOES_PADRAO = 4;
+    public static final long REQUISICOES_PADRAO = 10_000;
+
+    /** As latências medidas em uma conexão. */
+    private static final class Medicoes {
+        long[] latencias = new long[1024];
+        int quantidade;
+        long erros;
+        long divergentes;
+        IOException falha;
+
+        void registrar(long latencia) {
+            if (quantidade == latencias.length) {
+                latencias = Arrays.copyOf(latencias, quantidade * 2);
+            }
+            latencias[quantidade++] = latencia;
+        }
+    }
+
+    private final SocketAddress endereco;
+    private final byte[] requisicao;
+    private final int conexoes;
+    private volatile SimpletronClient.Resposta referencia;
+
+    /**
+     * @param requisicao uma requisição RUN montada com {@link ServerProtocol#montarRequisicao}.
+     */
+    public LoadGenerator(SocketAddress endereco, byte[] requisicao, int conexoes) {
+        if (conexoes <= 0) {
+            throw new IllegalArgumentException("Quantidade de conexões inválida: " + conexoes);
+        }
+        this.endereco = endereco;
+        this.requisicao = requisicao;
+        this.conexoes = conexoes;
+    }
+
+    /**
+     * Envia requisições até completar a quantidade informada ou até o prazo terminar, o que vier primeiro.
+     *
+     * @param requisicoes total de requisições, somando todas as conexões (Long.MAX_VALUE para sem limite).
+     * @param duracaoNanos duração máxima, em nanossegundos (Long.MAX_VALUE para sem limite).
+     * @return o relatório da medição.
+     */
+    public String medir(long requisicoes, long duracaoNanos) throws IOException, InterruptedException {
+        AtomicLong restantes = new AtomicLong(requisicoes);
+        long inicio = System.nanoTime();
+        long prazo = duracaoNanos == Long.MAX_VALUE ? Long.MAX_VALUE : inicio + duracaoNanos;
+        Medicoes[] medicoes = new Medicoes[conexoes];
+        List<Thread> threads = new ArrayList<>(conexoes);
+        for (int i = 0; i < conexoes; i++) {
+            Medicoes medicao = new Medicoes();
+            medicoes[i] = medicao;
+            threads.add(Thread.ofVirtual().name("simpletron-carga-" + i).start(() -> {
+                try {
+                    enviar(restantes, prazo, medicao);
+                } catch (IOException ex) {
+                    medicao.falha = ex;
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long duracao = System.nanoTime() - inicio;
+
+        for (Medicoes medicao : medicoes) {
+            if (medicao.falha != null) {
+                throw medicao.falha;
+            }
+        }
+        return formatarRelatorio(medicoes, duracao);
+    }
+
+    private void enviar(AtomicLong restantes, long prazo, Medicoes medicao) throws IOException {
+        try (SimpletronClient cliente = SimpletronClient.conectar(endereco)) {
+            while (restantes.getAndDecrement() > 0 && System.nanoTime() < prazo) {
+                long inicio = System.nanoTime();
+                SimpletronClient.Resposta resposta = cliente.executar(requisicao);
+                medicao.registrar(System.nanoTime() - inicio);
+                if (resposta.erro() != null) {
+                    medicao.erros++;
+                }
+                SimpletronClient.Resposta primeira = referencia;
+                if (primeira == null) {
+                    referencia = resposta;
+                } else if (!iguais(primeira, resposta)) {
+                    medicao.divergentes++;
+                }
+            }
+        }
+    }
+
+    private static boolean iguais(SimpletronClient.Resposta a, SimpletronClient.Resposta b) {
+        return a.motivo() == b.motivo() && a.passos() == b.passos() && a.acumulador() == b.acumulador()
+                && Arrays.equals(a.saidas(), b.saidas()) && Arrays.equals(a.memoria(), b.memoria());
+    }
+
+    private String formatarRelatorio(Medicoes[] medicoes, long duracao) {
+        int total = 0;
+        long erros = 0;
+        long divergentes = 0;
+        for (Medicoes medicao : medicoes) {
+            total += medicao.quantidade;
+            erros += medicao.erros;
+            divergentes += medicao.divergentes;
+        }
+        long[] latencias = new long[total];
+        int posicao = 0;
+        for (Medicoes medicao : medicoes) {
+            System.arraycopy(medicao.latencias, 0, latencias, posicao, medicao.quantidade);
+            posicao += medicao.quantidade;
+        }
+        Arrays.sort(latencias);
+        double soma = 0;
+        for (long latencia : latencias) {
+            soma += latencia;
+        }
+
+        StringBuilder relatorio = new StringBuilder();
+        double segundos = duracao / 1e9;
+        relatorio.append(String.format("Requisições: %d em %.3f s com %d conexões (%.0f req/s)%n", total, segundos,
+                conexoes, segundos > 0 ? total / segundos : 0.0));
+        if (total > 0) {
+            relatorio.append(String.format("Latência (µs): média %.1f, p50 %.1f, p90 %.1f, p99 %.1f, p99,9 %.1f, máx %.1f%n",
+                    soma / total / 1e3, percentil(latencias, 0.50), percentil(latencias, 0.90),
+                    percentil(latencias, 0.99), percentil(latencias, 0.999), latencias[total - 1] / 1e3));
+        }
+        SimpletronClient.Resposta primeira = referencia;
+        if (primeira != null) {
+            relatorio.append(primeira.erro() != null ? "Resposta: ERR " + primeira.erro().strip()
+                    : "Resposta: " + primeira.motivo() + ", " + primeira.passos() + " passos, saídas "
+                    + Arrays.toString(primeira.saidas())).append(System.lineSeparator());
+        }
+        relatorio.append(String.format("Respostas de erro: %d, divergentes da primeira: %d%n", erros, divergentes));
+        return relatorio.toString();
+    }
+
+    /**
+     * @return o percentil, em microssegundos, pelo método do posto mais próximo.
+     */
+    private static double percentil(long[] ordenadas, double fracao) {
+        int posto = (int) Math.ceil(fracao * ordenadas.length);
+        return ordenadas[Math.max(0, posto - 1)] / 1e3;
+    }
+
+    public static void main(String[] args) {
+        int porta = SimpletronServer.PORTA_PADRAO;
+        Path arquivoSocket = null;
+        int conexoes = CONEXOES_PADRAO;
+        long requisicoes = REQUISICOES_PADRAO;
+        double segundos = 0;
+        double aquecimento = 0;
+        Path arquivoEntradas = null;
+        long maxPassos = 0;
+        Path programa = null;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-p":
+                        porta = Integer.parseInt(argumento(args, ++i));
+                        break;
+                    case "-u":
+                        arquivoSocket = Path.of(argumento(args, ++i));
+                        break;
+                    case "-c":
+                        conexoes = Integer.parseInt(argumento(args, ++i));
+                        break;
+                    case "-n":
+                        requisicoes = Long.parseLong(argumento(args, ++i));
+                        break;
+                    case "-d":
+                        segundos = Double.parseDouble(argumento(args, ++i));
+                        break;
+                    case "-w":
+                        aquecimento = Double.parseDouble(argumento(args, ++i));
+                        break;
+                    case "-e":
+                        arquivoEntradas = Path.of(argumento(args, ++i));
+                        break;
+                    case "-m":
+                        maxPassos = Long.parseLong(argumento(args, ++i));
+                        break;
+                    default:
+                        if (programa != null) {
+                            uso();
+                        }
+                        programa = Path.of(args[i]);
+                }
+            }
+        } catch (NumberFormatException ex) {
+            uso();
+            return;
+        }
+        if (programa == null || conexoes <= 0) {
+            uso();
+            return;
+        }
+
+        try {
+            String[] linhas = Files.readAllLines(programa).toArray(new String[0]);
+            int[] entradas = new int[0];
+            if (arquivoEntradas != null) {
+                MappedInputChannel canal = MappedInputChannel.abrir(arquivoEntradas);
+                List<Integer> valores = new ArrayList<>();
+                while (canal.temProximo()) {
+                    valores.add(canal.ler());
+                }
+                entradas = valores.stream().mapToInt(Integer::intValue).toArray();
+            }
+            SocketAddress endereco = arquivoSocket != null ? UnixDomainSocketAddress.of(arquivoSocket)
+                    : new InetSocketAddress(InetAddress.getLoopbackAddress(), porta);
+            LoadGenerator gerador = new LoadGenerator(endereco,
+                    ServerProtocol.montarRequisicao(linhas, entradas, maxPassos), conexoes);
+            if (aquecimento > 0) {
+                gerador.medir(Long.MAX_VALUE, (long) (aquecimento * 1e9));
+                System.out.println("Aquecimento concluído.");
+            }
+            System.out.print(segundos > 0 ? gerador.medir(Long.MAX_VALUE, (long) (segundos * 1e9))
+                    : gerador.medir(requisicoes, Long.MAX_VALUE));
+        } catch (NumberFormatException ex) {
+            System.err.println("Entrada inválida: " + ex.getMessage());
+            System.exit(2);
+        } catch (IOException ex) {
+            System.err.println("Erro de comunicação: " + ex.getMessage());
+            System.exit(2);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String argumento(String[] args, int i) {
+        if (i >= args.length) {
+            uso();
+        }
+        return args[i];
+    }
+
+    private static void uso() {
+        System.err.println("Uso: LoadGenerator [-p porta | -u arquivo.sock] [-c conexoes] [-n requisicoes | -d segundos] "
+                + "[-w segundos] [-e entradas.txt] [-m passos] programa.sml");
+        System.exit(2);
+    }
+}
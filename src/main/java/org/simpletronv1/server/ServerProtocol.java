@@ -0,0 +1,287 @@
+package org.simpletronv1.server;
+
+import org.simpletronv1.logic.ExecutionResult;
+import org.simpletronv1.logic.SimpletronLogic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.ProtocolException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * O protocolo do {@link SimpletronServer}: texto UTF-8 em linhas terminadas por '\n' (um '\r' antes do
+ * '\n' é ignorado), com campos separados por espaços. Uma conexão atende qualquer quantidade de
+ * requisições, uma de cada vez e na ordem em que chegam; o cliente pode enviar a próxima antes de
+ * receber a resposta da anterior.
+ *
+ * Requisições:
+ * <pre>
+ *   RUN &lt;linhas&gt; &lt;entradas&gt; [passos]   seguida de &lt;linhas&gt; linhas do programa, no formato de
+ *                                         carregarPrograma(), e de &lt;entradas&gt; linhas com um valor cada,
+ *                                         consumidos em ordem pelas instruções READ. O limite de passos
+ *                                         é opcional e nunca passa do limite do servidor.
+ *   PING                                  responde "PONG".
+ *   STATS                                 responde "STATS" seguido de pares nome=valor (veja {@link SimpletronServer#getEstatisticas()}).
+ *   QUIT                                  responde "BYE" e fecha a conexão.
+ * </pre>
+ *
+ * Resposta de RUN, quando o programa é carregado (mesmo que a execução termine com erro):
+ * <pre>
+ *   OK &lt;motivo&gt; &lt;passos&gt; &lt;endereço&gt; &lt;acumulador&gt; &lt;contador&gt; &lt;registrador&gt;
+ *   OUT &lt;n&gt; &lt;saída 1&gt; ... &lt;saída n&gt;
+ *   MEM &lt;n&gt; &lt;palavra 0&gt; ... &lt;palavra n-1&gt;
+ * </pre>
+ * O motivo é o nome de um {@link org.simpletronv1.logic.HaltReason} (HALTED, OVERFLOW, STEP_LIMIT...), os
+ * demais campos são os de {@link ExecutionResult} e os registradores finais da máquina. A memória é
+ * enviada sem os zeros do final: as palavras a partir de n valem 0.
+ *
+ * Quando o programa não é carregado (erro de sintaxe, ou rejeitado pela análise), ou a requisição é inválida:
+ * <pre>
+ *   ERR &lt;n&gt;
+ *   &lt;n linhas com a mensagem&gt;
+ * </pre>
+ * Depois de um erro de protocolo (comando desconhecido, números inválidos, linha longa demais) o
+ * servidor fecha a conexão, pois não sabe onde começa a próxima requisição.
+ *
+ * Exemplo, somando 3 e 4 (requisição à esquerda, resposta à direita):
+ * <pre>
+ *   RUN 7 2                          OK HALTED 7 6 7 6 4300
+ *   +1007                            OUT 1 7
+ *   +1008                            MEM 10 1007 1008 2007 3008 2109 1109 4300 3 4 7
+ *   +2007
+ *   +3008
+ *   +2109
+ *   +1109
+ *   +4300
+ *   3
+ *   4
+ * </pre>
+ */
+public final class ServerProtocol {
+
+    public static final String RUN = "RUN";
+    public static final String PING = "PING";
+    public static final String PONG = "PONG";
+    public static final String STATS = "STATS";
+    public static final String QUIT = "QUIT";
+    public static final String BYE = "BYE";
+    public static final String OK = "OK";
+    public static final String OUT = "OUT";
+    public static final String MEM = "MEM";
+    public static final String ERR = "ERR";
+
+    /** Tamanho máximo de uma linha, em bytes. */
+    public static final int TAMANHO_MAXIMO_DA_LINHA = 64 * 1024;
+
+    private ServerProtocol() {
+    }
+
+    /**
+     * Monta uma requisição RUN completa. O resultado pode ser enviado várias vezes, sem montar de novo.
+     *
+     * @param maxPassos o limite de passos, ou 0 para usar o do servidor.
+     */
+    public static byte[] montarRequisicao(String[] linhas, int[] entradas, long maxPassos) {
+        StringBuilder texto = new StringBuilder(linhas.length * 16 + entradas.length * 6 + 32);
+        texto.append(RUN).append(' ').append(linhas.length).append(' ').append(entradas.length);
+        if (maxPassos > 0) {
+            texto.append(' ').append(maxPassos);
+        }
+        texto.append('\n');
+        for (String linha : linhas) {
+            if (linha.indexOf('\n') >= 0 || linha.indexOf('\r') >= 0) {
+                throw new IllegalArgumentException("Linha do programa com quebra de linha: " + linha);
+            }
+            texto.append(linha).append('\n');
+        }
+        for (int entrada : entradas) {
+            texto.append(entrada).append('\n');
+        }
+        return texto.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Acrescenta a resposta de uma execução à resposta em montagem.
+     */
+    static void escreverResultado(StringBuilder resposta, ExecutionResult resultado, SimpletronLogic maquina,
+                                  int[] saidas) {
+        resposta.append(OK).append(' ').append(resultado.motivo().name())
+                .append(' ').append(resultado.passos())
+                .append(' ').append(resultado.endereco())
+                .append(' ').append(maquina.getAccumulator())
+                .append(' ').append(maquina.getInstructionCounter())
+                .append(' ').append(maquina.getInstructionRegister())
+                .append('\n');
+        resposta.append(OUT).append(' ').append(saidas.length);
+        for (int saida : saidas) {
+            resposta.append(' ').append(saida);
+        }
+        resposta.append('\n');
+        int[] memoria = maquina.getMemory();
+        int tamanho = memoria.length;
+        while (tamanho > 0 && memoria[tamanho - 1] == 0) {
+            tamanho--;
+        }
+        resposta.append(MEM).append(' ').append(tamanho);
+        for (int i = 0; i < tamanho; i++) {
+            resposta.append(' ').append(memoria[i]);
+        }
+        resposta.append('\n');
+    }
+
+    /**
+     * Acrescenta uma resposta de erro, com uma linha para cada linha da mensagem.
+     */
+    static void escreverErro(StringBuilder resposta, String mensagem) {
+        String[] linhas = mensagem.strip().split("\r?\n");
+        resposta.append(ERR).append(' ').append(linhas.length).append('\n');
+        for (String linha : linhas) {
+            resposta.append(linha).append('\n');
+        }
+    }
+
+    /**
+     * Lê as linhas do protocolo diretamente dos bytes recebidos, com um buffer próprio: os números são
+     * convertidos sem criar Strings, e uma linha maior que {@link #TAMANHO_MAXIMO_DA_LINHA} é recusada
+     * em vez de ocupar memória sem limite.
+     */
+    static final class Leitor {
+
+        private final InputStream origem;
+        private final byte[] buffer = new byte[8192];
+        private int inicio;
+        private int fim;
+
+        private byte[] linha = new byte[256];
+        private int tamanho;
+        private int posicao;
+
+        Leitor(InputStream origem) {
+            this.origem = origem;
+        }
+
+        /**
+         * Lê a próxima linha.
+         *
+         * @return false se a conexão terminou antes do primeiro byte da linha.
+         * @throws ProtocolException se a linha for longa demais ou a conexão terminar no meio dela.
+         */
+        boolean proximaLinha() throws IOException {
+            tamanho = 0;
+            posicao = 0;
+            boolean leuAlgo = false;
+            while (true) {
+                if (inicio == fim) {
+                    int lidos = origem.read(buffer);
+                    if (lidos < 0) {
+                        if (leuAlgo) {
+                            throw new ProtocolException("Conexão encerrada no meio de uma linha.");
+                        }
+                        return false;
+                    }
+                    inicio = 0;
+                    fim = lidos;
+                }
+                leuAlgo = true;
+                int quebra = inicio;
+                while (quebra < fim && buffer[quebra] != '\n') {
+                    quebra++;
+                }
+                acrescentar(quebra - inicio);
+                boolean terminou = quebra < fim;
+                inicio = terminou ? quebra + 1 : fim;
+                if (terminou) {
+                    if (tamanho > 0 && linha[tamanho - 1] == '\r') {
+                        tamanho--;
+                    }
+                    return true;
+                }
+            }
+        }
+
+        private void acrescentar(int quantidade) throws ProtocolException {
+            if (tamanho + quantidade > TAMANHO_MAXIMO_DA_LINHA) {
+                throw new ProtocolException("Linha maior que " + TAMANHO_MAXIMO_DA_LINHA + " bytes.");
+            }
+            if (tamanho + quantidade > linha.length) {
+                linha = Arrays.copyOf(linha, Math.max(linha.length * 2, tamanho + quantidade));
+            }
+            System.arraycopy(buffer, inicio, linha, tamanho, quantidade);
+            tamanho += quantidade;
+        }
+
+        /**
+         * @return a linha inteira.
+         */
+        String texto() {
+            return new String(linha, 0, tamanho, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return true se ainda há algum campo na linha.
+         */
+        boolean temMais() {
+            pularEspacos();
+            return posicao < tamanho;
+        }
+
+        /**
+         * @return o próximo campo da linha.
+         * @throws ProtocolException se não houver mais campos.
+         */
+        String palavra() throws ProtocolException {
+            pularEspacos();
+            int comeco = posicao;
+            while (posicao < tamanho && linha[posicao] != ' ') {
+                posicao++;
+            }
+            if (comeco == posicao) {
+                throw new ProtocolException("Campo ausente: " + texto());
+            }
+            return new String(linha, comeco, posicao - comeco, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * @return o próximo campo da linha, que deve ser um número inteiro (com sinal opcional).
+         * @throws ProtocolException se o campo não existir ou não for um número.
+         */
+        long numero() throws ProtocolException {
+            pularEspacos();
+            boolean negativo = false;
+            if (posicao < tamanho && (linha[posicao] == '-' || linha[posicao] == '+')) {
+                negativo = linha[posicao++] == '-';
+            }
+            int comeco = posicao;
+            long valor = 0;
+            while (posicao < tamanho && linha[posicao] >= '0' && linha[posicao] <= '9') {
+                if (posicao - comeco >= 18) {
+                    throw new ProtocolException("Número longo demais: " + texto());
+                }
+                valor = valor * 10 + (linha[posicao++] - '0');
+            }
+            if (comeco == posicao || (posicao < tamanho && linha[posicao] != ' ')) {
+                throw new ProtocolException("Número inválido: " + texto());
+            }
+            return negativo ? -valor : valor;
+        }
+
+        /**
+         * @return o próximo campo como int.
+         * @throws ProtocolException se não for um número ou não couber em um int.
+         */
+        int inteiro() throws ProtocolException {
+            long valor = numero();
+            if (valor < Integer.MIN_VALUE || valor > Integer.MAX_VALUE) {
+                throw new ProtocolException("Número fora do intervalo de int: " + valor);
+            }
+            return (int) valor;
+        }
+
+        private void pularEspacos() {
+            while (posicao < tamanho && linha[posicao] == ' ') {
+                posicao++;
+            }
+        }
+    }
+}
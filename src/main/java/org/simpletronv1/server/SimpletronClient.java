@@ -0,0 +1,171 @@
+package org.simpletronv1.server;
+
+import org.simpletronv1.logic.HaltReason;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Uma conexão com um {@link SimpletronServer}. Cada chamada envia uma requisição e espera a resposta;
+ * uma conexão não deve ser usada por mais de uma thread ao mesmo tempo.
+ *
+ * Exemplo:
+ * <pre>
+ *   try (SimpletronClient cliente = SimpletronClient.conectar(UnixDomainSocketAddress.of("/tmp/simpletron.sock"))) {
+ *       SimpletronClient.Resposta resposta = cliente.executar(linhas, new int[]{3, 4}, 0);
+ *   }
+ * </pre>
+ */
+public class SimpletronClient implements AutoCloseable {
+
+    /**
+     * A resposta a uma requisição RUN.
+     *
+     * @param erro                 a mensagem de erro do servidor (o programa não foi carregado), ou null.
+     * @param motivo               o motivo do término da execução, ou null se houve erro.
+     * @param passos               as instruções executadas.
+     * @param endereco             o endereço da última instrução buscada (veja {@link org.simpletronv1.logic.ExecutionResult#endereco()}).
+     * @param saidas               os valores escritos pelas instruções WRITE.
+     * @param memoria              a memória sem os zeros do final.
+     */
+    public record Resposta(String erro, HaltReason motivo, long passos, int endereco, int acumulador,
+                           int contadorInstrucao, int registradorInstrucao, int[] saidas, int[] memoria) {
+
+        /**
+         * @return true se o programa foi carregado e terminou com HALT.
+         */
+        public boolean isSucesso() {
+            return erro == null && !motivo.isErro();
+        }
+    }
+
+    private final SocketChannel canal;
+    private final OutputStream saida;
+    private final ServerProtocol.Leitor leitor;
+
+    private SimpletronClient(SocketChannel canal) {
+        this.canal = canal;
+        InputStream entrada = Channels.newInputStream(canal);
+        this.saida = Channels.newOutputStream(canal);
+        this.leitor = new ServerProtocol.Leitor(entrada);
+    }
+
+    /**
+     * @param endereco o endereço do servidor: TCP ou um {@link java.net.UnixDomainSocketAddress}.
+     */
+    public static SimpletronClient conectar(SocketAddress endereco) throws IOException {
+        SocketChannel canal = SocketChannel.open(endereco);
+        if (canal.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+            canal.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        }
+        return new SimpletronClient(canal);
+    }
+
+    /**
+     * Executa um programa no servidor.
+     *
+     * @param maxPassos o limite de passos, ou 0 para usar o do servidor.
+     */
+    public Resposta executar(String[] linhas, int[] entradas, long maxPassos) throws IOException {
+        return executar(ServerProtocol.montarRequisicao(linhas, entradas, maxPassos));
+    }
+
+    /**
+     * Envia uma requisição RUN já montada com {@link ServerProtocol#montarRequisicao} e lê a resposta.
+     */
+    public Resposta executar(byte[] requisicao) throws IOException {
+        saida.write(requisicao);
+        lerLinha();
+        String status = leitor.palavra();
+        if (status.equals(ServerProtocol.ERR)) {
+            return new Resposta(lerErro(), null, 0, -1, 0, 0, 0, new int[0], new int[0]);
+        }
+        if (!status.equals(ServerProtocol.OK)) {
+            throw new ProtocolException("Resposta inesperada: " + leitor.texto());
+        }
+        HaltReason motivo;
+        try {
+            motivo = HaltReason.valueOf(leitor.palavra());
+        } catch (IllegalArgumentException ex) {
+            throw new ProtocolException("Motivo desconhecido: " + leitor.texto());
+        }
+        long passos = leitor.numero();
+        int endereco = leitor.inteiro();
+        int acumulador = leitor.inteiro();
+        int contador = leitor.inteiro();
+        int registrador = leitor.inteiro();
+        int[] saidas = lerValores(ServerProtocol.OUT);
+        int[] memoria = lerValores(ServerProtocol.MEM);
+        return new Resposta(null, motivo, passos, endereco, acumulador, contador, registrador, saidas, memoria);
+    }
+
+    /**
+     * @return true se o servidor respondeu PONG.
+     */
+    public boolean ping() throws IOException {
+        saida.write((ServerProtocol.PING + "\n").getBytes(StandardCharsets.US_ASCII));
+        lerLinha();
+        return leitor.texto().equals(ServerProtocol.PONG);
+    }
+
+    /**
+     * @return as métricas do servidor, em pares nome=valor.
+     */
+    public String estatisticas() throws IOException {
+        saida.write((ServerProtocol.STATS + "\n").getBytes(StandardCharsets.US_ASCII));
+        lerLinha();
+        if (!leitor.palavra().equals(ServerProtocol.STATS)) {
+            throw new ProtocolException("Resposta inesperada: " + leitor.texto());
+        }
+        return leitor.texto().substring(ServerProtocol.STATS.length()).strip();
+    }
+
+    private void lerLinha() throws IOException {
+        if (!leitor.proximaLinha()) {
+            throw new ProtocolException("O servidor fechou a conexão.");
+        }
+    }
+
+    private String lerErro() throws IOException {
+        int quantidade = leitor.inteiro();
+        StringBuilder mensagem = new StringBuilder();
+        for (int i = 0; i < quantidade; i++) {
+            lerLinha();
+            mensagem.append(leitor.texto()).append('\n');
+        }
+        return mensagem.toString();
+    }
+
+    private int[] lerValores(String rotulo) throws IOException {
+        lerLinha();
+        if (!leitor.palavra().equals(rotulo)) {
+            throw new ProtocolException("Esperava " + rotulo + ": " + leitor.texto());
+        }
+        int[] valores = new int[leitor.inteiro()];
+        for (int i = 0; i < valores.length; i++) {
+            valores[i] = leitor.inteiro();
+        }
+        return valores;
+    }
+
+    /**
+     * Envia QUIT (se a conexão ainda estiver aberta) e fecha a conexão.
+     */
+    @Override
+    public void close() throws IOException {
+        try (canal) {
+            if (canal.isOpen()) {
+                saida.write((ServerProtocol.QUIT + "\n").getBytes(StandardCharsets.US_ASCII));
+            }
+        } catch (IOException ex) {
+            // O servidor já fechou a conexão
+        }
+    }
+}
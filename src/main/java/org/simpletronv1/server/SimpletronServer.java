@@ -0,0 +1,443 @@
+package org.simpletronv1.server;
+
+import org.simpletronv1.logic.ArrayInputChannel;
+import org.simpletronv1.logic.ArrayOutputChannel;
+import org.simpletronv1.logic.ExecutionResult;
+import org.simpletronv1.logic.MachineConfig;
+import org.simpletronv1.logic.ProgramAnalysis;
+import org.simpletronv1.logic.ProgramCache;
+import org.simpletronv1.logic.SimpletronLogic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A classe SimpletronServer é um servidor de execução de longa duração: recebe programas SML e suas
+ * entradas por um socket local (TCP no endereço de loopback, ou um socket de domínio Unix) e devolve
+ * as saídas e o estado final da máquina, no protocolo descrito em {@link ServerProtocol}.
+ *
+ * Com o servidor, cada submissão deixa de pagar a inicialização de uma JVM: o interpretador fica
+ * aquecido pelo JIT entre as requisições. Cada conexão é atendida por uma thread virtual, e as
+ * máquinas ({@link SimpletronLogic}) são reaproveitadas através de um pool, como em
+ * {@link org.simpletronv1.batch.ParallelExecutor}; os programas são carregados através de um
+ * {@link ProgramCache}, de modo que o mesmo programa submetido com entradas diferentes só é
+ * interpretado na primeira vez.
+ *
+ * Uso:
+ * <pre>
+ *   java org.simpletronv1.server.SimpletronServer [-p porta | -u arquivo.sock] [-m passos] [-M palavras] [-W digitos] [-a] [-o]
+ * </pre>
+ * - -p porta: escuta em 127.0.0.1, na porta informada (padrão: {@link #PORTA_PADRAO}).
+ * - -u arquivo: escuta no socket de domínio Unix informado, em vez de TCP.
+ * - -m passos: limite de instruções por requisição (padrão: 10.000.000); o cliente pode pedir menos.
+ * - -M palavras / -W digitos: a configuração das máquinas ({@link MachineConfig}), como em SimpletronBatch.
+ * - -a: rejeita, sem executar, os programas em que a análise estática encontra erros ({@link ProgramAnalysis}).
+ * - -o: executa com o otimizador ({@link org.simpletronv1.logic.ProgramOptimizer}).
+ *
+ * O servidor roda até o processo ser encerrado (Ctrl+C); o socket Unix é removido ao sair.
+ * Para medir a vazão e a latência, use {@link LoadGenerator}.
+ */
+public class SimpletronServer implements AutoCloseable {
+
+    public static final int PORTA_PADRAO = 7070;
+    public static final long LIMITE_PADRAO_DE_PASSOS = 10_000_000L;
+    public static final int CAPACIDADE_PADRAO_DO_CACHE = 1024;
+
+    /** Quantidade máxima de linhas de programa em uma requisição. */
+    public static final int LIMITE_DE_LINHAS = 1_000_000;
+    /** Quantidade máxima de entradas em uma requisição. */
+    public static final int LIMITE_DE_ENTRADAS = 1_000_000;
+
+    private final ServerSocketChannel canal;
+    private final SocketAddress endereco;
+    private final MachineConfig configuracao;
+    private final long maxPassos;
+    private final ProgramCache cache = new ProgramCache(CAPACIDADE_PADRAO_DO_CACHE);
+    private final ConcurrentLinkedQueue<SimpletronLogic> maquinas = new ConcurrentLinkedQueue<>();
+    private final Set<SocketChannel> abertas = ConcurrentHashMap.newKeySet();
+    private final ExecutorService atendentes = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread aceitador;
+    private volatile boolean analisar;
+    private volatile boolean otimizar;
+    private volatile boolean fechado;
+
+    private final LongAdder conexoes = new LongAdder();
+    private final LongAdder execucoes = new LongAdder();
+    private final LongAdder rejeitados = new LongAdder();
+    private final LongAdder errosDeProtocolo = new LongAdder();
+    private final LongAdder passos = new LongAdder();
+
+    private SimpletronServer(ServerSocketChannel canal, MachineConfig configuracao, long maxPassos) throws IOException {
+        this.canal = canal;
+        this.endereco = canal.getLocalAddress();
+        this.configuracao = configuracao;
+        this.maxPassos = maxPassos;
+        this.aceitador = Thread.ofVirtual().name("simpletron-servidor").unstarted(this::aceitar);
+    }
+
+    /**
+     * Abre o servidor no endereço informado, sem começar a aceitar conexões (veja {@link #iniciar()}).
+     *
+     * @param endereco um {@link UnixDomainSocketAddress}, ou um endereço TCP (a porta 0 escolhe uma livre).
+     * @throws IOException se o endereço não puder ser usado (ex.: porta ocupada, socket já existente).
+     */
+    public static SimpletronServer abrir(SocketAddress endereco, MachineConfig configuracao, long maxPassos)
+            throws IOException {
+        if (maxPassos <= 0) {
+            throw new IllegalArgumentException("Limite de passos inválido: " + maxPassos);
+        }
+        ServerSocketChannel canal = endereco instanceof UnixDomainSocketAddress
+                ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+                : ServerSocketChannel.open();
+        try {
+            canal.bind(endereco);
+        } catch (IOException ex) {
+            canal.close();
+            throw ex;
+        }
+        return new SimpletronServer(canal, configuracao, maxPassos);
+    }
+
+    /**
+     * Rejeita, sem executar, os programas em que a análise estática encontra erros. Deve ser chamado antes de {@link #iniciar()}.
+     */
+    public void setAnalisar(boolean analisar) {
+        this.analisar = analisar;
+    }
+
+    /**
+     * Executa com o otimizador. Deve ser chamado antes de {@link #iniciar()}.
+     */
+    public void setOtimizar(boolean otimizar) {
+        this.otimizar = otimizar;
+    }
+
+    /**
+     * Começa a aceitar conexões, em uma thread virtual.
+     */
+    public void iniciar() {
+        aceitador.start();
+    }
+
+    /**
+     * Espera até o servidor ser fechado.
+     */
+    public void aguardar() throws InterruptedException {
+        aceitador.join();
+    }
+
+    /**
+     * @return o endereço em que o servidor escuta (com a porta escolhida, se foi aberto na porta 0).
+     */
+    public SocketAddress getEndereco() {
+        return endereco;
+    }
+
+    public MachineConfig getConfiguracao() {
+        return configuracao;
+    }
+
+    public ProgramCache getCache() {
+        return cache;
+    }
+
+    /**
+     * @return as métricas do servidor em pares nome=valor, como na resposta a STATS.
+     */
+    public String getEstatisticas() {
+        return "conexoes=" + conexoes.sum() + " abertas=" + abertas.size() + " execucoes=" + execucoes.sum()
+                + " rejeitados=" + rejeitados.sum() + " errosDeProtocolo=" + errosDeProtocolo.sum()
+                + " passos=" + passos.sum() + " maquinas=" + maquinas.size()
+                + " acertosDoCache=" + cache.getAcertos() + " faltasDoCache=" + cache.getFaltas();
+    }
+
+    @Override
+    public String toString() {
+        return "SimpletronServer[" + endereco + ", " + getEstatisticas() + "]";
+    }
+
+    // --- Conexões ---
+
+    private void aceitar() {
+        while (!fechado) {
+            SocketChannel cliente;
+            try {
+                cliente = canal.accept();
+            } catch (ClosedChannelException ex) {
+                break; // close()
+            } catch (IOException ex) {
+                if (fechado) {
+                    break;
+                }
+                System.err.println("Falha ao aceitar conexão: " + ex.getMessage());
+                continue;
+            }
+            conexoes.increment();
+            abertas.add(cliente);
+            if (fechado) { // close() pode ter fechado as abertas antes desta ser incluída
+                fecharSilenciosamente(cliente);
+                break;
+            }
+            atendentes.execute(() -> atender(cliente));
+        }
+    }
+
+    private void atender(SocketChannel cliente) {
+        try (cliente) {
+            if (cliente.supportedOptions().contains(StandardSocketOptions.TCP_NODELAY)) {
+                cliente.setOption(StandardSocketOptions.TCP_NODELAY, true); // Respostas curtas, sem esperar o Nagle
+            }
+            InputStream entrada = Channels.newInputStream(cliente);
+            OutputStream saida = Channels.newOutputStream(cliente);
+            ServerProtocol.Leitor leitor = new ServerProtocol.Leitor(entrada);
+            StringBuilder resposta = new StringBuilder(1024);
+            boolean continuar = true;
+            while (continuar && leitor.proximaLinha()) {
+                resposta.setLength(0);
+                try {
+                    continuar = atenderRequisicao(leitor, resposta);
+                } catch (ProtocolException ex) {
+                    errosDeProtocolo.increment();
+                    resposta.setLength(0);
+                    ServerProtocol.escreverErro(resposta, ex.getMessage());
+                    continuar = false;
+                }
+                saida.write(resposta.toString().getBytes(StandardCharsets.UTF_8));
+            }
+        } catch (ProtocolException ex) {
+            errosDeProtocolo.increment(); // A conexão terminou no meio de uma linha
+        } catch (IOException ex) {
+            // O cliente desconectou ou o servidor foi fechado
+        } finally {
+            abertas.remove(cliente);
+        }
+    }
+
+    /**
+     * Atende a requisição cuja primeira linha acabou de ser lida.
+     *
+     * @return false se a conexão deve ser fechada depois da resposta.
+     */
+    private boolean atenderRequisicao(ServerProtocol.Leitor leitor, StringBuilder resposta) throws IOException {
+        String comando = leitor.palavra();
+        switch (comando) {
+            case ServerProtocol.RUN:
+                executar(leitor, resposta);
+                return true;
+            case ServerProtocol.PING:
+                resposta.append(ServerProtocol.PONG).append('\n');
+                return true;
+            case ServerProtocol.STATS:
+                resposta.append(ServerProtocol.STATS).append(' ').append(getEstatisticas()).append('\n');
+                return true;
+            case ServerProtocol.QUIT:
+                resposta.append(ServerProtocol.BYE).append('\n');
+                return false;
+            default:
+                throw new ProtocolException("Comando desconhecido: " + comando);
+        }
+    }
+
+    private void executar(ServerProtocol.Leitor leitor, StringBuilder resposta) throws IOException {
+        int quantidadeDeLinhas = leitor.inteiro();
+        int quantidadeDeEntradas = leitor.inteiro();
+        long limite = leitor.temMais() ? leitor.numero() : maxPassos;
+        if (quantidadeDeLinhas < 0 || quantidadeDeLinhas > LIMITE_DE_LINHAS) {
+            throw new ProtocolException("Quantidade de linhas inválida: " + quantidadeDeLinhas);
+        }
+        if (quantidadeDeEntradas < 0 || quantidadeDeEntradas > LIMITE_DE_ENTRADAS) {
+            throw new ProtocolException("Quantidade de entradas inválida: " + quantidadeDeEntradas);
+        }
+        if (limite <= 0 || limite > maxPassos) {
+            limite = maxPassos;
+        }
+
+        String[] linhas = new String[quantidadeDeLinhas];
+        for (int i = 0; i < linhas.length; i++) {
+            if (!leitor.proximaLinha()) {
+                throw new ProtocolException("Conexão encerrada no meio do programa.");
+            }
+            linhas[i] = leitor.texto();
+        }
+        int[] entradas = new int[quantidadeDeEntradas];
+        for (int i = 0; i < entradas.length; i++) {
+            if (!leitor.proximaLinha()) {
+                throw new ProtocolException("Conexão encerrada no meio das entradas.");
+            }
+            entradas[i] = leitor.inteiro();
+        }
+
+        SimpletronLogic maquina = maquinas.poll();
+        if (maquina == null) {
+            maquina = new SimpletronLogic(configuracao);
+        }
+        maquina.setOtimizar(otimizar);
+        try {
+            String erro = cache.carregar(maquina, linhas);
+            if (erro == null && analisar) {
+                ProgramAnalysis analise = cache.getAnalise(configuracao, linhas);
+                if (analise == null) {
+                    analise = maquina.analisar(); // O programa já saiu do cache
+                }
+                if (analise.hasErros()) {
+                    erro = "Programa rejeitado pela análise: " + analise.getProblemas().get(0).mensagem();
+                }
+            }
+            if (erro != null) {
+                rejeitados.increment();
+                ServerProtocol.escreverErro(resposta, erro);
+                return;
+            }
+            ArrayOutputChannel saidas = new ArrayOutputChannel();
+            ExecutionResult resultado = maquina.run(limite, new ArrayInputChannel(entradas), saidas);
+            execucoes.increment();
+            passos.add(resultado.passos());
+            ServerProtocol.escreverResultado(resposta, resultado, maquina, saidas.getValores());
+        } finally {
+            maquina.reiniciar();
+            maquinas.offer(maquina);
+        }
+    }
+
+    /**
+     * Para de aceitar conexões, fecha as conexões abertas e espera as execuções em andamento terminarem.
+     * Um socket Unix é removido.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (fechado) {
+                return;
+            }
+            fechado = true;
+        }
+        canal.close();
+        for (SocketChannel cliente : abertas) {
+            fecharSilenciosamente(cliente);
+        }
+        atendentes.close();
+        if (endereco instanceof UnixDomainSocketAddress unix) {
+            Files.deleteIfExists(unix.getPath());
+        }
+    }
+
+    private static void fecharSilenciosamente(SocketChannel cliente) {
+        try {
+            cliente.close();
+        } catch (IOException ex) {
+            // Já está sendo descartada
+        }
+    }
+
+    public static void main(String[] args) {
+        int porta = PORTA_PADRAO;
+        Path arquivoSocket = null;
+        long maxPassos = LIMITE_PADRAO_DE_PASSOS;
+        int palavras = MachineConfig.CLASSICA.getTamanhoMemoria();
+        int digitos = 0; // 0: os mínimos para o tamanho da memória
+        boolean analisar = false;
+        boolean otimizar = false;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-p":
+                        porta = Integer.parseInt(argumento(args, ++i));
+                        break;
+                    case "-u":
+                        arquivoSocket = Path.of(argumento(args, ++i));
+                        break;
+                    case "-m":
+                        maxPassos = Long.parseLong(argumento(args, ++i));
+                        break;
+                    case "-M":
+                        palavras = Integer.parseInt(argumento(args, ++i));
+                        break;
+                    case "-W":
+                        digitos = Integer.parseInt(argumento(args, ++i));
+                        break;
+                    case "-a":
+                        analisar = true;
+                        break;
+                    case "-o":
+                        otimizar = true;
+                        break;
+                    default:
+                        uso();
+                        return;
+                }
+            }
+        } catch (NumberFormatException ex) {
+            uso();
+            return;
+        }
+
+        SimpletronServer servidor;
+        try {
+            MachineConfig configuracao = digitos == 0 ? MachineConfig.comTamanho(palavras)
+                    : new MachineConfig(palavras, digitos);
+            SocketAddress endereco = arquivoSocket != null ? UnixDomainSocketAddress.of(arquivoSocket)
+                    : new InetSocketAddress(InetAddress.getLoopbackAddress(), porta);
+            servidor = abrir(endereco, configuracao, maxPassos);
+        } catch (IllegalArgumentException ex) {
+            System.err.println(ex.getMessage());
+            uso();
+            return;
+        } catch (IOException ex) {
+            System.err.println("Não foi possível abrir o servidor: " + ex.getMessage());
+            System.exit(2);
+            return;
+        }
+        servidor.setAnalisar(analisar);
+        servidor.setOtimizar(otimizar);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                servidor.close();
+            } catch (IOException ex) {
+                System.err.println("Falha ao fechar o servidor: " + ex.getMessage());
+            }
+            System.out.println("Servidor encerrado: " + servidor.getEstatisticas());
+        }));
+        servidor.iniciar();
+        System.out.println("Servidor Simpletron escutando em " + servidor.getEndereco() + " ("
+                + servidor.getConfiguracao() + ", até " + maxPassos + " passos por requisição)");
+        try {
+            servidor.aguardar();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static String argumento(String[] args, int i) {
+        if (i >= args.length) {
+            uso();
+        }
+        return args[i];
+    }
+
+    private static void uso() {
+        System.err.println("Uso: SimpletronServer [-p porta | -u arquivo.sock] [-m passos] [-M palavras] [-W digitos] [-a] [-o]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,50 @@
+package org.simpletronv1.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Confere o formato binário de {@link MachineSnapshot}: a ida e volta do estado e a validação na leitura.
+ */
+class MachineSnapshotTest {
+
+    private static final String[] SOMA = {"+1007 // lê A", "+1008", "+2007", "+3008", "+2109", "+1109", "+4300"};
+
+    // Posições no formato binário: depois de MAGICO, VERSAO, tamanho da memória e passos
+    private static final int ACUMULADOR = 16;
+    private static final int MEMORIA = 24;
+
+    @Test
+    void idaEVoltaPreservaOEstado() {
+        SimpletronLogic maquina = new SimpletronLogic();
+        maquina.carregarPrograma(SOMA);
+        maquina.run(4, new ArrayInputChannel(3, 4), valor -> { });
+
+        byte[] dados = MachineSnapshot.capturar(maquina).paraBytes();
+        MachineSnapshot lido = MachineSnapshot.deBytes(dados);
+        assertEquals(7, lido.getAccumulator());
+        assertEquals(4, lido.getInstructionCounter());
+        assertEquals(4, lido.getPassosExecutados());
+        assertEquals("lê A", lido.getCommentAt(0));
+        assertArrayEquals(dados, lido.paraBytes());
+    }
+
+    @Test
+    void recusaPalavraForaDoIntervalo() {
+        byte[] dados = MachineSnapshot.capturar(new SimpletronLogic()).paraBytes();
+        ByteBuffer.wrap(dados).putShort(MEMORIA + 2 * 5, (short) 32000);
+        assertThrows(IllegalArgumentException.class, () -> MachineSnapshot.deBytes(dados));
+    }
+
+    @Test
+    void recusaAcumuladorForaDoIntervalo() {
+        byte[] dados = MachineSnapshot.capturar(new SimpletronLogic()).paraBytes();
+        ByteBuffer.wrap(dados).putInt(ACUMULADOR, 10000);
+        assertThrows(IllegalArgumentException.class, () -> MachineSnapshot.deBytes(dados));
+    }
+}
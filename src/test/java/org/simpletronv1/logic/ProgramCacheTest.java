@@ -0,0 +1,46 @@
+package org.simpletronv1.logic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confere que o {@link ProgramCache} separa as entradas de um mesmo texto por configuração da máquina.
+ */
+class ProgramCacheTest {
+
+    private static final String[] SOMA = {"+1007", "+1008", "+2007", "+3008", "+2109", "+1109", "+4300"};
+
+    private static final MachineConfig GRANDE = MachineConfig.comTamanho(1000);
+
+    @Test
+    void mesmoTextoEmDuasConfiguracoesAcertaNasDuas() {
+        ProgramCache cache = new ProgramCache(16);
+        SimpletronLogic classica = new SimpletronLogic();
+        SimpletronLogic grande = new SimpletronLogic(GRANDE);
+
+        for (int i = 0; i < 3; i++) {
+            assertNull(cache.carregar(classica, SOMA));
+            assertNull(cache.carregar(grande, SOMA));
+        }
+        assertEquals(2, cache.getTamanho());
+        assertEquals(2, cache.getFaltas());
+        assertEquals(4, cache.getAcertos());
+        assertEquals(1000, grande.getMemory().length);
+    }
+
+    @Test
+    void contemEAnaliseConferemAConfiguracao() {
+        ProgramCache cache = new ProgramCache(16);
+        cache.carregar(new SimpletronLogic(), SOMA);
+
+        assertTrue(cache.contem(MachineConfig.CLASSICA, SOMA));
+        assertFalse(cache.contem(GRANDE, SOMA));
+        assertNotNull(cache.getAnalise(MachineConfig.CLASSICA, SOMA));
+        assertNull(cache.getAnalise(GRANDE, SOMA));
+    }
+}
@@ -0,0 +1,171 @@
+package org.simpletronv1.logic;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import javax.management.ObjectName;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Confere as métricas de execução ({@link SimpletronMetrics}) e os eventos do Java Flight Recorder
+ * contra programas conhecidos.
+ */
+class SimpletronMetricsTest {
+
+    /** Lê dois valores, imprime a soma e para: 7 instruções. */
+    private static final String[] SOMA = {"+1007", "+1008", "+2007", "+3008", "+2109", "+1109", "+4300"};
+
+    /** Divide o primeiro valor lido pelo segundo. */
+    private static final String[] DIVISAO = {"+1005", "+1006", "+2005", "+3206", "+4300"};
+
+    /** Soma 9999 a si mesmo: estouro na segunda instrução. */
+    private static final String[] ESTOURO = {"+2003", "+3003", "+4300", "+9999"};
+
+    /** Desvia para si mesmo para sempre. */
+    private static final String[] LACO = {"+4000"};
+
+    @Test
+    void contaInstrucoesTerminosECargasDeProgramasConhecidos() {
+        SimpletronMetrics metricas = new SimpletronMetrics();
+        long passos = 0;
+
+        ExecutionResult soma = executar(metricas, SOMA, 1000, 3, 4);
+        assertEquals(HaltReason.HALTED, soma.motivo());
+        assertEquals(7, soma.passos());
+        passos += soma.passos();
+
+        ExecutionResult divisao = executar(metricas, DIVISAO, 1000, 8, 0);
+        assertEquals(HaltReason.DIVIDE_BY_ZERO, divisao.motivo());
+        passos += divisao.passos();
+
+        ExecutionResult estouro = executar(metricas, ESTOURO, 1000);
+        assertEquals(HaltReason.OVERFLOW, estouro.motivo());
+        passos += estouro.passos();
+
+        ExecutionResult invalido = executar(metricas, new String[]{"+9900"}, 1000);
+        assertEquals(HaltReason.INVALID_OPCODE, invalido.motivo());
+        passos += invalido.passos();
+
+        ExecutionResult esgotada = executar(metricas, SOMA, 1000, 3);
+        assertEquals(HaltReason.INPUT_EXHAUSTED, esgotada.motivo());
+        passos += esgotada.passos();
+
+        ExecutionResult limite = executar(metricas, LACO, 1000);
+        assertEquals(HaltReason.STEP_LIMIT, limite.motivo());
+        assertEquals(1000, limite.passos());
+        passos += limite.passos();
+
+        // A mesma soma pelo mecanismo compilado e por executarPasso()
+        SimpletronLogic compilada = carregar(metricas, SOMA);
+        passos += CompiledEngine.compilar(compilada)
+                .run(1000, new ArrayInputChannel(3, 4), valor -> { }).passos();
+        SimpletronLogic porPasso = carregar(metricas, SOMA);
+        porPasso.conectarCanais(new ArrayInputChannel(3, 4), valor -> { });
+        int codigo;
+        do {
+            codigo = porPasso.executarPasso();
+            passos++;
+        } while (codigo != SimpletronLogic.HALT && codigo >= 0);
+
+        // Sair do fim da memória termina como HALT; a chamada seguinte não executa nada e não conta outro término
+        String[] semFim = new String[100];
+        Arrays.fill(semFim, "+0000");
+        semFim[0] = "+4099";
+        semFim[99] = "+2000";
+        SimpletronLogic semHalt = carregar(metricas, semFim);
+        for (int i = 0; i < 2; i++) {
+            passos += semHalt.run(1000, new ArrayInputChannel(), valor -> { }).passos();
+        }
+
+        SimpletronLogic rejeitado = new SimpletronLogic();
+        rejeitado.setMetricas(metricas);
+        assertNotNull(rejeitado.carregarPrograma(new String[]{"abc"}));
+
+        assertEquals(passos, metricas.getInstrucoesExecutadas());
+        assertEquals(9, metricas.getExecucoes());
+        assertEquals(4, metricas.getProgramasConcluidos());
+        assertEquals(1, metricas.getErrosDivisaoPorZero());
+        assertEquals(1, metricas.getErrosEstouro());
+        assertEquals(1, metricas.getErrosCodigoInvalido());
+        assertEquals(1, metricas.getErrosEntradaEsgotada());
+        assertEquals(0, metricas.getErrosEntradaInvalida());
+        assertEquals(1, metricas.getInterrupcoesPorLimite());
+        assertEquals(10, metricas.getProgramasCarregados());
+        assertEquals(1, metricas.getErrosDeCarga());
+
+        metricas.zerar();
+        assertEquals(0, metricas.getInstrucoesExecutadas());
+        assertEquals(0, metricas.getExecucoes());
+        assertEquals(0, metricas.getProgramasCarregados());
+    }
+
+    @Test
+    void publicaAsMetricasGlobaisViaJmx() throws Exception {
+        SimpletronLogic maquina = new SimpletronLogic();
+        assertSame(SimpletronMetrics.getGlobal(), maquina.getMetricas());
+        long antes = SimpletronMetrics.getGlobal().getInstrucoesExecutadas();
+        maquina.carregarPrograma(SOMA);
+        maquina.run(1000, new ArrayInputChannel(3, 4), valor -> { });
+
+        Object lido = ManagementFactory.getPlatformMBeanServer()
+                .getAttribute(new ObjectName(SimpletronMetrics.NOME), "InstrucoesExecutadas");
+        assertEquals(antes + 7, lido);
+    }
+
+    @Test
+    void emiteEventosDeCargaExecucaoEEsperaDeEntrada() throws Exception {
+        Path arquivo = Files.createTempFile("simpletron", ".jfr");
+        try (Recording gravacao = new Recording()) {
+            gravacao.enable("org.simpletronv1.ProgramLoad");
+            gravacao.enable("org.simpletronv1.ProgramRun").withThreshold(Duration.ZERO);
+            gravacao.enable("org.simpletronv1.IoWait").withThreshold(Duration.ZERO);
+            gravacao.start();
+            SimpletronLogic maquina = new SimpletronLogic();
+            maquina.setMetricas(null);
+            maquina.carregarPrograma(SOMA);
+            maquina.run(1000, new StreamInputChannel(new StringReader("3 4")), valor -> { });
+            gravacao.stop();
+            gravacao.dump(arquivo);
+
+            List<RecordedEvent> eventos = RecordingFile.readAllEvents(arquivo);
+            assertEquals(1, doTipo(eventos, "org.simpletronv1.ProgramLoad").size());
+            List<RecordedEvent> execucoes = doTipo(eventos, "org.simpletronv1.ProgramRun");
+            assertEquals(1, execucoes.size());
+            assertEquals(7, execucoes.get(0).getLong("passos"));
+            assertEquals("HALTED", execucoes.get(0).getString("motivo"));
+            assertFalse(doTipo(eventos, "org.simpletronv1.IoWait").isEmpty());
+        } finally {
+            Files.deleteIfExists(arquivo);
+        }
+    }
+
+    private static List<RecordedEvent> doTipo(List<RecordedEvent> eventos, String nome) {
+        return eventos.stream().filter(evento -> evento.getEventType().getName().equals(nome)).toList();
+    }
+
+    private static SimpletronLogic carregar(SimpletronMetrics metricas, String[] programa) {
+        SimpletronLogic maquina = new SimpletronLogic();
+        maquina.setMetricas(metricas);
+        assertNull(maquina.carregarPrograma(programa));
+        return maquina;
+    }
+
+    private static ExecutionResult executar(SimpletronMetrics metricas, String[] programa, long maxPassos,
+                                            int... entradas) {
+        return carregar(metricas, programa).run(maxPassos, new ArrayInputChannel(entradas), valor -> { });
+    }
+}
@@ -0,0 +1,59 @@
+package org.simpletronv1.logic;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Confere a navegação pelo histórico de execução ({@link UndoLog}) nos seus limites.
+ */
+class UndoLogTest {
+
+    /** Lê dois valores, imprime a soma e para: 7 instruções. */
+    private static final String[] SOMA = {"+1007", "+1008", "+2007", "+3008", "+2109", "+1109", "+4300"};
+
+    @Test
+    void historicoVazioAceitaOPassoAtualERecusaOsDemais() {
+        SimpletronLogic maquina = new SimpletronLogic();
+        maquina.carregarPrograma(SOMA);
+        maquina.setHistorico(new UndoLog(64, 16, 8));
+
+        assertTrue(maquina.irParaPasso(0));
+        assertTrue(maquina.voltarPassos(0));
+        assertFalse(maquina.voltarPassos(1));
+        assertFalse(maquina.irParaPasso(1));
+        assertEquals(0, maquina.getPassosExecutados());
+        assertEquals(0, maquina.getInstructionCounter());
+    }
+
+    @Test
+    void historicoEsvaziadoPelaCargaAceitaOPassoAtual() {
+        SimpletronLogic maquina = new SimpletronLogic();
+        maquina.setHistorico(new UndoLog(64, 16, 8));
+        maquina.carregarPrograma(SOMA);
+        maquina.run(1000, new ArrayInputChannel(3, 4), valor -> { });
+        maquina.carregarPrograma(SOMA);
+
+        assertTrue(maquina.irParaPasso(0));
+        assertTrue(maquina.voltarPassos(0));
+        assertFalse(maquina.irParaPasso(3));
+    }
+
+    @Test
+    void voltaEAvancaDepoisDeExecutar() {
+        SimpletronLogic maquina = new SimpletronLogic();
+        maquina.carregarPrograma(SOMA);
+        maquina.setHistorico(new UndoLog(64, 16, 8));
+        maquina.run(1000, new ArrayInputChannel(3, 4), valor -> { });
+        assertEquals(7, maquina.getPassosExecutados());
+
+        assertTrue(maquina.voltarPassos(3));
+        assertEquals(4, maquina.getPassosExecutados());
+        assertEquals(4, maquina.getInstructionCounter());
+        assertTrue(maquina.irParaPasso(7));
+        assertEquals(7, maquina.getAccumulator());
+        assertFalse(maquina.irParaPasso(8));
+    }
+}